@@ -0,0 +1,114 @@
+package org.interledger.benchmarks;
+
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerCondition;
+import org.interledger.core.InterledgerFulfillPacket;
+import org.interledger.core.InterledgerFulfillment;
+import org.interledger.core.InterledgerPacketType;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.SharedSecret;
+import org.interledger.stream.Denomination;
+import org.interledger.stream.StreamPacket;
+import org.interledger.stream.frames.ConnectionAssetDetailsFrame;
+import org.interledger.stream.frames.ConnectionNewAddressFrame;
+import org.interledger.stream.frames.StreamMoneyFrame;
+
+import com.google.common.primitives.UnsignedLong;
+
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * Deterministic packets and secrets shared by all benchmarks so that results are comparable across runs.
+ */
+public final class BenchmarkFixtures {
+
+  /**
+   * The size of the opaque {@code data} payload carried by ILP packets in the codec benchmarks. This is roughly the
+   * size of an encrypted STREAM packet carrying a money frame and a handful of control frames.
+   */
+  public static final int DATA_SIZE = 256;
+
+  public static final InterledgerAddress DESTINATION = InterledgerAddress.of("g.benchmarks.receiver.connection");
+
+  public static final Instant EXPIRES_AT = Instant.parse("2020-01-01T00:00:00.123Z");
+
+  private BenchmarkFixtures() {
+  }
+
+  /**
+   * Fill a new byte array of {@code size} bytes with pseudo-random data derived from {@code seed}.
+   *
+   * @param size The number of bytes to generate.
+   * @param seed A seed so that the same bytes are produced for every run.
+   *
+   * @return A new byte array.
+   */
+  public static byte[] bytes(final int size, final long seed) {
+    final byte[] bytes = new byte[size];
+    new Random(seed).nextBytes(bytes);
+    return bytes;
+  }
+
+  /**
+   * A 32-byte {@link SharedSecret} that does not change between runs.
+   *
+   * @return A {@link SharedSecret}.
+   */
+  public static SharedSecret sharedSecret() {
+    return SharedSecret.of(bytes(32, 1L));
+  }
+
+  /**
+   * A typical Prepare packet with a {@link #DATA_SIZE}-byte payload.
+   *
+   * @return An {@link InterledgerPreparePacket}.
+   */
+  public static InterledgerPreparePacket preparePacket() {
+    return InterledgerPreparePacket.builder()
+        .amount(UnsignedLong.valueOf(1_000_000L))
+        .expiresAt(EXPIRES_AT)
+        .executionCondition(InterledgerCondition.of(bytes(32, 2L)))
+        .destination(DESTINATION)
+        .data(bytes(DATA_SIZE, 3L))
+        .build();
+  }
+
+  /**
+   * A typical Fulfill packet with a {@link #DATA_SIZE}-byte payload.
+   *
+   * @return An {@link InterledgerFulfillPacket}.
+   */
+  public static InterledgerFulfillPacket fulfillPacket() {
+    return InterledgerFulfillPacket.builder()
+        .fulfillment(InterledgerFulfillment.of(bytes(32, 4L)))
+        .data(bytes(DATA_SIZE, 5L))
+        .build();
+  }
+
+  /**
+   * A STREAM packet shaped like the first packet of a payment: a money frame plus the connection control frames.
+   *
+   * @return A {@link StreamPacket}.
+   */
+  public static StreamPacket streamPacket() {
+    return StreamPacket.builder()
+        .interledgerPacketType(InterledgerPacketType.PREPARE)
+        .sequence(UnsignedLong.ONE)
+        .prepareAmount(UnsignedLong.valueOf(1_000_000L))
+        .addFrames(StreamMoneyFrame.builder()
+            .streamId(UnsignedLong.ONE)
+            .shares(UnsignedLong.ONE)
+            .build())
+        .addFrames(ConnectionNewAddressFrame.builder()
+            .sourceAddress(InterledgerAddress.of("g.benchmarks.sender"))
+            .build())
+        .addFrames(ConnectionAssetDetailsFrame.builder()
+            .sourceDenomination(Denomination.builder()
+                .assetCode("XRP")
+                .assetScale((short) 9)
+                .build())
+            .build())
+        .build();
+  }
+}
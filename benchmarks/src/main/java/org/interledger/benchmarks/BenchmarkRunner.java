@@ -0,0 +1,46 @@
+package org.interledger.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Accepts the same arguments as {@code org.openjdk.jmh.Main}, but always
+ * attaches the {@link GCProfiler} so that every result carries its allocation rate ({@code gc.alloc.rate.norm} is the
+ * number of bytes allocated per operation).
+ */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+  }
+
+  public static void main(final String[] args) throws IOException, RunnerException, CommandLineOptionException {
+    final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    if (commandLineOptions.shouldHelp()) {
+      commandLineOptions.showHelp();
+      return;
+    }
+    if (commandLineOptions.shouldList()) {
+      new Runner(commandLineOptions).list();
+      return;
+    }
+
+    final ChainedOptionsBuilder options = new OptionsBuilder()
+        .parent(commandLineOptions);
+
+    final boolean gcProfilerRequested = commandLineOptions.getProfilers().stream()
+        .anyMatch(profiler -> GCProfiler.class.getName().equals(profiler.getKlass())
+            || "gc".equals(profiler.getKlass()));
+    if (!gcProfilerRequested) {
+      options.addProfiler(GCProfiler.class);
+    }
+
+    new Runner(options.build()).run();
+  }
+}
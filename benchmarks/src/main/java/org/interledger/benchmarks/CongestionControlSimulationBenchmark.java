@@ -0,0 +1,236 @@
+package org.interledger.benchmarks;
+
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerErrorCode;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.stream.AmountTooLargeErrorData;
+import org.interledger.stream.sender.AimdCongestionController;
+import org.interledger.stream.sender.AtomicAimdCongestionController;
+import org.interledger.stream.sender.CongestionController;
+import org.interledger.stream.sender.LatencyAwareCongestionController;
+
+import com.google.common.base.Ticker;
+import com.google.common.primitives.UnsignedLong;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Compares {@link CongestionController}s by sending one payment of {@link #PAYMENT_AMOUNT} over a simulated path,
+ * in simulated time, the way {@code AsyncStreamSender} does: as many packets as the window allows, and more after each
+ * response.</p>
+ *
+ * <p>Each packet is fulfilled after {@link #rttMillis} plus up to a quarter of it as jitter. A packet larger than
+ * {@link #maxPacketAmount} is rejected with F08 after half a round trip, and a packet that would take the amount in
+ * flight on the path above {@link #liquidity} is rejected with T04 after half a round trip. The jitter is seeded, so
+ * every run of a parameter combination simulates the same payment. None of the controllers has a notion of absolute
+ * time, so the simulated time scales with {@link #rttMillis}, and the packets and rejections do not depend on it. Other
+ * paths can be simulated with {@code -p}.</p>
+ *
+ * <p>The score is the real time that the simulation takes. The {@link Outcome} counters are what the comparison is
+ * for: {@code simulatedMillis} until the payment completed, and the number of {@code packets} and {@code rejects} it
+ * took. Lower is better for all three.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CongestionControlSimulationBenchmark {
+
+  static final long PAYMENT_AMOUNT = 100_000_000L;
+
+  private static final InterledgerAddress CONNECTOR_ADDRESS = InterledgerAddress.of("g.benchmarks.connector");
+
+  private static final InterledgerRejectPacket T04_INSUFFICIENT_LIQUIDITY = InterledgerRejectPacket.builder()
+      .code(InterledgerErrorCode.T04_INSUFFICIENT_LIQUIDITY)
+      .triggeredBy(CONNECTOR_ADDRESS)
+      .message("insufficient liquidity")
+      .build();
+
+  @Param( {"aimd", "atomic", "latency"})
+  public String controller;
+
+  @Param( {"100"})
+  public long rttMillis;
+
+  @Param( {"200000", "20000000"})
+  public long liquidity;
+
+  @Param( {"100000"})
+  public long maxPacketAmount;
+
+  @Benchmark
+  public Outcome simulatePayment(final Outcome outcome) {
+    new SimulatedPayment(outcome).run();
+    return outcome;
+  }
+
+  /**
+   * The outcome of the last simulated payment. Every payment with the same parameters has the same outcome.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Outcome {
+
+    public long simulatedMillis;
+    public long packets;
+    public long rejects;
+  }
+
+  /**
+   * A response that arrives at a point in simulated time.
+   */
+  private static final class Response implements Comparable<Response> {
+
+    private final long arrivesAtNanos;
+    private final long sentAtNanos;
+    private final long amount;
+    private final InterledgerRejectPacket rejectPacket;
+
+    private Response(
+        final long arrivesAtNanos, final long sentAtNanos, final long amount, final InterledgerRejectPacket rejectPacket
+    ) {
+      this.arrivesAtNanos = arrivesAtNanos;
+      this.sentAtNanos = sentAtNanos;
+      this.amount = amount;
+      this.rejectPacket = rejectPacket;
+    }
+
+    @Override
+    public int compareTo(final Response other) {
+      return Long.compare(arrivesAtNanos, other.arrivesAtNanos);
+    }
+  }
+
+  /**
+   * One payment over the simulated path.
+   */
+  private final class SimulatedPayment {
+
+    private final Outcome outcome;
+    private final Random jitter = new Random(42L);
+    private final PriorityQueue<Response> responses = new PriorityQueue<>();
+    private final long rttNanos = TimeUnit.MILLISECONDS.toNanos(rttMillis);
+    private final CongestionController congestionController;
+
+    private long nowNanos;
+    private long amountLeft = PAYMENT_AMOUNT;
+    private long amountInFlightOnPath;
+    private long packets;
+    private long rejects;
+
+    private SimulatedPayment(final Outcome outcome) {
+      this.outcome = outcome;
+      switch (controller) {
+        case "aimd":
+          this.congestionController = new AimdCongestionController();
+          break;
+        case "atomic":
+          this.congestionController = new AtomicAimdCongestionController();
+          break;
+        case "latency":
+          this.congestionController = new LatencyAwareCongestionController(
+              UnsignedLong.valueOf(1000L), StreamCodecContextFactory.oer(), new Ticker() {
+                @Override
+                public long read() {
+                  return nowNanos;
+                }
+              });
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown controller: " + controller);
+      }
+    }
+
+    private void run() {
+      while (true) {
+        sendPackets();
+        final Response response = responses.poll();
+        if (response == null) {
+          break;
+        }
+        nowNanos = response.arrivesAtNanos;
+        if (response.rejectPacket == null) {
+          amountInFlightOnPath -= response.amount;
+          congestionController.fulfill(
+              UnsignedLong.valueOf(response.amount), Duration.ofNanos(nowNanos - response.sentAtNanos)
+          );
+        } else {
+          amountLeft += response.amount;
+          rejects++;
+          congestionController.reject(UnsignedLong.valueOf(response.amount), response.rejectPacket);
+        }
+      }
+      if (amountLeft != 0) {
+        throw new IllegalStateException("Simulated payment stalled with " + amountLeft + " left to send");
+      }
+      outcome.simulatedMillis = TimeUnit.NANOSECONDS.toMillis(nowNanos);
+      outcome.packets = packets;
+      outcome.rejects = rejects;
+    }
+
+    /**
+     * Send as many packets as the congestion window allows.
+     */
+    private void sendPackets() {
+      while (amountLeft > 0) {
+        final long amount = Math.min(congestionController.getMaxAmount().longValue(), amountLeft);
+        if (amount == 0) {
+          return;
+        }
+        congestionController.prepare(UnsignedLong.valueOf(amount));
+        amountLeft -= amount;
+        packets++;
+
+        if (amount > maxPacketAmount) {
+          responses.add(new Response(nowNanos + rttNanos / 2, nowNanos, amount, f08(amount)));
+        } else if (amountInFlightOnPath + amount > liquidity) {
+          responses.add(new Response(nowNanos + rttNanos / 2, nowNanos, amount, T04_INSUFFICIENT_LIQUIDITY));
+        } else {
+          amountInFlightOnPath += amount;
+          final long jitterNanos = (long) (jitter.nextDouble() * rttNanos / 4);
+          responses.add(new Response(nowNanos + rttNanos + jitterNanos, nowNanos, amount, null));
+        }
+      }
+    }
+
+    private InterledgerRejectPacket f08(final long amount) {
+      final ByteArrayOutputStream data = new ByteArrayOutputStream();
+      try {
+        StreamCodecContextFactory.oer().write(AmountTooLargeErrorData.builder()
+                .receivedAmount(UnsignedLong.valueOf(amount))
+                .maximumAmount(UnsignedLong.valueOf(maxPacketAmount))
+                .build(),
+            data
+        );
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return InterledgerRejectPacket.builder()
+          .code(InterledgerErrorCode.F08_AMOUNT_TOO_LARGE)
+          .triggeredBy(CONNECTOR_ADDRESS)
+          .message("amount too large")
+          .data(data.toByteArray())
+          .build();
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package org.interledger.benchmarks;
+
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerErrorCode;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.stream.sender.AimdCongestionController;
+import org.interledger.stream.sender.AtomicAimdCongestionController;
+import org.interledger.stream.sender.CongestionController;
+
+import com.google.common.primitives.UnsignedLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the calls that a STREAM sender makes on its {@link CongestionController} for each packet, with
+ * {@value #THREADS} threads sharing one controller, as the worker threads of a payment do. The {@code aimd}
+ * controller is {@link AimdCongestionController}, and the {@code atomic} controller is
+ * {@link AtomicAimdCongestionController}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(CongestionControllerBenchmark.THREADS)
+@State(Scope.Benchmark)
+public class CongestionControllerBenchmark {
+
+  static final int THREADS = 8;
+
+  private static final UnsignedLong PACKET_AMOUNT = UnsignedLong.valueOf(1_000L);
+
+  private static final InterledgerRejectPacket T04_INSUFFICIENT_LIQUIDITY = InterledgerRejectPacket.builder()
+      .code(InterledgerErrorCode.T04_INSUFFICIENT_LIQUIDITY)
+      .triggeredBy(InterledgerAddress.of("g.benchmarks.connector"))
+      .message("insufficient liquidity")
+      .build();
+
+  @Param( {"aimd", "atomic"})
+  public String controller;
+
+  private CongestionController congestionController;
+
+  @Setup
+  public void setUp() {
+    switch (controller) {
+      case "aimd":
+        this.congestionController = new AimdCongestionController();
+        break;
+      case "atomic":
+        this.congestionController = new AtomicAimdCongestionController();
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown controller: " + controller);
+    }
+  }
+
+  /**
+   * A packet that is sized from the window and fulfilled.
+   */
+  @Benchmark
+  public UnsignedLong prepareFulfill() {
+    final UnsignedLong maxAmount = congestionController.getMaxAmount();
+    congestionController.prepare(PACKET_AMOUNT);
+    congestionController.fulfill(PACKET_AMOUNT);
+    return maxAmount;
+  }
+
+  /**
+   * A packet that is sized from the window and rejected with T04, which shrinks the window.
+   */
+  @Benchmark
+  public UnsignedLong prepareReject() {
+    final UnsignedLong maxAmount = congestionController.getMaxAmount();
+    congestionController.prepare(PACKET_AMOUNT);
+    congestionController.reject(PACKET_AMOUNT, T04_INSUFFICIENT_LIQUIDITY);
+    return maxAmount;
+  }
+}
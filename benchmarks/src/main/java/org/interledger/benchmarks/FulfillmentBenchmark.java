@@ -0,0 +1,54 @@
+package org.interledger.benchmarks;
+
+import org.interledger.core.InterledgerFulfillment;
+import org.interledger.core.SharedSecret;
+import org.interledger.stream.StreamUtils;
+import org.interledger.stream.crypto.FulfillmentGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link StreamUtils#generatedFulfillableFulfillment(SharedSecret, byte[])} and
+ * {@link FulfillmentGenerator#generateFulfillment(SharedSecret, byte[])}, one of which both the STREAM sender and
+ * receiver run once per packet.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FulfillmentBenchmark {
+
+  private SharedSecret sharedSecret;
+  private byte[] data;
+  private FulfillmentGenerator fulfillmentGenerator;
+
+  @Setup
+  public void setUp() {
+    this.sharedSecret = BenchmarkFixtures.sharedSecret();
+    this.data = BenchmarkFixtures.bytes(BenchmarkFixtures.DATA_SIZE, 7L);
+    this.fulfillmentGenerator = new FulfillmentGenerator();
+  }
+
+  @Benchmark
+  public InterledgerFulfillment generatedFulfillableFulfillment() {
+    return StreamUtils.generatedFulfillableFulfillment(sharedSecret, data);
+  }
+
+  @Benchmark
+  public InterledgerFulfillment generateFulfillment() {
+    return fulfillmentGenerator.generateFulfillment(sharedSecret, data);
+  }
+}
@@ -0,0 +1,108 @@
+package org.interledger.benchmarks;
+
+import org.interledger.codecs.ilp.InterledgerCodecContextFactory;
+import org.interledger.core.InterledgerFulfillPacket;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.encoding.asn.framework.CodecContextFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CodecContext#read} and {@link CodecContext#write} for ILPv4 Prepare and Fulfill packets using the
+ * context built by {@link InterledgerCodecContextFactory#oer()}. The {@code reuseCodecs} parameter compares a context
+ * that reuses its codec trees (the default) with one that creates a new codec tree for every call. The
+ * {@code packetCodec} parameter compares the generic ASN.1 packet codecs ({@code generic}) with
+ * {@link org.interledger.codecs.ilp.InterledgerPacketCodec} ({@code optimized}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InterledgerPacketCodecBenchmark {
+
+  @Param( {"true", "false"})
+  public boolean reuseCodecs;
+
+  @Param( {"generic", "optimized"})
+  public String packetCodec;
+
+  private CodecContext codecContext;
+
+  private InterledgerPreparePacket preparePacket;
+  private InterledgerFulfillPacket fulfillPacket;
+
+  private byte[] preparePacketBytes;
+  private byte[] fulfillPacketBytes;
+
+  private ByteBuffer directBuffer;
+
+  @Setup
+  public void setUp() throws IOException {
+    final CodecContext context = CodecContextFactory.oer(reuseCodecs);
+    this.codecContext = "optimized".equals(packetCodec)
+        ? InterledgerCodecContextFactory.registerOptimized(context)
+        : InterledgerCodecContextFactory.register(context);
+    this.preparePacket = BenchmarkFixtures.preparePacket();
+    this.fulfillPacket = BenchmarkFixtures.fulfillPacket();
+    this.preparePacketBytes = encode(preparePacket);
+    this.fulfillPacketBytes = encode(fulfillPacket);
+    this.directBuffer = ByteBuffer.allocateDirect(64 * 1024);
+  }
+
+  @Benchmark
+  public byte[] writePrepare() throws IOException {
+    return encode(preparePacket);
+  }
+
+  @Benchmark
+  public InterledgerPreparePacket readPrepare() throws IOException {
+    return codecContext.read(InterledgerPreparePacket.class, new ByteArrayInputStream(preparePacketBytes));
+  }
+
+  @Benchmark
+  public byte[] writeFulfill() throws IOException {
+    return encode(fulfillPacket);
+  }
+
+  @Benchmark
+  public InterledgerFulfillPacket readFulfill() throws IOException {
+    return codecContext.read(InterledgerFulfillPacket.class, new ByteArrayInputStream(fulfillPacketBytes));
+  }
+
+  @Benchmark
+  public ByteBuffer writePrepareToBuffer() {
+    directBuffer.clear();
+    codecContext.write(preparePacket, directBuffer);
+    return directBuffer;
+  }
+
+  @Benchmark
+  public InterledgerPreparePacket readPrepareFromBuffer() {
+    return codecContext.read(InterledgerPreparePacket.class, ByteBuffer.wrap(preparePacketBytes));
+  }
+
+  private byte[] encode(final Object packet) throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    codecContext.write(packet, outputStream);
+    return outputStream.toByteArray();
+  }
+}
@@ -0,0 +1,169 @@
+package org.interledger.benchmarks;
+
+import org.interledger.benchmarks.StreamSenderBenchmark.ReceiverLink;
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerResponsePacket;
+import org.interledger.link.LinkId;
+import org.interledger.spsp.StreamConnectionDetails;
+import org.interledger.stream.Denomination;
+import org.interledger.stream.SendMoneyRequest;
+import org.interledger.stream.SendMoneyResult;
+import org.interledger.stream.SenderAmountMode;
+import org.interledger.stream.calculators.NoOpExchangeRateCalculator;
+import org.interledger.stream.crypto.CachingStreamEncryptionService;
+import org.interledger.stream.crypto.StreamEncryptionService;
+import org.interledger.stream.receiver.CachingStreamConnectionGenerator;
+import org.interledger.stream.receiver.ServerSecretSupplier;
+import org.interledger.stream.receiver.SpspStreamConnectionGenerator;
+import org.interledger.stream.receiver.StatelessStreamReceiver;
+import org.interledger.stream.receiver.StreamConnectionGenerator;
+import org.interledger.stream.sender.FixedSenderAmountPaymentTracker;
+import org.interledger.stream.sender.SimpleStreamSender;
+
+import com.google.common.primitives.UnsignedLong;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Measures the time for {@link SimpleStreamSender} to complete {@link #CONCURRENT_PAYMENTS} payments to the same
+ * receiver, each started on a thread of its own, with and without {@link SimpleStreamSender.Builder#multiplexStreams}.
+ * All payments share one STREAM connection.</p>
+ *
+ * <p>The link hands each Prepare to a {@link StatelessStreamReceiver} after {@link #linkDelayMillis}, which stands in
+ * for the round trip to the receiver. The {@link Outcome} counter {@code prepares} is the number of Prepare packets
+ * that the payments took, including one preflight packet per payment.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultiplexedStreamSenderBenchmark {
+
+  static final int CONCURRENT_PAYMENTS = 100;
+
+  private static final UnsignedLong PAYMENT_AMOUNT = UnsignedLong.valueOf(10_000L);
+
+  private static final InterledgerAddress SENDER_ADDRESS = InterledgerAddress.of("g.benchmarks.sender");
+
+  private static final InterledgerAddress RECEIVER_ADDRESS = InterledgerAddress.of("g.benchmarks.receiver");
+
+  private static final Denomination DENOMINATION = Denomination.builder()
+      .assetCode("XRP")
+      .assetScale((short) 9)
+      .build();
+
+  @Param( {"false", "true"})
+  public boolean multiplexStreams;
+
+  @Param( {"5"})
+  public long linkDelayMillis;
+
+  private final AtomicLong prepares = new AtomicLong();
+
+  private SimpleStreamSender streamSender;
+  private StreamConnectionDetails connectionDetails;
+  private ExecutorService payers;
+
+  @Setup
+  public void setUp() {
+    final ServerSecretSupplier serverSecretSupplier = () -> BenchmarkFixtures.bytes(32, 8L);
+    final StreamConnectionGenerator connectionGenerator =
+        new CachingStreamConnectionGenerator(new SpspStreamConnectionGenerator());
+    final StreamEncryptionService encryptionService = new CachingStreamEncryptionService();
+
+    final ReceiverLink link = new ReceiverLink(new StatelessStreamReceiver(
+        serverSecretSupplier, connectionGenerator, encryptionService, StreamCodecContextFactory.oer()
+    )) {
+      @Override
+      public InterledgerResponsePacket sendPacket(final InterledgerPreparePacket preparePacket) {
+        prepares.incrementAndGet();
+        try {
+          Thread.sleep(linkDelayMillis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.sendPacket(preparePacket);
+      }
+    };
+    link.setLinkId(LinkId.of("benchmark"));
+
+    this.streamSender = SimpleStreamSender.builder()
+        .link(link)
+        .streamEncryptionService(encryptionService)
+        .multiplexStreams(multiplexStreams)
+        .build();
+    this.connectionDetails = connectionGenerator.generateConnectionDetails(serverSecretSupplier, RECEIVER_ADDRESS);
+    this.payers = Executors.newFixedThreadPool(CONCURRENT_PAYMENTS);
+  }
+
+  @TearDown
+  public void tearDown() {
+    payers.shutdownNow();
+  }
+
+  @Benchmark
+  public List<SendMoneyResult> sendConcurrentPayments(final Outcome outcome) {
+    final long preparesBefore = prepares.get();
+    final List<CompletableFuture<SendMoneyResult>> payments = new ArrayList<>(CONCURRENT_PAYMENTS);
+    for (int i = 0; i < CONCURRENT_PAYMENTS; i++) {
+      payments.add(CompletableFuture.supplyAsync(this::sendMoney, payers).thenCompose(payment -> payment));
+    }
+    final List<SendMoneyResult> results = new ArrayList<>(CONCURRENT_PAYMENTS);
+    for (CompletableFuture<SendMoneyResult> payment : payments) {
+      final SendMoneyResult result = payment.join();
+      if (!result.successfulPayment()) {
+        throw new IllegalStateException("Benchmark payment failed: " + result);
+      }
+      results.add(result);
+    }
+    outcome.prepares = prepares.get() - preparesBefore;
+    return results;
+  }
+
+  private CompletableFuture<SendMoneyResult> sendMoney() {
+    return streamSender.sendMoney(SendMoneyRequest.builder()
+        .sourceAddress(SENDER_ADDRESS)
+        .destinationAddress(connectionDetails.destinationAddress())
+        .sharedSecret(connectionDetails.sharedSecret())
+        .amount(PAYMENT_AMOUNT)
+        .senderAmountMode(SenderAmountMode.SENDER_AMOUNT)
+        .denomination(DENOMINATION)
+        .paymentTracker(new FixedSenderAmountPaymentTracker(PAYMENT_AMOUNT, new NoOpExchangeRateCalculator()))
+        .timeout(Duration.ofSeconds(30))
+        .build());
+  }
+
+  /**
+   * The number of Prepare packets of the last {@link #CONCURRENT_PAYMENTS} payments.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Outcome {
+
+    public long prepares;
+  }
+}
@@ -0,0 +1,86 @@
+package org.interledger.benchmarks;
+
+import org.interledger.stream.PaymentTracker;
+import org.interledger.stream.PrepareAmounts;
+import org.interledger.stream.sender.AtomicFixedSenderAmountPaymentTracker;
+import org.interledger.stream.sender.FixedSenderAmountPaymentTracker;
+
+import com.google.common.primitives.UnsignedLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the accounting that a STREAM sender does for each packet, with {@value #THREADS} threads sharing one
+ * {@link PaymentTracker}, as the worker threads of a payment do when many of its packets complete at once. The
+ * {@code fixed} tracker is {@link FixedSenderAmountPaymentTracker}, and the {@code atomic} tracker is
+ * {@link AtomicFixedSenderAmountPaymentTracker}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(PaymentTrackerBenchmark.THREADS)
+@State(Scope.Benchmark)
+public class PaymentTrackerBenchmark {
+
+  static final int THREADS = 8;
+
+  private static final PrepareAmounts PREPARE_AMOUNTS = PrepareAmounts.builder()
+      .amountToSend(UnsignedLong.valueOf(1_000L))
+      .minimumAmountToAccept(UnsignedLong.valueOf(990L))
+      .build();
+
+  @Param( {"fixed", "atomic"})
+  public String tracker;
+
+  private PaymentTracker<?> paymentTracker;
+
+  @Setup
+  public void setUp() {
+    // Large enough that the payment never runs out during a run.
+    final UnsignedLong amountToSend = UnsignedLong.MAX_VALUE;
+    switch (tracker) {
+      case "fixed":
+        this.paymentTracker = new FixedSenderAmountPaymentTracker(amountToSend);
+        break;
+      case "atomic":
+        this.paymentTracker = new AtomicFixedSenderAmountPaymentTracker(amountToSend);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown tracker: " + tracker);
+    }
+  }
+
+  /**
+   * A packet that is fulfilled.
+   */
+  @Benchmark
+  public boolean authCommit() {
+    final boolean authorized = paymentTracker.auth(PREPARE_AMOUNTS);
+    paymentTracker.commit(PREPARE_AMOUNTS, PREPARE_AMOUNTS.getMinimumAmountToAccept());
+    return authorized;
+  }
+
+  /**
+   * A packet that is rejected.
+   */
+  @Benchmark
+  public boolean authRollback() {
+    final boolean authorized = paymentTracker.auth(PREPARE_AMOUNTS);
+    paymentTracker.rollback(PREPARE_AMOUNTS, true);
+    return authorized;
+  }
+}
@@ -0,0 +1,156 @@
+package org.interledger.benchmarks;
+
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerResponsePacket;
+import org.interledger.core.SharedSecret;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.spsp.StreamConnectionDetails;
+import org.interledger.stream.Denomination;
+import org.interledger.stream.StreamUtils;
+import org.interledger.stream.crypto.CachingStreamEncryptionService;
+import org.interledger.stream.crypto.StreamEncryptionService;
+import org.interledger.stream.receiver.ServerSecretSupplier;
+import org.interledger.stream.receiver.SpspStreamConnectionGenerator;
+import org.interledger.stream.receiver.StatelessStreamReceiver;
+import org.interledger.stream.receiver.StreamConnectionGenerator;
+import org.interledger.stream.receiver.StreamReceiver;
+
+import com.google.common.primitives.UnsignedLong;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures how many Prepare packets a {@link StatelessStreamReceiver} receives per second, one at a time with
+ * {@link StreamReceiver#receiveMoney} ({@code api=receiveMoney}) or in batches with {@link
+ * StreamReceiver#receiveMoneyBatch} ({@code api=receiveMoneyBatch}). The receiver receives small batches on the
+ * benchmark thread, and large batches in a {@link ForkJoinPool} of {@value #PARALLELISM} threads.</p>
+ *
+ * <p>Each invocation receives {@code batchSize} packets, spread over {@value #CONNECTIONS} connections, so the score
+ * is batches per second. The {@link Outcome} counter {@code packets} is the throughput in packets per second, which is
+ * comparable across batch sizes. The receiver derives shared secrets with a plain {@link
+ * SpspStreamConnectionGenerator}, so that deriving one per destination instead of one per packet shows.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReceiverBatchBenchmark {
+
+  static final int PARALLELISM = 8;
+
+  static final int CONNECTIONS = 4;
+
+  private static final InterledgerAddress RECEIVER_ADDRESS = InterledgerAddress.of("g.benchmarks.receiver");
+
+  private static final Denomination DENOMINATION = Denomination.builder()
+      .assetCode("XRP")
+      .assetScale((short) 9)
+      .build();
+
+  @Param( {"receiveMoney", "receiveMoneyBatch"})
+  public String api;
+
+  @Param( {"1", "16", "256"})
+  public int batchSize;
+
+  private StreamReceiver streamReceiver;
+  private List<InterledgerPreparePacket> preparePackets;
+  private ForkJoinPool forkJoinPool;
+
+  @Setup
+  public void setUp() throws IOException {
+    final ServerSecretSupplier serverSecretSupplier = () -> BenchmarkFixtures.bytes(32, 8L);
+    final StreamConnectionGenerator connectionGenerator = new SpspStreamConnectionGenerator();
+    final StreamEncryptionService encryptionService = new CachingStreamEncryptionService();
+    final CodecContext streamCodecContext = StreamCodecContextFactory.oer();
+
+    this.streamReceiver = new StatelessStreamReceiver(
+        serverSecretSupplier, connectionGenerator, encryptionService, streamCodecContext
+    );
+    this.forkJoinPool = new ForkJoinPool(PARALLELISM);
+
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    streamCodecContext.write(BenchmarkFixtures.streamPacket(), outputStream);
+    final byte[] streamPacketBytes = outputStream.toByteArray();
+
+    final List<StreamConnectionDetails> connections = new ArrayList<>(CONNECTIONS);
+    for (int i = 0; i < CONNECTIONS; i++) {
+      connections.add(connectionGenerator.generateConnectionDetails(serverSecretSupplier, RECEIVER_ADDRESS));
+    }
+
+    this.preparePackets = new ArrayList<>(batchSize);
+    for (int i = 0; i < batchSize; i++) {
+      final StreamConnectionDetails connectionDetails = connections.get(i % CONNECTIONS);
+      final SharedSecret sharedSecret = SharedSecret.of(connectionDetails.sharedSecret().key());
+      final byte[] encryptedStreamPacket = encryptionService.encrypt(sharedSecret, streamPacketBytes);
+
+      preparePackets.add(InterledgerPreparePacket.builder()
+          .destination(connectionDetails.destinationAddress())
+          .amount(UnsignedLong.valueOf(1_000_000L))
+          .expiresAt(BenchmarkFixtures.EXPIRES_AT)
+          .data(encryptedStreamPacket)
+          .executionCondition(
+              StreamUtils.generatedFulfillableFulfillment(sharedSecret, encryptedStreamPacket).getCondition()
+          )
+          .build());
+    }
+
+    // Guard against silently benchmarking the reject path.
+    receive(new Outcome()).forEach(response -> response.handle(
+        fulfillPacket -> {
+        },
+        rejectPacket -> {
+          throw new IllegalStateException("Benchmark Prepare packet was rejected: " + rejectPacket);
+        }
+    ));
+  }
+
+  @TearDown
+  public void tearDown() {
+    forkJoinPool.shutdownNow();
+  }
+
+  @Benchmark
+  public List<InterledgerResponsePacket> receive(final Outcome outcome) {
+    final List<InterledgerResponsePacket> responses;
+    if ("receiveMoneyBatch".equals(api)) {
+      responses = streamReceiver.receiveMoneyBatch(preparePackets, RECEIVER_ADDRESS, DENOMINATION, forkJoinPool);
+    } else {
+      responses = new ArrayList<>(preparePackets.size());
+      for (InterledgerPreparePacket preparePacket : preparePackets) {
+        responses.add(streamReceiver.receiveMoney(preparePacket, RECEIVER_ADDRESS, DENOMINATION));
+      }
+    }
+    outcome.packets += responses.size();
+    return responses;
+  }
+
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Outcome {
+
+    public long packets;
+  }
+}
@@ -0,0 +1,127 @@
+package org.interledger.benchmarks;
+
+import org.interledger.benchmarks.StreamSenderBenchmark.ReceiverLink;
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerResponsePacket;
+import org.interledger.link.LinkId;
+import org.interledger.spsp.StreamConnectionDetails;
+import org.interledger.stream.Denomination;
+import org.interledger.stream.SendMoneyRequest;
+import org.interledger.stream.SendMoneyResult;
+import org.interledger.stream.SenderAmountMode;
+import org.interledger.stream.calculators.NoOpExchangeRateCalculator;
+import org.interledger.stream.crypto.CachingStreamEncryptionService;
+import org.interledger.stream.crypto.StreamEncryptionService;
+import org.interledger.stream.receiver.CachingStreamConnectionGenerator;
+import org.interledger.stream.receiver.ServerSecretSupplier;
+import org.interledger.stream.receiver.SpspStreamConnectionGenerator;
+import org.interledger.stream.receiver.StatelessStreamReceiver;
+import org.interledger.stream.receiver.StreamConnectionGenerator;
+import org.interledger.stream.sender.FixedSenderAmountPaymentTracker;
+import org.interledger.stream.sender.ReceiverDenominationCache;
+import org.interledger.stream.sender.SimpleStreamSender;
+
+import com.google.common.primitives.UnsignedLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures the latency of one small payment from {@link SimpleStreamSender} to a receiver that it has paid before,
+ * with and without a {@link ReceiverDenominationCache}. Without the cache, every payment waits for a preflight round
+ * trip before its first money packet.</p>
+ *
+ * <p>The link hands each Prepare to a {@link StatelessStreamReceiver} after {@link #linkDelayMillis}, which stands in
+ * for the round trip to the receiver.</p>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReceiverDenominationCacheBenchmark {
+
+  private static final UnsignedLong PAYMENT_AMOUNT = UnsignedLong.valueOf(1_000L);
+
+  private static final InterledgerAddress SENDER_ADDRESS = InterledgerAddress.of("g.benchmarks.sender");
+
+  private static final InterledgerAddress RECEIVER_ADDRESS = InterledgerAddress.of("g.benchmarks.receiver");
+
+  private static final Denomination DENOMINATION = Denomination.builder()
+      .assetCode("XRP")
+      .assetScale((short) 9)
+      .build();
+
+  @Param( {"false", "true"})
+  public boolean cacheReceiverDenomination;
+
+  @Param( {"20"})
+  public long linkDelayMillis;
+
+  private SimpleStreamSender streamSender;
+  private StreamConnectionDetails connectionDetails;
+
+  @Setup
+  public void setUp() {
+    final ServerSecretSupplier serverSecretSupplier = () -> BenchmarkFixtures.bytes(32, 9L);
+    final StreamConnectionGenerator connectionGenerator =
+        new CachingStreamConnectionGenerator(new SpspStreamConnectionGenerator());
+    final StreamEncryptionService encryptionService = new CachingStreamEncryptionService();
+
+    final ReceiverLink link = new ReceiverLink(new StatelessStreamReceiver(
+        serverSecretSupplier, connectionGenerator, encryptionService, StreamCodecContextFactory.oer()
+    )) {
+      @Override
+      public InterledgerResponsePacket sendPacket(final InterledgerPreparePacket preparePacket) {
+        try {
+          Thread.sleep(linkDelayMillis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.sendPacket(preparePacket);
+      }
+    };
+    link.setLinkId(LinkId.of("benchmark"));
+
+    final SimpleStreamSender.Builder builder = SimpleStreamSender.builder()
+        .link(link)
+        .streamEncryptionService(encryptionService);
+    if (cacheReceiverDenomination) {
+      builder.receiverDenominationCache(new ReceiverDenominationCache());
+    }
+    this.streamSender = builder.build();
+    this.connectionDetails = connectionGenerator.generateConnectionDetails(serverSecretSupplier, RECEIVER_ADDRESS);
+  }
+
+  @Benchmark
+  public SendMoneyResult sendMoney() {
+    final SendMoneyResult result = streamSender.sendMoney(SendMoneyRequest.builder()
+        .sourceAddress(SENDER_ADDRESS)
+        .destinationAddress(connectionDetails.destinationAddress())
+        .sharedSecret(connectionDetails.sharedSecret())
+        .amount(PAYMENT_AMOUNT)
+        .senderAmountMode(SenderAmountMode.SENDER_AMOUNT)
+        .denomination(DENOMINATION)
+        .paymentTracker(new FixedSenderAmountPaymentTracker(PAYMENT_AMOUNT, new NoOpExchangeRateCalculator()))
+        .timeout(Duration.ofSeconds(30))
+        .build()).join();
+    if (!result.successfulPayment()) {
+      throw new IllegalStateException("Benchmark payment failed: " + result);
+    }
+    return result;
+  }
+}
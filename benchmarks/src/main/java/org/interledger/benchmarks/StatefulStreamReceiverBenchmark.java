@@ -0,0 +1,153 @@
+package org.interledger.benchmarks;
+
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.core.InterledgerResponsePacket;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.spsp.StreamConnectionDetails;
+import org.interledger.stream.Denomination;
+import org.interledger.stream.StreamUtils;
+import org.interledger.stream.crypto.JavaxStreamEncryptionService;
+import org.interledger.stream.crypto.StreamEncryptionService;
+import org.interledger.stream.receiver.ServerSecretSupplier;
+import org.interledger.stream.receiver.SpspStreamConnectionGenerator;
+import org.interledger.stream.receiver.StatefulStreamReceiver;
+import org.interledger.stream.receiver.StatelessStreamReceiver;
+import org.interledger.stream.receiver.StreamConnectionGenerator;
+import org.interledger.stream.receiver.StreamReceiver;
+
+import com.google.common.primitives.UnsignedLong;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures the heap that a {@link StreamReceiver} keeps for {@link #connections} live connections, with {@link
+ * StatelessStreamReceiver} and {@link StatefulStreamReceiver}. Each invocation receives one packet on each connection
+ * with a new receiver. The score is the time that this takes.</p>
+ *
+ * <p>Around each invocation, and outside of the measured time, the benchmark runs a full GC and reads the used heap.
+ * The difference, divided by the number of connections, is the secondary result {@code
+ * retainedBytesPerConnection}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StatefulStreamReceiverBenchmark {
+
+  private static final InterledgerAddress RECEIVER_ADDRESS = InterledgerAddress.of("g.benchmarks.receiver");
+
+  private static final Denomination DENOMINATION = Denomination.builder()
+      .assetCode("XRP")
+      .assetScale((short) 9)
+      .build();
+
+  @Param( {"stateless", "stateful"})
+  public String receiver;
+
+  @Param( {"10000"})
+  public int connections;
+
+  private ServerSecretSupplier serverSecretSupplier;
+  private StreamConnectionGenerator connectionGenerator;
+  private StreamEncryptionService encryptionService;
+  private CodecContext streamCodecContext;
+  private InterledgerPreparePacket[] preparePackets;
+
+  private long usedHeapBefore;
+  private StreamReceiver streamReceiver;
+
+  @Setup
+  public void setUp() throws IOException {
+    this.serverSecretSupplier = () -> BenchmarkFixtures.bytes(32, 10L);
+    // Neither generator nor encryption service caches anything per connection, so all retained heap is the receiver's.
+    this.connectionGenerator = new SpspStreamConnectionGenerator();
+    this.encryptionService = new JavaxStreamEncryptionService();
+    this.streamCodecContext = StreamCodecContextFactory.oer();
+
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    streamCodecContext.write(BenchmarkFixtures.streamPacket(), outputStream);
+    final byte[] streamPacketBytes = outputStream.toByteArray();
+
+    this.preparePackets = new InterledgerPreparePacket[connections];
+    for (int i = 0; i < connections; i++) {
+      final StreamConnectionDetails connectionDetails =
+          connectionGenerator.generateConnectionDetails(serverSecretSupplier, RECEIVER_ADDRESS);
+      final byte[] encryptedStreamPacket =
+          encryptionService.encrypt(connectionDetails.sharedSecret(), streamPacketBytes);
+      preparePackets[i] = InterledgerPreparePacket.builder()
+          .destination(connectionDetails.destinationAddress())
+          .amount(UnsignedLong.valueOf(1_000_000L))
+          .expiresAt(BenchmarkFixtures.EXPIRES_AT)
+          .data(encryptedStreamPacket)
+          .executionCondition(StreamUtils
+              .generatedFulfillableFulfillment(connectionDetails.sharedSecret(), encryptedStreamPacket)
+              .getCondition())
+          .build();
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void newReceiver() {
+    this.streamReceiver = null;
+    this.usedHeapBefore = usedHeapAfterGc();
+    this.streamReceiver = "stateful".equals(receiver)
+        ? new StatefulStreamReceiver(serverSecretSupplier, connectionGenerator, encryptionService, streamCodecContext)
+        : new StatelessStreamReceiver(serverSecretSupplier, connectionGenerator, encryptionService, streamCodecContext);
+  }
+
+  @Benchmark
+  public StreamReceiver receiveOnePacketPerConnection() {
+    for (InterledgerPreparePacket preparePacket : preparePackets) {
+      final InterledgerResponsePacket responsePacket =
+          streamReceiver.receiveMoney(preparePacket, RECEIVER_ADDRESS, DENOMINATION);
+      if (responsePacket instanceof InterledgerRejectPacket) {
+        throw new IllegalStateException("Benchmark Prepare packet was rejected: " + responsePacket);
+      }
+    }
+    return streamReceiver;
+  }
+
+  @TearDown(Level.Invocation)
+  public void measureRetainedHeap(final Outcome outcome) {
+    // streamReceiver is still reachable from this state, so its connections are not collected.
+    outcome.retainedBytesPerConnection = (usedHeapAfterGc() - usedHeapBefore) / connections;
+  }
+
+  private static long usedHeapAfterGc() {
+    System.gc();
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  /**
+   * The heap that the receiver of the last invocation keeps per connection, in bytes.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Outcome {
+
+    public long retainedBytesPerConnection;
+  }
+}
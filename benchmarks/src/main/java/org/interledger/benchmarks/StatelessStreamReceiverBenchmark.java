@@ -0,0 +1,110 @@
+package org.interledger.benchmarks;
+
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerResponsePacket;
+import org.interledger.core.SharedSecret;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.spsp.StreamConnectionDetails;
+import org.interledger.stream.Denomination;
+import org.interledger.stream.StreamUtils;
+import org.interledger.stream.crypto.CachingStreamEncryptionService;
+import org.interledger.stream.crypto.StreamEncryptionService;
+import org.interledger.stream.receiver.CachingStreamConnectionGenerator;
+import org.interledger.stream.receiver.ServerSecretSupplier;
+import org.interledger.stream.receiver.SpspStreamConnectionGenerator;
+import org.interledger.stream.receiver.StatelessStreamReceiver;
+import org.interledger.stream.receiver.StreamConnectionGenerator;
+import org.interledger.stream.receiver.StreamReceiver;
+
+import com.google.common.primitives.UnsignedLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link StatelessStreamReceiver#receiveMoney} end to end: shared-secret derivation, decryption, decoding,
+ * fulfillment generation, and encoding plus encryption of the response. The {@code cacheSharedSecrets} parameter
+ * compares deriving the shared secret from the destination address for every packet ({@code false}) with a
+ * {@link CachingStreamConnectionGenerator} ({@code true}). Every packet goes to the same address, as in one payment.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StatelessStreamReceiverBenchmark {
+
+  private static final InterledgerAddress RECEIVER_ADDRESS = InterledgerAddress.of("g.benchmarks.receiver");
+
+  private static final Denomination DENOMINATION = Denomination.builder()
+      .assetCode("XRP")
+      .assetScale((short) 9)
+      .build();
+
+  @Param( {"false", "true"})
+  public boolean cacheSharedSecrets;
+
+  private StreamReceiver streamReceiver;
+  private InterledgerPreparePacket preparePacket;
+
+  @Setup
+  public void setUp() throws IOException {
+    final ServerSecretSupplier serverSecretSupplier = () -> BenchmarkFixtures.bytes(32, 8L);
+    final StreamConnectionGenerator connectionGenerator = cacheSharedSecrets
+        ? new CachingStreamConnectionGenerator(new SpspStreamConnectionGenerator())
+        : new SpspStreamConnectionGenerator();
+    final StreamEncryptionService encryptionService = new CachingStreamEncryptionService();
+    final CodecContext streamCodecContext = StreamCodecContextFactory.oer();
+
+    this.streamReceiver = new StatelessStreamReceiver(
+        serverSecretSupplier, connectionGenerator, encryptionService, streamCodecContext
+    );
+
+    final StreamConnectionDetails connectionDetails =
+        connectionGenerator.generateConnectionDetails(serverSecretSupplier, RECEIVER_ADDRESS);
+    final SharedSecret sharedSecret = SharedSecret.of(connectionDetails.sharedSecret().key());
+
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    streamCodecContext.write(BenchmarkFixtures.streamPacket(), outputStream);
+    final byte[] encryptedStreamPacket = encryptionService.encrypt(sharedSecret, outputStream.toByteArray());
+
+    this.preparePacket = InterledgerPreparePacket.builder()
+        .destination(connectionDetails.destinationAddress())
+        .amount(UnsignedLong.valueOf(1_000_000L))
+        .expiresAt(BenchmarkFixtures.EXPIRES_AT)
+        .data(encryptedStreamPacket)
+        .executionCondition(
+            StreamUtils.generatedFulfillableFulfillment(sharedSecret, encryptedStreamPacket).getCondition()
+        )
+        .build();
+
+    // Guard against silently benchmarking the reject path.
+    receiveMoney().handle(
+        fulfillPacket -> {
+        },
+        rejectPacket -> {
+          throw new IllegalStateException("Benchmark Prepare packet was rejected: " + rejectPacket);
+        }
+    );
+  }
+
+  @Benchmark
+  public InterledgerResponsePacket receiveMoney() {
+    return streamReceiver.receiveMoney(preparePacket, RECEIVER_ADDRESS, DENOMINATION);
+  }
+}
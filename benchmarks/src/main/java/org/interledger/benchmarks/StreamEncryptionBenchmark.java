@@ -0,0 +1,64 @@
+package org.interledger.benchmarks;
+
+import org.interledger.core.SharedSecret;
+import org.interledger.stream.crypto.CachingStreamEncryptionService;
+import org.interledger.stream.crypto.JavaxStreamEncryptionService;
+import org.interledger.stream.crypto.StreamEncryptionService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures AES-256-GCM encryption and decryption of STREAM packet payloads. The {@code service} parameter compares
+ * {@link JavaxStreamEncryptionService} ({@code javax}) with {@link CachingStreamEncryptionService} ({@code caching}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamEncryptionBenchmark {
+
+  @Param( {"64", "1024"})
+  private int payloadSize;
+
+  @Param( {"javax", "caching"})
+  private String service;
+
+  private StreamEncryptionService encryptionService;
+  private SharedSecret sharedSecret;
+  private byte[] plainText;
+  private byte[] cipherText;
+
+  @Setup
+  public void setUp() {
+    this.encryptionService = "caching".equals(service)
+        ? new CachingStreamEncryptionService()
+        : new JavaxStreamEncryptionService();
+    this.sharedSecret = BenchmarkFixtures.sharedSecret();
+    this.plainText = BenchmarkFixtures.bytes(payloadSize, 6L);
+    this.cipherText = encryptionService.encrypt(sharedSecret, plainText);
+  }
+
+  @Benchmark
+  public byte[] encrypt() {
+    return encryptionService.encrypt(sharedSecret, plainText);
+  }
+
+  @Benchmark
+  public byte[] decrypt() {
+    return encryptionService.decrypt(sharedSecret, cipherText);
+  }
+}
@@ -0,0 +1,115 @@
+package org.interledger.benchmarks;
+
+import org.interledger.codecs.ilp.InterledgerCodecContextFactory;
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.codecs.stream.StreamFrameVisitor;
+import org.interledger.codecs.stream.StreamPacketReader;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.encoding.asn.framework.CodecContextFactory;
+import org.interledger.stream.StreamPacket;
+import org.interledger.stream.frames.StreamFrame;
+import org.interledger.stream.frames.StreamFrameType;
+import org.interledger.stream.frames.StreamMoneyFrame;
+
+import com.google.common.primitives.UnsignedLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CodecContext#read} and {@link CodecContext#write} for a {@link StreamPacket} carrying a money frame
+ * and connection control frames, using the context built by {@link StreamCodecContextFactory#oer()}. The
+ * {@code reuseCodecs} parameter compares a context that reuses its codec trees (the default) with one that creates a
+ * new codec tree for every call.
+ *
+ * <p>{@link #readStreamFrames()} reads the same packet with a {@link StreamPacketReader}, decoding only its money
+ * frame, as {@code StatelessStreamReceiver} does.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamPacketCodecBenchmark {
+
+  @Param( {"true", "false"})
+  public boolean reuseCodecs;
+
+  private CodecContext codecContext;
+  private StreamPacket streamPacket;
+  private byte[] streamPacketBytes;
+  private ByteBuffer directBuffer;
+  private StreamPacketReader streamPacketReader;
+
+  @Setup
+  public void setUp() throws IOException {
+    this.codecContext = StreamCodecContextFactory.register(
+        InterledgerCodecContextFactory.register(CodecContextFactory.oer(reuseCodecs))
+    );
+    this.streamPacket = BenchmarkFixtures.streamPacket();
+    this.streamPacketBytes = writeStreamPacket();
+    this.directBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    this.streamPacketReader = new StreamPacketReader(codecContext);
+  }
+
+  @Benchmark
+  public byte[] writeStreamPacket() throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    codecContext.write(streamPacket, outputStream);
+    return outputStream.toByteArray();
+  }
+
+  @Benchmark
+  public StreamPacket readStreamPacket() throws IOException {
+    return codecContext.read(StreamPacket.class, new ByteArrayInputStream(streamPacketBytes));
+  }
+
+  @Benchmark
+  public ByteBuffer writeStreamPacketToBuffer() {
+    directBuffer.clear();
+    codecContext.write(streamPacket, directBuffer);
+    return directBuffer;
+  }
+
+  @Benchmark
+  public StreamPacket readStreamPacketFromBuffer() {
+    return codecContext.read(StreamPacket.class, ByteBuffer.wrap(streamPacketBytes));
+  }
+
+  @Benchmark
+  public UnsignedLong readStreamFrames() throws IOException {
+    final MoneyFrameVisitor visitor = new MoneyFrameVisitor();
+    streamPacketReader.read(streamPacketBytes, visitor);
+    return visitor.shares;
+  }
+
+  private static class MoneyFrameVisitor implements StreamFrameVisitor {
+
+    private UnsignedLong shares = UnsignedLong.ZERO;
+
+    @Override
+    public boolean visitFrameType(final StreamFrameType streamFrameType) {
+      return streamFrameType == StreamFrameType.StreamMoney;
+    }
+
+    @Override
+    public void visitFrame(final StreamFrame streamFrame) {
+      shares = shares.plus(((StreamMoneyFrame) streamFrame).shares());
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package org.interledger.benchmarks;
+
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerResponsePacket;
+import org.interledger.link.AbstractLink;
+import org.interledger.link.Link;
+import org.interledger.link.LinkId;
+import org.interledger.link.LinkSettings;
+import org.interledger.link.LinkType;
+import org.interledger.link.LoopbackLink;
+import org.interledger.spsp.StreamConnectionDetails;
+import org.interledger.stream.Denomination;
+import org.interledger.stream.SendMoneyRequest;
+import org.interledger.stream.SendMoneyResult;
+import org.interledger.stream.SenderAmountMode;
+import org.interledger.stream.calculators.NoOpExchangeRateCalculator;
+import org.interledger.stream.crypto.CachingStreamEncryptionService;
+import org.interledger.stream.crypto.StreamEncryptionService;
+import org.interledger.stream.receiver.CachingStreamConnectionGenerator;
+import org.interledger.stream.receiver.ServerSecretSupplier;
+import org.interledger.stream.receiver.SpspStreamConnectionGenerator;
+import org.interledger.stream.receiver.StatelessStreamReceiver;
+import org.interledger.stream.receiver.StreamConnectionGenerator;
+import org.interledger.stream.receiver.StreamReceiver;
+import org.interledger.stream.sender.AsyncStreamSender;
+import org.interledger.stream.sender.FixedSenderAmountPaymentTracker;
+import org.interledger.stream.sender.SimpleStreamSender;
+import org.interledger.stream.sender.StreamSender;
+
+import com.google.common.primitives.UnsignedLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures {@link StreamSender#sendMoney} end to end, with the {@code simple} ({@link SimpleStreamSender}) and
+ * {@code async} ({@link AsyncStreamSender}) implementations. {@code latency} sends one payment at a time, and
+ * {@code throughput} starts {@link #CONCURRENT_PAYMENTS} payments and waits for all of them.</p>
+ *
+ * <p>Each payment of {@link #PAYMENT_AMOUNT} takes a preflight packet and four money packets with the default
+ * congestion controller.</p>
+ *
+ * <p>{@link LoopbackLink} fulfills every Prepare with the encrypted Prepare STREAM packet, which a sender does not
+ * accept as a Fulfill, so a payment over it never completes. The senders use a {@link ReceiverLink} instead, which
+ * hands each Prepare to a {@link StatelessStreamReceiver} on the calling thread, so no network or peer is involved.</p>
+ */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamSenderBenchmark {
+
+  static final int CONCURRENT_PAYMENTS = 100;
+
+  private static final UnsignedLong PAYMENT_AMOUNT = UnsignedLong.valueOf(10_000L);
+
+  private static final InterledgerAddress SENDER_ADDRESS = InterledgerAddress.of("g.benchmarks.sender");
+
+  private static final InterledgerAddress RECEIVER_ADDRESS = InterledgerAddress.of("g.benchmarks.receiver");
+
+  private static final Denomination DENOMINATION = Denomination.builder()
+      .assetCode("XRP")
+      .assetScale((short) 9)
+      .build();
+
+  @Param( {"simple", "async"})
+  public String sender;
+
+  private StreamSender streamSender;
+  private List<StreamConnectionDetails> connectionDetails;
+
+  @Setup
+  public void setUp() {
+    final ServerSecretSupplier serverSecretSupplier = () -> BenchmarkFixtures.bytes(32, 8L);
+    final StreamConnectionGenerator connectionGenerator =
+        new CachingStreamConnectionGenerator(new SpspStreamConnectionGenerator());
+    final StreamEncryptionService encryptionService = new CachingStreamEncryptionService();
+
+    final Link<?> link = new ReceiverLink(new StatelessStreamReceiver(
+        serverSecretSupplier, connectionGenerator, encryptionService, StreamCodecContextFactory.oer()
+    ));
+    link.setLinkId(LinkId.of("benchmark"));
+
+    switch (sender) {
+      case "simple":
+        this.streamSender = new SimpleStreamSender(encryptionService, link);
+        break;
+      case "async":
+        this.streamSender = new AsyncStreamSender(encryptionService, link);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown sender: " + sender);
+    }
+
+    // One connection per concurrent payment. Connections are never closed, so later payments reuse them.
+    this.connectionDetails = new ArrayList<>(CONCURRENT_PAYMENTS);
+    for (int i = 0; i < CONCURRENT_PAYMENTS; i++) {
+      connectionDetails.add(connectionGenerator.generateConnectionDetails(serverSecretSupplier, RECEIVER_ADDRESS));
+    }
+
+    // Guard against silently benchmarking payments that time out.
+    final SendMoneyResult result = latency();
+    if (!result.successfulPayment()) {
+      throw new IllegalStateException("Benchmark payment failed: " + result);
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public SendMoneyResult latency() {
+    return sendMoney(connectionDetails.get(0)).join();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @OperationsPerInvocation(CONCURRENT_PAYMENTS)
+  public List<SendMoneyResult> throughput() {
+    final List<CompletableFuture<SendMoneyResult>> payments = new ArrayList<>(CONCURRENT_PAYMENTS);
+    for (StreamConnectionDetails details : connectionDetails) {
+      payments.add(sendMoney(details));
+    }
+    final List<SendMoneyResult> results = new ArrayList<>(CONCURRENT_PAYMENTS);
+    for (CompletableFuture<SendMoneyResult> payment : payments) {
+      results.add(payment.join());
+    }
+    return results;
+  }
+
+  private CompletableFuture<SendMoneyResult> sendMoney(final StreamConnectionDetails details) {
+    return streamSender.sendMoney(SendMoneyRequest.builder()
+        .sourceAddress(SENDER_ADDRESS)
+        .destinationAddress(details.destinationAddress())
+        .sharedSecret(details.sharedSecret())
+        .amount(PAYMENT_AMOUNT)
+        .senderAmountMode(SenderAmountMode.SENDER_AMOUNT)
+        .denomination(DENOMINATION)
+        .paymentTracker(new FixedSenderAmountPaymentTracker(PAYMENT_AMOUNT, new NoOpExchangeRateCalculator()))
+        .timeout(Duration.ofSeconds(30))
+        .build());
+  }
+
+  /**
+   * A {@link Link} that answers every Prepare packet with the response of a {@link StreamReceiver}.
+   */
+  static class ReceiverLink extends AbstractLink<LinkSettings> {
+
+    private final StreamReceiver streamReceiver;
+
+    ReceiverLink(final StreamReceiver streamReceiver) {
+      super(() -> SENDER_ADDRESS, LinkSettings.builder().linkType(LinkType.of("BENCHMARK")).build());
+      this.streamReceiver = Objects.requireNonNull(streamReceiver);
+    }
+
+    @Override
+    public InterledgerResponsePacket sendPacket(final InterledgerPreparePacket preparePacket) {
+      return streamReceiver.receiveMoney(preparePacket, RECEIVER_ADDRESS, DENOMINATION);
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package org.interledger.benchmarks;
+
+import org.interledger.encoding.asn.codecs.AsnTimestampEncoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Compares {@link AsnTimestampEncoder} with the regular expression and {@link DateTimeFormatter} that
+ * {@code AsnTimestampCodec} (IL-RFC-27) and {@code AsnBtpGeneralizedTimeCodec} (IL-RFC-23) used to validate, parse
+ * and format timestamps. The {@code ...WithFormatter} benchmarks keep a copy of that code so that the two can still
+ * be compared.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimestampCodecBenchmark {
+
+  private static final Predicate<String> INTERLEDGER_PATTERN = Pattern.compile("[0-9]{17}").asPredicate();
+
+  private static final DateTimeFormatter INTERLEDGER_FORMATTER = new DateTimeFormatterBuilder()
+      .appendValue(ChronoField.YEAR, 4)
+      .appendValue(ChronoField.MONTH_OF_YEAR, 2)
+      .appendValue(ChronoField.DAY_OF_MONTH, 2)
+      .appendValue(ChronoField.HOUR_OF_DAY, 2)
+      .appendValue(ChronoField.MINUTE_OF_HOUR, 2)
+      .appendValue(ChronoField.SECOND_OF_MINUTE, 2)
+      .appendFraction(ChronoField.MILLI_OF_SECOND, 3, 3, false)
+      .toFormatter()
+      .withZone(ZoneId.of("Z"));
+
+  private static final Predicate<String> GENERALIZED_TIME_PATTERN = Pattern.compile(
+      "^([0-9]{4})([0-9]{2})([0-9]{2})([0-9]{2})([0-9]{2})([0-9]{2}(\\.\\d{1,3})?Z)$").asPredicate();
+
+  private static final DateTimeFormatter GENERALIZED_TIME_FORMATTER = new DateTimeFormatterBuilder()
+      .appendValue(ChronoField.YEAR, 4)
+      .appendValue(ChronoField.MONTH_OF_YEAR, 2)
+      .appendValue(ChronoField.DAY_OF_MONTH, 2)
+      .appendValue(ChronoField.HOUR_OF_DAY, 2)
+      .appendValue(ChronoField.MINUTE_OF_HOUR, 2)
+      .appendValue(ChronoField.SECOND_OF_MINUTE, 2)
+      .appendFraction(ChronoField.MILLI_OF_SECOND, 0, 3, true)
+      .appendZoneId()
+      .toFormatter()
+      .withZone(ZoneId.of("Z"));
+
+  private Instant instant;
+  private String interledgerTimestamp;
+  private String generalizedTime;
+  private ByteBuffer interledgerTimestampBytes;
+  private ByteBuffer directBuffer;
+
+  @Setup
+  public void setUp() {
+    this.instant = BenchmarkFixtures.EXPIRES_AT;
+    this.interledgerTimestamp = INTERLEDGER_FORMATTER.format(instant);
+    this.generalizedTime = GENERALIZED_TIME_FORMATTER.format(instant);
+    this.interledgerTimestampBytes = ByteBuffer.wrap(interledgerTimestamp.getBytes(StandardCharsets.US_ASCII));
+    this.directBuffer = ByteBuffer.allocateDirect(AsnTimestampEncoder.INTERLEDGER_TIMESTAMP_LENGTH);
+  }
+
+  @Benchmark
+  public String formatInterledgerTimestampWithFormatter() {
+    return INTERLEDGER_FORMATTER.format(instant);
+  }
+
+  @Benchmark
+  public String formatInterledgerTimestampWithEncoder() {
+    return AsnTimestampEncoder.formatInterledgerTimestamp(instant);
+  }
+
+  @Benchmark
+  public ByteBuffer writeInterledgerTimestampWithEncoder() {
+    directBuffer.clear();
+    AsnTimestampEncoder.writeInterledgerTimestamp(instant, directBuffer);
+    return directBuffer;
+  }
+
+  @Benchmark
+  public Instant parseInterledgerTimestampWithFormatter() {
+    if (!INTERLEDGER_PATTERN.test(interledgerTimestamp)) {
+      throw new IllegalStateException(interledgerTimestamp);
+    }
+    return Instant.from(INTERLEDGER_FORMATTER.parse(interledgerTimestamp));
+  }
+
+  @Benchmark
+  public Instant parseInterledgerTimestampWithEncoder() {
+    if (!AsnTimestampEncoder.isInterledgerTimestamp(interledgerTimestamp)) {
+      throw new IllegalStateException(interledgerTimestamp);
+    }
+    return Instant.ofEpochMilli(AsnTimestampEncoder.parseInterledgerTimestamp(interledgerTimestamp));
+  }
+
+  @Benchmark
+  public long readInterledgerTimestampWithEncoder() {
+    interledgerTimestampBytes.clear();
+    return AsnTimestampEncoder.readInterledgerTimestamp(interledgerTimestampBytes);
+  }
+
+  @Benchmark
+  public String formatGeneralizedTimeWithFormatter() {
+    return GENERALIZED_TIME_FORMATTER.format(instant);
+  }
+
+  @Benchmark
+  public String formatGeneralizedTimeWithEncoder() {
+    return AsnTimestampEncoder.formatGeneralizedTime(instant);
+  }
+
+  @Benchmark
+  public Instant parseGeneralizedTimeWithFormatter() {
+    if (!GENERALIZED_TIME_PATTERN.test(generalizedTime)) {
+      throw new IllegalStateException(generalizedTime);
+    }
+    return Instant.from(GENERALIZED_TIME_FORMATTER.parse(generalizedTime));
+  }
+
+  @Benchmark
+  public Instant parseGeneralizedTimeWithEncoder() {
+    if (!AsnTimestampEncoder.isGeneralizedTime(generalizedTime)) {
+      throw new IllegalStateException(generalizedTime);
+    }
+    return Instant.ofEpochMilli(AsnTimestampEncoder.parseGeneralizedTime(generalizedTime));
+  }
+}
@@ -0,0 +1,99 @@
+package org.interledger.benchmarks;
+
+import org.interledger.encoding.asn.codecs.AsnPrimitiveCodec;
+import org.interledger.encoding.asn.codecs.AsnUintCodecUL;
+import org.interledger.encoding.asn.codecs.AsnVarUintLongCodec;
+import org.interledger.encoding.asn.framework.AsnObjectSerializationContext;
+import org.interledger.encoding.asn.serializers.oer.AsnLongOerSerializer;
+import org.interledger.encoding.asn.serializers.oer.AsnOctetStringOerSerializer;
+
+import com.google.common.primitives.UnsignedLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing and reading the three VarUInts of a STREAM {@code StreamMoney Max} frame (stream id, receive max
+ * and total received), which is the per-frame cost of the integer codecs. The {@code codec} parameter compares
+ * {@link AsnUintCodecUL}, which goes through {@link java.math.BigInteger} and a byte array ({@code bigInteger}), with
+ * {@link AsnVarUintLongCodec}, which holds a primitive {@code long} ({@code long}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UintCodecBenchmark {
+
+  private static final UnsignedLong[] FRAME_VALUES = {
+      UnsignedLong.ONE, UnsignedLong.valueOf(1_000_000_000L), UnsignedLong.valueOf(123_456_789L)
+  };
+
+  @Param( {"bigInteger", "long"})
+  public String codec;
+
+  private final AsnObjectSerializationContext context = new AsnObjectSerializationContext();
+  private final AsnOctetStringOerSerializer octetStringSerializer = new AsnOctetStringOerSerializer();
+  private final AsnLongOerSerializer longSerializer = new AsnLongOerSerializer();
+
+  private AsnUintCodecUL[] bigIntegerCodecs;
+  private AsnVarUintLongCodec[] longCodecs;
+  private ByteBuffer buffer;
+
+  @Setup
+  public void setUp() {
+    this.bigIntegerCodecs = new AsnUintCodecUL[FRAME_VALUES.length];
+    this.longCodecs = new AsnVarUintLongCodec[FRAME_VALUES.length];
+    for (int i = 0; i < FRAME_VALUES.length; i++) {
+      bigIntegerCodecs[i] = new AsnUintCodecUL();
+      longCodecs[i] = new AsnVarUintLongCodec();
+    }
+    this.buffer = ByteBuffer.allocate(64);
+    writeFrame();
+  }
+
+  @Benchmark
+  public ByteBuffer writeFrame() {
+    buffer.clear();
+    for (int i = 0; i < FRAME_VALUES.length; i++) {
+      if ("long".equals(codec)) {
+        longCodecs[i].encode(FRAME_VALUES[i]);
+        longSerializer.write(context, longCodecs[i], buffer);
+      } else {
+        bigIntegerCodecs[i].encode(FRAME_VALUES[i]);
+        octetStringSerializer.write(context, bigIntegerCodecs[i], buffer);
+      }
+    }
+    return buffer;
+  }
+
+  @Benchmark
+  public long readFrame() {
+    buffer.rewind();
+    long sum = 0;
+    for (int i = 0; i < FRAME_VALUES.length; i++) {
+      final AsnPrimitiveCodec<UnsignedLong> codec;
+      if ("long".equals(this.codec)) {
+        longSerializer.read(context, longCodecs[i], buffer);
+        codec = longCodecs[i];
+      } else {
+        octetStringSerializer.read(context, bigIntegerCodecs[i], buffer);
+        codec = bigIntegerCodecs[i];
+      }
+      sum += codec.decode().longValue();
+    }
+    return sum;
+  }
+}
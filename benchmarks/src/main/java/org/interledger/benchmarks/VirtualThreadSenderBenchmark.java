@@ -0,0 +1,150 @@
+package org.interledger.benchmarks;
+
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.core.InterledgerAddress;
+import org.interledger.link.Link;
+import org.interledger.link.LinkId;
+import org.interledger.spsp.StreamConnectionDetails;
+import org.interledger.stream.Denomination;
+import org.interledger.stream.SendMoneyRequest;
+import org.interledger.stream.SendMoneyResult;
+import org.interledger.stream.SenderAmountMode;
+import org.interledger.stream.calculators.NoOpExchangeRateCalculator;
+import org.interledger.stream.crypto.CachingStreamEncryptionService;
+import org.interledger.stream.crypto.StreamEncryptionService;
+import org.interledger.stream.receiver.CachingStreamConnectionGenerator;
+import org.interledger.stream.receiver.ServerSecretSupplier;
+import org.interledger.stream.receiver.SpspStreamConnectionGenerator;
+import org.interledger.stream.receiver.StatelessStreamReceiver;
+import org.interledger.stream.receiver.StreamConnectionGenerator;
+import org.interledger.stream.sender.FixedSenderAmountPaymentTracker;
+import org.interledger.stream.sender.SimpleStreamSender;
+import org.interledger.stream.sender.StreamSenderExecutor;
+import org.interledger.stream.sender.VirtualThreadExecutors;
+
+import com.google.common.primitives.UnsignedLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures how long a {@link SimpleStreamSender} takes to complete {@link #payments} concurrent payments, with the
+ * bounded pools of a default {@link StreamSenderExecutor} ({@code pool}) and with one virtual thread per payment and
+ * packet ({@code virtual}).</p>
+ *
+ * <p>Virtual threads need Java 21 or newer, and a {@code stream-client} jar built on JDK 21 or newer. On other JVMs
+ * the executor would fall back to the pools, so {@link #setUp()} fails instead of measuring the pools twice.</p>
+ *
+ * <p>The payments go to a {@link StatelessStreamReceiver}, as in {@link StreamSenderBenchmark}.</p>
+ */
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VirtualThreadSenderBenchmark {
+
+  private static final UnsignedLong PAYMENT_AMOUNT = UnsignedLong.valueOf(10_000L);
+
+  private static final InterledgerAddress SENDER_ADDRESS = InterledgerAddress.of("g.benchmarks.sender");
+
+  private static final InterledgerAddress RECEIVER_ADDRESS = InterledgerAddress.of("g.benchmarks.receiver");
+
+  private static final Denomination DENOMINATION = Denomination.builder()
+      .assetCode("XRP")
+      .assetScale((short) 9)
+      .build();
+
+  @Param( {"pool", "virtual"})
+  public String executor;
+
+  @Param( {"10000"})
+  public int payments;
+
+  private StreamSenderExecutor streamSenderExecutor;
+  private SimpleStreamSender streamSender;
+  private List<StreamConnectionDetails> connectionDetails;
+
+  @Setup
+  public void setUp() {
+    final ServerSecretSupplier serverSecretSupplier = () -> BenchmarkFixtures.bytes(32, 8L);
+    final StreamConnectionGenerator connectionGenerator =
+        new CachingStreamConnectionGenerator(new SpspStreamConnectionGenerator());
+    final StreamEncryptionService encryptionService = new CachingStreamEncryptionService();
+
+    final Link<?> link = new StreamSenderBenchmark.ReceiverLink(new StatelessStreamReceiver(
+        serverSecretSupplier, connectionGenerator, encryptionService, StreamCodecContextFactory.oer()
+    ));
+    link.setLinkId(LinkId.of("benchmark"));
+
+    this.streamSenderExecutor = StreamSenderExecutor.builder()
+        .virtualThreads("virtual".equals(executor))
+        .build();
+    // Guard against silently benchmarking the pools as virtual threads.
+    if ("virtual".equals(executor) && !streamSenderExecutor.usesVirtualThreads()) {
+      streamSenderExecutor.shutdown();
+      throw new IllegalStateException(String.format(
+          "executor=virtual needs Java 21+ and a stream-client built on JDK 21+ (virtualThreadsSupported=%s)",
+          VirtualThreadExecutors.isSupported()
+      ));
+    }
+    this.streamSender = SimpleStreamSender.builder()
+        .link(link)
+        .streamEncryptionService(encryptionService)
+        .streamSenderExecutor(streamSenderExecutor)
+        .build();
+
+    // One connection per concurrent payment. Connections are never closed, so later iterations reuse them.
+    this.connectionDetails = new ArrayList<>(payments);
+    for (int i = 0; i < payments; i++) {
+      connectionDetails.add(connectionGenerator.generateConnectionDetails(serverSecretSupplier, RECEIVER_ADDRESS));
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    streamSenderExecutor.shutdown();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public List<SendMoneyResult> concurrentPayments() {
+    final List<CompletableFuture<SendMoneyResult>> futures = new ArrayList<>(payments);
+    for (StreamConnectionDetails details : connectionDetails) {
+      futures.add(streamSender.sendMoney(SendMoneyRequest.builder()
+          .sourceAddress(SENDER_ADDRESS)
+          .destinationAddress(details.destinationAddress())
+          .sharedSecret(details.sharedSecret())
+          .amount(PAYMENT_AMOUNT)
+          .senderAmountMode(SenderAmountMode.SENDER_AMOUNT)
+          .denomination(DENOMINATION)
+          .paymentTracker(new FixedSenderAmountPaymentTracker(PAYMENT_AMOUNT, new NoOpExchangeRateCalculator()))
+          .timeout(Duration.ofMinutes(10))
+          .build()));
+    }
+    final List<SendMoneyResult> results = new ArrayList<>(payments);
+    for (CompletableFuture<SendMoneyResult> future : futures) {
+      final SendMoneyResult result = future.join();
+      if (!result.successfulPayment()) {
+        throw new IllegalStateException("Benchmark payment failed: " + result);
+      }
+      results.add(result);
+    }
+    return results;
+  }
+}
@@ -22,15 +22,11 @@ package org.interledger.codecs.btp;
 
 import org.interledger.encoding.asn.codecs.AsnPrintableStringBasedObjectCodec;
 import org.interledger.encoding.asn.codecs.AsnSizeConstraint;
+import org.interledger.encoding.asn.codecs.AsnTimestampEncoder;
 import org.interledger.encoding.asn.framework.CodecException;
 
 import java.time.Instant;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.DateTimeParseException;
-import java.time.temporal.ChronoField;
-import java.util.regex.Pattern;
 
 /**
  * <p>An Interledger BTP 2.0 Timestamp represented internally as an {@link Instant}.</p>
@@ -51,35 +47,18 @@ import java.util.regex.Pattern;
  */
 public class AsnBtpGeneralizedTimeCodec extends AsnPrintableStringBasedObjectCodec<Instant> {
 
-  private static final String GENERALIZED_TIME_REGEX =
-      "^([0-9]{4})([0-9]{2})([0-9]{2})([0-9]{2})([0-9]{2})([0-9]{2}(\\.\\d{1,3})?Z)$";
-
-  private final DateTimeFormatter generalizedTimeTimestampFormatter;
-
   /**
    * No-args constructor.
    */
   public AsnBtpGeneralizedTimeCodec() {
     super(AsnSizeConstraint.UNCONSTRAINED);
-    setValidator(Pattern.compile(GENERALIZED_TIME_REGEX).asPredicate());
-
-    this.generalizedTimeTimestampFormatter = new DateTimeFormatterBuilder()
-        .appendValue(ChronoField.YEAR, 4)
-        .appendValue(ChronoField.MONTH_OF_YEAR, 2)
-        .appendValue(ChronoField.DAY_OF_MONTH, 2)
-        .appendValue(ChronoField.HOUR_OF_DAY, 2)
-        .appendValue(ChronoField.MINUTE_OF_HOUR, 2)
-        .appendValue(ChronoField.SECOND_OF_MINUTE, 2)
-        .appendFraction(ChronoField.MILLI_OF_SECOND, 0, 3, true)
-        .appendZoneId()
-        .toFormatter()
-        .withZone(ZoneId.of("Z"));
+    setValidator(AsnTimestampEncoder::isGeneralizedTime);
   }
 
   @Override
   public Instant decode() {
     try {
-      return Instant.from(generalizedTimeTimestampFormatter.parse(getCharString()));
+      return Instant.ofEpochMilli(AsnTimestampEncoder.parseGeneralizedTime(getCharString()));
     } catch (DateTimeParseException dtp) {
       throw new CodecException(
           String.format(
@@ -93,7 +72,7 @@ public class AsnBtpGeneralizedTimeCodec extends AsnPrintableStringBasedObjectCod
 
   @Override
   public void encode(Instant value) {
-    setCharString(generalizedTimeTimestampFormatter.format(value));
+    setCharString(AsnTimestampEncoder.formatGeneralizedTime(value));
   }
 
 }
@@ -21,7 +21,7 @@ package org.interledger.codecs.btp;
  */
 
 import org.interledger.btp.BtpTransfer;
-import org.interledger.encoding.asn.codecs.AsnUint64Codec;
+import org.interledger.encoding.asn.codecs.AsnUint64LongCodec;
 
 /**
  * Used to encode/decode the body of a MESSAGE and RESPONSE.
@@ -37,7 +37,7 @@ public class AsnBtpTransferDataCodec extends AsnBtpPacketDataCodec<BtpTransfer>
   public AsnBtpTransferDataCodec(long requestId) {
     super(
         requestId,
-        new AsnUint64Codec(), //Amount
+        new AsnUint64LongCodec(), //Amount
         new AsnBtpSubProtocolsCodec() //SubProtocols
     );
   }
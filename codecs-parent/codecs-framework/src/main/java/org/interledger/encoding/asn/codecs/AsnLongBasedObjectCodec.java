@@ -0,0 +1,94 @@
+package org.interledger.encoding.asn.codecs;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Codec Framework
+ * %%
+ * Copyright (C) 2017 - 2018 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+/**
+ * <p>ASN.1 object codec that uses a primitive {@code long} as an intermediary encoding.</p>
+ *
+ * <p>This base class should be used for codecs where the ASN.1 object is an unsigned integer of at most 64 bits, so
+ * that reading and writing it needs neither an intermediate byte array nor a {@link java.math.BigInteger}.</p>
+ *
+ * <p>Codecs that extend this object can call {@link #getLong()} and {@link #setLong(long)} in their implementations of
+ * {@link #decode()} and {@link #encode(Object)} respectively. The value is treated as unsigned.</p>
+ *
+ * <p>If the size constraint is a fixed size, the integer is encoded in exactly that many octets. Otherwise, it is
+ * encoded as a length prefix followed by the fewest octets that hold the value (a variable-size unsigned integer).</p>
+ */
+public abstract class AsnLongBasedObjectCodec<T> extends AsnPrimitiveCodec<T> {
+
+  private long value;
+  private boolean tooLarge;
+
+  public AsnLongBasedObjectCodec(AsnSizeConstraint sizeConstraintInOctets) {
+    super(sizeConstraintInOctets);
+  }
+
+  public AsnLongBasedObjectCodec(int fixedSizeConstraint) {
+    super(fixedSizeConstraint);
+  }
+
+  /**
+   * Get the internal unsigned {@code long} representation of this object.
+   *
+   * <p>Implementations should call this method within their {@link #decode()} implementation to get
+   * the value that was read by the serializer.
+   *
+   * @return the internal representation of this object. If {@link #isTooLarge()}, the low 64 bits of the value read.
+   */
+  public final long getLong() {
+    return value;
+  }
+
+  /**
+   * Set the internal unsigned {@code long}.
+   *
+   * <p>Implementations should call this method within their {@link #encode(Object)} implementation
+   * to set the value that should be written by the serializer. Serializers call it when reading.
+   *
+   * @param value the unsigned value of this object.
+   */
+  public final void setLong(long value) {
+    this.value = value;
+    this.tooLarge = false;
+    this.onValueChangedEvent();
+  }
+
+  /**
+   * Called by serializers instead of {@link #setLong(long)} when the integer that was read does not fit into 64 bits.
+   *
+   * @param lowBits the low 64 bits of the integer that was read.
+   */
+  public final void setTooLarge(long lowBits) {
+    this.value = lowBits;
+    this.tooLarge = true;
+    this.onValueChangedEvent();
+  }
+
+  /**
+   * Whether the integer that was last read did not fit into 64 bits.
+   *
+   * @return {@code true} if {@link #setTooLarge(long)} was called after the last {@link #setLong(long)}.
+   */
+  public final boolean isTooLarge() {
+    return tooLarge;
+  }
+
+}
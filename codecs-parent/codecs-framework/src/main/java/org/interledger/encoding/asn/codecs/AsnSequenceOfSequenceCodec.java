@@ -29,7 +29,9 @@ public class AsnSequenceOfSequenceCodec<L extends List<T>, T> extends AsnObjectC
 
   private final Supplier<AsnSequenceCodec<T>> supplier;
   private final Supplier<L> listSupplier;
+  // Element codecs are kept when the sequence shrinks so that a reused codec does not allocate them again.
   private ArrayList<AsnSequenceCodec<T>> codecs;
+  private int size;
 
   public AsnSequenceOfSequenceCodec(
       Supplier<L> listSupplier,
@@ -40,7 +42,7 @@ public class AsnSequenceOfSequenceCodec<L extends List<T>, T> extends AsnObjectC
 
   public int size() {
     Objects.requireNonNull(codecs);
-    return this.codecs.size();
+    return this.size;
   }
 
 
@@ -50,14 +52,20 @@ public class AsnSequenceOfSequenceCodec<L extends List<T>, T> extends AsnObjectC
    * @param size size of the sequence.
    */
   public void setSize(int size) {
-    this.codecs = new ArrayList<>(size);
-    for (int i = 0; i < size; i++) {
-      this.codecs.add(i, supplier.get());
+    if (this.codecs == null) {
+      this.codecs = new ArrayList<>(size);
+    }
+    for (int i = this.codecs.size(); i < size; i++) {
+      this.codecs.add(supplier.get());
     }
+    this.size = size;
   }
 
   public AsnSequenceCodec<T> getCodecAt(int index) {
     Objects.requireNonNull(codecs);
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
     return this.codecs.get(index);
   }
 
@@ -70,8 +78,8 @@ public class AsnSequenceOfSequenceCodec<L extends List<T>, T> extends AsnObjectC
   public L decode() {
     Objects.requireNonNull(codecs);
     L list = listSupplier.get();
-    for (AsnSequenceCodec<T> codec : codecs) {
-      list.add(codec.decode());
+    for (int i = 0; i < size; i++) {
+      list.add(codecs.get(i).decode());
     }
     return list;
   }
@@ -83,11 +91,10 @@ public class AsnSequenceOfSequenceCodec<L extends List<T>, T> extends AsnObjectC
    */
   @Override
   public void encode(L values) {
-    this.codecs = new ArrayList<>(values.size());
+    setSize(values.size());
+    int index = 0;
     for (T value : values) {
-      AsnSequenceCodec<T> codec = supplier.get();
-      codec.encode(value);
-      this.codecs.add(codec);
+      this.codecs.get(index++).encode(value);
     }
   }
 
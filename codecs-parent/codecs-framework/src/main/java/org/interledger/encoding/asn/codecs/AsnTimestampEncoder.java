@@ -0,0 +1,445 @@
+package org.interledger.encoding.asn.codecs;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Codec Framework
+ * %%
+ * Copyright (C) 2017 - 2018 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * <p>Converts between epoch milliseconds and the two compact timestamp formats used on the wire by Interledger
+ * protocols, using integer arithmetic only.</p>
+ *
+ * <ul>
+ *   <li>Interledger timestamps (IL-RFC-27) are exactly 17 digits, {@code YYYYMMDDHHmmSSfff}.</li>
+ *   <li>BTP timestamps (IL-RFC-23) are a restricted ASN.1 GeneralizedTime, {@code YYYYMMDDHHmmSS[.f[f[f]]]Z}, where
+ *   the fraction is left out if it is zero and trailing zeros of the fraction are left out.</li>
+ * </ul>
+ *
+ * <p>Both formats are always in UTC and can only express the years 0000 to 9999. Values are interpreted the way a
+ * {@link java.time.format.DateTimeFormatter} with {@link java.time.format.ResolverStyle#SMART} does: a day-of-month
+ * that is past the end of its month (but not above 31) resolves to the last day of that month, and
+ * {@code 24:00:00.000} resolves to midnight at the end of the day. Any other out of range field is rejected.</p>
+ *
+ * <p>Unlike a {@link java.time.format.DateTimeFormatter}, parsing does not allocate, and writing to a
+ * {@link ByteBuffer} does not allocate.</p>
+ */
+public final class AsnTimestampEncoder {
+
+  /**
+   * The length, in characters, of an Interledger timestamp.
+   */
+  public static final int INTERLEDGER_TIMESTAMP_LENGTH = 17;
+
+  private static final long MILLIS_PER_DAY = 86_400_000L;
+  private static final long SECONDS_PER_DAY = 86_400L;
+
+  // 0000-01-01T00:00:00Z and 10000-01-01T00:00:00Z.
+  private static final long MIN_EPOCH_DAY = -719528L;
+  private static final long END_EPOCH_DAY = 2932897L;
+
+  // Returned by toEpochMilli for invalid fields. No valid timestamp is this far from the epoch.
+  private static final long INVALID = Long.MIN_VALUE;
+
+  private AsnTimestampEncoder() {
+  }
+
+  /**
+   * Check whether {@code value} has the format of an Interledger timestamp (17 ASCII digits), without checking that
+   * the digits are a valid date and time.
+   *
+   * @param value the value to check.
+   * @return {@code true} if {@code value} is 17 ASCII digits.
+   */
+  public static boolean isInterledgerTimestamp(final CharSequence value) {
+    return value.length() == INTERLEDGER_TIMESTAMP_LENGTH && isDigits(value, 0, INTERLEDGER_TIMESTAMP_LENGTH);
+  }
+
+  /**
+   * Parse an Interledger timestamp.
+   *
+   * @param value 17 ASCII digits.
+   * @return the number of milliseconds from the epoch of 1970-01-01T00:00:00Z.
+   * @throws DateTimeParseException if {@code value} is not a valid Interledger timestamp.
+   */
+  public static long parseInterledgerTimestamp(final CharSequence value) {
+    final long epochMilli = value.length() == INTERLEDGER_TIMESTAMP_LENGTH
+        ? toEpochMilli(
+            number(value, 0, 4), number(value, 4, 2), number(value, 6, 2),
+            number(value, 8, 2), number(value, 10, 2), number(value, 12, 2), number(value, 14, 3)
+        )
+        : INVALID;
+    if (epochMilli == INVALID) {
+      throw new DateTimeParseException(
+          String.format("Invalid Interledger timestamp: %s", value), value, 0
+      );
+    }
+    return epochMilli;
+  }
+
+  /**
+   * Read an Interledger timestamp from the 17 bytes at the position of {@code buffer}, and advance its position past
+   * them.
+   *
+   * @param buffer a buffer with at least 17 bytes remaining.
+   * @return the number of milliseconds from the epoch of 1970-01-01T00:00:00Z.
+   * @throws DateTimeParseException if the bytes are not a valid Interledger timestamp. The parsed string of the
+   *                                exception holds the bytes decoded as US-ASCII, and the position is not changed.
+   * @throws BufferUnderflowException if fewer than 17 bytes remain.
+   */
+  public static long readInterledgerTimestamp(final ByteBuffer buffer) {
+    if (buffer.remaining() < INTERLEDGER_TIMESTAMP_LENGTH) {
+      throw new BufferUnderflowException();
+    }
+    final int start = buffer.position();
+    final long epochMilli = toEpochMilli(
+        number(buffer, start, 4), number(buffer, start + 4, 2), number(buffer, start + 6, 2),
+        number(buffer, start + 8, 2), number(buffer, start + 10, 2), number(buffer, start + 12, 2),
+        number(buffer, start + 14, 3)
+    );
+    if (epochMilli == INVALID) {
+      final byte[] bytes = new byte[INTERLEDGER_TIMESTAMP_LENGTH];
+      for (int i = 0; i < INTERLEDGER_TIMESTAMP_LENGTH; i++) {
+        bytes[i] = buffer.get(start + i);
+      }
+      final String value = new String(bytes, StandardCharsets.US_ASCII);
+      throw new DateTimeParseException(String.format("Invalid Interledger timestamp: %s", value), value, 0);
+    }
+    ((Buffer) buffer).position(start + INTERLEDGER_TIMESTAMP_LENGTH);
+    return epochMilli;
+  }
+
+  /**
+   * Format an instant as an Interledger timestamp. Any precision below a millisecond is truncated.
+   *
+   * @param value the instant to format.
+   * @return 17 ASCII digits.
+   * @throws DateTimeException if {@code value} is not in the years 0000 to 9999.
+   */
+  public static String formatInterledgerTimestamp(final Instant value) {
+    return formatInterledgerTimestamp(toEpochMilli(value));
+  }
+
+  /**
+   * Format a number of milliseconds from the epoch as an Interledger timestamp.
+   *
+   * @param epochMilli the number of milliseconds from the epoch of 1970-01-01T00:00:00Z.
+   * @return 17 ASCII digits.
+   * @throws DateTimeException if {@code epochMilli} is not in the years 0000 to 9999.
+   */
+  public static String formatInterledgerTimestamp(final long epochMilli) {
+    final char[] chars = new char[INTERLEDGER_TIMESTAMP_LENGTH];
+    long digits = interledgerTimestampDigits(epochMilli);
+    for (int i = INTERLEDGER_TIMESTAMP_LENGTH - 1; i >= 0; i--) {
+      chars[i] = (char) ('0' + digits % 10);
+      digits /= 10;
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Write an instant as an Interledger timestamp of 17 ASCII bytes at the position of {@code buffer}, and advance its
+   * position past them. Any precision below a millisecond is truncated.
+   *
+   * @param value  the instant to write.
+   * @param buffer a buffer with at least 17 bytes remaining.
+   * @throws DateTimeException if {@code value} is not in the years 0000 to 9999. Nothing is written.
+   * @throws BufferOverflowException if fewer than 17 bytes remain. Nothing is written.
+   */
+  public static void writeInterledgerTimestamp(final Instant value, final ByteBuffer buffer) {
+    writeInterledgerTimestamp(toEpochMilli(value), buffer);
+  }
+
+  /**
+   * Write a number of milliseconds from the epoch as an Interledger timestamp of 17 ASCII bytes at the position of
+   * {@code buffer}, and advance its position past them.
+   *
+   * @param epochMilli the number of milliseconds from the epoch of 1970-01-01T00:00:00Z.
+   * @param buffer     a buffer with at least 17 bytes remaining.
+   * @throws DateTimeException if {@code epochMilli} is not in the years 0000 to 9999. Nothing is written.
+   * @throws BufferOverflowException if fewer than 17 bytes remain. Nothing is written.
+   */
+  public static void writeInterledgerTimestamp(final long epochMilli, final ByteBuffer buffer) {
+    long digits = interledgerTimestampDigits(epochMilli);
+    if (buffer.remaining() < INTERLEDGER_TIMESTAMP_LENGTH) {
+      throw new BufferOverflowException();
+    }
+    final int start = buffer.position();
+    for (int i = INTERLEDGER_TIMESTAMP_LENGTH - 1; i >= 0; i--) {
+      buffer.put(start + i, (byte) ('0' + digits % 10));
+      digits /= 10;
+    }
+    ((Buffer) buffer).position(start + INTERLEDGER_TIMESTAMP_LENGTH);
+  }
+
+  /**
+   * Check whether {@code value} has the format of a BTP GeneralizedTime ({@code YYYYMMDDHHmmSS[.f[f[f]]]Z}), without
+   * checking that the digits are a valid date and time.
+   *
+   * @param value the value to check.
+   * @return {@code true} if {@code value} has the format of a BTP timestamp.
+   */
+  public static boolean isGeneralizedTime(final CharSequence value) {
+    final int length = value.length();
+    if (length != 15 && (length < 17 || length > 19)) {
+      return false;
+    }
+    if (!isDigits(value, 0, 14) || value.charAt(length - 1) != 'Z') {
+      return false;
+    }
+    return length == 15 || (value.charAt(14) == '.' && isDigits(value, 15, length - 16));
+  }
+
+  /**
+   * Parse a BTP GeneralizedTime.
+   *
+   * @param value a timestamp in the format {@code YYYYMMDDHHmmSS[.f[f[f]]]Z}.
+   * @return the number of milliseconds from the epoch of 1970-01-01T00:00:00Z.
+   * @throws DateTimeParseException if {@code value} is not a valid BTP timestamp.
+   */
+  public static long parseGeneralizedTime(final CharSequence value) {
+    long epochMilli = INVALID;
+    if (isGeneralizedTime(value)) {
+      final int fractionDigits = value.length() == 15 ? 0 : value.length() - 16;
+      int milli = fractionDigits == 0 ? 0 : number(value, 15, fractionDigits);
+      for (int i = fractionDigits; i < 3; i++) {
+        milli *= 10;
+      }
+      epochMilli = toEpochMilli(
+          number(value, 0, 4), number(value, 4, 2), number(value, 6, 2),
+          number(value, 8, 2), number(value, 10, 2), number(value, 12, 2), milli
+      );
+    }
+    if (epochMilli == INVALID) {
+      throw new DateTimeParseException(String.format("Invalid GeneralizedTime: %s", value), value, 0);
+    }
+    return epochMilli;
+  }
+
+  /**
+   * Format an instant as a BTP GeneralizedTime. Any precision below a millisecond is truncated.
+   *
+   * @param value the instant to format.
+   * @return the timestamp in the format {@code YYYYMMDDHHmmSS[.f[f[f]]]Z}.
+   * @throws DateTimeException if {@code value} is not in the years 0000 to 9999.
+   */
+  public static String formatGeneralizedTime(final Instant value) {
+    return formatGeneralizedTime(toEpochMilli(value));
+  }
+
+  /**
+   * Format a number of milliseconds from the epoch as a BTP GeneralizedTime.
+   *
+   * @param epochMilli the number of milliseconds from the epoch of 1970-01-01T00:00:00Z.
+   * @return the timestamp in the format {@code YYYYMMDDHHmmSS[.f[f[f]]]Z}.
+   * @throws DateTimeException if {@code epochMilli} is not in the years 0000 to 9999.
+   */
+  public static String formatGeneralizedTime(final long epochMilli) {
+    final long digits = interledgerTimestampDigits(epochMilli);
+    long seconds = digits / 1000;
+    int fraction = (int) (digits % 1000);
+
+    // Leave out trailing zeros of the fraction, and the whole fraction if it is zero.
+    int fractionDigits = 3;
+    while (fractionDigits > 0 && fraction % 10 == 0) {
+      fraction /= 10;
+      fractionDigits--;
+    }
+
+    final char[] chars = new char[fractionDigits == 0 ? 15 : 16 + fractionDigits];
+    chars[chars.length - 1] = 'Z';
+    for (int i = fractionDigits; i > 0; i--) {
+      chars[14 + i] = (char) ('0' + fraction % 10);
+      fraction /= 10;
+    }
+    if (fractionDigits > 0) {
+      chars[14] = '.';
+    }
+    for (int i = 13; i >= 0; i--) {
+      chars[i] = (char) ('0' + seconds % 10);
+      seconds /= 10;
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Check that {@code value} can be expressed as an Interledger or BTP timestamp.
+   *
+   * @param value the instant to check.
+   * @throws DateTimeException if {@code value} is not in the years 0000 to 9999.
+   */
+  public static void checkRange(final Instant value) {
+    final long epochDay = Math.floorDiv(value.getEpochSecond(), SECONDS_PER_DAY);
+    if (epochDay < MIN_EPOCH_DAY || epochDay >= END_EPOCH_DAY) {
+      throw new DateTimeException(String.format(
+          "Interledger timestamps are limited to the years 0000 to 9999, but %s is outside of them.", value));
+    }
+  }
+
+  private static long toEpochMilli(final Instant value) {
+    checkRange(value);
+    return value.toEpochMilli();
+  }
+
+  /**
+   * Compute the digits of the Interledger timestamp of {@code epochMilli} as one number, {@code YYYYMMDDHHmmSSfff}.
+   */
+  private static long interledgerTimestampDigits(final long epochMilli) {
+    final long epochDay = Math.floorDiv(epochMilli, MILLIS_PER_DAY);
+    if (epochDay < MIN_EPOCH_DAY || epochDay >= END_EPOCH_DAY) {
+      throw new DateTimeException(String.format(
+          "Interledger timestamps are limited to the years 0000 to 9999, but %s is outside of them.",
+          Instant.ofEpochMilli(epochMilli)));
+    }
+    final long millisOfDay = Math.floorMod(epochMilli, MILLIS_PER_DAY);
+    final long hour = millisOfDay / 3_600_000L;
+    final long minute = millisOfDay / 60_000L % 60;
+    final long second = millisOfDay / 1000 % 60;
+    final long milli = millisOfDay % 1000;
+
+    return civilDate(epochDay) * 1_000_000_000L + hour * 10_000_000L + minute * 100_000L + second * 1000L + milli;
+  }
+
+  /**
+   * Convert validated-format fields to epoch milliseconds, resolving them the way {@code ResolverStyle.SMART} does.
+   *
+   * @return the epoch milliseconds, or {@link #INVALID} if any field is out of range (or negative, which is how
+   *     {@link #number} reports a non-digit).
+   */
+  private static long toEpochMilli(final int year, final int month, final int day,
+                                   final int hour, final int minute, final int second, final int milli) {
+    if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0
+        || minute < 0 || minute > 59 || second < 0 || second > 59 || milli < 0) {
+      return INVALID;
+    }
+
+    // A day-of-month past the end of the month resolves to the last day of the month.
+    final long epochDay = epochDay(year, month, Math.min(day, lengthOfMonth(year, month)));
+    if (hour == 24) {
+      // 24:00:00.000 resolves to midnight at the end of the day. Any other time in hour 24 is invalid.
+      if (minute != 0 || second != 0 || milli != 0) {
+        return INVALID;
+      }
+      return (epochDay + 1) * MILLIS_PER_DAY;
+    }
+    if (hour > 23) {
+      return INVALID;
+    }
+    return epochDay * MILLIS_PER_DAY + hour * 3_600_000L + minute * 60_000L + second * 1000L + milli;
+  }
+
+  private static int lengthOfMonth(final int year, final int month) {
+    switch (month) {
+      case 2:
+        return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+  /**
+   * The number of days from 1970-01-01 to the given date in the proleptic Gregorian calendar.
+   *
+   * @see "http://howardhinnant.github.io/date_algorithms.html#days_from_civil"
+   */
+  private static long epochDay(final int year, final int month, final int day) {
+    final int y = month <= 2 ? year - 1 : year;
+    final int era = Math.floorDiv(y, 400);
+    final int yearOfEra = y - era * 400;
+    final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097L + dayOfEra - 719468;
+  }
+
+  /**
+   * The date {@code epochDay} days from 1970-01-01 in the proleptic Gregorian calendar, as the number
+   * {@code YYYYMMDD}.
+   *
+   * @see "http://howardhinnant.github.io/date_algorithms.html#civil_from_days"
+   */
+  private static long civilDate(final long epochDay) {
+    final long days = epochDay + 719468;
+    final long era = Math.floorDiv(days, 146097);
+    final long dayOfEra = days - era * 146097;
+    final long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    final long shiftedMonth = (5 * dayOfYear + 2) / 153;
+    final long day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+    final long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+    final long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+    return year * 10_000 + month * 100 + day;
+  }
+
+  private static boolean isDigits(final CharSequence value, final int from, final int count) {
+    for (int i = from; i < from + count; i++) {
+      final char digit = value.charAt(i);
+      if (digit < '0' || digit > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Read {@code count} ASCII digits of {@code value} starting at {@code from} as a number.
+   *
+   * @return the number, or -1 if any of the characters is not an ASCII digit.
+   */
+  private static int number(final CharSequence value, final int from, final int count) {
+    int number = 0;
+    for (int i = from; i < from + count; i++) {
+      final int digit = value.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      number = number * 10 + digit;
+    }
+    return number;
+  }
+
+  /**
+   * Read {@code count} ASCII digits of {@code buffer} starting at the absolute index {@code from} as a number.
+   *
+   * @return the number, or -1 if any of the bytes is not an ASCII digit.
+   */
+  private static int number(final ByteBuffer buffer, final int from, final int count) {
+    int number = 0;
+    for (int i = from; i < from + count; i++) {
+      final int digit = buffer.get(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      number = number * 10 + digit;
+    }
+    return number;
+  }
+
+}
@@ -0,0 +1,45 @@
+package org.interledger.encoding.asn.codecs;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Codec Framework
+ * %%
+ * Copyright (C) 2017 - 2018 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+import com.google.common.primitives.UnsignedLong;
+
+/**
+ * An ASN.1 codec for UInt64 objects that decodes them into {@link UnsignedLong} values. Unlike {@link AsnUint64Codec},
+ * the value is held as a primitive {@code long}, so reading and writing it does not allocate a byte array.
+ */
+public class AsnUint64LongCodec extends AsnLongBasedObjectCodec<UnsignedLong> {
+
+  public AsnUint64LongCodec() {
+    super(8);
+  }
+
+  @Override
+  public UnsignedLong decode() {
+    return UnsignedLong.fromLongBits(getLong());
+  }
+
+  @Override
+  public void encode(UnsignedLong value) {
+    setLong(value.longValue());
+  }
+
+}
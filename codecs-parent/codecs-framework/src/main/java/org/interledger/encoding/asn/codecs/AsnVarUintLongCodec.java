@@ -0,0 +1,83 @@
+package org.interledger.encoding.asn.codecs;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Codec Framework
+ * %%
+ * Copyright (C) 2017 - 2018 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+import com.google.common.primitives.UnsignedLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * <p>An ASN.1 codec for a variable-size ASN.1 OER integer type (a VarUInt) that is at most 64 bits, backed by a
+ * primitive {@code long}.</p>
+ *
+ * <p>Per the OER definitions, the integer value is encoded as a length prefix, followed by an
+ * unsigned binary integer occupying a variable number of octets; the length prefix contains the number of subsequent
+ * octets.</p>
+ *
+ * <p>This codec writes the same octets as {@link AsnUintCodecUL} and decodes the same values, including the
+ * optional default value for integers that do not fit into an {@link UnsignedLong}, but does so without allocating a
+ * byte array or a {@link java.math.BigInteger}.</p>
+ *
+ * @see "http://www.oss.com/asn1/resources/books-whitepapers-pubs/Overview_of_OER.pdf"
+ */
+public class AsnVarUintLongCodec extends AsnLongBasedObjectCodec<UnsignedLong> {
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final Optional<UnsignedLong> defaultValue;
+
+  public AsnVarUintLongCodec() {
+    super(AsnSizeConstraint.UNCONSTRAINED);
+    this.defaultValue = Optional.empty();
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param defaultValue An {@link UnsignedLong} that is used if the ASN.1 OER integer does not fit into an Unsigned
+   *                     Long.
+   */
+  public AsnVarUintLongCodec(final UnsignedLong defaultValue) {
+    super(AsnSizeConstraint.UNCONSTRAINED);
+    this.defaultValue = Optional.of(Objects.requireNonNull(defaultValue));
+  }
+
+  @Override
+  public UnsignedLong decode() {
+    if (isTooLarge()) {
+      if (defaultValue.isPresent()) {
+        logger.warn("Variable Unsigned Integer was too big for VarUInt. Returning {}", defaultValue.get());
+        return defaultValue.get();
+      }
+      throw new IllegalArgumentException("value is outside the range for an unsigned long value");
+    }
+    return UnsignedLong.fromLongBits(getLong());
+  }
+
+  @Override
+  public void encode(final UnsignedLong value) {
+    setLong(value.longValue());
+  }
+
+}
@@ -23,20 +23,31 @@ package org.interledger.encoding.asn.framework;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A registry of {@link Class} to {@link AsnObjectCodec} mappings that can provide a new instance of
  * an {@link AsnObjectCodec} that can encode/decode a given type.
+ *
+ * <p>The mapping for a type is resolved by walking its super classes and interfaces the first time
+ * the type is looked up, and the result (including the absence of a mapping) is remembered for that
+ * exact type. Registering a mapping discards the remembered results. Once {@link #freeze()} has been
+ * called no further mappings can be registered, so the remembered results are kept for good.
  */
 public class AsnObjectCodecRegistry {
 
-  private final Map<Class<?>, AsnObjectCodecSupplier> mappersByObjectType;
+  private final Map<Class<?>, Mapping> mappersByObjectType;
+  private final AtomicInteger mappingCount;
+  private volatile ClassValue<Mapping> mappingsByExactType;
+  private volatile boolean frozen;
 
   /**
    * No-args Constructor.
    */
   public AsnObjectCodecRegistry() {
     this.mappersByObjectType = new ConcurrentHashMap<>();
+    this.mappingCount = new AtomicInteger();
+    this.mappingsByExactType = newMappingsByExactType();
   }
 
   /**
@@ -47,16 +58,44 @@ public class AsnObjectCodecRegistry {
    *                 {@link AsnObjectCodec} instances as required.
    * @param <T>      The type of object that can be encoded/decoded by the given codec.
    * @return this {@link AsnObjectCodecRegistry} to allow chaining calls to this method.
+   * @throws IllegalStateException if this registry has been frozen.
    */
   public <T> AsnObjectCodecRegistry register(Class<T> type, AsnObjectCodecSupplier<T> supplier) {
     Objects.requireNonNull(type);
     Objects.requireNonNull(supplier);
 
-    this.mappersByObjectType.put(type, supplier);
+    synchronized (this) {
+      if (frozen) {
+        throw new IllegalStateException(
+            String.format("Can't register %s, the codec registry is frozen.", type.getName()));
+      }
+      this.mappersByObjectType.put(type, new Mapping(mappingCount.getAndIncrement(), supplier));
+      this.mappingsByExactType = newMappingsByExactType();
+    }
 
     return this;
   }
 
+  /**
+   * Prevent any further registrations, so that the mapping resolved for each type never has to be
+   * resolved again. Calling this more than once has no effect.
+   *
+   * @return this {@link AsnObjectCodecRegistry} to allow chaining calls.
+   */
+  public synchronized AsnObjectCodecRegistry freeze() {
+    this.frozen = true;
+    return this;
+  }
+
+  /**
+   * Indicates if {@link #freeze()} has been called.
+   *
+   * @return true if no further mappings can be registered.
+   */
+  public boolean isFrozen() {
+    return frozen;
+  }
+
   /**
    * Get a new {@link AsnObjectCodec} instance to encode/decode the specified {@code type}.
    *
@@ -68,22 +107,85 @@ public class AsnObjectCodecRegistry {
   public <T> AsnObjectCodec<T> getAsnObjectForType(final Class<T> type) {
     Objects.requireNonNull(type);
 
-    AsnObjectCodec<T> codec = tryGetAsnObjectForType(type);
+    AsnObjectCodec<T> codec = (AsnObjectCodec<T>) getMapping(type).supplier.get();
     if (codec == null) {
-      throw new CodecException(
-          String.format("No codec registered for %s or its super classes!",
-              type.getName()));
+      // The supplier that was resolved declined, so fall back to the suppliers further up.
+      codec = tryGetAsnObjectForType(type);
+    }
+    if (codec == null) {
+      throw noCodecRegistered(type);
     }
     return codec;
   }
 
+  /**
+   * Get the index of the mapping that supplies codecs for {@code type}. Every registration is given
+   * its own index, starting at zero, so two types share an index only if their codecs come from the
+   * same {@link AsnObjectCodecSupplier}. This allows callers to keep codecs in an array instead of a
+   * map.
+   *
+   * @param type An instance of {@link Class}.
+   * @return the index of the mapping for {@code type}.
+   * @throws CodecException if there is no mapping for {@code type}.
+   */
+  int getMappingIndex(final Class<?> type) {
+    return getMapping(type).index;
+  }
+
+  private Mapping getMapping(final Class<?> type) {
+    Mapping mapping = mappingsByExactType.get(type);
+    if (mapping == Mapping.NONE) {
+      throw noCodecRegistered(type);
+    }
+    return mapping;
+  }
+
+  private CodecException noCodecRegistered(final Class<?> type) {
+    return new CodecException(
+        String.format("No codec registered for %s or its super classes!",
+            type.getName()));
+  }
+
+  private ClassValue<Mapping> newMappingsByExactType() {
+    return new ClassValue<Mapping>() {
+      @Override
+      protected Mapping computeValue(Class<?> type) {
+        Mapping mapping = findMapping(type);
+        return mapping == null ? Mapping.NONE : mapping;
+      }
+    };
+  }
+
+  private Mapping findMapping(final Class<?> type) {
+    Mapping mapping = mappersByObjectType.get(type);
+    if (mapping != null) {
+      return mapping;
+    }
+
+    if (type.getSuperclass() != null) {
+      mapping = findMapping(type.getSuperclass());
+      if (mapping != null) {
+        return mapping;
+      }
+    }
+
+    for (Class<?> interfaceType : type.getInterfaces()) {
+      mapping = findMapping(interfaceType);
+      if (mapping != null) {
+        return mapping;
+      }
+    }
+
+    return null;
+  }
+
   private <T> AsnObjectCodec<T> tryGetAsnObjectForType(final Class<T> type) {
     Objects.requireNonNull(type);
 
     AsnObjectCodec<T> codec;
 
     if (mappersByObjectType.containsKey(type)) {
-      codec = mappersByObjectType.get(type).get();
+      codec = (AsnObjectCodec<T>) mappersByObjectType.get(type).supplier.get();
       if (codec != null) {
         return codec;
       }
@@ -106,5 +208,20 @@ public class AsnObjectCodecRegistry {
     return null;
   }
 
-}
+  /**
+   * A registered supplier and the index of its registration.
+   */
+  private static final class Mapping {
 
+    static final Mapping NONE = new Mapping(-1, null);
+
+    private final int index;
+    private final AsnObjectCodecSupplier<?> supplier;
+
+    private Mapping(int index, AsnObjectCodecSupplier<?> supplier) {
+      this.index = index;
+      this.supplier = supplier;
+    }
+  }
+
+}
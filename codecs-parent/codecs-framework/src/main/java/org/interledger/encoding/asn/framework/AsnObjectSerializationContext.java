@@ -25,12 +25,19 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A contextual object for serializing {@link AsnObjectCodec} using registered serializers.
+ *
+ * <p>The serializer for a codec class is resolved by walking its super classes and interfaces the
+ * first time the class is seen, and the result (including the absence of a serializer) is
+ * remembered for that exact class. Registering a serializer discards the remembered results. Once
+ * {@link #freeze()} has been called no further serializers can be registered.
  */
 public class AsnObjectSerializationContext {
 
@@ -39,11 +46,19 @@ public class AsnObjectSerializationContext {
    */
   private final Map<Class<? extends AsnObjectCodec>, AsnObjectSerializer> serializers;
 
+  /**
+   * The serializer resolved for each exact codec class.
+   */
+  private volatile ClassValue<Optional<AsnObjectSerializer>> serializersByExactType;
+
+  private volatile boolean frozen;
+
   /**
    * No-args Constructor.
    */
   public AsnObjectSerializationContext() {
     this.serializers = new ConcurrentHashMap<>();
+    this.serializersByExactType = newSerializersByExactType();
   }
 
   /**
@@ -55,6 +70,7 @@ public class AsnObjectSerializationContext {
    *                   serializer.
    *
    * @return A {@link AsnObjectSerializationContext} for the supplied {@code type}.
+   * @throws IllegalStateException if this context has been frozen.
    */
   public <T extends AsnObjectCodec> AsnObjectSerializationContext register(
       final Class<T> type,
@@ -63,10 +79,37 @@ public class AsnObjectSerializationContext {
     Objects.requireNonNull(type);
     Objects.requireNonNull(serializer);
 
-    this.serializers.put(type, serializer);
+    synchronized (this) {
+      if (frozen) {
+        throw new IllegalStateException(
+            String.format("Can't register %s, the serialization context is frozen.", type.getName()));
+      }
+      this.serializers.put(type, serializer);
+      this.serializersByExactType = newSerializersByExactType();
+    }
+    return this;
+  }
+
+  /**
+   * Prevent any further registrations, so that the serializer resolved for each codec class never
+   * has to be resolved again. Calling this more than once has no effect.
+   *
+   * @return this {@link AsnObjectSerializationContext} for further operations.
+   */
+  public synchronized AsnObjectSerializationContext freeze() {
+    this.frozen = true;
     return this;
   }
 
+  /**
+   * Indicates if {@link #freeze()} has been called.
+   *
+   * @return true if no further serializers can be registered.
+   */
+  public boolean isFrozen() {
+    return frozen;
+  }
+
   /**
    * Read an deserialize an ASN.1 object from a stream.
    *
@@ -112,6 +155,24 @@ public class AsnObjectSerializationContext {
     return this;
   }
 
+  /**
+   * Read and deserialize an ASN.1 object from a {@link ByteBuffer}, starting at the buffer's current position. On
+   * return the buffer's position has been advanced past the object.
+   *
+   * @param instance An instance of {@link AsnObjectCodec} that will be populated with the deserialized data.
+   * @param buffer   A heap or direct {@link ByteBuffer} that contains bytes in a certain encoding.
+   *
+   * @return this {@link AsnObjectSerializationContext} for further operations.
+   *
+   * @throws CodecException if the buffer does not contain a valid encoding.
+   */
+  public AsnObjectSerializationContext read(final AsnObjectCodec instance, final ByteBuffer buffer) {
+    Objects.requireNonNull(instance);
+    Objects.requireNonNull(buffer);
+    getSerializer(instance).read(this, instance, buffer);
+    return this;
+  }
+
   /**
    * Write the decoded value of an {@link AsnObjectCodec} to the supplied {@link OutputStream}.
    *
@@ -154,6 +215,39 @@ public class AsnObjectSerializationContext {
     }
   }
 
+  /**
+   * Write the decoded value of an {@link AsnObjectCodec} to the supplied {@link ByteBuffer}, starting at the buffer's
+   * current position. On return the buffer's position has been advanced past the object.
+   *
+   * @param instance An instance of {@link AsnObjectCodec} that will encode the value to be serialized.
+   * @param buffer   A heap or direct {@link ByteBuffer} that will be written to.
+   *
+   * @return this {@link AsnObjectSerializationContext} for further operations.
+   *
+   * @throws java.nio.BufferOverflowException if the buffer has less than {@link #sizeOf(AsnObjectCodec)} bytes
+   *                                          remaining.
+   */
+  public AsnObjectSerializationContext write(final AsnObjectCodec instance, final ByteBuffer buffer) {
+    Objects.requireNonNull(instance);
+    Objects.requireNonNull(buffer);
+
+    getSerializer(instance).write(this, instance, buffer);
+
+    return this;
+  }
+
+  /**
+   * Compute the number of bytes that serializing the value of an {@link AsnObjectCodec} would produce.
+   *
+   * @param instance An instance of {@link AsnObjectCodec} that will encode the value to be serialized.
+   *
+   * @return The encoded size, in bytes.
+   */
+  public int sizeOf(final AsnObjectCodec instance) {
+    Objects.requireNonNull(instance);
+    return getSerializer(instance).sizeOf(this, instance);
+  }
+
   /**
    * Get the {@link AsnObjectSerializer} instance for serializing the given {@link AsnObjectCodec}.
    *
@@ -161,14 +255,23 @@ public class AsnObjectSerializationContext {
    */
   <T extends AsnObjectCodec> AsnObjectSerializer<T> getSerializer(final T instance) {
 
-    AsnObjectSerializer<T> serializer = tryGetSerializerForCodec((Class<T>) instance.getClass());
+    Optional<AsnObjectSerializer> serializer = serializersByExactType.get(instance.getClass());
 
-    if (serializer == null) {
+    if (!serializer.isPresent()) {
       throw new CodecException(
           String.format("No serializer registered for %s or its super classes!",
               instance.getClass().getName()));
     }
-    return serializer;
+    return serializer.get();
+  }
+
+  private ClassValue<Optional<AsnObjectSerializer>> newSerializersByExactType() {
+    return new ClassValue<Optional<AsnObjectSerializer>>() {
+      @Override
+      protected Optional<AsnObjectSerializer> computeValue(Class<?> type) {
+        return Optional.ofNullable(tryGetSerializerForCodec((Class<AsnObjectCodec>) type));
+      }
+    };
   }
 
   // Visible for testing...
@@ -179,11 +282,9 @@ public class AsnObjectSerializationContext {
 
     AsnObjectSerializer<T> serializer;
 
-    if (serializers.containsKey(type)) {
-      serializer = serializers.get(type);
-      if (serializer != null) {
-        return serializer;
-      }
+    serializer = serializers.get(type);
+    if (serializer != null) {
+      return serializer;
     }
 
     if (type.getSuperclass() != null) {
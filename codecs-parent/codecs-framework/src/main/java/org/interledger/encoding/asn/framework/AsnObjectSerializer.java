@@ -20,9 +20,13 @@ package org.interledger.encoding.asn.framework;
  * =========================LICENSE_END==================================
  */
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 
 /**
  * A serializer/deserializer interface for ASN.1 objects.
@@ -55,4 +59,72 @@ public interface AsnObjectSerializer<T extends AsnObjectCodec> {
   void write(AsnObjectSerializationContext context, T instance, OutputStream outputStream)
       throws IOException;
 
+  /**
+   * Read an ASN.1 object from the {@code buffer}, starting at its current position, according to the rules defined in
+   * the {@code context}. On return the position of {@code buffer} has been advanced past the object.
+   *
+   * <p>The default implementation copies the remaining bytes and delegates to
+   * {@link #read(AsnObjectSerializationContext, AsnObjectCodec, InputStream)}. Serializers on a hot path should
+   * override it to read the buffer directly.
+   *
+   * @param context  An instance of {@link AsnObjectSerializationContext}.
+   * @param instance An instance of {@link AsnObjectCodec} to read the data into.
+   * @param buffer   A heap or direct {@link ByteBuffer} to read data from.
+   *
+   * @throws CodecException if the buffer does not contain a valid encoding.
+   */
+  default void read(AsnObjectSerializationContext context, T instance, ByteBuffer buffer) {
+    final byte[] remaining = new byte[buffer.remaining()];
+    buffer.duplicate().get(remaining);
+    try (ByteArrayInputStream inputStream = new ByteArrayInputStream(remaining)) {
+      read(context, instance, inputStream);
+      // Cast to Buffer so that the Java 8 signature of position(int) is linked.
+      ((Buffer) buffer).position(buffer.position() + remaining.length - inputStream.available());
+    } catch (IOException e) {
+      throw new CodecException("Unable to decode " + instance.getClass().getCanonicalName(), e);
+    }
+  }
+
+  /**
+   * Write an object to the {@code buffer}, starting at its current position, according to the rules defined in the
+   * {@code context}. On return the position of {@code buffer} has been advanced past the object.
+   *
+   * <p>The default implementation delegates to {@link #write(AsnObjectSerializationContext, AsnObjectCodec,
+   * OutputStream)} and copies the result. Serializers on a hot path should override it to write the buffer directly.
+   *
+   * @param context  An instance of {@link AsnObjectSerializationContext}.
+   * @param instance An instance of {@link AsnObjectCodec} that is being serialized.
+   * @param buffer   A heap or direct {@link ByteBuffer} to write data to.
+   *
+   * @throws java.nio.BufferOverflowException if {@code buffer} has less than {@link #sizeOf} bytes remaining.
+   */
+  default void write(AsnObjectSerializationContext context, T instance, ByteBuffer buffer) {
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      write(context, instance, outputStream);
+      buffer.put(outputStream.toByteArray());
+    } catch (IOException e) {
+      throw new CodecException("Error encoding " + instance.getClass().getCanonicalName(), e);
+    }
+  }
+
+  /**
+   * Compute the number of bytes that writing {@code instance} would produce, without writing it.
+   *
+   * <p>The default implementation serializes {@code instance} into a temporary array. Serializers on a hot path
+   * should override it to compute the size directly.
+   *
+   * @param context  An instance of {@link AsnObjectSerializationContext}.
+   * @param instance An instance of {@link AsnObjectCodec} that would be serialized.
+   *
+   * @return The encoded size of {@code instance}, in bytes.
+   */
+  default int sizeOf(AsnObjectSerializationContext context, T instance) {
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      write(context, instance, outputStream);
+      return outputStream.size();
+    } catch (IOException e) {
+      throw new CodecException("Error encoding " + instance.getClass().getCanonicalName(), e);
+    }
+  }
+
 }
@@ -23,20 +23,83 @@ package org.interledger.encoding.asn.framework;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.function.Supplier;
 
 /**
  * A context that maps native objects to their ASN.1 codecs and the codecs to serializers.
+ *
+ * <p>By default every call to one of the {@code read}, {@code write} or {@code sizeOf} methods obtains a new codec
+ * tree from the registered {@link AsnObjectCodecSupplier}. A context constructed with {@code reuseCodecs} enabled
+ * instead keeps one codec tree per registered supplier and per thread, and resets it (by reading or encoding into it)
+ * on the next call. This requires every registered codec to overwrite all of its state on each read and encode, which
+ * is true of the codecs in this library. A reused codec keeps a reference to the last value it encoded or decoded until
+ * the next call on the same thread.
  */
 public class CodecContext {
 
   private final AsnObjectCodecRegistry mappings;
   private final AsnObjectSerializationContext serializers;
+  private final boolean reuseCodecs;
+
+  // Idle codecs of the current thread, indexed by AsnObjectCodecRegistry#getMappingIndex. A new registration gets a
+  // new index, so a slot never holds a codec of a superseded mapping.
+  private final ThreadLocal<AsnObjectCodec<?>[]> idleCodecs;
 
   public CodecContext(AsnObjectCodecRegistry mappings, AsnObjectSerializationContext serializers) {
+    this(mappings, serializers, false);
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param mappings    The {@link AsnObjectCodecRegistry} that supplies codecs for each type.
+   * @param serializers The {@link AsnObjectSerializationContext} that serializes each codec.
+   * @param reuseCodecs {@code true} to keep and reuse one codec tree per type and per thread instead of obtaining a
+   *                    new one from {@code mappings} on every call.
+   */
+  public CodecContext(
+      AsnObjectCodecRegistry mappings, AsnObjectSerializationContext serializers, boolean reuseCodecs
+  ) {
     this.mappings = mappings;
     this.serializers = serializers;
+    this.reuseCodecs = reuseCodecs;
+    this.idleCodecs = ThreadLocal.withInitial(() -> new AsnObjectCodec<?>[16]);
+  }
+
+  /**
+   * Indicates if this context reuses codec trees between calls on the same thread.
+   *
+   * @return {@code true} if codecs are reused.
+   */
+  public boolean isReuseCodecs() {
+    return reuseCodecs;
+  }
+
+  /**
+   * Prevent any further registrations. The codec and serializer resolved for each type are then never discarded, so
+   * the lookups on the read and write paths do no further searching of the type hierarchy. Call this once all codecs
+   * have been registered.
+   *
+   * @return this object so that calls can be chained together.
+   * @see AsnObjectCodecRegistry#freeze()
+   * @see AsnObjectSerializationContext#freeze()
+   */
+  public CodecContext freeze() {
+    mappings.freeze();
+    serializers.freeze();
+    return this;
+  }
+
+  /**
+   * Indicates if {@link #freeze()} has been called.
+   *
+   * @return true if no further codecs can be registered.
+   */
+  public boolean isFrozen() {
+    return mappings.isFrozen() && serializers.isFrozen();
   }
 
   /**
@@ -106,9 +169,12 @@ public class CodecContext {
    * @throws IOException if there are errors reading from the stream.
    */
   public <T> T read(Class<T> type, InputStream inputStream) throws IOException {
-    AsnObjectCodec<T> asnObjectCodec = mappings.getAsnObjectForType(type);
+    int slot = slotFor(type);
+    AsnObjectCodec<T> asnObjectCodec = checkOut(slot, type);
     serializers.read(asnObjectCodec, inputStream);
-    return asnObjectCodec.decode();
+    T value = asnObjectCodec.decode();
+    checkIn(slot, asnObjectCodec);
+    return value;
   }
 
   /**
@@ -120,10 +186,101 @@ public class CodecContext {
    * @throws IOException if there are errors writing to the stream.
    */
   public <T> void write(T instance, OutputStream outputStream) throws IOException {
-    AsnObjectCodec<T> asnObjectCodec = mappings.getAsnObjectForType((Class<T>) instance
-        .getClass());
+    Class<T> type = (Class<T>) instance.getClass();
+    int slot = slotFor(type);
+    AsnObjectCodec<T> asnObjectCodec = checkOut(slot, type);
     asnObjectCodec.encode(instance);
     serializers.write(asnObjectCodec, outputStream);
+    checkIn(slot, asnObjectCodec);
+  }
+
+  /**
+   * Deserialize an object of the given type from the given buffer, starting at its current position, and use the
+   * appropriate ASN.1 codec to decode the deserialized ASN.1 object into an object of type {@code T}. On return the
+   * buffer's position has been advanced past the object.
+   *
+   * @param type   The type of the object to read from the buffer.
+   * @param buffer A heap or direct {@link ByteBuffer} from which to read the object.
+   * @param <T>    The type of the object.
+   * @return the object read from the buffer.
+   * @throws CodecException if the buffer does not contain a valid encoding.
+   */
+  public <T> T read(Class<T> type, ByteBuffer buffer) {
+    int slot = slotFor(type);
+    AsnObjectCodec<T> asnObjectCodec = checkOut(slot, type);
+    serializers.read(asnObjectCodec, buffer);
+    T value = asnObjectCodec.decode();
+    checkIn(slot, asnObjectCodec);
+    return value;
+  }
+
+  /**
+   * Encode the given object to it's ASN.1 form and then serialize it to the given buffer, starting at its current
+   * position. On return the buffer's position has been advanced past the object.
+   *
+   * @param instance The object to write.
+   * @param buffer   A heap or direct {@link ByteBuffer} to write to.
+   * @param <T>      The type of the object.
+   * @throws java.nio.BufferOverflowException if the buffer has less than {@link #sizeOf(Object)} bytes remaining.
+   */
+  public <T> void write(T instance, ByteBuffer buffer) {
+    Class<T> type = (Class<T>) instance.getClass();
+    int slot = slotFor(type);
+    AsnObjectCodec<T> asnObjectCodec = checkOut(slot, type);
+    asnObjectCodec.encode(instance);
+    serializers.write(asnObjectCodec, buffer);
+    checkIn(slot, asnObjectCodec);
+  }
+
+  /**
+   * Compute the number of bytes that {@link #write(Object, ByteBuffer)} will produce for the given object, e.g. to size
+   * a buffer before writing to it.
+   *
+   * @param instance The object to measure.
+   * @param <T>      The type of the object.
+   * @return the encoded size of {@code instance}, in bytes.
+   */
+  public <T> int sizeOf(T instance) {
+    Class<T> type = (Class<T>) instance.getClass();
+    int slot = slotFor(type);
+    AsnObjectCodec<T> asnObjectCodec = checkOut(slot, type);
+    asnObjectCodec.encode(instance);
+    int size = serializers.sizeOf(asnObjectCodec);
+    checkIn(slot, asnObjectCodec);
+    return size;
+  }
+
+  private int slotFor(Class<?> type) {
+    return reuseCodecs ? mappings.getMappingIndex(type) : -1;
+  }
+
+  /**
+   * Take the idle codec in {@code slot}, or obtain a new one from the registry if the slot is empty. The slot stays
+   * empty until {@link #checkIn(int, AsnObjectCodec)}, so a nested call for the same type on this thread gets a codec
+   * of its own, and a codec that was left in an unknown state by an exception is never reused.
+   */
+  private <T> AsnObjectCodec<T> checkOut(int slot, Class<T> type) {
+    if (slot >= 0) {
+      AsnObjectCodec<?>[] codecs = idleCodecs.get();
+      if (slot < codecs.length && codecs[slot] != null) {
+        AsnObjectCodec<T> codec = (AsnObjectCodec<T>) codecs[slot];
+        codecs[slot] = null;
+        return codec;
+      }
+    }
+    return mappings.getAsnObjectForType(type);
+  }
+
+  private void checkIn(int slot, AsnObjectCodec<?> codec) {
+    if (slot < 0) {
+      return;
+    }
+    AsnObjectCodec<?>[] codecs = idleCodecs.get();
+    if (slot >= codecs.length) {
+      codecs = Arrays.copyOf(codecs, Math.max(slot + 1, codecs.length * 2));
+      idleCodecs.set(codecs);
+    }
+    codecs[slot] = codec;
   }
 
 }
@@ -23,6 +23,7 @@ package org.interledger.encoding.asn.framework;
 import org.interledger.encoding.asn.codecs.AsnCharStringBasedObjectCodec;
 import org.interledger.encoding.asn.codecs.AsnIA5StringBasedObjectCodec;
 import org.interledger.encoding.asn.codecs.AsnIA5StringCodec;
+import org.interledger.encoding.asn.codecs.AsnLongBasedObjectCodec;
 import org.interledger.encoding.asn.codecs.AsnOctetStringBasedObjectCodec;
 import org.interledger.encoding.asn.codecs.AsnOctetStringCodec;
 import org.interledger.encoding.asn.codecs.AsnOpenTypeCodec;
@@ -32,12 +33,15 @@ import org.interledger.encoding.asn.codecs.AsnSizeConstraint;
 import org.interledger.encoding.asn.codecs.AsnUint16Codec;
 import org.interledger.encoding.asn.codecs.AsnUint32Codec;
 import org.interledger.encoding.asn.codecs.AsnUint64Codec;
+import org.interledger.encoding.asn.codecs.AsnUint64LongCodec;
 import org.interledger.encoding.asn.codecs.AsnUint8Codec;
 import org.interledger.encoding.asn.codecs.AsnUintCodec;
 import org.interledger.encoding.asn.codecs.AsnUintCodecUL;
 import org.interledger.encoding.asn.codecs.AsnUtf8StringBasedObjectCodec;
 import org.interledger.encoding.asn.codecs.AsnUtf8StringCodec;
+import org.interledger.encoding.asn.codecs.AsnVarUintLongCodec;
 import org.interledger.encoding.asn.serializers.oer.AsnCharStringOerSerializer;
+import org.interledger.encoding.asn.serializers.oer.AsnLongOerSerializer;
 import org.interledger.encoding.asn.serializers.oer.AsnOctetStringOerSerializer;
 import org.interledger.encoding.asn.serializers.oer.AsnOpenTypeOerSerializer;
 import org.interledger.encoding.asn.serializers.oer.AsnSequenceOerSerializer;
@@ -53,17 +57,29 @@ import java.math.BigInteger;
 public class CodecContextFactory {
 
   /**
-   * Constructs a {@link CodecContext} that is configured to read and write ASN.1 OER encodings.
+   * Constructs a {@link CodecContext} that is configured to read and write ASN.1 OER encodings. The context reuses
+   * codec trees between calls on the same thread (see {@link CodecContext}), so codecs registered into it must
+   * overwrite all of their state on each read and encode.
    *
    * @return A {@link CodecContext}
    */
   public static CodecContext oer() {
+    return oer(true);
+  }
+
+  /**
+   * Constructs a {@link CodecContext} that is configured to read and write ASN.1 OER encodings.
+   *
+   * @param reuseCodecs {@code true} if the context should reuse codec trees between calls on the same thread.
+   * @return A {@link CodecContext}
+   */
+  public static CodecContext oer(boolean reuseCodecs) {
     final AsnObjectCodecRegistry mappings = new AsnObjectCodecRegistry()
         .register(byte[].class, () -> new AsnOctetStringCodec(AsnSizeConstraint.UNCONSTRAINED))
         .register(Short.class, AsnUint8Codec::new) // unsigned!
         .register(Integer.class, AsnUint16Codec::new)
         .register(Long.class, AsnUint32Codec::new)
-        .register(UnsignedLong.class, AsnUint64Codec::new)
+        .register(UnsignedLong.class, AsnUint64LongCodec::new)
         .register(BigInteger.class, AsnUintCodec::new)
         .register(String.class, () -> new AsnUtf8StringCodec(AsnSizeConstraint.UNCONSTRAINED));
 
@@ -82,9 +98,12 @@ public class CodecContextFactory {
         .register(AsnUint64Codec.class, new AsnOctetStringOerSerializer())
         .register(AsnUintCodec.class, new AsnOctetStringOerSerializer())
         .register(AsnUintCodecUL.class, new AsnOctetStringOerSerializer())
+        .register(AsnLongBasedObjectCodec.class, new AsnLongOerSerializer())
+        .register(AsnUint64LongCodec.class, new AsnLongOerSerializer())
+        .register(AsnVarUintLongCodec.class, new AsnLongOerSerializer())
         .register(AsnUtf8StringCodec.class, new AsnCharStringOerSerializer())
         .register(AsnUtf8StringBasedObjectCodec.class, new AsnCharStringOerSerializer());
 
-    return new CodecContext(mappings, serializers);
+    return new CodecContext(mappings, serializers, reuseCodecs);
   }
 }
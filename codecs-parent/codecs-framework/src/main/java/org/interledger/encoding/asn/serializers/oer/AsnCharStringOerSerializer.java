@@ -24,12 +24,18 @@ import org.interledger.encoding.asn.codecs.AsnCharStringBasedObjectCodec;
 import org.interledger.encoding.asn.codecs.AsnSizeConstraint;
 import org.interledger.encoding.asn.framework.AsnObjectSerializationContext;
 import org.interledger.encoding.asn.framework.AsnObjectSerializer;
+import org.interledger.encoding.asn.framework.CodecException;
+
+import com.google.common.base.Utf8;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
 /**
@@ -85,6 +91,100 @@ public class AsnCharStringOerSerializer implements
     outputStream.write(data);
   }
 
+  @Override
+  public void read(final AsnObjectSerializationContext context,
+                   final AsnCharStringBasedObjectCodec instance,
+                   final ByteBuffer buffer) {
+
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+    Objects.requireNonNull(buffer);
+
+    final int length;
+    final AsnSizeConstraint sizeConstraint = instance.getSizeConstraint();
+    if (sizeConstraint.isFixedSize()) {
+      length = sizeConstraint.getMax();
+    } else {
+      // Read the length of the encoded OctetString...
+      length = OerLengthSerializer.readLength(buffer);
+    }
+
+    if (buffer.remaining() < length) {
+      throw new CodecException(String.format(
+          "Unexpected end of buffer. Expected %s bytes but only %s remain.", length, buffer.remaining()));
+    }
+
+    final String result;
+    if (length == 0) {
+      result = "";
+    } else if (buffer.hasArray()) {
+      // Decode straight out of the backing array, then skip over the decoded bytes.
+      result = new String(
+          buffer.array(), buffer.arrayOffset() + buffer.position(), length, instance.getCharacterSet()
+      );
+      ((Buffer) buffer).position(buffer.position() + length);
+    } else {
+      final byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      result = new String(bytes, instance.getCharacterSet());
+    }
+
+    instance.setCharString(result);
+  }
+
+  @Override
+  public void write(final AsnObjectSerializationContext context,
+                    final AsnCharStringBasedObjectCodec instance,
+                    final ByteBuffer buffer) {
+
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+    Objects.requireNonNull(buffer);
+
+    final byte[] data = instance.getCharString().getBytes(instance.getCharacterSet());
+
+    if (!instance.getSizeConstraint().isFixedSize()) {
+      // Write the octet length of the string...
+      OerLengthSerializer.writeLength(data.length, buffer);
+    }
+
+    // Write the String bytes to the buffer.
+    buffer.put(data);
+  }
+
+  @Override
+  public int sizeOf(final AsnObjectSerializationContext context,
+                    final AsnCharStringBasedObjectCodec instance) {
+
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+
+    final int length = encodedLength(instance.getCharString(), instance.getCharacterSet());
+    if (instance.getSizeConstraint().isFixedSize()) {
+      return length;
+    }
+    return OerLengthSerializer.sizeOfLength(length) + length;
+  }
+
+  /**
+   * Compute the number of bytes {@code value} occupies in {@code charset}, without encoding it for the charsets used by
+   * the ASN.1 string types.
+   */
+  private int encodedLength(final String value, final Charset charset) {
+    if (StandardCharsets.US_ASCII.equals(charset)) {
+      // Every code point (including unmappable ones, which become '?') is encoded as exactly one byte.
+      return value.codePointCount(0, value.length());
+    }
+    if (StandardCharsets.UTF_8.equals(charset)) {
+      try {
+        return Utf8.encodedLength(value);
+      } catch (IllegalArgumentException e) {
+        // Unpaired surrogates are replaced by the encoder, so fall through and let it decide.
+      }
+    }
+    return value.getBytes(charset).length;
+  }
+
   /**
    * Convert an {@link InputStream} into a {@link String}. Reference the SO below for an interesting
    * performance comparison of various InputStream to String methodologies.
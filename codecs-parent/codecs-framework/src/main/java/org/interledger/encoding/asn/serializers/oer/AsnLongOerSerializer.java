@@ -0,0 +1,181 @@
+package org.interledger.encoding.asn.serializers.oer;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Codec Framework
+ * %%
+ * Copyright (C) 2017 - 2018 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+import static java.lang.String.format;
+
+import org.interledger.encoding.asn.codecs.AsnLongBasedObjectCodec;
+import org.interledger.encoding.asn.codecs.AsnSizeConstraint;
+import org.interledger.encoding.asn.framework.AsnObjectSerializationContext;
+import org.interledger.encoding.asn.framework.AsnObjectSerializer;
+import org.interledger.encoding.asn.framework.CodecException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * An extension of {@link AsnObjectSerializer} for reading and writing an ASN.1 OER unsigned integer that is
+ * represented by a primitive {@code long}.
+ *
+ * <p>Fixed-size integers are written in exactly as many octets as their size constraint. Variable-size integers are
+ * written as a length prefix followed by the fewest octets that hold the value, which is the same encoding that
+ * {@link AsnOctetStringOerSerializer} produces for {@link org.interledger.encoding.asn.codecs.AsnUintCodecUL}. When
+ * reading, leading zero octets are accepted, and an integer that does not fit into 64 bits is reported to the codec
+ * with {@link AsnLongBasedObjectCodec#setTooLarge(long)}.</p>
+ */
+public class AsnLongOerSerializer implements AsnObjectSerializer<AsnLongBasedObjectCodec> {
+
+  @Override
+  public void read(final AsnObjectSerializationContext context,
+                   final AsnLongBasedObjectCodec instance,
+                   final InputStream inputStream) throws IOException {
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+    Objects.requireNonNull(inputStream);
+
+    final AsnSizeConstraint sizeConstraint = instance.getSizeConstraint();
+    final int length = sizeConstraint.isFixedSize()
+        ? sizeConstraint.getMax()
+        : OerLengthSerializer.readLength(inputStream);
+
+    long value = 0;
+    boolean tooLarge = false;
+    for (int i = 0; i < length; i++) {
+      final int octet = inputStream.read();
+      if (octet < 0) {
+        throw new CodecException(
+            format("Unexpected end of stream. Expected %s bytes but only read %s.", length, i));
+      }
+      tooLarge |= (value >>> 56) != 0;
+      value = (value << Byte.SIZE) | octet;
+    }
+    setValue(instance, value, tooLarge);
+  }
+
+  @Override
+  public void write(final AsnObjectSerializationContext context,
+                    final AsnLongBasedObjectCodec instance,
+                    final OutputStream outputStream) throws IOException {
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+    Objects.requireNonNull(outputStream);
+
+    final long value = instance.getLong();
+    final int length = lengthOf(instance);
+    if (!instance.getSizeConstraint().isFixedSize()) {
+      OerLengthSerializer.writeLength(length, outputStream);
+    }
+    for (int i = length - 1; i >= 0; i--) {
+      outputStream.write(octetAt(value, i));
+    }
+  }
+
+  @Override
+  public void read(final AsnObjectSerializationContext context,
+                   final AsnLongBasedObjectCodec instance,
+                   final ByteBuffer buffer) {
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+    Objects.requireNonNull(buffer);
+
+    final AsnSizeConstraint sizeConstraint = instance.getSizeConstraint();
+    final int length = sizeConstraint.isFixedSize()
+        ? sizeConstraint.getMax()
+        : OerLengthSerializer.readLength(buffer);
+
+    if (buffer.remaining() < length) {
+      throw new CodecException(
+          format("Unexpected end of buffer. Expected %s bytes but only %s remain.",
+              length, buffer.remaining()));
+    }
+
+    long value = 0;
+    boolean tooLarge = false;
+    for (int i = 0; i < length; i++) {
+      tooLarge |= (value >>> 56) != 0;
+      value = (value << Byte.SIZE) | (buffer.get() & 0xFF);
+    }
+    setValue(instance, value, tooLarge);
+  }
+
+  @Override
+  public void write(final AsnObjectSerializationContext context,
+                    final AsnLongBasedObjectCodec instance,
+                    final ByteBuffer buffer) {
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+    Objects.requireNonNull(buffer);
+
+    final long value = instance.getLong();
+    final int length = lengthOf(instance);
+    if (!instance.getSizeConstraint().isFixedSize()) {
+      OerLengthSerializer.writeLength(length, buffer);
+    }
+    for (int i = length - 1; i >= 0; i--) {
+      buffer.put((byte) octetAt(value, i));
+    }
+  }
+
+  @Override
+  public int sizeOf(final AsnObjectSerializationContext context,
+                    final AsnLongBasedObjectCodec instance) {
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+
+    final int length = lengthOf(instance);
+    if (instance.getSizeConstraint().isFixedSize()) {
+      return length;
+    }
+    return OerLengthSerializer.sizeOfLength(length) + length;
+  }
+
+  /**
+   * The number of octets that the value of {@code instance} is written in, without any length prefix. A
+   * variable-size zero is written as a single zero octet.
+   */
+  private static int lengthOf(final AsnLongBasedObjectCodec instance) {
+    final AsnSizeConstraint sizeConstraint = instance.getSizeConstraint();
+    if (sizeConstraint.isFixedSize()) {
+      return sizeConstraint.getMax();
+    }
+    return Math.max(1, (Long.SIZE - Long.numberOfLeadingZeros(instance.getLong()) + 7) / Byte.SIZE);
+  }
+
+  /**
+   * The octet of {@code value} at {@code index}, counting from the least significant octet. Octets past the eighth are
+   * zero.
+   */
+  private static int octetAt(final long value, final int index) {
+    return index >= Long.BYTES ? 0 : (int) (value >>> (Byte.SIZE * index)) & 0xFF;
+  }
+
+  private static void setValue(final AsnLongBasedObjectCodec instance, final long value, final boolean tooLarge) {
+    if (tooLarge) {
+      instance.setTooLarge(value);
+    } else {
+      instance.setLong(value);
+    }
+  }
+
+}
@@ -31,6 +31,7 @@ import org.interledger.encoding.asn.framework.CodecException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 /**
@@ -96,4 +97,63 @@ public class AsnOctetStringOerSerializer
     }
   }
 
+  @Override
+  public void read(final AsnObjectSerializationContext context,
+                   final AsnOctetStringBasedObjectCodec instance,
+                   final ByteBuffer buffer) {
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+    Objects.requireNonNull(buffer);
+
+    final int length;
+    final AsnSizeConstraint sizeConstraint = instance.getSizeConstraint();
+    if (sizeConstraint.isFixedSize()) {
+      length = sizeConstraint.getMax();
+    } else {
+      // Read the length of the encoded OctetString...
+      length = OerLengthSerializer.readLength(buffer);
+    }
+
+    if (buffer.remaining() < length) {
+      throw new CodecException(
+          format("Unexpected end of buffer. Expected %s bytes but only %s remain.",
+              length, buffer.remaining()));
+    }
+
+    final byte[] returnable = new byte[length];
+    buffer.get(returnable);
+    instance.setBytes(returnable);
+  }
+
+  @Override
+  public void write(final AsnObjectSerializationContext context,
+                    final AsnOctetStringBasedObjectCodec instance,
+                    final ByteBuffer buffer) {
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+    Objects.requireNonNull(buffer);
+
+    final byte[] bytes = instance.getBytes();
+    if (!instance.getSizeConstraint().isFixedSize()) {
+      // Write the length of the encoded OctetString...
+      OerLengthSerializer.writeLength(bytes.length, buffer);
+    }
+
+    // Write the OctetString bytes to the buffer.
+    buffer.put(bytes);
+  }
+
+  @Override
+  public int sizeOf(final AsnObjectSerializationContext context,
+                    final AsnOctetStringBasedObjectCodec instance) {
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+
+    final int length = instance.getBytes().length;
+    if (instance.getSizeConstraint().isFixedSize()) {
+      return length;
+    }
+    return OerLengthSerializer.sizeOfLength(length) + length;
+  }
+
 }
@@ -25,10 +25,13 @@ import static java.lang.String.format;
 import org.interledger.encoding.asn.codecs.AsnOpenTypeCodec;
 import org.interledger.encoding.asn.framework.AsnObjectSerializationContext;
 import org.interledger.encoding.asn.framework.AsnObjectSerializer;
+import org.interledger.encoding.asn.framework.CodecException;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 /**
@@ -81,4 +84,51 @@ public class AsnOpenTypeOerSerializer
     }
   }
 
+  @Override
+  public void read(final AsnObjectSerializationContext context,
+                   final AsnOpenTypeCodec instance,
+                   final ByteBuffer buffer) {
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+    Objects.requireNonNull(buffer);
+
+    //Get length
+    final int length = OerLengthSerializer.readLength(buffer);
+
+    if (buffer.remaining() < length) {
+      throw new CodecException(format("Unexpected end of buffer. Expected %s bytes but only %s remain.",
+          length, buffer.remaining()));
+    }
+
+    //Read the inner object from a view of exactly length bytes, then skip over them
+    final ByteBuffer inner = buffer.slice();
+    ((Buffer) inner).limit(length);
+    context.read(instance.getInnerCodec(), inner);
+    ((Buffer) buffer).position(buffer.position() + length);
+  }
+
+  @Override
+  public void write(final AsnObjectSerializationContext context,
+                    final AsnOpenTypeCodec instance,
+                    final ByteBuffer buffer) {
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+    Objects.requireNonNull(buffer);
+
+    //Write a length prefix
+    OerLengthSerializer.writeLength(context.sizeOf(instance.getInnerCodec()), buffer);
+
+    //Serialize the inner Asn.1 object in place
+    context.write(instance.getInnerCodec(), buffer);
+  }
+
+  @Override
+  public int sizeOf(final AsnObjectSerializationContext context, final AsnOpenTypeCodec instance) {
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+
+    final int length = context.sizeOf(instance.getInnerCodec());
+    return OerLengthSerializer.sizeOfLength(length) + length;
+  }
+
 }
@@ -27,6 +27,7 @@ import org.interledger.encoding.asn.framework.AsnObjectSerializer;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * An extension of {@link AsnObjectSerializer} for reading and writing an ASN.1 OER
@@ -50,4 +51,27 @@ public class AsnSequenceOerSerializer implements AsnObjectSerializer<AsnSequence
       context.write(instance.getCodecAt(i), outputStream);
     }
   }
+
+  @Override
+  public void read(AsnObjectSerializationContext context, AsnSequenceCodec instance, ByteBuffer buffer) {
+    for (int i = 0; i < instance.size(); i++) {
+      context.read(instance.getCodecAt(i), buffer);
+    }
+  }
+
+  @Override
+  public void write(AsnObjectSerializationContext context, AsnSequenceCodec instance, ByteBuffer buffer) {
+    for (int i = 0; i < instance.size(); i++) {
+      context.write(instance.getCodecAt(i), buffer);
+    }
+  }
+
+  @Override
+  public int sizeOf(AsnObjectSerializationContext context, AsnSequenceCodec instance) {
+    int size = 0;
+    for (int i = 0; i < instance.size(); i++) {
+      size += context.sizeOf(instance.getCodecAt(i));
+    }
+    return size;
+  }
 }
@@ -21,7 +21,7 @@ package org.interledger.encoding.asn.serializers.oer;
  */
 
 import org.interledger.encoding.asn.codecs.AsnSequenceOfSequenceCodec;
-import org.interledger.encoding.asn.codecs.AsnUintCodec;
+import org.interledger.encoding.asn.codecs.AsnVarUintLongCodec;
 import org.interledger.encoding.asn.framework.AsnObjectSerializationContext;
 import org.interledger.encoding.asn.framework.AsnObjectSerializer;
 import org.interledger.encoding.asn.framework.CodecException;
@@ -29,7 +29,7 @@ import org.interledger.encoding.asn.framework.CodecException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
 
 /**
  * An extension of {@link AsnObjectSerializer} for reading and writing an ASN.1 OER object that is represented by an
@@ -43,15 +43,14 @@ public class AsnSequenceOfSequenceOerSerializer
       InputStream inputStream)
       throws IOException {
 
-    AsnUintCodec quantityCodec = new AsnUintCodec();
+    AsnVarUintLongCodec quantityCodec = new AsnVarUintLongCodec();
     context.read(quantityCodec, inputStream);
 
-    BigInteger quantityBigInt = quantityCodec.decode();
-    if (quantityBigInt.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0) {
+    if (quantityCodec.isTooLarge() || Long.compareUnsigned(quantityCodec.getLong(), Integer.MAX_VALUE) > 0) {
       throw new CodecException("SEQUENCE_OF quantities > Integer.MAX_VALUE ar not supported");
     }
 
-    int quantity = quantityBigInt.intValue();
+    int quantity = (int) quantityCodec.getLong();
     instance.setSize(quantity);
 
     for (int i = 0; i < quantity; i++) {
@@ -64,8 +63,8 @@ public class AsnSequenceOfSequenceOerSerializer
       AsnSequenceOfSequenceCodec instance,
       OutputStream outputStream) throws IOException {
 
-    AsnUintCodec quantityCodec = new AsnUintCodec();
-    quantityCodec.encode(BigInteger.valueOf(instance.size()));
+    AsnVarUintLongCodec quantityCodec = new AsnVarUintLongCodec();
+    quantityCodec.setLong(instance.size());
     context.write(quantityCodec, outputStream);
 
     for (int i = 0; i < instance.size(); i++) {
@@ -73,4 +72,50 @@ public class AsnSequenceOfSequenceOerSerializer
     }
 
   }
+
+  @Override
+  public void read(AsnObjectSerializationContext context, AsnSequenceOfSequenceCodec instance,
+      ByteBuffer buffer) {
+
+    AsnVarUintLongCodec quantityCodec = new AsnVarUintLongCodec();
+    context.read(quantityCodec, buffer);
+
+    if (quantityCodec.isTooLarge() || Long.compareUnsigned(quantityCodec.getLong(), Integer.MAX_VALUE) > 0) {
+      throw new CodecException("SEQUENCE_OF quantities > Integer.MAX_VALUE ar not supported");
+    }
+
+    int quantity = (int) quantityCodec.getLong();
+    instance.setSize(quantity);
+
+    for (int i = 0; i < quantity; i++) {
+      context.read(instance.getCodecAt(i), buffer);
+    }
+  }
+
+  @Override
+  public void write(AsnObjectSerializationContext context,
+      AsnSequenceOfSequenceCodec instance,
+      ByteBuffer buffer) {
+
+    AsnVarUintLongCodec quantityCodec = new AsnVarUintLongCodec();
+    quantityCodec.setLong(instance.size());
+    context.write(quantityCodec, buffer);
+
+    for (int i = 0; i < instance.size(); i++) {
+      context.write(instance.getCodecAt(i), buffer);
+    }
+  }
+
+  @Override
+  public int sizeOf(AsnObjectSerializationContext context, AsnSequenceOfSequenceCodec instance) {
+
+    AsnVarUintLongCodec quantityCodec = new AsnVarUintLongCodec();
+    quantityCodec.setLong(instance.size());
+    int size = context.sizeOf(quantityCodec);
+
+    for (int i = 0; i < instance.size(); i++) {
+      size += context.sizeOf(instance.getCodecAt(i));
+    }
+    return size;
+  }
 }
@@ -25,6 +25,7 @@ import org.interledger.encoding.asn.framework.CodecException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 /**
@@ -68,6 +69,51 @@ public class OerLengthSerializer  {
     return length;
   }
 
+  /**
+   * Read a length prefix from the buffer, advancing its position past the prefix.
+   *
+   * @param buffer the buffer to read from
+   * @return The length encoded in the length prefix
+   * @throws CodecException if the buffer does not contain a complete length prefix, or if the length prefix encodes a
+   *                        length larger than {@link Integer#MAX_VALUE}.
+   */
+  public static int readLength(final ByteBuffer buffer) {
+
+    Objects.requireNonNull(buffer);
+
+    if (!buffer.hasRemaining()) {
+      throw new CodecException("Unexpected end of buffer. Expected a length prefix.");
+    }
+
+    final int initialLengthPrefixOctet = buffer.get() & 0xff;
+    if (initialLengthPrefixOctet < 128) {
+      return initialLengthPrefixOctet;
+    }
+
+    // Truncate the MSB and use the rest as the number of length octets...
+    final int lengthOfLength = initialLengthPrefixOctet & 0x7f;
+    if (lengthOfLength > 4) {
+      throw new CodecException("Length prefixes of more than 4 octets are not supported!");
+    }
+    if (buffer.remaining() < lengthOfLength) {
+      throw new CodecException(String.format(
+          "Unexpected end of buffer. Expected %s length octets but only %s remain.",
+          lengthOfLength, buffer.remaining()));
+    }
+
+    int length = 0;
+    for (int i = 0; i < lengthOfLength; i++) {
+      length = (length << 8) | (buffer.get() & 0xff);
+    }
+    // Four length octets with the high bit set encode a length above Integer.MAX_VALUE, which overflows to below 0.
+    if (length < 0) {
+      throw new CodecException(String.format(
+          "Length prefix encodes a length of %s, which is larger than %s.",
+          Integer.toUnsignedString(length), Integer.MAX_VALUE));
+    }
+    return length;
+  }
+
   /**
    * Helper method to convert a byte array of varying length (assuming not larger than 4 bytes) into
    * an int. This is necessary because most traditional library assume a 4-byte array when
@@ -157,4 +203,46 @@ public class OerLengthSerializer  {
       }
     }
   }
+
+  /**
+   * Write an OER length prefix to the buffer, advancing its position past the prefix.
+   *
+   * @param length The length to encode and write to the buffer.
+   * @param buffer the buffer to write to
+   * @throws java.nio.BufferOverflowException if the buffer does not have enough space remaining.
+   */
+  public static void writeLength(final int length, final ByteBuffer buffer) {
+
+    Objects.requireNonNull(buffer);
+
+    if (length >= 0 && length < 128) {
+      buffer.put((byte) length);
+    } else {
+      final int lengthOfLength = sizeOfLength(length) - 1;
+      buffer.put((byte) (128 + lengthOfLength));
+      for (int i = lengthOfLength - 1; i >= 0; i--) {
+        buffer.put((byte) (length >> (8 * i)));
+      }
+    }
+  }
+
+  /**
+   * Compute the number of octets that {@link #writeLength(int, OutputStream)} will write for the given length.
+   *
+   * @param length The length to be encoded.
+   * @return The size, in octets, of the length prefix (including the initial octet).
+   */
+  public static int sizeOfLength(final int length) {
+    if (length >= 0 && length < 128) {
+      return 1;
+    } else if (length >= 0 && length <= 255) {
+      return 2;
+    } else if (length >= 0 && length <= 65535) {
+      return 3;
+    } else if (length >= 0 && length <= 16777215) {
+      return 4;
+    } else {
+      return 5;
+    }
+  }
 }
@@ -0,0 +1,293 @@
+package org.interledger.encoding.asn.codecs;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Codec Framework
+ * %%
+ * Copyright (C) 2017 - 2019 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Unit tests for {@link AsnTimestampEncoder} that compare every result with the {@link DateTimeFormatter} and regular
+ * expression that the Interledger and BTP timestamp codecs used before.
+ */
+public class AsnTimestampEncoderTest {
+
+  // 0000-01-01T00:00:00Z and 10000-01-01T00:00:00Z.
+  private static final long MIN_EPOCH_MILLI = -62167219200000L;
+  private static final long END_EPOCH_MILLI = 253402300800000L;
+
+  private static final DateTimeFormatter INTERLEDGER_FORMATTER = new DateTimeFormatterBuilder()
+      .appendValue(ChronoField.YEAR, 4)
+      .appendValue(ChronoField.MONTH_OF_YEAR, 2)
+      .appendValue(ChronoField.DAY_OF_MONTH, 2)
+      .appendValue(ChronoField.HOUR_OF_DAY, 2)
+      .appendValue(ChronoField.MINUTE_OF_HOUR, 2)
+      .appendValue(ChronoField.SECOND_OF_MINUTE, 2)
+      .appendFraction(ChronoField.MILLI_OF_SECOND, 3, 3, false)
+      .toFormatter()
+      .withZone(ZoneId.of("Z"));
+
+  private static final DateTimeFormatter GENERALIZED_TIME_FORMATTER = new DateTimeFormatterBuilder()
+      .appendValue(ChronoField.YEAR, 4)
+      .appendValue(ChronoField.MONTH_OF_YEAR, 2)
+      .appendValue(ChronoField.DAY_OF_MONTH, 2)
+      .appendValue(ChronoField.HOUR_OF_DAY, 2)
+      .appendValue(ChronoField.MINUTE_OF_HOUR, 2)
+      .appendValue(ChronoField.SECOND_OF_MINUTE, 2)
+      .appendFraction(ChronoField.MILLI_OF_SECOND, 0, 3, true)
+      .appendZoneId()
+      .toFormatter()
+      .withZone(ZoneId.of("Z"));
+
+  private static final Predicate<String> INTERLEDGER_PATTERN = Pattern.compile("[0-9]{17}").asPredicate();
+  private static final Predicate<String> GENERALIZED_TIME_PATTERN = Pattern.compile(
+      "^([0-9]{4})([0-9]{2})([0-9]{2})([0-9]{2})([0-9]{2})([0-9]{2}(\\.\\d{1,3})?Z)$").asPredicate();
+
+  private static final int[] YEARS = {0, 1, 4, 100, 399, 400, 1582, 1900, 1969, 1970, 2000, 2019, 2020, 2100, 9999};
+
+  private final Random random = new Random(27);
+
+  @Test
+  public void formatMatchesFormatter() {
+    for (int i = 0; i < 20_000; i++) {
+      assertFormatMatchesFormatter(
+          MIN_EPOCH_MILLI + (long) (random.nextDouble() * (END_EPOCH_MILLI - MIN_EPOCH_MILLI))
+      );
+    }
+    for (long epochMilli : new long[] {MIN_EPOCH_MILLI, -1, 0, 1, 999, 1000, END_EPOCH_MILLI - 1}) {
+      assertFormatMatchesFormatter(epochMilli);
+    }
+  }
+
+  @Test
+  public void formatTruncatesToMillis() {
+    final Instant instant = Instant.ofEpochSecond(-1, 999_999_999);
+
+    assertThat(AsnTimestampEncoder.formatInterledgerTimestamp(instant))
+        .isEqualTo(INTERLEDGER_FORMATTER.format(instant))
+        .isEqualTo("19691231235959999");
+    assertThat(AsnTimestampEncoder.formatGeneralizedTime(instant))
+        .isEqualTo(GENERALIZED_TIME_FORMATTER.format(instant))
+        .isEqualTo("19691231235959.999Z");
+  }
+
+  @Test
+  public void formatOutsideOfYearsZeroToNineThousandNineHundredNinetyNineThrows() {
+    for (Instant instant : new Instant[] {
+        Instant.ofEpochMilli(MIN_EPOCH_MILLI - 1), Instant.ofEpochMilli(END_EPOCH_MILLI), Instant.MIN, Instant.MAX}) {
+      assertThat(catchThrowable(() -> INTERLEDGER_FORMATTER.format(instant))).isInstanceOf(DateTimeException.class);
+      assertThat(catchThrowable(() -> AsnTimestampEncoder.formatInterledgerTimestamp(instant)))
+          .isInstanceOf(DateTimeException.class);
+      assertThat(catchThrowable(() -> AsnTimestampEncoder.formatGeneralizedTime(instant)))
+          .isInstanceOf(DateTimeException.class);
+      assertThat(catchThrowable(() -> AsnTimestampEncoder.checkRange(instant)))
+          .isInstanceOf(DateTimeException.class);
+
+      final ByteBuffer buffer = ByteBuffer.allocate(32);
+      assertThat(catchThrowable(() -> AsnTimestampEncoder.writeInterledgerTimestamp(instant, buffer)))
+          .isInstanceOf(DateTimeException.class);
+      assertThat(buffer.position()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void writeToBufferThatIsTooSmallWritesNothing() {
+    final ByteBuffer buffer = ByteBuffer.allocate(16);
+
+    assertThat(catchThrowable(() -> AsnTimestampEncoder.writeInterledgerTimestamp(0, buffer)))
+        .isInstanceOf(BufferOverflowException.class);
+    assertThat(buffer.position()).isEqualTo(0);
+    assertThat(buffer.array()).containsOnly(0);
+  }
+
+  @Test
+  public void parseMatchesFormatterForEveryMonthAndDay() {
+    for (int year : YEARS) {
+      for (int month = 0; month <= 13; month++) {
+        for (int day = 0; day <= 39; day++) {
+          final String date = String.format("%04d%02d%02d", year, month, day);
+          assertParseMatchesFormatter(date + "000000000");
+          assertParseMatchesFormatter(date + "235959999");
+          assertParseMatchesFormatter(date + "240000000");
+        }
+      }
+    }
+  }
+
+  @Test
+  public void parseMatchesFormatterForEveryTimeOfDay() {
+    for (int year : new int[] {0, 2020, 9999}) {
+      for (String date : new String[] {"0101", "0228", "0229", "1231"}) {
+        for (int hour = 0; hour <= 25; hour++) {
+          for (int minute : new int[] {0, 1, 30, 59, 60, 61, 99}) {
+            for (String secondAndMilli : new String[] {"00000", "00001", "00100", "59999", "60000", "99999"}) {
+              assertParseMatchesFormatter(
+                  String.format("%04d%s%02d%02d%s", year, date, hour, minute, secondAndMilli));
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void parseMatchesFormatterForCorruptedTimestamps() {
+    final String alphabet = "0123456789.Z+- T:aé";
+    for (int i = 0; i < 10_000; i++) {
+      final long epochMilli = MIN_EPOCH_MILLI + (long) (random.nextDouble() * (END_EPOCH_MILLI - MIN_EPOCH_MILLI));
+      final StringBuilder interledgerTimestamp = new StringBuilder(INTERLEDGER_FORMATTER.format(
+          Instant.ofEpochMilli(epochMilli)));
+      final StringBuilder generalizedTime = new StringBuilder(GENERALIZED_TIME_FORMATTER.format(
+          Instant.ofEpochMilli(epochMilli)));
+      for (StringBuilder value : new StringBuilder[] {interledgerTimestamp, generalizedTime}) {
+        final int position = random.nextInt(value.length() + 1);
+        switch (random.nextInt(3)) {
+          case 0:
+            value.insert(position, alphabet.charAt(random.nextInt(alphabet.length())));
+            break;
+          case 1:
+            if (position < value.length()) {
+              value.deleteCharAt(position);
+            }
+            break;
+          default:
+            if (position < value.length()) {
+              value.setCharAt(position, alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+        }
+      }
+      assertParseMatchesFormatter(interledgerTimestamp.toString());
+      assertParseMatchesFormatter(generalizedTime.toString());
+    }
+  }
+
+  @Test
+  public void parseGeneralizedTimeFractions() {
+    assertThat(AsnTimestampEncoder.parseGeneralizedTime("20171224161432Z")).isEqualTo(1514132072000L);
+    assertThat(AsnTimestampEncoder.parseGeneralizedTime("20171224161432.5Z")).isEqualTo(1514132072500L);
+    assertThat(AsnTimestampEncoder.parseGeneralizedTime("20171224161432.05Z")).isEqualTo(1514132072050L);
+    assertThat(AsnTimestampEncoder.parseGeneralizedTime("20171224161432.050Z")).isEqualTo(1514132072050L);
+    assertThat(AsnTimestampEncoder.parseGeneralizedTime("20171224161432.005Z")).isEqualTo(1514132072005L);
+
+    for (String value : new String[] {"20171224161432.Z", "20171224161432.0000Z", "20171224161432", "20171224161432.5",
+        "2017122416143Z", "20171224161432Z\n"}) {
+      assertThat(AsnTimestampEncoder.isGeneralizedTime(value)).as(value).isFalse();
+      assertThat(catchThrowable(() -> AsnTimestampEncoder.parseGeneralizedTime(value))).as(value)
+          .isInstanceOf(DateTimeParseException.class);
+    }
+  }
+
+  @Test
+  public void readInterledgerTimestampFromBuffer() {
+    final ByteBuffer buffer = ByteBuffer.wrap("x20171224161432123y".getBytes(StandardCharsets.US_ASCII));
+    buffer.position(1);
+
+    assertThat(AsnTimestampEncoder.readInterledgerTimestamp(buffer)).isEqualTo(1514132072123L);
+    assertThat(buffer.position()).isEqualTo(18);
+  }
+
+  @Test
+  public void readInvalidInterledgerTimestampFromBufferLeavesPosition() {
+    final ByteBuffer buffer = ByteBuffer.wrap("20171324161432123".getBytes(StandardCharsets.US_ASCII));
+
+    final Throwable thrown = catchThrowable(() -> AsnTimestampEncoder.readInterledgerTimestamp(buffer));
+
+    assertThat(thrown).isInstanceOf(DateTimeParseException.class);
+    assertThat(((DateTimeParseException) thrown).getParsedString()).isEqualTo("20171324161432123");
+    assertThat(buffer.position()).isEqualTo(0);
+  }
+
+  private void assertFormatMatchesFormatter(final long epochMilli) {
+    final Instant instant = Instant.ofEpochMilli(epochMilli);
+    final String interledgerTimestamp = INTERLEDGER_FORMATTER.format(instant);
+
+    assertThat(AsnTimestampEncoder.formatInterledgerTimestamp(epochMilli)).isEqualTo(interledgerTimestamp);
+    assertThat(AsnTimestampEncoder.formatInterledgerTimestamp(instant)).isEqualTo(interledgerTimestamp);
+    assertThat(AsnTimestampEncoder.formatGeneralizedTime(epochMilli))
+        .isEqualTo(GENERALIZED_TIME_FORMATTER.format(instant));
+    assertThat(AsnTimestampEncoder.parseInterledgerTimestamp(interledgerTimestamp)).isEqualTo(epochMilli);
+    assertThat(AsnTimestampEncoder.parseGeneralizedTime(GENERALIZED_TIME_FORMATTER.format(instant)))
+        .isEqualTo(epochMilli);
+
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(AsnTimestampEncoder.INTERLEDGER_TIMESTAMP_LENGTH);
+    AsnTimestampEncoder.writeInterledgerTimestamp(instant, buffer);
+    assertThat(buffer.hasRemaining()).isFalse();
+    buffer.flip();
+    assertThat(StandardCharsets.US_ASCII.decode(buffer.duplicate()).toString()).isEqualTo(interledgerTimestamp);
+    assertThat(AsnTimestampEncoder.readInterledgerTimestamp(buffer)).isEqualTo(epochMilli);
+  }
+
+  /**
+   * Assert that {@code value} is accepted or rejected, and resolves to the same instant, by both the encoder and the
+   * regular expression plus {@link DateTimeFormatter} that validated and parsed it before.
+   */
+  private void assertParseMatchesFormatter(final String value) {
+    assertThat(AsnTimestampEncoder.isInterledgerTimestamp(value)).as(value)
+        .isEqualTo(value.length() == 17 && INTERLEDGER_PATTERN.test(value));
+    assertThat(parse(() -> AsnTimestampEncoder.parseInterledgerTimestamp(value))).as(value)
+        .isEqualTo(parse(() -> Instant.from(INTERLEDGER_FORMATTER.parse(value)).toEpochMilli()));
+
+    assertThat(AsnTimestampEncoder.isGeneralizedTime(value)).as(value).isEqualTo(GENERALIZED_TIME_PATTERN.test(value));
+    if (GENERALIZED_TIME_PATTERN.test(value)) {
+      assertThat(parse(() -> AsnTimestampEncoder.parseGeneralizedTime(value))).as(value)
+          .isEqualTo(parse(() -> Instant.from(GENERALIZED_TIME_FORMATTER.parse(value)).toEpochMilli()));
+    }
+
+    if (value.length() == 17) {
+      final ByteBuffer buffer = StandardCharsets.UTF_8.encode(value);
+      if (buffer.remaining() == 17) {
+        assertThat(parse(() -> AsnTimestampEncoder.readInterledgerTimestamp(buffer))).as(value)
+            .isEqualTo(parse(() -> AsnTimestampEncoder.parseInterledgerTimestamp(value)));
+      }
+    }
+  }
+
+  /**
+   * Run {@code parser} and return the epoch milliseconds it returns, or the class of the exception it throws.
+   */
+  private Object parse(final Parser parser) {
+    try {
+      return parser.parse();
+    } catch (DateTimeException e) {
+      return DateTimeException.class;
+    }
+  }
+
+  private interface Parser {
+
+    long parse();
+  }
+}
@@ -0,0 +1,144 @@
+package org.interledger.encoding.asn.framework;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Codec Framework
+ * %%
+ * Copyright (C) 2017 - 2018 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link AsnObjectCodecRegistry}.
+ */
+public class AsnObjectCodecRegistryTest {
+
+  private AsnObjectCodecRegistry registry;
+
+  @Before
+  public void setUp() {
+    registry = new AsnObjectCodecRegistry();
+  }
+
+  @Test
+  public void resolvesMappingOfSuperClass() {
+    final AtomicInteger codecsCreated = new AtomicInteger();
+    registry.register(Circle.class, () -> {
+      codecsCreated.incrementAndGet();
+      return new NamedCodec<>("circle");
+    });
+
+    assertThat(nameOfCodecFor(UnitCircle.class)).isEqualTo("circle");
+    assertThat(nameOfCodecFor(UnitCircle.class)).isEqualTo("circle");
+    assertThat(codecsCreated.get()).isEqualTo(2);
+    assertThat(registry.getMappingIndex(UnitCircle.class)).isEqualTo(registry.getMappingIndex(Circle.class));
+  }
+
+  @Test
+  public void resolvesMappingOfInterface() {
+    registry.register(Shape.class, () -> new NamedCodec<>("shape"));
+
+    assertThat(nameOfCodecFor(UnitCircle.class)).isEqualTo("shape");
+  }
+
+  @Test
+  public void missingMappingIsResolvedAfterRegistration() {
+    assertThatThrownBy(() -> registry.getAsnObjectForType(Circle.class))
+        .isInstanceOf(CodecException.class)
+        .hasMessage("No codec registered for " + Circle.class.getName() + " or its super classes!");
+
+    registry.register(Circle.class, () -> new NamedCodec<>("circle"));
+
+    assertThat(nameOfCodecFor(Circle.class)).isEqualTo("circle");
+  }
+
+  @Test
+  public void moreSpecificRegistrationReplacesResolvedMapping() {
+    registry.register(Shape.class, () -> new NamedCodec<>("shape"));
+    final int shapeIndex = registry.getMappingIndex(UnitCircle.class);
+    assertThat(nameOfCodecFor(UnitCircle.class)).isEqualTo("shape");
+
+    registry.register(UnitCircle.class, () -> new NamedCodec<>("unit circle"));
+
+    assertThat(nameOfCodecFor(UnitCircle.class)).isEqualTo("unit circle");
+    assertThat(registry.getMappingIndex(UnitCircle.class)).isNotEqualTo(shapeIndex);
+    assertThat(registry.getMappingIndex(Circle.class)).isEqualTo(shapeIndex);
+  }
+
+  @Test
+  public void supplierReturningNullFallsBackToSuperType() {
+    registry.register(Shape.class, () -> new NamedCodec<>("shape"));
+    registry.register(Circle.class, () -> null);
+
+    assertThat(nameOfCodecFor(UnitCircle.class)).isEqualTo("shape");
+  }
+
+  @Test
+  public void frozenRegistryRejectsRegistration() {
+    registry.register(Shape.class, () -> new NamedCodec<>("shape"));
+    assertThat(registry.isFrozen()).isFalse();
+
+    registry.freeze();
+
+    assertThat(registry.isFrozen()).isTrue();
+    assertThat(nameOfCodecFor(Circle.class)).isEqualTo("shape");
+    assertThatThrownBy(() -> registry.register(Circle.class, () -> new NamedCodec<>("circle")))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("Can't register " + Circle.class.getName() + ", the codec registry is frozen.");
+    assertThat(nameOfCodecFor(Circle.class)).isEqualTo("shape");
+  }
+
+  private String nameOfCodecFor(Class<?> type) {
+    return ((NamedCodec<?>) registry.getAsnObjectForType(type)).name;
+  }
+
+  private interface Shape {
+
+  }
+
+  private static class Circle implements Shape {
+
+  }
+
+  private static class UnitCircle extends Circle {
+
+  }
+
+  private static class NamedCodec<T> implements AsnObjectCodec<T> {
+
+    private final String name;
+
+    NamedCodec(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public T decode() {
+      return null;
+    }
+
+    @Override
+    public void encode(T value) {
+    }
+  }
+}
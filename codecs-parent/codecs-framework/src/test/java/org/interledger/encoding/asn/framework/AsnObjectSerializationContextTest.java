@@ -0,0 +1,99 @@
+package org.interledger.encoding.asn.framework;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Codec Framework
+ * %%
+ * Copyright (C) 2017 - 2018 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.interledger.encoding.asn.codecs.AsnCharStringBasedObjectCodec;
+import org.interledger.encoding.asn.codecs.AsnIA5StringCodec;
+import org.interledger.encoding.asn.codecs.AsnSizeConstraint;
+import org.interledger.encoding.asn.codecs.AsnUint16Codec;
+import org.interledger.encoding.asn.codecs.AsnUint8Codec;
+import org.interledger.encoding.asn.codecs.AsnUtf8StringCodec;
+import org.interledger.encoding.asn.serializers.oer.AsnCharStringOerSerializer;
+import org.interledger.encoding.asn.serializers.oer.AsnOctetStringOerSerializer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the serializer lookup of {@link AsnObjectSerializationContext}.
+ */
+public class AsnObjectSerializationContextTest {
+
+  private AsnObjectSerializationContext context;
+
+  @Before
+  public void setUp() {
+    context = new AsnObjectSerializationContext();
+  }
+
+  @Test
+  public void resolvesSerializerOfSuperClass() {
+    final AsnCharStringOerSerializer serializer = new AsnCharStringOerSerializer();
+    context.register(AsnUtf8StringCodec.class, serializer);
+
+    final AsnUtf8StringCodec subclassCodec = new AsnUtf8StringCodec(AsnSizeConstraint.UNCONSTRAINED) {
+    };
+
+    assertThat(context.getSerializer(subclassCodec)).isSameAs(serializer);
+    assertThat(context.getSerializer(subclassCodec)).isSameAs(serializer);
+  }
+
+  @Test
+  public void missingSerializerIsResolvedAfterRegistration() {
+    final AsnUint8Codec codec = new AsnUint8Codec();
+    assertThatThrownBy(() -> context.getSerializer(codec))
+        .isInstanceOf(CodecException.class)
+        .hasMessage("No serializer registered for " + AsnUint8Codec.class.getName() + " or its super classes!");
+
+    final AsnOctetStringOerSerializer serializer = new AsnOctetStringOerSerializer();
+    context.register(AsnUint8Codec.class, serializer);
+
+    assertThat(context.getSerializer(codec)).isSameAs(serializer);
+  }
+
+  @Test
+  public void moreSpecificRegistrationReplacesResolvedSerializer() {
+    final AsnCharStringOerSerializer generalSerializer = new AsnCharStringOerSerializer();
+    final AsnCharStringOerSerializer specificSerializer = new AsnCharStringOerSerializer();
+    context.register(AsnCharStringBasedObjectCodec.class, generalSerializer);
+    final AsnIA5StringCodec codec = new AsnIA5StringCodec(AsnSizeConstraint.UNCONSTRAINED);
+    assertThat(context.getSerializer(codec)).isSameAs(generalSerializer);
+
+    context.register(AsnIA5StringCodec.class, specificSerializer);
+
+    assertThat(context.getSerializer(codec)).isSameAs(specificSerializer);
+  }
+
+  @Test
+  public void frozenContextRejectsRegistration() {
+    final AsnOctetStringOerSerializer serializer = new AsnOctetStringOerSerializer();
+    context.register(AsnUint8Codec.class, serializer).freeze();
+
+    assertThat(context.isFrozen()).isTrue();
+    assertThat(context.getSerializer(new AsnUint8Codec())).isSameAs(serializer);
+    assertThatThrownBy(() -> context.register(AsnUint16Codec.class, serializer))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("Can't register " + AsnUint16Codec.class.getName() + ", the serialization context is frozen.");
+  }
+}
@@ -0,0 +1,166 @@
+package org.interledger.encoding.asn.framework;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Codec Framework
+ * %%
+ * Copyright (C) 2017 - 2018 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.interledger.encoding.MyCustomObject;
+import org.interledger.encoding.asn.AsnMyCustomObjectCodec;
+import org.interledger.encoding.asn.codecs.AsnUint8Codec;
+
+import com.google.common.primitives.UnsignedLong;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Unit tests for the {@link ByteBuffer} read and write methods of {@link CodecContext}.
+ */
+public class ByteBufferEncodingTest {
+
+  private CodecContext context;
+  private MyCustomObject value;
+  private byte[] expectedBytes;
+
+  @Before
+  public void setUp() throws IOException {
+    context = CodecContextFactory.oer().register(MyCustomObject.class, AsnMyCustomObjectCodec::new);
+    value = MyCustomObject.builder()
+        .utf8StringProperty("Grüße, 世界")
+        .fixedLengthUtf8StringProperty("ABCD")
+        .uint8Property((short) 255)
+        .uint16Property(65535)
+        .uint32Property(1234567L)
+        .uint64Property(UnsignedLong.MAX_VALUE)
+        .octetStringProperty(new byte[200])
+        .fixedLengthOctetStringProperty(new byte[32])
+        .uintProperty(BigInteger.valueOf(Long.MAX_VALUE).pow(2))
+        .build();
+
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    context.write(value, outputStream);
+    expectedBytes = outputStream.toByteArray();
+  }
+
+  @Test
+  public void sizeOfMatchesStreamEncoding() {
+    assertThat(context.sizeOf(value)).isEqualTo(expectedBytes.length);
+  }
+
+  @Test
+  public void writeToHeapBufferMatchesStreamEncoding() {
+    final ByteBuffer buffer = ByteBuffer.allocate(expectedBytes.length);
+    context.write(value, buffer);
+    assertThat(buffer.array()).isEqualTo(expectedBytes);
+  }
+
+  @Test
+  public void writeToDirectBufferMatchesStreamEncoding() {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(expectedBytes.length);
+    context.write(value, buffer);
+    buffer.flip();
+
+    final byte[] actual = new byte[buffer.remaining()];
+    buffer.get(actual);
+    assertThat(actual).isEqualTo(expectedBytes);
+  }
+
+  @Test
+  public void readFromHeapBufferWithArrayOffset() {
+    // A slice of a larger array has a non-zero array offset, and more data follows the object.
+    final byte[] backing = new byte[expectedBytes.length + 10];
+    System.arraycopy(expectedBytes, 0, backing, 3, expectedBytes.length);
+    final ByteBuffer buffer = ByteBuffer.wrap(backing, 3, expectedBytes.length + 7).slice();
+
+    assertThat(context.read(MyCustomObject.class, buffer)).isEqualTo(value);
+    assertThat(buffer.position()).isEqualTo(expectedBytes.length);
+  }
+
+  @Test
+  public void readFromDirectBuffer() {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(expectedBytes.length);
+    buffer.put(expectedBytes).flip();
+
+    assertThat(context.read(MyCustomObject.class, buffer)).isEqualTo(value);
+    assertThat(buffer.hasRemaining()).isFalse();
+  }
+
+  @Test
+  public void writeConsecutiveObjects() {
+    final ByteBuffer buffer = ByteBuffer.allocate(expectedBytes.length * 2);
+    context.write(value, buffer);
+    context.write(value, buffer);
+    buffer.flip();
+
+    assertThat(context.read(MyCustomObject.class, buffer)).isEqualTo(value);
+    assertThat(context.read(MyCustomObject.class, buffer)).isEqualTo(value);
+    assertThat(buffer.hasRemaining()).isFalse();
+  }
+
+  @Test(expected = CodecException.class)
+  public void readFromTruncatedBuffer() {
+    context.read(MyCustomObject.class, ByteBuffer.wrap(expectedBytes, 0, expectedBytes.length - 1));
+  }
+
+  @Test
+  public void streamOnlySerializerFallsBackToStreams() {
+    final CodecContext context = CodecContextFactory.oer()
+        .register(Short.class, StreamOnlyCodec::new, new StreamOnlySerializer());
+
+    assertThat(context.sizeOf((short) 7)).isEqualTo(1);
+
+    final ByteBuffer buffer = ByteBuffer.allocate(3);
+    buffer.put((byte) 9);
+    context.write((short) 7, buffer);
+    assertThat(buffer.array()).isEqualTo(new byte[] {9, 7, 0});
+
+    buffer.position(1);
+    assertThat(context.read(Short.class, buffer)).isEqualTo((short) 7);
+    assertThat(buffer.position()).isEqualTo(2);
+  }
+
+  private static class StreamOnlyCodec extends AsnUint8Codec {
+  }
+
+  /**
+   * A serializer that only implements the {@link InputStream}/{@link OutputStream} methods.
+   */
+  private static class StreamOnlySerializer implements AsnObjectSerializer<StreamOnlyCodec> {
+
+    @Override
+    public void read(AsnObjectSerializationContext context, StreamOnlyCodec instance, InputStream inputStream)
+        throws IOException {
+      instance.setBytes(new byte[] {(byte) inputStream.read()});
+    }
+
+    @Override
+    public void write(AsnObjectSerializationContext context, StreamOnlyCodec instance, OutputStream outputStream)
+        throws IOException {
+      outputStream.write(instance.getBytes());
+    }
+  }
+}
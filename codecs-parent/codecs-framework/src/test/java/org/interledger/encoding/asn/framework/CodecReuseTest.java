@@ -0,0 +1,206 @@
+package org.interledger.encoding.asn.framework;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Codec Framework
+ * %%
+ * Copyright (C) 2017 - 2018 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.interledger.encoding.MyCustomObject;
+import org.interledger.encoding.asn.AsnMyCustomObjectCodec;
+import org.interledger.encoding.asn.codecs.AsnUint32Codec;
+import org.interledger.encoding.asn.serializers.oer.AsnOctetStringOerSerializer;
+
+import com.google.common.primitives.UnsignedLong;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for the codec reuse of {@link CodecContext}.
+ */
+public class CodecReuseTest {
+
+  private AtomicInteger codecsCreated;
+  private CodecContext context;
+
+  @Before
+  public void setUp() {
+    codecsCreated = new AtomicInteger();
+    context = CodecContextFactory.oer().register(MyCustomObject.class, () -> {
+      codecsCreated.incrementAndGet();
+      return new AsnMyCustomObjectCodec();
+    });
+    // Registration creates one codec to check that it can be serialized.
+    codecsCreated.set(0);
+  }
+
+  @Test
+  public void oerContextReusesCodecs() throws IOException {
+    assertThat(context.isReuseCodecs()).isTrue();
+
+    final MyCustomObject first = customObject("first", 1);
+    final MyCustomObject second = customObject("second", 2);
+
+    final byte[] firstBytes = write(first);
+    final byte[] secondBytes = write(second);
+    assertThat(context.read(MyCustomObject.class, new ByteArrayInputStream(firstBytes))).isEqualTo(first);
+    assertThat(context.read(MyCustomObject.class, ByteBuffer.wrap(secondBytes))).isEqualTo(second);
+    assertThat(context.read(MyCustomObject.class, ByteBuffer.wrap(firstBytes))).isEqualTo(first);
+    assertThat(context.sizeOf(first)).isEqualTo(firstBytes.length);
+
+    // Writing the concrete (immutable) class and reading the interface share the registered supplier's codec.
+    assertThat(codecsCreated.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void reusedCodecProducesSameEncodingAsNewCodec() throws IOException {
+    final MyCustomObject longer = customObject("a considerably longer string", 300);
+    final MyCustomObject shorter = customObject("short", 3);
+    write(longer);
+
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    CodecContextFactory.oer().register(MyCustomObject.class, AsnMyCustomObjectCodec::new).write(shorter, expected);
+
+    assertThat(write(shorter)).isEqualTo(expected.toByteArray());
+  }
+
+  @Test
+  public void decodedValueIsNotChangedByLaterReads() throws IOException {
+    final MyCustomObject first = customObject("first", 1);
+    final MyCustomObject second = customObject("second", 2);
+    final byte[] firstBytes = write(first);
+    final byte[] secondBytes = write(second);
+
+    final MyCustomObject firstRead = context.read(MyCustomObject.class, new ByteArrayInputStream(firstBytes));
+    context.read(MyCustomObject.class, new ByteArrayInputStream(secondBytes));
+
+    assertThat(firstRead).isEqualTo(first);
+  }
+
+  @Test
+  public void codecIsDiscardedAfterFailure() throws IOException {
+    final MyCustomObject valid = customObject("valid", 1);
+    final MyCustomObject invalid = MyCustomObject.builder().from(valid)
+        .fixedLengthUtf8StringProperty("TOO LONG")
+        .build();
+    write(valid);
+
+    assertThatThrownBy(() -> write(invalid)).isInstanceOf(CodecException.class);
+    assertThat(write(valid)).isEqualTo(write(valid));
+    assertThat(codecsCreated.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void codecsAreNotSharedBetweenThreads() throws Exception {
+    write(customObject("main", 1));
+
+    final Thread thread = new Thread(() -> {
+      try {
+        write(customObject("other", 2));
+        write(customObject("other", 3));
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    thread.start();
+    thread.join();
+
+    assertThat(codecsCreated.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void registrationReplacesCachedCodecs() throws IOException {
+    final MyCustomObject value = customObject("value", 1);
+    write(value);
+
+    final AtomicInteger replacementsCreated = new AtomicInteger();
+    context.register(MyCustomObject.class, () -> {
+      replacementsCreated.incrementAndGet();
+      return new AsnMyCustomObjectCodec();
+    });
+    replacementsCreated.set(0);
+    write(value);
+
+    assertThat(replacementsCreated.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void frozenContextReusesCodecs() throws IOException {
+    context.freeze();
+    assertThat(context.isFrozen()).isTrue();
+
+    final MyCustomObject value = customObject("value", 1);
+    final byte[] bytes = write(value);
+    assertThat(context.read(MyCustomObject.class, new ByteArrayInputStream(bytes))).isEqualTo(value);
+    assertThat(write(value)).isEqualTo(bytes);
+
+    assertThat(codecsCreated.get()).isEqualTo(1);
+    assertThatThrownBy(() -> context.register(MyCustomObject.class, AsnMyCustomObjectCodec::new))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void contextWithoutReuseCreatesCodecPerCall() throws IOException {
+    final AtomicInteger uint32CodecsCreated = new AtomicInteger();
+    final CodecContext context = new CodecContext(
+        new AsnObjectCodecRegistry(),
+        new AsnObjectSerializationContext().register(AsnUint32Codec.class, new AsnOctetStringOerSerializer())
+    );
+    context.register(Long.class, () -> {
+      uint32CodecsCreated.incrementAndGet();
+      return new AsnUint32Codec();
+    });
+    uint32CodecsCreated.set(0);
+    assertThat(context.isReuseCodecs()).isFalse();
+    assertThat(CodecContextFactory.oer(false).isReuseCodecs()).isFalse();
+
+    context.write(1L, new ByteArrayOutputStream());
+    context.write(2L, new ByteArrayOutputStream());
+
+    assertThat(uint32CodecsCreated.get()).isEqualTo(2);
+  }
+
+  private byte[] write(final MyCustomObject value) throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    context.write(value, outputStream);
+    return outputStream.toByteArray();
+  }
+
+  private static MyCustomObject customObject(final String text, final int number) {
+    return MyCustomObject.builder()
+        .utf8StringProperty(text)
+        .fixedLengthUtf8StringProperty("ABCD")
+        .uint8Property((short) (number % 256))
+        .uint16Property(number)
+        .uint32Property((long) number)
+        .uint64Property(UnsignedLong.valueOf(number))
+        .octetStringProperty(new byte[number])
+        .fixedLengthOctetStringProperty(new byte[32])
+        .uintProperty(BigInteger.valueOf(number))
+        .build();
+  }
+}
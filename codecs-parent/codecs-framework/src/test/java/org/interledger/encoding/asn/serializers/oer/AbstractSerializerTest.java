@@ -30,6 +30,7 @@ import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.util.Base64;
 
 /**
@@ -98,4 +99,48 @@ public abstract class AbstractSerializerTest<T> {
 
     assertThat(byteArrayOutputStream2.toByteArray()).isEqualTo(asn1OerBytes);
   }
+
+  @Test
+  public void readFromHeapBuffer() {
+    final ByteBuffer buffer = ByteBuffer.wrap(asn1OerBytes);
+    final T actualValue = codecContext.read(clazz, buffer);
+
+    assertThat(actualValue).isEqualTo(inputValue);
+    assertThat(buffer.hasRemaining()).isFalse();
+  }
+
+  @Test
+  public void readFromDirectBuffer() {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(asn1OerBytes.length);
+    buffer.put(asn1OerBytes).flip();
+    final T actualValue = codecContext.read(clazz, buffer);
+
+    assertThat(actualValue).isEqualTo(inputValue);
+    assertThat(buffer.hasRemaining()).isFalse();
+  }
+
+  @Test
+  public void writeToHeapBuffer() {
+    final ByteBuffer buffer = ByteBuffer.allocate(codecContext.sizeOf(inputValue));
+    codecContext.write(inputValue, buffer);
+
+    assertThat(buffer.hasRemaining()).isFalse();
+    assertThat(buffer.array()).isEqualTo(asn1OerBytes);
+  }
+
+  @Test
+  public void writeToDirectBuffer() {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(asn1OerBytes.length);
+    codecContext.write(inputValue, buffer);
+    buffer.flip();
+
+    final byte[] actual = new byte[buffer.remaining()];
+    buffer.get(actual);
+    assertThat(actual).isEqualTo(asn1OerBytes);
+  }
+
+  @Test
+  public void sizeOf() {
+    assertThat(codecContext.sizeOf(inputValue)).isEqualTo(asn1OerBytes.length);
+  }
 }
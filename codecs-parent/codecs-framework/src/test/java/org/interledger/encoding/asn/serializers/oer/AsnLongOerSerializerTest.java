@@ -0,0 +1,179 @@
+package org.interledger.encoding.asn.serializers.oer;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Codec Framework
+ * %%
+ * Copyright (C) 2017 - 2019 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import org.interledger.encoding.asn.codecs.AsnLongBasedObjectCodec;
+import org.interledger.encoding.asn.codecs.AsnOctetStringBasedObjectCodec;
+import org.interledger.encoding.asn.codecs.AsnUint64Codec;
+import org.interledger.encoding.asn.codecs.AsnUint64LongCodec;
+import org.interledger.encoding.asn.codecs.AsnUintCodecUL;
+import org.interledger.encoding.asn.codecs.AsnVarUintLongCodec;
+import org.interledger.encoding.asn.framework.AsnObjectSerializationContext;
+import org.interledger.encoding.asn.framework.CodecException;
+
+import com.google.common.primitives.UnsignedLong;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link AsnLongOerSerializer} that compare {@link AsnVarUintLongCodec} with {@link AsnUintCodecUL},
+ * and {@link AsnUint64LongCodec} with {@link AsnUint64Codec}.
+ */
+public class AsnLongOerSerializerTest {
+
+  private final AsnObjectSerializationContext context = new AsnObjectSerializationContext();
+  private final AsnLongOerSerializer serializer = new AsnLongOerSerializer();
+  private final AsnOctetStringOerSerializer octetStringSerializer = new AsnOctetStringOerSerializer();
+  private final Random random = new Random(7);
+
+  @Test
+  public void varUintMatchesUintCodecUL() throws IOException {
+    for (long value : values()) {
+      final AsnUintCodecUL expectedCodec = new AsnUintCodecUL();
+      expectedCodec.encode(UnsignedLong.fromLongBits(value));
+      final byte[] expected = write(expectedCodec);
+
+      final AsnVarUintLongCodec codec = new AsnVarUintLongCodec();
+      codec.encode(UnsignedLong.fromLongBits(value));
+
+      assertThat(write(codec)).isEqualTo(expected);
+      assertThat(writeToBuffer(codec)).isEqualTo(expected);
+      assertThat(serializer.sizeOf(context, codec)).isEqualTo(expected.length);
+      assertThat(readVarUint(expected, new AsnVarUintLongCodec())).isEqualTo(UnsignedLong.fromLongBits(value));
+    }
+  }
+
+  @Test
+  public void uint64MatchesUint64Codec() throws IOException {
+    for (long value : values()) {
+      final AsnUint64Codec expectedCodec = new AsnUint64Codec();
+      expectedCodec.encode(UnsignedLong.fromLongBits(value));
+      final byte[] expected = write(expectedCodec);
+
+      final AsnUint64LongCodec codec = new AsnUint64LongCodec();
+      codec.encode(UnsignedLong.fromLongBits(value));
+
+      assertThat(write(codec)).isEqualTo(expected);
+      assertThat(writeToBuffer(codec)).isEqualTo(expected);
+      assertThat(serializer.sizeOf(context, codec)).isEqualTo(8);
+
+      final AsnUint64LongCodec streamCodec = new AsnUint64LongCodec();
+      serializer.read(context, streamCodec, new ByteArrayInputStream(expected));
+      assertThat(streamCodec.decode()).isEqualTo(UnsignedLong.fromLongBits(value));
+
+      final AsnUint64LongCodec bufferCodec = new AsnUint64LongCodec();
+      serializer.read(context, bufferCodec, ByteBuffer.wrap(expected));
+      assertThat(bufferCodec.decode()).isEqualTo(UnsignedLong.fromLongBits(value));
+    }
+  }
+
+  @Test
+  public void readVarUintWithLeadingZeros() throws IOException {
+    final byte[] bytes = {9, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+        (byte) 0xFF, (byte) 0xFF};
+
+    assertThat(readVarUint(bytes, new AsnVarUintLongCodec())).isEqualTo(UnsignedLong.MAX_VALUE);
+    assertThat(readVarUint(new byte[] {0}, new AsnVarUintLongCodec())).isEqualTo(UnsignedLong.ZERO);
+  }
+
+  @Test
+  public void readVarUintThatIsTooLarge() throws IOException {
+    final byte[] bytes = {9, 1, 0, 0, 0, 0, 0, 0, 0, 0};
+
+    assertThat(readVarUint(bytes, new AsnVarUintLongCodec(UnsignedLong.ONE))).isEqualTo(UnsignedLong.ONE);
+    assertThat(readVarUint(bytes, new AsnUintCodecUL(UnsignedLong.ONE))).isEqualTo(UnsignedLong.ONE);
+
+    assertThat(catchThrowable(() -> readVarUint(bytes, new AsnVarUintLongCodec())))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(catchThrowable(() -> readVarUint(bytes, new AsnUintCodecUL())))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void readTruncatedVarUint() {
+    final byte[] bytes = {2, 1};
+    final AsnVarUintLongCodec codec = new AsnVarUintLongCodec();
+
+    assertThat(catchThrowable(() -> serializer.read(context, codec, new ByteArrayInputStream(bytes))))
+        .isInstanceOf(CodecException.class);
+    assertThat(catchThrowable(() -> serializer.read(context, codec, ByteBuffer.wrap(bytes))))
+        .isInstanceOf(CodecException.class);
+  }
+
+  /**
+   * Read {@code bytes} from both a stream and a buffer, check that both give the same value, and return it.
+   */
+  private UnsignedLong readVarUint(final byte[] bytes, final AsnVarUintLongCodec codec) throws IOException {
+    serializer.read(context, codec, new ByteArrayInputStream(bytes));
+    final UnsignedLong fromStream = codec.decode();
+    serializer.read(context, codec, ByteBuffer.wrap(bytes));
+    assertThat(codec.decode()).isEqualTo(fromStream);
+    return fromStream;
+  }
+
+  private UnsignedLong readVarUint(final byte[] bytes, final AsnUintCodecUL codec) throws IOException {
+    octetStringSerializer.read(context, codec, new ByteArrayInputStream(bytes));
+    return codec.decode();
+  }
+
+  private long[] values() {
+    final long[] values = new long[2000];
+    int i = 0;
+    for (long value : new long[] {0, 1, 127, 128, 255, 256, 65535, 65536, Long.MAX_VALUE, Long.MIN_VALUE, -1}) {
+      values[i++] = value;
+    }
+    while (i < values.length) {
+      // Spread the values across every bit length.
+      values[i++] = random.nextLong() >>> random.nextInt(Long.SIZE);
+    }
+    return values;
+  }
+
+  private byte[] write(final AsnLongBasedObjectCodec<?> codec) throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    serializer.write(context, codec, outputStream);
+    return outputStream.toByteArray();
+  }
+
+  private byte[] write(final AsnOctetStringBasedObjectCodec<?> codec) throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    octetStringSerializer.write(context, codec, outputStream);
+    return outputStream.toByteArray();
+  }
+
+  private byte[] writeToBuffer(final AsnLongBasedObjectCodec<?> codec) {
+    final ByteBuffer buffer = ByteBuffer.allocate(16);
+    serializer.write(context, codec, buffer);
+    final byte[] bytes = new byte[buffer.position()];
+    ((Buffer) buffer).flip();
+    buffer.get(bytes);
+    return bytes;
+  }
+}
@@ -31,6 +31,7 @@ import org.junit.runners.Parameterized.Parameters;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
 
@@ -136,4 +137,19 @@ public class OerLengthPrefixCodecTest {
     assertThat(outputStream.toByteArray()).isEqualTo(outputStream2.toByteArray());
   }
 
+  @Test
+  public void readFromBuffer() {
+    final ByteBuffer buffer = ByteBuffer.wrap(this.asn1OerBytes);
+    assertThat(OerLengthSerializer.readLength(buffer)).isEqualTo(expectedPayloadLength);
+    assertThat(buffer.hasRemaining()).isFalse();
+  }
+
+  @Test
+  public void writeToBuffer() {
+    final ByteBuffer buffer = ByteBuffer.allocate(OerLengthSerializer.sizeOfLength(expectedPayloadLength));
+    OerLengthSerializer.writeLength(expectedPayloadLength, buffer);
+    assertThat(buffer.hasRemaining()).isFalse();
+    assertThat(buffer.array()).isEqualTo(this.asn1OerBytes);
+  }
+
 }
@@ -0,0 +1,77 @@
+package org.interledger.encoding.asn.serializers.oer;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Codec Framework
+ * %%
+ * Copyright (C) 2017 - 2018 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+import org.interledger.encoding.asn.framework.CodecContextFactory;
+import org.interledger.encoding.asn.framework.CodecException;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Tests that {@link OerLengthSerializer#readLength(ByteBuffer)} fails with a {@link CodecException} for a malformed
+ * length prefix.
+ */
+public class OerLengthSerializerTest {
+
+  @Test(expected = CodecException.class)
+  public void readLengthFromBufferWithMissingLengthOctets() {
+    byte lengthOfLength = (byte) ((1 << 7) | 2);
+
+    OerLengthSerializer.readLength(ByteBuffer.wrap(new byte[] {lengthOfLength, 0}));
+  }
+
+  @Test(expected = CodecException.class)
+  public void readLengthFromEmptyBuffer() {
+    OerLengthSerializer.readLength(ByteBuffer.allocate(0));
+  }
+
+  @Test(expected = CodecException.class)
+  public void readLengthFromBufferWithTooManyLengthOctets() {
+    byte lengthOfLength = (byte) ((1 << 7) | 5);
+
+    OerLengthSerializer.readLength(ByteBuffer.wrap(new byte[] {lengthOfLength, 0, 0, 0, 0, 1}));
+  }
+
+  @Test(expected = CodecException.class)
+  public void readLengthLargerThanIntegerMaxValueFromBuffer() {
+    byte lengthOfLength = (byte) ((1 << 7) | 4);
+
+    OerLengthSerializer.readLength(ByteBuffer.wrap(new byte[] {lengthOfLength, (byte) 0x80, 0, 0, 0}));
+  }
+
+  @Test(expected = CodecException.class)
+  public void readOctetStringLengthLargerThanIntegerMaxValueFromBuffer() {
+    byte lengthOfLength = (byte) ((1 << 7) | 4);
+
+    CodecContextFactory.oer()
+        .read(byte[].class, ByteBuffer.wrap(new byte[] {lengthOfLength, (byte) 0x80, 0, 0, 0, 1, 2, 3}));
+  }
+
+  @Test(expected = CodecException.class)
+  public void readCharStringLengthLargerThanIntegerMaxValueFromBuffer() {
+    byte lengthOfLength = (byte) ((1 << 7) | 4);
+
+    CodecContextFactory.oer()
+        .read(String.class, ByteBuffer.wrap(new byte[] {lengthOfLength, (byte) 0xff, 0, 0, 0, 'a'}));
+  }
+}
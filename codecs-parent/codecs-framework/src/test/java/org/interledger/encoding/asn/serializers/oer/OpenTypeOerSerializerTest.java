@@ -38,6 +38,7 @@ import org.junit.runners.Parameterized.Parameters;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
 
@@ -177,6 +178,27 @@ public class OpenTypeOerSerializerTest {
     Assert.assertArrayEquals(outputStream.toByteArray(), outputStream2.toByteArray());
   }
 
+  @Test
+  public void readFromBufferTest() {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(asn1ByteValue.length);
+    buffer.put(asn1ByteValue).flip();
+
+    final TestType actualValue = codecContext.read(TestType.class, buffer);
+    assertThat(actualValue.bytes).isEqualTo(octetBytes);
+    assertThat(buffer.hasRemaining()).isFalse();
+  }
+
+  @Test
+  public void writeToBufferTest() {
+    final TestType value = new TestType(octetBytes);
+    assertThat(codecContext.sizeOf(value)).isEqualTo(asn1ByteValue.length);
+
+    final ByteBuffer buffer = ByteBuffer.allocate(asn1ByteValue.length);
+    codecContext.write(value, buffer);
+    assertThat(buffer.hasRemaining()).isFalse();
+    Assert.assertArrayEquals(asn1ByteValue, buffer.array());
+  }
+
   private static class TestType {
 
     public byte[] bytes;
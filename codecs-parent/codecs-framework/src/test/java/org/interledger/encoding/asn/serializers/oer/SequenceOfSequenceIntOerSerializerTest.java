@@ -37,6 +37,7 @@ import org.junit.runners.Parameterized.Parameters;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -154,6 +155,50 @@ public class SequenceOfSequenceIntOerSerializerTest {
     assertThat(byteArrayOutputStream2.toByteArray()).isEqualTo(asn1OerBytes);
   }
 
+  @Test
+  public void writeThenReadBuffer() {
+    TestSequenceOfSequence sequences = new TestSequenceOfSequence();
+    for (int i = 0; i < inputValue.length; i++) {
+      sequences.add(i, new TestSequence(inputValue[i]));
+    }
+    assertThat(codecContext.sizeOf(sequences)).isEqualTo(asn1OerBytes.length);
+
+    final ByteBuffer buffer = ByteBuffer.allocate(asn1OerBytes.length);
+    codecContext.write(sequences, buffer);
+    assertThat(buffer.array()).isEqualTo(asn1OerBytes);
+
+    buffer.flip();
+    final TestSequenceOfSequence decodedValue = codecContext.read(TestSequenceOfSequence.class, buffer);
+    assertThat(buffer.hasRemaining()).isFalse();
+    for (int i = 0; i < inputValue.length; i++) {
+      assertThat(decodedValue.get(i).getNumbers()).isEqualTo(inputValue[i]);
+    }
+  }
+
+  @Test
+  public void writeThenReadAfterLongerSequence() throws Exception {
+    // The context reuses the codec, so its element codecs are left over from the longer sequence.
+    TestSequenceOfSequence longer = new TestSequenceOfSequence();
+    for (int i = 0; i < 8; i++) {
+      longer.add(new TestSequence(i, i, i));
+    }
+    final ByteArrayOutputStream longerOutputStream = new ByteArrayOutputStream();
+    codecContext.write(longer, longerOutputStream);
+    codecContext.read(TestSequenceOfSequence.class, new ByteArrayInputStream(longerOutputStream.toByteArray()));
+
+    TestSequenceOfSequence sequences = new TestSequenceOfSequence();
+    for (int i = 0; i < inputValue.length; i++) {
+      sequences.add(i, new TestSequence(inputValue[i]));
+    }
+    final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    codecContext.write(sequences, byteArrayOutputStream);
+    assertThat(byteArrayOutputStream.toByteArray()).isEqualTo(asn1OerBytes);
+
+    final TestSequenceOfSequence decodedValue = codecContext
+        .read(TestSequenceOfSequence.class, new ByteArrayInputStream(asn1OerBytes));
+    assertThat(decodedValue).hasSize(inputValue.length);
+  }
+
   /**
    * A sequence of 3 UInt8 values.
    */
@@ -37,6 +37,10 @@ import org.interledger.ildcp.IldcpResponsePacket;
  */
 public class AsnIldcpPacketCodec<T extends InterledgerPacket> extends AsnSequenceCodec<T> {
 
+  // Created on first use and kept, so that a reused codec does not allocate a new data codec for every packet.
+  private AsnOpenTypeCodec<IldcpRequestPacket> requestDataCodec;
+  private AsnOpenTypeCodec<IldcpResponsePacket> responseDataCodec;
+
   /**
    * Default constructor.
    */
@@ -70,10 +74,16 @@ public class AsnIldcpPacketCodec<T extends InterledgerPacket> extends AsnSequenc
     //The packet type has been set so set the packet data
     switch (typeId) {
       case IldcpPacketTypes.REQUEST: // This is actually an ILP Prepare
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnIldcpRequestPacketDataCodec()));
+        if (requestDataCodec == null) {
+          requestDataCodec = new AsnOpenTypeCodec<>(new AsnIldcpRequestPacketDataCodec());
+        }
+        setCodecAt(1, requestDataCodec);
         return;
       case IldcpPacketTypes.RESPONSE: // This is actually an ILP Fulfill
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnIldcpResponsePacketDataCodec()));
+        if (responseDataCodec == null) {
+          responseDataCodec = new AsnOpenTypeCodec<>(new AsnIldcpResponsePacketDataCodec());
+        }
+        setCodecAt(1, responseDataCodec);
         return;
       default:
         throw new CodecException(format("Unknown IL-DCP packet type code: %s", typeId));
@@ -26,7 +26,7 @@ import org.interledger.codecs.ilp.AsnTimestampCodec;
 import org.interledger.encoding.asn.codecs.AsnOctetStringCodec;
 import org.interledger.encoding.asn.codecs.AsnSequenceCodec;
 import org.interledger.encoding.asn.codecs.AsnSizeConstraint;
-import org.interledger.encoding.asn.codecs.AsnUint64Codec;
+import org.interledger.encoding.asn.codecs.AsnUint64LongCodec;
 import org.interledger.ildcp.IldcpRequestPacket;
 
 public class AsnIldcpRequestPacketDataCodec extends AsnSequenceCodec<IldcpRequestPacket> {
@@ -36,7 +36,7 @@ public class AsnIldcpRequestPacketDataCodec extends AsnSequenceCodec<IldcpReques
    */
   public AsnIldcpRequestPacketDataCodec() {
     super(
-        new AsnUint64Codec(),
+        new AsnUint64LongCodec(),
         new AsnTimestampCodec(),
         new AsnConditionCodec(),
         new AsnInterledgerAddressCodec(),
@@ -36,6 +36,10 @@ import org.interledger.encoding.asn.framework.CodecException;
  */
 public class AsnInterledgerPacketCodec<T extends InterledgerPacket> extends AsnSequenceCodec<T> {
 
+  // Created on first use and kept, so that a reused codec does not allocate a new data codec for every packet.
+  private AsnOpenTypeCodec<InterledgerPreparePacket> prepareDataCodec;
+  private AsnOpenTypeCodec<InterledgerFulfillPacket> fulfillDataCodec;
+  private AsnOpenTypeCodec<InterledgerRejectPacket> rejectDataCodec;
 
   /**
    * Default constructor.
@@ -75,13 +79,22 @@ public class AsnInterledgerPacketCodec<T extends InterledgerPacket> extends AsnS
     //The packet type has been set so set the packet data
     switch (typeId) {
       case InterledgerPacketTypes.PREPARE:
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnInterledgerPreparePacketDataCodec()));
+        if (prepareDataCodec == null) {
+          prepareDataCodec = new AsnOpenTypeCodec<>(new AsnInterledgerPreparePacketDataCodec());
+        }
+        setCodecAt(1, prepareDataCodec);
         return;
       case InterledgerPacketTypes.FULFILL:
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnInterledgerFulfillPacketDataCodec()));
+        if (fulfillDataCodec == null) {
+          fulfillDataCodec = new AsnOpenTypeCodec<>(new AsnInterledgerFulfillPacketDataCodec());
+        }
+        setCodecAt(1, fulfillDataCodec);
         return;
       case InterledgerPacketTypes.REJECT:
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnInterledgerRejectPacketDataCodec()));
+        if (rejectDataCodec == null) {
+          rejectDataCodec = new AsnOpenTypeCodec<>(new AsnInterledgerRejectPacketDataCodec());
+        }
+        setCodecAt(1, rejectDataCodec);
         return;
       default:
         throw new CodecException(
@@ -24,7 +24,7 @@ import org.interledger.core.InterledgerPreparePacket;
 import org.interledger.encoding.asn.codecs.AsnOctetStringCodec;
 import org.interledger.encoding.asn.codecs.AsnSequenceCodec;
 import org.interledger.encoding.asn.codecs.AsnSizeConstraint;
-import org.interledger.encoding.asn.codecs.AsnUint64Codec;
+import org.interledger.encoding.asn.codecs.AsnUint64LongCodec;
 
 public class AsnInterledgerPreparePacketDataCodec extends AsnSequenceCodec<InterledgerPreparePacket> {
 
@@ -33,7 +33,7 @@ public class AsnInterledgerPreparePacketDataCodec extends AsnSequenceCodec<Inter
    */
   public AsnInterledgerPreparePacketDataCodec() {
     super(
-        new AsnUint64Codec(),
+        new AsnUint64LongCodec(),
         new AsnTimestampCodec(),
         new AsnConditionCodec(),
         new AsnInterledgerAddressCodec(),
@@ -20,18 +20,12 @@ package org.interledger.codecs.ilp;
  * =========================LICENSE_END==================================
  */
 
-import static org.interledger.encoding.asn.codecs.AsnSizeConstraint.UNCONSTRAINED;
-
 import org.interledger.encoding.asn.codecs.AsnPrintableStringBasedObjectCodec;
 import org.interledger.encoding.asn.codecs.AsnSizeConstraint;
+import org.interledger.encoding.asn.codecs.AsnTimestampEncoder;
 
 import java.time.Instant;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.DateTimeParseException;
-import java.time.temporal.ChronoField;
-import java.util.regex.Pattern;
 
 /**
  * <p>An Interledger Timestamp represented internally as an {@link Instant}.</p>
@@ -52,31 +46,18 @@ import java.util.regex.Pattern;
  */
 public class AsnTimestampCodec extends AsnPrintableStringBasedObjectCodec<Instant> {
 
-  private final DateTimeFormatter interledgerTimestampFormatter;
-
   /**
    * No-args constructor.
    */
   public AsnTimestampCodec() {
-    super(new AsnSizeConstraint(17));
-    setValidator(Pattern.compile("[0-9]{17}").asPredicate());
-
-    this.interledgerTimestampFormatter = new DateTimeFormatterBuilder()
-        .appendValue(ChronoField.YEAR, 4)
-        .appendValue(ChronoField.MONTH_OF_YEAR, 2)
-        .appendValue(ChronoField.DAY_OF_MONTH, 2)
-        .appendValue(ChronoField.HOUR_OF_DAY, 2)
-        .appendValue(ChronoField.MINUTE_OF_HOUR, 2)
-        .appendValue(ChronoField.SECOND_OF_MINUTE, 2)
-        .appendFraction(ChronoField.MILLI_OF_SECOND, 3, 3, false)
-        .toFormatter()
-        .withZone(ZoneId.of("Z"));
+    super(new AsnSizeConstraint(AsnTimestampEncoder.INTERLEDGER_TIMESTAMP_LENGTH));
+    setValidator(AsnTimestampEncoder::isInterledgerTimestamp);
   }
 
   @Override
   public Instant decode() {
     try {
-      return Instant.from(interledgerTimestampFormatter.parse(getCharString()));
+      return Instant.ofEpochMilli(AsnTimestampEncoder.parseInterledgerTimestamp(getCharString()));
     } catch (DateTimeParseException dtp) {
       throw new IllegalArgumentException(
           String.format(
@@ -90,7 +71,7 @@ public class AsnTimestampCodec extends AsnPrintableStringBasedObjectCodec<Instan
 
   @Override
   public void encode(Instant value) {
-    setCharString(interledgerTimestampFormatter.format(value));
+    setCharString(AsnTimestampEncoder.formatInterledgerTimestamp(value));
   }
 
 }
@@ -66,6 +66,18 @@ public class InterledgerCodecContextFactory {
     return register(ilpCodecContext);
   }
 
+  /**
+   * Create an instance of {@link CodecContext} that encodes and decodes Interledger packets using ASN.1 OER encoding,
+   * with the Prepare, Fulfill and Reject packets handled by {@link InterledgerPacketCodec}.
+   *
+   * @return A new instance of {@link CodecContext}.
+   * @see #registerOptimized(CodecContext)
+   */
+  public static CodecContext optimizedOer() {
+    final CodecContext ilpCodecContext = CodecContextFactory.oer();
+    return registerOptimized(ilpCodecContext);
+  }
+
   /**
    * Register the ILP codecs into the provided context.
    *
@@ -89,4 +101,24 @@ public class InterledgerCodecContextFactory {
         .register(InterledgerFulfillPacket.class, AsnInterledgerFulfillPacketCodec::new, new AsnSequenceOerSerializer())
         .register(InterledgerRejectPacket.class, AsnInterledgerRejectPacketCodec::new, new AsnSequenceOerSerializer());
   }
+
+  /**
+   * Register the ILP codecs into the provided context, using {@link InterledgerPacketCodec} and
+   * {@link InterledgerPacketOerSerializer} for ILP packets. These read and write the packet fields directly instead of
+   * through the generic ASN.1 sequence and open type codecs, and produce exactly the same encoding as
+   * {@link #register(CodecContext)}.
+   *
+   * @param context the context to register the codecs into
+   * @return The supplied {@code context} with ILP Codecs registered into it.
+   */
+  public static CodecContext registerOptimized(final CodecContext context) {
+    Objects.requireNonNull(context, "context must not be null");
+
+    final InterledgerPacketOerSerializer packetSerializer = new InterledgerPacketOerSerializer();
+    return register(context)
+        .register(InterledgerPacket.class, InterledgerPacketCodec::new, packetSerializer)
+        .register(InterledgerPreparePacket.class, InterledgerPacketCodec::new, packetSerializer)
+        .register(InterledgerFulfillPacket.class, InterledgerPacketCodec::new, packetSerializer)
+        .register(InterledgerRejectPacket.class, InterledgerPacketCodec::new, packetSerializer);
+  }
 }
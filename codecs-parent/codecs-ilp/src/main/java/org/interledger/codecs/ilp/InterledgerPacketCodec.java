@@ -0,0 +1,103 @@
+package org.interledger.codecs.ilp;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Core Codecs
+ * %%
+ * Copyright (C) 2017 - 2018 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+import org.interledger.core.InterledgerFulfillPacket;
+import org.interledger.core.InterledgerPacket;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.encoding.asn.codecs.AsnObjectCodecBase;
+import org.interledger.encoding.asn.framework.CodecException;
+
+import java.util.Objects;
+
+/**
+ * <p>A codec for {@link InterledgerPacket}s that is serialized by {@link InterledgerPacketOerSerializer}.</p>
+ *
+ * <p>Unlike {@link AsnInterledgerPacketCodec}, this codec has no tree of field codecs. It only holds the packet, and
+ * the serializer reads and writes the type code, open type length prefix and packet fields directly. The encoding is
+ * identical to the one produced by {@link AsnInterledgerPacketCodec}.</p>
+ *
+ * @param <T> the type of packet that is encoded/decoded using this codec.
+ */
+public class InterledgerPacketCodec<T extends InterledgerPacket> extends AsnObjectCodecBase<T> {
+
+  static final short PREPARE = 12;
+  static final short FULFILL = 13;
+  static final short REJECT = 14;
+
+  private InterledgerPacket packet;
+
+  /**
+   * Get the ILP type code of the packet held by this codec.
+   *
+   * @return {@link #PREPARE}, {@link #FULFILL} or {@link #REJECT}.
+   */
+  short getTypeCode() {
+    return typeCodeOf(packet);
+  }
+
+  /**
+   * Get the packet held by this codec, without the unchecked cast done by {@link #decode()}.
+   *
+   * @return the packet that was last encoded into, or read into, this codec.
+   */
+  InterledgerPacket getPacket() {
+    return packet;
+  }
+
+  /**
+   * Set the packet that was read by the serializer.
+   *
+   * @param packet the packet that was read.
+   */
+  void setPacket(final InterledgerPacket packet) {
+    this.packet = Objects.requireNonNull(packet);
+    this.onValueChangedEvent();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T decode() {
+    return (T) packet;
+  }
+
+  @Override
+  public void encode(final T value) {
+    Objects.requireNonNull(value);
+    // Reject unknown packet types up front, the way AsnInterledgerPacketCodec does.
+    typeCodeOf(value);
+    setPacket(value);
+  }
+
+  private static short typeCodeOf(final InterledgerPacket packet) {
+    if (packet instanceof InterledgerPreparePacket) {
+      return PREPARE;
+    } else if (packet instanceof InterledgerFulfillPacket) {
+      return FULFILL;
+    } else if (packet instanceof InterledgerRejectPacket) {
+      return REJECT;
+    }
+    throw new CodecException(
+        String.format("Unknown Interledger Packet Type: %s", packet.getClass().getName()));
+  }
+
+}
@@ -0,0 +1,530 @@
+package org.interledger.codecs.ilp;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Core Codecs
+ * %%
+ * Copyright (C) 2017 - 2018 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+import static java.lang.String.format;
+import static org.interledger.codecs.ilp.InterledgerPacketCodec.FULFILL;
+import static org.interledger.codecs.ilp.InterledgerPacketCodec.PREPARE;
+import static org.interledger.codecs.ilp.InterledgerPacketCodec.REJECT;
+
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerCondition;
+import org.interledger.core.InterledgerErrorCode;
+import org.interledger.core.InterledgerFulfillPacket;
+import org.interledger.core.InterledgerFulfillment;
+import org.interledger.core.InterledgerPacket;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.encoding.asn.codecs.AsnTimestampEncoder;
+import org.interledger.encoding.asn.framework.AsnObjectSerializationContext;
+import org.interledger.encoding.asn.framework.AsnObjectSerializer;
+import org.interledger.encoding.asn.framework.CodecException;
+import org.interledger.encoding.asn.serializers.oer.OerLengthSerializer;
+
+import com.google.common.primitives.UnsignedLong;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * <p>An {@link AsnObjectSerializer} that reads and writes ILPv4 Prepare, Fulfill and Reject packets held by an
+ * {@link InterledgerPacketCodec}.</p>
+ *
+ * <p>The packet fields are read and written directly, instead of through a tree of {@link AsnInterledgerPacketCodec},
+ * {@link org.interledger.encoding.asn.codecs.AsnOpenTypeCodec} and per-field codecs. The encoding, the size
+ * constraints and the exceptions thrown for invalid values are the same as those of the generic codecs.</p>
+ */
+public class InterledgerPacketOerSerializer implements AsnObjectSerializer<InterledgerPacketCodec> {
+
+  private static final int AMOUNT_LENGTH = 8;
+  private static final int TIMESTAMP_LENGTH = AsnTimestampEncoder.INTERLEDGER_TIMESTAMP_LENGTH;
+  private static final int CONDITION_LENGTH = 32;
+  private static final int FULFILLMENT_LENGTH = 32;
+  private static final int ERROR_CODE_LENGTH = 3;
+  private static final int MAX_ADDRESS_LENGTH = 1023;
+  private static final int MAX_MESSAGE_LENGTH = 8192;
+  private static final int MAX_DATA_LENGTH = 32768;
+
+  @Override
+  public void read(final AsnObjectSerializationContext context,
+                   final InterledgerPacketCodec instance,
+                   final InputStream inputStream) throws IOException {
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+    Objects.requireNonNull(inputStream);
+
+    final int typeCode = inputStream.read();
+    if (typeCode < 0) {
+      throw new CodecException("Unexpected end of stream. Expected an Interledger packet type code.");
+    }
+    checkTypeCode(typeCode);
+
+    final int length = OerLengthSerializer.readLength(inputStream);
+    if (length < 0) {
+      throw new CodecException(format("Invalid open type length: %s", length));
+    }
+
+    // Read the whole open type, then parse it like a buffer.
+    final byte[] content = new byte[length];
+    int bytesRead = 0;
+    while (bytesRead < length) {
+      final int read = inputStream.read(content, bytesRead, length - bytesRead);
+      if (read < 0) {
+        throw new IOException(format("Unexpected end of stream. Expected %s bytes but got %s.", length, bytesRead));
+      }
+      bytesRead += read;
+    }
+
+    instance.setPacket(readContent(typeCode, ByteBuffer.wrap(content)));
+  }
+
+  @Override
+  public void write(final AsnObjectSerializationContext context,
+                    final InterledgerPacketCodec instance,
+                    final OutputStream outputStream) throws IOException {
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+    Objects.requireNonNull(outputStream);
+
+    // Encode into an array of exactly the right size, so that the packet fields are only read once.
+    outputStream.write(writePacket(instance, null).array());
+  }
+
+  @Override
+  public void read(final AsnObjectSerializationContext context,
+                   final InterledgerPacketCodec instance,
+                   final ByteBuffer buffer) {
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+    Objects.requireNonNull(buffer);
+
+    if (!buffer.hasRemaining()) {
+      throw new CodecException("Unexpected end of buffer. Expected an Interledger packet type code.");
+    }
+    final int typeCode = buffer.get() & 0xFF;
+    checkTypeCode(typeCode);
+
+    final int length = OerLengthSerializer.readLength(buffer);
+    checkRemaining(buffer, length);
+
+    // Limit the buffer to the open type while its fields are read, so that a field can't run past the end of it.
+    final int end = buffer.position() + length;
+    final int limit = buffer.limit();
+    ((Buffer) buffer).limit(end);
+    try {
+      instance.setPacket(readContent(typeCode, buffer));
+    } finally {
+      ((Buffer) buffer).limit(limit);
+    }
+    // Skip any bytes after the packet fields, as the generic open type codec does.
+    ((Buffer) buffer).position(end);
+  }
+
+  @Override
+  public void write(final AsnObjectSerializationContext context,
+                    final InterledgerPacketCodec instance,
+                    final ByteBuffer buffer) {
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+    Objects.requireNonNull(buffer);
+
+    writePacket(instance, buffer);
+  }
+
+  @Override
+  public int sizeOf(final AsnObjectSerializationContext context, final InterledgerPacketCodec instance) {
+    Objects.requireNonNull(context);
+    Objects.requireNonNull(instance);
+
+    final InterledgerPacket packet = instance.getPacket();
+    final int length;
+    switch (instance.getTypeCode()) {
+      case PREPARE: {
+        final InterledgerPreparePacket prepare = (InterledgerPreparePacket) packet;
+        AsnTimestampEncoder.checkRange(prepare.getExpiresAt());
+        length = AMOUNT_LENGTH + TIMESTAMP_LENGTH + CONDITION_LENGTH
+            + sizeOfIa5String(prepare.getDestination().getValue(), MAX_ADDRESS_LENGTH)
+            + sizeOfOctetString(prepare.getData(), MAX_DATA_LENGTH);
+        break;
+      }
+      case FULFILL: {
+        length = FULFILLMENT_LENGTH + sizeOfOctetString(packet.getData(), MAX_DATA_LENGTH);
+        break;
+      }
+      case REJECT:
+      default: {
+        final InterledgerRejectPacket reject = (InterledgerRejectPacket) packet;
+        length = sizeOfErrorCode(reject.getCode().getCode())
+            + sizeOfIa5String(reject.getTriggeredBy().map(InterledgerAddress::getValue).orElse(""), MAX_ADDRESS_LENGTH)
+            + sizeOfUtf8String(reject.getMessage(), MAX_MESSAGE_LENGTH)
+            + sizeOfOctetString(reject.getData(), MAX_DATA_LENGTH);
+      }
+    }
+    return 1 + OerLengthSerializer.sizeOfLength(length) + length;
+  }
+
+  private static void checkTypeCode(final int typeCode) {
+    if (typeCode != PREPARE && typeCode != FULFILL && typeCode != REJECT) {
+      throw new CodecException(format("Unknown Interledger packet type code: %s", typeCode));
+    }
+  }
+
+  private static ByteBuffer writePacket(final InterledgerPacketCodec instance, final ByteBuffer buffer) {
+    final InterledgerPacket packet = instance.getPacket();
+    switch (instance.getTypeCode()) {
+      case PREPARE:
+        return writePrepare((InterledgerPreparePacket) packet, buffer);
+      case FULFILL:
+        return writeFulfill((InterledgerFulfillPacket) packet, buffer);
+      case REJECT:
+      default:
+        return writeReject((InterledgerRejectPacket) packet, buffer);
+    }
+  }
+
+  private static InterledgerPacket readContent(final int typeCode, final ByteBuffer buffer) {
+    switch (typeCode) {
+      case PREPARE:
+        return readPrepare(buffer);
+      case FULFILL:
+        return readFulfill(buffer);
+      case REJECT:
+        return readReject(buffer);
+      default:
+        throw new CodecException(format("Unknown Interledger packet type code: %s", typeCode));
+    }
+  }
+
+  private static InterledgerPreparePacket readPrepare(final ByteBuffer buffer) {
+    final UnsignedLong amount = UnsignedLong.fromLongBits(readUint64(buffer));
+    final Instant expiresAt = readTimestamp(buffer);
+    final InterledgerCondition executionCondition = InterledgerCondition.of(readFixedSize(buffer, CONDITION_LENGTH));
+    final InterledgerAddress destination = readAddress(buffer);
+    final byte[] data = readOctetString(buffer, MAX_DATA_LENGTH);
+
+    return InterledgerPreparePacket.builder()
+        .amount(amount)
+        .expiresAt(expiresAt)
+        .executionCondition(executionCondition)
+        .destination(destination)
+        .data(data)
+        .build();
+  }
+
+  private static InterledgerFulfillPacket readFulfill(final ByteBuffer buffer) {
+    final InterledgerFulfillment fulfillment = InterledgerFulfillment.of(readFixedSize(buffer, FULFILLMENT_LENGTH));
+    final byte[] data = readOctetString(buffer, MAX_DATA_LENGTH);
+
+    return InterledgerFulfillPacket.builder()
+        .fulfillment(fulfillment)
+        .data(data)
+        .build();
+  }
+
+  private static InterledgerRejectPacket readReject(final ByteBuffer buffer) {
+    checkRemaining(buffer, ERROR_CODE_LENGTH);
+    final String code = readString(buffer, ERROR_CODE_LENGTH, StandardCharsets.US_ASCII);
+    final InterledgerAddress triggeredBy = readAddress(buffer);
+    final String message = readCharString(buffer, MAX_MESSAGE_LENGTH, StandardCharsets.UTF_8);
+    final byte[] data = readOctetString(buffer, MAX_DATA_LENGTH);
+
+    return InterledgerRejectPacket.builder()
+        .code(InterledgerErrorCode.valueOf(code))
+        .triggeredBy(Optional.ofNullable(triggeredBy))
+        .message(message)
+        .data(data)
+        .build();
+  }
+
+  private static ByteBuffer writePrepare(final InterledgerPreparePacket packet, ByteBuffer buffer) {
+    final Instant expiresAt = packet.getExpiresAt();
+    AsnTimestampEncoder.checkRange(expiresAt);
+    final String destination = packet.getDestination().getValue();
+    final byte[] data = packet.getData();
+    final int length = AMOUNT_LENGTH + TIMESTAMP_LENGTH + CONDITION_LENGTH
+        + sizeOfIa5String(destination, MAX_ADDRESS_LENGTH)
+        + sizeOfOctetString(data, MAX_DATA_LENGTH);
+
+    buffer = writeHeader(PREPARE, length, buffer);
+    final long amount = packet.getAmount().longValue();
+    for (int i = AMOUNT_LENGTH - 1; i >= 0; i--) {
+      buffer.put((byte) (amount >>> (Byte.SIZE * i)));
+    }
+    AsnTimestampEncoder.writeInterledgerTimestamp(expiresAt, buffer);
+    buffer.put(packet.getExecutionCondition().getHash());
+    writeIa5String(destination, buffer);
+    writeOctetString(data, buffer);
+    return buffer;
+  }
+
+  private static ByteBuffer writeFulfill(final InterledgerFulfillPacket packet, ByteBuffer buffer) {
+    final byte[] data = packet.getData();
+    final int length = FULFILLMENT_LENGTH + sizeOfOctetString(data, MAX_DATA_LENGTH);
+
+    buffer = writeHeader(FULFILL, length, buffer);
+    buffer.put(packet.getFulfillment().getPreimage());
+    writeOctetString(data, buffer);
+    return buffer;
+  }
+
+  private static ByteBuffer writeReject(final InterledgerRejectPacket packet, ByteBuffer buffer) {
+    final String code = packet.getCode().getCode();
+    final String triggeredBy = packet.getTriggeredBy().map(InterledgerAddress::getValue).orElse("");
+    final String message = packet.getMessage();
+    final byte[] data = packet.getData();
+    final int length = sizeOfErrorCode(code)
+        + sizeOfIa5String(triggeredBy, MAX_ADDRESS_LENGTH)
+        + sizeOfUtf8String(message, MAX_MESSAGE_LENGTH)
+        + sizeOfOctetString(data, MAX_DATA_LENGTH);
+
+    buffer = writeHeader(REJECT, length, buffer);
+    putIa5(code, buffer);
+    writeIa5String(triggeredBy, buffer);
+    OerLengthSerializer.writeLength(utf8Length(message), buffer);
+    putUtf8(message, buffer);
+    writeOctetString(data, buffer);
+    return buffer;
+  }
+
+  /**
+   * Write the type code and the open type length prefix, after checking that the whole packet fits so that nothing
+   * is written if it does not. If {@code buffer} is null, a heap buffer of exactly the size of the packet is allocated.
+   *
+   * @return the buffer that the rest of the packet must be written to.
+   */
+  private static ByteBuffer writeHeader(final short typeCode, final int length, final ByteBuffer buffer) {
+    final int size = 1 + OerLengthSerializer.sizeOfLength(length) + length;
+    final ByteBuffer target = buffer == null ? ByteBuffer.allocate(size) : buffer;
+    if (target.remaining() < size) {
+      throw new BufferOverflowException();
+    }
+    target.put((byte) typeCode);
+    OerLengthSerializer.writeLength(length, target);
+    return target;
+  }
+
+  private static Instant readTimestamp(final ByteBuffer buffer) {
+    checkRemaining(buffer, TIMESTAMP_LENGTH);
+    try {
+      return Instant.ofEpochMilli(AsnTimestampEncoder.readInterledgerTimestamp(buffer));
+    } catch (DateTimeParseException dtp) {
+      final String value = dtp.getParsedString();
+      if (!AsnTimestampEncoder.isInterledgerTimestamp(value)) {
+        throw new CodecException(format("Invalid format: %s", value));
+      }
+      throw new IllegalArgumentException(
+          format("Interledger timestamps must conform to IL-RFC-27! Value %s is invalid.", value), dtp
+      );
+    }
+  }
+
+  private static long readUint64(final ByteBuffer buffer) {
+    checkRemaining(buffer, AMOUNT_LENGTH);
+    long value = 0;
+    for (int i = 0; i < AMOUNT_LENGTH; i++) {
+      value = (value << Byte.SIZE) | (buffer.get() & 0xFF);
+    }
+    return value;
+  }
+
+  private static byte[] readFixedSize(final ByteBuffer buffer, final int length) {
+    checkRemaining(buffer, length);
+    final byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  private static byte[] readOctetString(final ByteBuffer buffer, final int maxLength) {
+    final int length = OerLengthSerializer.readLength(buffer);
+    checkRemaining(buffer, length);
+    checkMaxOctets(length, maxLength);
+    final byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Read an ILP address, treating the empty string as no address the way {@link AsnInterledgerAddressCodec} does.
+   */
+  private static InterledgerAddress readAddress(final ByteBuffer buffer) {
+    final String value = readCharString(buffer, MAX_ADDRESS_LENGTH, StandardCharsets.US_ASCII);
+    return value.isEmpty() ? null : InterledgerAddress.of(value);
+  }
+
+  private static String readCharString(final ByteBuffer buffer, final int maxLength, final Charset charset) {
+    final int length = OerLengthSerializer.readLength(buffer);
+    checkRemaining(buffer, length);
+    final String value = readString(buffer, length, charset);
+    checkMaxChars(value.length(), maxLength);
+    return value;
+  }
+
+  private static String readString(final ByteBuffer buffer, final int length, final Charset charset) {
+    if (length == 0) {
+      return "";
+    }
+    final String value;
+    if (buffer.hasArray()) {
+      value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, charset);
+      ((Buffer) buffer).position(buffer.position() + length);
+    } else {
+      final byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      value = new String(bytes, charset);
+    }
+    return value;
+  }
+
+  private static void checkRemaining(final ByteBuffer buffer, final int length) {
+    if (length < 0 || buffer.remaining() < length) {
+      throw new CodecException(format("Unexpected end of buffer. Expected %s bytes but only %s remain.",
+          length, buffer.remaining()));
+    }
+  }
+
+  private static void checkMaxChars(final int length, final int maxLength) {
+    if (length > maxLength) {
+      throw new CodecException(format("Invalid character string length. Expected < %s, got %s", maxLength, length));
+    }
+  }
+
+  private static void checkMaxOctets(final int length, final int maxLength) {
+    if (length > maxLength) {
+      throw new CodecException(format("Invalid octet string length. Expected < %s, got %s", maxLength, length));
+    }
+  }
+
+  private static int sizeOfErrorCode(final String code) {
+    if (code.length() != ERROR_CODE_LENGTH) {
+      throw new CodecException(format("Invalid character string length. Expected %s, got %s",
+          ERROR_CODE_LENGTH, code.length()));
+    }
+    return ia5Length(code);
+  }
+
+  private static int sizeOfIa5String(final String value, final int maxLength) {
+    checkMaxChars(value.length(), maxLength);
+    final int length = ia5Length(value);
+    return OerLengthSerializer.sizeOfLength(length) + length;
+  }
+
+  private static int sizeOfUtf8String(final String value, final int maxLength) {
+    checkMaxChars(value.length(), maxLength);
+    final int length = utf8Length(value);
+    return OerLengthSerializer.sizeOfLength(length) + length;
+  }
+
+  private static int sizeOfOctetString(final byte[] value, final int maxLength) {
+    checkMaxOctets(value.length, maxLength);
+    return OerLengthSerializer.sizeOfLength(value.length) + value.length;
+  }
+
+  private static void writeIa5String(final String value, final ByteBuffer buffer) {
+    OerLengthSerializer.writeLength(ia5Length(value), buffer);
+    putIa5(value, buffer);
+  }
+
+  private static void writeOctetString(final byte[] value, final ByteBuffer buffer) {
+    OerLengthSerializer.writeLength(value.length, buffer);
+    buffer.put(value);
+  }
+
+  /**
+   * The number of bytes {@code value} occupies in US-ASCII. Like the JDK encoder, every code point that is not ASCII
+   * (including a surrogate pair) is replaced by a single {@code '?'}.
+   */
+  private static int ia5Length(final String value) {
+    return value.codePointCount(0, value.length());
+  }
+
+  private static void putIa5(final String value, final ByteBuffer buffer) {
+    for (int i = 0; i < value.length(); ) {
+      final int codePoint = value.codePointAt(i);
+      buffer.put(codePoint < 0x80 ? (byte) codePoint : (byte) '?');
+      i += Character.charCount(codePoint);
+    }
+  }
+
+  /**
+   * The number of bytes {@code value} occupies in UTF-8. Like the JDK encoder, an unpaired surrogate is replaced by a
+   * single {@code '?'}.
+   */
+  private static int utf8Length(final String value) {
+    int length = 0;
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c < 0x80) {
+        length += 1;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (!Character.isSurrogate(c)) {
+        length += 3;
+      } else if (isSurrogatePairAt(value, i)) {
+        length += 4;
+        i++;
+      } else {
+        length += 1;
+      }
+    }
+    return length;
+  }
+
+  private static void putUtf8(final String value, final ByteBuffer buffer) {
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c < 0x80) {
+        buffer.put((byte) c);
+      } else if (c < 0x800) {
+        buffer.put((byte) (0xC0 | (c >> 6)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+      } else if (!Character.isSurrogate(c)) {
+        buffer.put((byte) (0xE0 | (c >> 12)));
+        buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+      } else if (isSurrogatePairAt(value, i)) {
+        final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        buffer.put((byte) (0xF0 | (codePoint >> 18)));
+        buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+        buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+        buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+      } else {
+        buffer.put((byte) '?');
+      }
+    }
+  }
+
+  private static boolean isSurrogatePairAt(final String value, final int index) {
+    return Character.isHighSurrogate(value.charAt(index))
+        && index + 1 < value.length()
+        && Character.isLowSurrogate(value.charAt(index + 1));
+  }
+
+}
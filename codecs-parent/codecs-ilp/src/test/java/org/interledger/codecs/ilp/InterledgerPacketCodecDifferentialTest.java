@@ -0,0 +1,371 @@
+package org.interledger.codecs.ilp;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Core Codecs
+ * %%
+ * Copyright (C) 2017 - 2018 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerCondition;
+import org.interledger.core.InterledgerErrorCode;
+import org.interledger.core.InterledgerFulfillPacket;
+import org.interledger.core.InterledgerFulfillment;
+import org.interledger.core.InterledgerPacket;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.encoding.asn.framework.CodecException;
+
+import com.google.common.primitives.UnsignedLong;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Differential tests that check {@link InterledgerPacketCodec} against the generic {@link AsnInterledgerPacketCodec}:
+ * random packets must encode to the same bytes, and random (and randomly corrupted) encodings must decode to the same
+ * packets, or fail in both.
+ */
+public class InterledgerPacketCodecDifferentialTest {
+
+  private static final int PACKETS = 500;
+  private static final int MUTATIONS = 4000;
+
+  // The first millisecond of the year 0000 and the first millisecond of the year 10000.
+  private static final long MIN_EPOCH_MILLI = -62167219200000L;
+  private static final long MAX_EPOCH_MILLI = 253402300800000L;
+
+  private static final InterledgerErrorCode[] ERROR_CODES = {
+      InterledgerErrorCode.F00_BAD_REQUEST,
+      InterledgerErrorCode.F02_UNREACHABLE,
+      InterledgerErrorCode.F08_AMOUNT_TOO_LARGE,
+      InterledgerErrorCode.F99_APPLICATION_ERROR,
+      InterledgerErrorCode.T04_INSUFFICIENT_LIQUIDITY,
+      InterledgerErrorCode.R00_TRANSFER_TIMED_OUT,
+  };
+
+  private static final String[] SCHEMES = {"g", "private", "example", "peer", "self", "test", "test3", "local"};
+  private static final String SEGMENT_CHARS
+      = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_~-";
+  // One, two, three and four byte UTF-8 sequences, and unpaired surrogates (which encode as '?').
+  private static final String[] MESSAGE_PIECES = {"a", "Z", " ", "é", "Ω", "€", "中",
+      "😀", "\ud83d", "\ude00"};
+
+  private final CodecContext genericContext = InterledgerCodecContextFactory.oer();
+  private final CodecContext optimizedContext = InterledgerCodecContextFactory.optimizedOer();
+
+  @Test
+  public void encodingMatchesGenericCodec() throws IOException {
+    final Random random = new Random(1);
+    for (int i = 0; i < PACKETS; i++) {
+      final InterledgerPacket packet = randomPacket(random);
+      final byte[] expected = writeToStream(genericContext, packet);
+
+      assertThat(writeToStream(optimizedContext, packet)).as("%s", packet).isEqualTo(expected);
+      assertThat(writeToBuffer(optimizedContext, packet, ByteBuffer.allocate(expected.length + 3)))
+          .as("%s", packet).isEqualTo(expected);
+      assertThat(writeToBuffer(optimizedContext, packet, ByteBuffer.allocateDirect(expected.length)))
+          .as("%s", packet).isEqualTo(expected);
+      assertThat(optimizedContext.sizeOf(packet)).as("%s", packet).isEqualTo(expected.length);
+    }
+  }
+
+  @Test
+  public void decodingMatchesGenericCodec() throws IOException {
+    final Random random = new Random(2);
+    for (int i = 0; i < PACKETS; i++) {
+      final InterledgerPacket packet = randomPacket(random);
+      final byte[] bytes = writeToStream(genericContext, packet);
+      final InterledgerPacket expected = genericContext.read(InterledgerPacket.class, new ByteArrayInputStream(bytes));
+
+      assertThat(optimizedContext.read(InterledgerPacket.class, new ByteArrayInputStream(bytes))).isEqualTo(expected);
+      assertThat(optimizedContext.read(packetType(packet), new ByteArrayInputStream(bytes))).isEqualTo(expected);
+      assertThat(optimizedContext.read(InterledgerPacket.class, ByteBuffer.wrap(bytes))).isEqualTo(expected);
+
+      final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+      direct.put(bytes).flip();
+      assertThat(optimizedContext.read(packetType(packet), direct)).isEqualTo(expected);
+      assertThat(direct.hasRemaining()).isFalse();
+    }
+  }
+
+  @Test
+  public void corruptedEncodingsDecodeLikeGenericCodec() throws IOException {
+    final Random random = new Random(3);
+    for (int i = 0; i < MUTATIONS; i++) {
+      final byte[] bytes = mutate(random, writeToStream(genericContext, randomSmallPacket(random)));
+      final String description = Base64.getEncoder().encodeToString(bytes);
+
+      final Object expectedFromStream = readOutcome(genericContext, bytes, false);
+      final Object actualFromStream = readOutcome(optimizedContext, bytes, false);
+      assertSameOutcome(description, actualFromStream, expectedFromStream);
+
+      final Object expectedFromBuffer = readOutcome(genericContext, bytes, true);
+      final Object actualFromBuffer = readOutcome(optimizedContext, bytes, true);
+      assertSameOutcome(description, actualFromBuffer, expectedFromBuffer);
+    }
+  }
+
+  @Test
+  public void invalidPacketsAreRejectedLikeGenericCodec() {
+    final InterledgerPreparePacket tooMuchData = InterledgerPreparePacket.builder()
+        .from(preparePacket(new Random(4)))
+        .data(new byte[32769])
+        .build();
+    final InterledgerRejectPacket messageTooLong = InterledgerRejectPacket.builder()
+        .code(InterledgerErrorCode.F00_BAD_REQUEST)
+        .message(String.join("", Collections.nCopies(8193, "x")))
+        .build();
+    final InterledgerPreparePacket expiresTooLate = InterledgerPreparePacket.builder()
+        .from(preparePacket(new Random(5)))
+        .expiresAt(Instant.ofEpochMilli(MAX_EPOCH_MILLI))
+        .build();
+
+    for (InterledgerPacket packet : Arrays.asList(tooMuchData, messageTooLong, expiresTooLate)) {
+      final Throwable expected = catchThrowable(() -> writeToStream(genericContext, packet));
+      assertThat(expected).isNotNull();
+      assertThatThrownBy(() -> writeToStream(optimizedContext, packet)).isInstanceOf(expected.getClass());
+
+      final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+      assertThatThrownBy(() -> optimizedContext.write(packet, buffer)).isInstanceOf(expected.getClass());
+      assertThat(buffer.position()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void writeToBufferThatIsTooSmallWritesNothing() {
+    final InterledgerPacket packet = preparePacket(new Random(6));
+    final ByteBuffer buffer = ByteBuffer.allocate(optimizedContext.sizeOf(packet) - 1);
+
+    assertThatThrownBy(() -> optimizedContext.write(packet, buffer)).isInstanceOf(BufferOverflowException.class);
+    assertThat(buffer.position()).isEqualTo(0);
+  }
+
+  @Test
+  public void unknownPacketTypeIsRejected() {
+    final ByteBuffer buffer = ByteBuffer.wrap(new byte[] {15, 0});
+
+    assertThatThrownBy(() -> optimizedContext.read(InterledgerPacket.class, buffer))
+        .isInstanceOf(CodecException.class)
+        .hasMessage("Unknown Interledger packet type code: 15");
+  }
+
+  private static void assertSameOutcome(final String description, final Object actual, final Object expected) {
+    if (expected instanceof Throwable) {
+      assertThat(actual).as("%s decoded by the generic codec threw %s", description, expected)
+          .isInstanceOf(Throwable.class);
+    } else {
+      assertThat(actual).as(description).isEqualTo(expected);
+    }
+  }
+
+  /**
+   * Read a packet, returning either the packet and the number of bytes read, or the exception that was thrown.
+   */
+  private static Object readOutcome(final CodecContext context, final byte[] bytes, final boolean fromBuffer) {
+    try {
+      if (fromBuffer) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return Arrays.asList(context.read(InterledgerPacket.class, buffer), buffer.position());
+      }
+      final ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+      return Arrays.asList(context.read(InterledgerPacket.class, inputStream), inputStream.available());
+    } catch (Exception e) {
+      return e;
+    }
+  }
+
+  private static byte[] mutate(final Random random, final byte[] bytes) {
+    switch (random.nextInt(4)) {
+      case 0: {
+        // Truncate
+        return Arrays.copyOf(bytes, random.nextInt(bytes.length));
+      }
+      case 1: {
+        // Append garbage, which may or may not be covered by the (possibly also mutated) length prefix
+        final byte[] extended = Arrays.copyOf(bytes, bytes.length + 1 + random.nextInt(8));
+        for (int i = bytes.length; i < extended.length; i++) {
+          extended[i] = (byte) random.nextInt();
+        }
+        if (random.nextBoolean() && bytes[1] >= 0 && bytes[1] + extended.length - bytes.length < 128) {
+          extended[1] = (byte) (bytes[1] + extended.length - bytes.length);
+        }
+        return extended;
+      }
+      case 2: {
+        // Change the type code or the length prefix
+        final byte[] changed = bytes.clone();
+        changed[random.nextInt(2)] = (byte) random.nextInt();
+        return changed;
+      }
+      default: {
+        // Change a few random bytes
+        final byte[] changed = bytes.clone();
+        final int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+          changed[random.nextInt(changed.length)] = (byte) random.nextInt();
+        }
+        return changed;
+      }
+    }
+  }
+
+  private static byte[] writeToStream(final CodecContext context, final InterledgerPacket packet) throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    context.write(packet, outputStream);
+    return outputStream.toByteArray();
+  }
+
+  private static byte[] writeToBuffer(final CodecContext context, final InterledgerPacket packet,
+                                      final ByteBuffer buffer) {
+    context.write(packet, buffer);
+    buffer.flip();
+    final byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  private static Class<? extends InterledgerPacket> packetType(final InterledgerPacket packet) {
+    if (packet instanceof InterledgerPreparePacket) {
+      return InterledgerPreparePacket.class;
+    } else if (packet instanceof InterledgerFulfillPacket) {
+      return InterledgerFulfillPacket.class;
+    }
+    return InterledgerRejectPacket.class;
+  }
+
+  private static InterledgerPacket randomPacket(final Random random) {
+    switch (random.nextInt(3)) {
+      case 0:
+        return preparePacket(random);
+      case 1:
+        return InterledgerFulfillPacket.builder()
+            .fulfillment(InterledgerFulfillment.of(randomBytes(random, 32)))
+            .data(randomData(random))
+            .build();
+      default:
+        return rejectPacket(random);
+    }
+  }
+
+  /**
+   * A random packet without large data, so that most corruptions hit the packet fields.
+   */
+  private static InterledgerPacket randomSmallPacket(final Random random) {
+    final InterledgerPacket packet = randomPacket(random);
+    final byte[] data = randomBytes(random, random.nextInt(16));
+    if (packet instanceof InterledgerPreparePacket) {
+      return InterledgerPreparePacket.builder().from((InterledgerPreparePacket) packet).data(data).build();
+    } else if (packet instanceof InterledgerFulfillPacket) {
+      return InterledgerFulfillPacket.builder().from((InterledgerFulfillPacket) packet).data(data).build();
+    }
+    return InterledgerRejectPacket.builder()
+        .from((InterledgerRejectPacket) packet)
+        .message(randomMessage(random, 10))
+        .data(data)
+        .build();
+  }
+
+  private static InterledgerPreparePacket preparePacket(final Random random) {
+    final long epochMilli = MIN_EPOCH_MILLI + (long) (random.nextDouble() * (MAX_EPOCH_MILLI - MIN_EPOCH_MILLI));
+    // Sub-millisecond precision is not encoded, so sometimes add some to check that both codecs truncate it.
+    final Instant expiresAt = Instant.ofEpochMilli(epochMilli)
+        .plusNanos(random.nextBoolean() ? 0 : random.nextInt(1_000_000));
+
+    return InterledgerPreparePacket.builder()
+        .amount(UnsignedLong.fromLongBits(random.nextLong()))
+        .expiresAt(expiresAt)
+        .executionCondition(InterledgerCondition.of(randomBytes(random, 32)))
+        .destination(randomAddress(random))
+        .data(randomData(random))
+        .build();
+  }
+
+  private static InterledgerRejectPacket rejectPacket(final Random random) {
+    final int messageLength = random.nextInt(20) == 0 ? 8192 : random.nextInt(40);
+    return InterledgerRejectPacket.builder()
+        .code(ERROR_CODES[random.nextInt(ERROR_CODES.length)])
+        .triggeredBy(random.nextBoolean() ? Optional.of(randomAddress(random)) : Optional.empty())
+        .message(randomMessage(random, messageLength))
+        .data(randomData(random))
+        .build();
+  }
+
+  private static InterledgerAddress randomAddress(final Random random) {
+    final StringBuilder address = new StringBuilder(SCHEMES[random.nextInt(SCHEMES.length)]);
+    final int segments = 1 + random.nextInt(4);
+    for (int i = 0; i < segments; i++) {
+      address.append('.');
+      final int segmentLength = random.nextInt(50) == 0 ? 200 : 1 + random.nextInt(20);
+      for (int j = 0; j < segmentLength; j++) {
+        address.append(SEGMENT_CHARS.charAt(random.nextInt(SEGMENT_CHARS.length())));
+      }
+    }
+    return InterledgerAddress.of(address.toString());
+  }
+
+  /**
+   * A message of at most {@code maxChars} UTF-16 chars.
+   */
+  private static String randomMessage(final Random random, final int maxChars) {
+    final StringBuilder message = new StringBuilder();
+    while (true) {
+      final String piece = MESSAGE_PIECES[random.nextInt(MESSAGE_PIECES.length)];
+      if (message.length() + piece.length() > maxChars) {
+        return message.toString();
+      }
+      message.append(piece);
+    }
+  }
+
+  private static byte[] randomData(final Random random) {
+    final int length;
+    switch (random.nextInt(10)) {
+      case 0:
+        length = 32768;
+        break;
+      case 1:
+        length = random.nextInt(32768);
+        break;
+      default:
+        length = random.nextInt(300);
+    }
+    return randomBytes(random, length);
+  }
+
+  private static byte[] randomBytes(final Random random, final int length) {
+    final byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+}
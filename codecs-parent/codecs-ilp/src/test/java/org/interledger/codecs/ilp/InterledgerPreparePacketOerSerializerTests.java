@@ -39,6 +39,7 @@ import org.junit.runners.Parameterized.Parameters;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
@@ -137,4 +138,24 @@ public class InterledgerPreparePacketOerSerializerTests {
     return new ByteArrayInputStream(outputStream.toByteArray());
   }
 
+  @Test
+  public void testByteBufferMatchesStream() throws IOException {
+    final CodecContext context = InterledgerCodecContextFactory.oer();
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    context.write(packet, outputStream);
+    final byte[] expected = outputStream.toByteArray();
+
+    assertThat(context.sizeOf(packet)).isEqualTo(expected.length);
+
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(expected.length);
+    context.write(packet, buffer);
+    buffer.flip();
+    final byte[] actual = new byte[buffer.remaining()];
+    buffer.duplicate().get(actual);
+    assertThat(actual).isEqualTo(expected);
+
+    assertThat(context.read(InterledgerPacket.class, buffer)).isEqualTo(packet);
+    assertThat(buffer.hasRemaining()).isFalse();
+  }
+
 }
@@ -24,6 +24,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import org.interledger.core.InterledgerAddress;
 import org.interledger.core.InterledgerErrorCode;
+import org.interledger.core.InterledgerFulfillPacket;
+import org.interledger.core.InterledgerFulfillment;
 import org.interledger.core.InterledgerPacket;
 import org.interledger.core.InterledgerRejectPacket;
 import org.interledger.encoding.asn.framework.CodecContext;
@@ -37,6 +39,7 @@ import org.junit.runners.Parameterized.Parameters;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collection;
@@ -217,4 +220,46 @@ public class InterledgerRejectPacketOerSerializerTests {
     return new ByteArrayInputStream(constructInterledgerRejectPacketAsn1OerBytes());
   }
 
+  @Test
+  public void testByteBufferMatchesStream() throws IOException {
+    final CodecContext context = InterledgerCodecContextFactory.oer();
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    context.write(packet, outputStream);
+    final byte[] expected = outputStream.toByteArray();
+
+    assertThat(context.sizeOf(packet)).isEqualTo(expected.length);
+
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(expected.length);
+    context.write(packet, buffer);
+    buffer.flip();
+    final byte[] actual = new byte[buffer.remaining()];
+    buffer.duplicate().get(actual);
+    assertThat(actual).isEqualTo(expected);
+
+    assertThat(context.read(InterledgerPacket.class, buffer)).isEqualTo(packet);
+    assertThat(buffer.hasRemaining()).isFalse();
+  }
+
+  @Test
+  public void testReadAfterOtherPacketTypes() throws IOException {
+    final CodecContext context = InterledgerCodecContextFactory.oer();
+    final InterledgerFulfillPacket fulfillPacket = InterledgerFulfillPacket.builder()
+        .fulfillment(InterledgerFulfillment.of(new byte[32]))
+        .data(new byte[] {1, 2, 3})
+        .build();
+
+    // The context reuses one InterledgerPacket codec, which switches its data codec on every packet type change.
+    final ByteArrayOutputStream fulfillOutputStream = new ByteArrayOutputStream();
+    context.write(fulfillPacket, fulfillOutputStream);
+    final ByteArrayOutputStream rejectOutputStream = new ByteArrayOutputStream();
+    context.write(packet, rejectOutputStream);
+
+    for (int i = 0; i < 2; i++) {
+      assertThat(context.read(InterledgerPacket.class, new ByteArrayInputStream(fulfillOutputStream.toByteArray())))
+          .isEqualTo(fulfillPacket);
+      assertThat(context.read(InterledgerPacket.class, new ByteArrayInputStream(rejectOutputStream.toByteArray())))
+          .isEqualTo(packet);
+    }
+  }
+
 }
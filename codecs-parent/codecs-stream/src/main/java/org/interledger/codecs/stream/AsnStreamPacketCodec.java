@@ -24,7 +24,7 @@ import org.interledger.codecs.stream.frame.AsnStreamFramesCodec;
 import org.interledger.core.InterledgerPacketType;
 import org.interledger.encoding.asn.codecs.AsnSequenceCodec;
 import org.interledger.encoding.asn.codecs.AsnUint8Codec;
-import org.interledger.encoding.asn.codecs.AsnUintCodecUL;
+import org.interledger.encoding.asn.codecs.AsnVarUintLongCodec;
 import org.interledger.stream.StreamPacket;
 
 public class AsnStreamPacketCodec extends AsnSequenceCodec<StreamPacket> {
@@ -37,8 +37,8 @@ public class AsnStreamPacketCodec extends AsnSequenceCodec<StreamPacket> {
     super(
         new AsnUint8Codec(), // version
         new AsnUint8Codec(), // Ilp Packet Type
-        new AsnUintCodecUL(), // sequence
-        new AsnUintCodecUL(), // PrepareAmount
+        new AsnVarUintLongCodec(), // sequence
+        new AsnVarUintLongCodec(), // PrepareAmount
         new AsnStreamFramesCodec() // Sequences of Frames
         // JunkData (Ignored)
     );
@@ -0,0 +1,66 @@
+package org.interledger.codecs.stream;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Core Codecs
+ * %%
+ * Copyright (C) 2017 - 2018 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+import org.interledger.core.InterledgerPacketType;
+import org.interledger.stream.frames.StreamFrame;
+import org.interledger.stream.frames.StreamFrameType;
+
+import com.google.common.primitives.UnsignedLong;
+
+/**
+ * <p>Receives the parts of a STREAM packet from a {@link StreamPacketReader}, in the order that they are parsed.</p>
+ *
+ * <p>The reader calls {@link #visitPacket(InterledgerPacketType, UnsignedLong, UnsignedLong)} once, and then {@link
+ * #visitFrameType(StreamFrameType)} for each frame of a known type. Only frames for which that method returns {@code
+ * true} are decoded and handed to {@link #visitFrame(StreamFrame)}; all other frames, and frames of unknown types, are
+ * skipped by their length prefix.</p>
+ */
+public interface StreamFrameVisitor {
+
+  /**
+   * Called with the header of the packet, before any of its frames.
+   *
+   * @param interledgerPacketType The {@link InterledgerPacketType} of the packet.
+   * @param sequence              The sequence of the packet.
+   * @param prepareAmount         The prepare amount of the packet.
+   */
+  default void visitPacket(
+      InterledgerPacketType interledgerPacketType, UnsignedLong sequence, UnsignedLong prepareAmount
+  ) {
+  }
+
+  /**
+   * Called for each frame of a known type, before the frame is decoded.
+   *
+   * @param streamFrameType The {@link StreamFrameType} of the frame.
+   *
+   * @return {@code true} to decode the frame and pass it to {@link #visitFrame(StreamFrame)}; {@code false} to skip it.
+   */
+  boolean visitFrameType(StreamFrameType streamFrameType);
+
+  /**
+   * Called with each frame that {@link #visitFrameType(StreamFrameType)} asked to decode.
+   *
+   * @param streamFrame The decoded {@link StreamFrame}.
+   */
+  void visitFrame(StreamFrame streamFrame);
+}
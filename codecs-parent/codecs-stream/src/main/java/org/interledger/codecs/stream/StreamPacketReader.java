@@ -0,0 +1,137 @@
+package org.interledger.codecs.stream;
+
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Core Codecs
+ * %%
+ * Copyright (C) 2017 - 2018 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+import org.interledger.core.InterledgerPacketType;
+import org.interledger.encoding.asn.codecs.AsnVarUintLongCodec;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.encoding.asn.framework.CodecException;
+import org.interledger.encoding.asn.serializers.oer.OerLengthSerializer;
+import org.interledger.stream.StreamPacket;
+import org.interledger.stream.frames.StreamFrame;
+import org.interledger.stream.frames.StreamFrameType;
+
+import com.google.common.primitives.UnsignedLong;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * <p>Reads an ASN.1 OER encoded {@link StreamPacket} frame by frame, handing its parts to a {@link
+ * StreamFrameVisitor} as they are parsed.</p>
+ *
+ * <p>Unlike {@link CodecContext#read(Class, java.io.InputStream)}, this reader builds neither a {@link StreamPacket}
+ * nor a list of frames. It decodes only the frames that the visitor asks for, using the {@link StreamFrame} codec of a
+ * {@link CodecContext}, and skips every other frame by its OER length prefix. Per IL-RFC-29, frames of an unknown type
+ * are skipped as well, instead of failing the whole packet.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ */
+public class StreamPacketReader {
+
+  private final CodecContext streamCodecContext;
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param streamCodecContext A {@link CodecContext} that can decode ASN.1 OER STREAM frames.
+   */
+  public StreamPacketReader(final CodecContext streamCodecContext) {
+    this.streamCodecContext = Objects.requireNonNull(streamCodecContext, "streamCodecContext must not be null");
+  }
+
+  /**
+   * Reads {@code streamPacketBytes} and hands its header and frames to {@code visitor}.
+   *
+   * @param streamPacketBytes The ASN.1 OER encoding of a {@link StreamPacket}.
+   * @param visitor           The {@link StreamFrameVisitor} to call.
+   *
+   * @throws IOException if {@code streamPacketBytes} is not a valid STREAM packet.
+   */
+  public void read(final byte[] streamPacketBytes, final StreamFrameVisitor visitor) throws IOException {
+    Objects.requireNonNull(streamPacketBytes, "streamPacketBytes must not be null");
+    Objects.requireNonNull(visitor, "visitor must not be null");
+
+    final ByteBuffer buffer = ByteBuffer.wrap(streamPacketBytes);
+    try {
+      buffer.get(); // ignore version.
+      final InterledgerPacketType interledgerPacketType = InterledgerPacketType.fromCode((short) (buffer.get() & 0xff));
+      final UnsignedLong sequence = readVarUint(buffer);
+      final UnsignedLong prepareAmount = readVarUint(buffer);
+      visitor.visitPacket(interledgerPacketType, sequence, prepareAmount);
+
+      final long numFrames = readVarUint(buffer).longValue();
+      for (long i = 0; i < numFrames; i++) {
+        final int frameStart = buffer.position();
+        final short frameTypeCode = (short) (buffer.get() & 0xff);
+        final int frameLength = OerLengthSerializer.readLength(buffer);
+        if (frameLength < 0 || frameLength > buffer.remaining()) {
+          throw new IOException(String.format(
+              "STREAM frame of %s octets exceeds the %s octets that remain", frameLength, buffer.remaining()));
+        }
+        final int frameEnd = buffer.position() + frameLength;
+
+        final StreamFrameType streamFrameType;
+        try {
+          streamFrameType = StreamFrameType.fromCode(frameTypeCode);
+        } catch (IllegalArgumentException e) {
+          ((Buffer) buffer).position(frameEnd);
+          continue;
+        }
+        if (visitor.visitFrameType(streamFrameType)) {
+          visitor.visitFrame(streamCodecContext.read(
+              StreamFrame.class, new ByteArrayInputStream(streamPacketBytes, frameStart, frameEnd - frameStart)
+          ));
+        }
+        ((Buffer) buffer).position(frameEnd);
+      }
+      // Ignore any junk data after the frames.
+    } catch (CodecException | BufferUnderflowException | IllegalArgumentException e) {
+      throw new IOException("Unable to read STREAM packet: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Reads a variable-length unsigned integer the way {@link AsnVarUintLongCodec} does: its length prefix may count
+   * any number of octets, as long as the octets in front of the last eight are all zero.
+   */
+  private static UnsignedLong readVarUint(final ByteBuffer buffer) {
+    final int length = OerLengthSerializer.readLength(buffer);
+    if (length > buffer.remaining()) {
+      throw new CodecException(String.format(
+          "Unexpected end of buffer. Expected %s bytes but only %s remain.", length, buffer.remaining()));
+    }
+    long value = 0;
+    boolean tooLarge = false;
+    for (int i = 0; i < length; i++) {
+      tooLarge |= (value >>> 56) != 0;
+      value = (value << 8) | (buffer.get() & 0xff);
+    }
+    if (tooLarge) {
+      throw new IllegalArgumentException("value is outside the range for an unsigned long value");
+    }
+    return UnsignedLong.fromLongBits(value);
+  }
+}
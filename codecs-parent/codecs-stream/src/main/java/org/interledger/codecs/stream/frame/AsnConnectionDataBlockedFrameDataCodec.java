@@ -21,7 +21,7 @@ package org.interledger.codecs.stream.frame;
  */
 
 import org.interledger.encoding.asn.codecs.AsnSequenceCodec;
-import org.interledger.encoding.asn.codecs.AsnUintCodecUL;
+import org.interledger.encoding.asn.codecs.AsnVarUintLongCodec;
 import org.interledger.stream.frames.ConnectionDataBlockedFrame;
 
 public class AsnConnectionDataBlockedFrameDataCodec extends AsnSequenceCodec<ConnectionDataBlockedFrame> {
@@ -31,7 +31,7 @@ public class AsnConnectionDataBlockedFrameDataCodec extends AsnSequenceCodec<Con
    */
   public AsnConnectionDataBlockedFrameDataCodec() {
     super(
-        new AsnUintCodecUL()
+        new AsnVarUintLongCodec()
     );
   }
 
@@ -21,7 +21,7 @@ package org.interledger.codecs.stream.frame;
  */
 
 import org.interledger.encoding.asn.codecs.AsnSequenceCodec;
-import org.interledger.encoding.asn.codecs.AsnUintCodecUL;
+import org.interledger.encoding.asn.codecs.AsnVarUintLongCodec;
 import org.interledger.stream.frames.ConnectionDataMaxFrame;
 
 public class AsnConnectionDataMaxFrameDataCodec extends AsnSequenceCodec<ConnectionDataMaxFrame> {
@@ -31,7 +31,7 @@ public class AsnConnectionDataMaxFrameDataCodec extends AsnSequenceCodec<Connect
    */
   public AsnConnectionDataMaxFrameDataCodec() {
     super(
-        new AsnUintCodecUL()
+        new AsnVarUintLongCodec()
     );
   }
 
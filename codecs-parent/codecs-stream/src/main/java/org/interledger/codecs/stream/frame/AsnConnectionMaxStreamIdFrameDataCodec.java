@@ -21,7 +21,7 @@ package org.interledger.codecs.stream.frame;
  */
 
 import org.interledger.encoding.asn.codecs.AsnSequenceCodec;
-import org.interledger.encoding.asn.codecs.AsnUintCodecUL;
+import org.interledger.encoding.asn.codecs.AsnVarUintLongCodec;
 import org.interledger.stream.frames.ConnectionMaxStreamIdFrame;
 
 public class AsnConnectionMaxStreamIdFrameDataCodec extends AsnSequenceCodec<ConnectionMaxStreamIdFrame> {
@@ -31,7 +31,7 @@ public class AsnConnectionMaxStreamIdFrameDataCodec extends AsnSequenceCodec<Con
    */
   public AsnConnectionMaxStreamIdFrameDataCodec() {
     super(
-        new AsnUintCodecUL()
+        new AsnVarUintLongCodec()
     );
   }
 
@@ -21,7 +21,7 @@ package org.interledger.codecs.stream.frame;
  */
 
 import org.interledger.encoding.asn.codecs.AsnSequenceCodec;
-import org.interledger.encoding.asn.codecs.AsnUintCodecUL;
+import org.interledger.encoding.asn.codecs.AsnVarUintLongCodec;
 import org.interledger.stream.frames.ConnectionStreamIdBlockedFrame;
 
 public class AsnConnectionStreamIdBlockedFrameDataCodec extends AsnSequenceCodec<ConnectionStreamIdBlockedFrame> {
@@ -31,7 +31,7 @@ public class AsnConnectionStreamIdBlockedFrameDataCodec extends AsnSequenceCodec
    */
   public AsnConnectionStreamIdBlockedFrameDataCodec() {
     super(
-        new AsnUintCodecUL()
+        new AsnVarUintLongCodec()
     );
   }
 
@@ -23,7 +23,7 @@ package org.interledger.codecs.stream.frame;
 import org.interledger.encoding.asn.codecs.AsnSequenceCodec;
 import org.interledger.encoding.asn.codecs.AsnSizeConstraint;
 import org.interledger.encoding.asn.codecs.AsnUint8Codec;
-import org.interledger.encoding.asn.codecs.AsnUintCodecUL;
+import org.interledger.encoding.asn.codecs.AsnVarUintLongCodec;
 import org.interledger.encoding.asn.codecs.AsnUtf8StringCodec;
 import org.interledger.stream.frames.ErrorCodes;
 import org.interledger.stream.frames.StreamCloseFrame;
@@ -35,7 +35,7 @@ public class AsnStreamCloseFrameDataCodec extends AsnSequenceCodec<StreamCloseFr
    */
   public AsnStreamCloseFrameDataCodec() {
     super(
-        new AsnUintCodecUL(),
+        new AsnVarUintLongCodec(),
         new AsnUint8Codec(),
         new AsnUtf8StringCodec(AsnSizeConstraint.UNCONSTRAINED)
     );
@@ -21,7 +21,7 @@ package org.interledger.codecs.stream.frame;
  */
 
 import org.interledger.encoding.asn.codecs.AsnSequenceCodec;
-import org.interledger.encoding.asn.codecs.AsnUintCodecUL;
+import org.interledger.encoding.asn.codecs.AsnVarUintLongCodec;
 import org.interledger.stream.frames.StreamDataBlockedFrame;
 
 public class AsnStreamDataBlockedFrameDataCodec extends AsnSequenceCodec<StreamDataBlockedFrame> {
@@ -31,8 +31,8 @@ public class AsnStreamDataBlockedFrameDataCodec extends AsnSequenceCodec<StreamD
    */
   public AsnStreamDataBlockedFrameDataCodec() {
     super(
-        new AsnUintCodecUL(),
-        new AsnUintCodecUL()
+        new AsnVarUintLongCodec(),
+        new AsnVarUintLongCodec()
     );
   }
 
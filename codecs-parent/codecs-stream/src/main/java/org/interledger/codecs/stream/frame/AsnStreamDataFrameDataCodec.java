@@ -23,7 +23,7 @@ package org.interledger.codecs.stream.frame;
 import org.interledger.encoding.asn.codecs.AsnOctetStringCodec;
 import org.interledger.encoding.asn.codecs.AsnSequenceCodec;
 import org.interledger.encoding.asn.codecs.AsnSizeConstraint;
-import org.interledger.encoding.asn.codecs.AsnUintCodecUL;
+import org.interledger.encoding.asn.codecs.AsnVarUintLongCodec;
 import org.interledger.stream.frames.StreamDataFrame;
 
 public class AsnStreamDataFrameDataCodec extends AsnSequenceCodec<StreamDataFrame> {
@@ -33,8 +33,8 @@ public class AsnStreamDataFrameDataCodec extends AsnSequenceCodec<StreamDataFram
    */
   public AsnStreamDataFrameDataCodec() {
     super(
-        new AsnUintCodecUL(),
-        new AsnUintCodecUL(),
+        new AsnVarUintLongCodec(),
+        new AsnVarUintLongCodec(),
         new AsnOctetStringCodec(AsnSizeConstraint.UNCONSTRAINED)
     );
   }
@@ -21,7 +21,7 @@ package org.interledger.codecs.stream.frame;
  */
 
 import org.interledger.encoding.asn.codecs.AsnSequenceCodec;
-import org.interledger.encoding.asn.codecs.AsnUintCodecUL;
+import org.interledger.encoding.asn.codecs.AsnVarUintLongCodec;
 import org.interledger.stream.frames.StreamDataMaxFrame;
 
 public class AsnStreamDataMaxFrameDataCodec extends AsnSequenceCodec<StreamDataMaxFrame> {
@@ -31,8 +31,8 @@ public class AsnStreamDataMaxFrameDataCodec extends AsnSequenceCodec<StreamDataM
    */
   public AsnStreamDataMaxFrameDataCodec() {
     super(
-        new AsnUintCodecUL(),
-        new AsnUintCodecUL()
+        new AsnVarUintLongCodec(),
+        new AsnVarUintLongCodec()
     );
   }
 
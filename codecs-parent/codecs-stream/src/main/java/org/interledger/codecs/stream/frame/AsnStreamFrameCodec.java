@@ -23,6 +23,10 @@ import org.interledger.stream.frames.StreamFrame;
 
 public class AsnStreamFrameCodec<T extends StreamFrame> extends AsnSequenceCodec<T> {
 
+  // Indexed by frame type code. Filled on first use, so that a reused codec does not allocate a new data codec for
+  // every frame.
+  private final AsnOpenTypeCodec<?>[] frameDataCodecs = new AsnOpenTypeCodec<?>[STREAM_DATA_BLOCKED + 1];
+
   /**
    * Default constructor.
    */
@@ -60,62 +64,58 @@ public class AsnStreamFrameCodec<T extends StreamFrame> extends AsnSequenceCodec
 
   protected void onFrameTypeChanged(short streamFrameTypeCode) {
     //The frame type has been set so set the packet data
+    AsnOpenTypeCodec<?> frameDataCodec = streamFrameTypeCode >= 0 && streamFrameTypeCode < frameDataCodecs.length
+        ? frameDataCodecs[streamFrameTypeCode] : null;
+    if (frameDataCodec == null) {
+      frameDataCodec = newFrameDataCodec(streamFrameTypeCode);
+      frameDataCodecs[streamFrameTypeCode] = frameDataCodec;
+    }
+    setCodecAt(1, frameDataCodec);
+  }
+
+  private AsnOpenTypeCodec<?> newFrameDataCodec(short streamFrameTypeCode) {
     switch (streamFrameTypeCode) {
       case CONNECTION_CLOSE: {
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnConnectionCloseFrameDataCodec()));
-        return;
+        return new AsnOpenTypeCodec<>(new AsnConnectionCloseFrameDataCodec());
       }
       case CONNECTION_NEW_ADDRESS: {
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnConnectionNewAddressFrameDataCodec()));
-        return;
+        return new AsnOpenTypeCodec<>(new AsnConnectionNewAddressFrameDataCodec());
       }
       case CONNECTION_DATA_MAX: {
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnConnectionDataMaxFrameDataCodec()));
-        return;
+        return new AsnOpenTypeCodec<>(new AsnConnectionDataMaxFrameDataCodec());
       }
       case CONNECTION_DATA_BLOCKED: {
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnConnectionDataBlockedFrameDataCodec()));
-        return;
+        return new AsnOpenTypeCodec<>(new AsnConnectionDataBlockedFrameDataCodec());
       }
       case CONNECTION_MAX_STREAM_ID: {
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnConnectionMaxStreamIdFrameDataCodec()));
-        return;
+        return new AsnOpenTypeCodec<>(new AsnConnectionMaxStreamIdFrameDataCodec());
       }
       case CONNECTION_STREAM_ID_BLOCKED: {
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnConnectionStreamIdBlockedFrameDataCodec()));
-        return;
+        return new AsnOpenTypeCodec<>(new AsnConnectionStreamIdBlockedFrameDataCodec());
       }
       case CONNECTION_ASSET_DETAILS: {
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnConnectionAssetDetailsFrameDataCodec()));
-        return;
+        return new AsnOpenTypeCodec<>(new AsnConnectionAssetDetailsFrameDataCodec());
       }
       case STREAM_CLOSE: {
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnStreamCloseFrameDataCodec()));
-        return;
+        return new AsnOpenTypeCodec<>(new AsnStreamCloseFrameDataCodec());
       }
       case STREAM_MONEY: {
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnStreamMoneyFrameDataCodec()));
-        return;
+        return new AsnOpenTypeCodec<>(new AsnStreamMoneyFrameDataCodec());
       }
       case STREAM_MONEY_MAX: {
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnStreamMoneyMaxFrameDataCodec()));
-        return;
+        return new AsnOpenTypeCodec<>(new AsnStreamMoneyMaxFrameDataCodec());
       }
       case STREAM_MONEY_BLOCKED: {
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnStreamMoneyBlockedFrameDataCodec()));
-        return;
+        return new AsnOpenTypeCodec<>(new AsnStreamMoneyBlockedFrameDataCodec());
       }
       case STREAM_DATA: {
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnStreamDataFrameDataCodec()));
-        return;
+        return new AsnOpenTypeCodec<>(new AsnStreamDataFrameDataCodec());
       }
       case STREAM_DATA_MAX: {
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnStreamDataMaxFrameDataCodec()));
-        return;
+        return new AsnOpenTypeCodec<>(new AsnStreamDataMaxFrameDataCodec());
       }
       case STREAM_DATA_BLOCKED: {
-        setCodecAt(1, new AsnOpenTypeCodec<>(new AsnStreamDataBlockedFrameDataCodec()));
-        return;
+        return new AsnOpenTypeCodec<>(new AsnStreamDataBlockedFrameDataCodec());
       }
       default: {
         throw new CodecException(
@@ -21,7 +21,7 @@ package org.interledger.codecs.stream.frame;
  */
 
 import org.interledger.encoding.asn.codecs.AsnSequenceCodec;
-import org.interledger.encoding.asn.codecs.AsnUintCodecUL;
+import org.interledger.encoding.asn.codecs.AsnVarUintLongCodec;
 import org.interledger.stream.frames.StreamMoneyFrame;
 
 public class AsnStreamMoneyFrameDataCodec extends AsnSequenceCodec<StreamMoneyFrame> {
@@ -31,8 +31,8 @@ public class AsnStreamMoneyFrameDataCodec extends AsnSequenceCodec<StreamMoneyFr
    */
   public AsnStreamMoneyFrameDataCodec() {
     super(
-        new AsnUintCodecUL(),
-        new AsnUintCodecUL()
+        new AsnVarUintLongCodec(),
+        new AsnVarUintLongCodec()
     );
   }
 
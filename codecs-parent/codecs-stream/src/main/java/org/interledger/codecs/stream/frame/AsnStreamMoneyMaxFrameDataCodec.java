@@ -21,7 +21,7 @@ package org.interledger.codecs.stream.frame;
  */
 
 import org.interledger.encoding.asn.codecs.AsnSequenceCodec;
-import org.interledger.encoding.asn.codecs.AsnUintCodecUL;
+import org.interledger.encoding.asn.codecs.AsnVarUintLongCodec;
 import org.interledger.stream.frames.StreamMoneyMaxFrame;
 
 import com.google.common.primitives.UnsignedLong;
@@ -33,9 +33,9 @@ public class AsnStreamMoneyMaxFrameDataCodec extends AsnSequenceCodec<StreamMone
    */
   public AsnStreamMoneyMaxFrameDataCodec() {
     super(
-        new AsnUintCodecUL(),
-        new AsnUintCodecUL(UnsignedLong.MAX_VALUE),
-        new AsnUintCodecUL()
+        new AsnVarUintLongCodec(),
+        new AsnVarUintLongCodec(UnsignedLong.MAX_VALUE),
+        new AsnVarUintLongCodec()
     );
   }
 
@@ -22,9 +22,13 @@ package org.interledger.codecs.stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import org.interledger.core.InterledgerAddress;
 import org.interledger.core.InterledgerPacketType;
 import org.interledger.encoding.asn.framework.CodecContext;
 import org.interledger.stream.StreamPacket;
+import org.interledger.stream.frames.ConnectionNewAddressFrame;
+import org.interledger.stream.frames.ErrorCodes;
+import org.interledger.stream.frames.StreamCloseFrame;
 import org.interledger.stream.frames.StreamMoneyFrame;
 
 import com.google.common.primitives.Bytes;
@@ -38,8 +42,10 @@ import org.junit.runners.Parameterized.Parameters;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Random;
 
 /**
@@ -141,4 +147,46 @@ public class AsnStreamPacketCodecTest {
     assertThat(decodedStreamPacket).isEqualTo(this.streamPacket);
   }
 
+  @Test
+  public void testWriteThenReadAfterOtherPackets() throws IOException {
+    final CodecContext context = StreamCodecContextFactory.oer();
+
+    final StreamPacket mixedFramesPacket = StreamPacket.builder()
+        .interledgerPacketType(InterledgerPacketType.REJECT)
+        .prepareAmount(UnsignedLong.ZERO)
+        .sequence(UnsignedLong.ONE)
+        .addFrames(
+            ConnectionNewAddressFrame.builder().sourceAddress(InterledgerAddress.of("test.sender")).build(),
+            StreamCloseFrame.builder()
+                .streamId(UnsignedLong.ONE)
+                .errorCode(ErrorCodes.NoError)
+                .errorMessage("closed")
+                .build(),
+            StreamMoneyFrame.builder().streamId(UnsignedLong.ONE).shares(UnsignedLong.ONE).build(),
+            StreamMoneyFrame.builder().streamId(UnsignedLong.valueOf(3)).shares(UnsignedLong.ONE).build()
+        )
+        .build();
+    final List<Object> otherPackets = new ArrayList<>();
+    otherPackets.add(mixedFramesPacket);
+    data().forEach(parameters -> otherPackets.add(parameters[0]));
+
+    // The context reuses its codecs, so these leave frame codecs of other types and counts behind.
+    for (Object otherPacket : otherPackets) {
+      final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+      context.write(otherPacket, byteArrayOutputStream);
+      context.read(StreamPacket.class, new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+    }
+
+    final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    context.write(this.streamPacket, byteArrayOutputStream);
+    final ByteArrayOutputStream expectedOutputStream = new ByteArrayOutputStream();
+    StreamCodecContextFactory.oer().write(this.streamPacket, expectedOutputStream);
+    assertThat(byteArrayOutputStream.toByteArray()).isEqualTo(expectedOutputStream.toByteArray());
+
+    final StreamPacket decodedStreamPacket = context.read(
+        StreamPacket.class, new ByteArrayInputStream(byteArrayOutputStream.toByteArray())
+    );
+    assertThat(decodedStreamPacket).isEqualTo(this.streamPacket);
+  }
+
 }
@@ -0,0 +1,251 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Interledger Core Codecs
+ * %%
+ * Copyright (C) 2017 - 2018 Hyperledger and its contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.interledger.codecs.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerPacketType;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.stream.StreamPacket;
+import org.interledger.stream.frames.ConnectionNewAddressFrame;
+import org.interledger.stream.frames.ErrorCodes;
+import org.interledger.stream.frames.StreamCloseFrame;
+import org.interledger.stream.frames.StreamFrame;
+import org.interledger.stream.frames.StreamFrameType;
+import org.interledger.stream.frames.StreamMoneyFrame;
+
+import com.google.common.primitives.UnsignedLong;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for {@link StreamPacketReader}.
+ */
+public class StreamPacketReaderTest {
+
+  private CodecContext codecContext;
+  private StreamPacketReader streamPacketReader;
+  private RecordingVisitor visitor;
+
+  @Before
+  public void setUp() {
+    this.codecContext = StreamCodecContextFactory.oer();
+    this.streamPacketReader = new StreamPacketReader(codecContext);
+    this.visitor = new RecordingVisitor(StreamFrameType.StreamMoney);
+  }
+
+  @Test
+  public void readsHeaderAndVisitedFrames() throws IOException {
+    final StreamMoneyFrame firstMoneyFrame = StreamMoneyFrame.builder()
+        .streamId(UnsignedLong.ONE)
+        .shares(UnsignedLong.ONE)
+        .build();
+    final StreamMoneyFrame secondMoneyFrame = StreamMoneyFrame.builder()
+        .streamId(UnsignedLong.valueOf(3))
+        .shares(UnsignedLong.MAX_VALUE)
+        .build();
+    final StreamPacket streamPacket = StreamPacket.builder()
+        .interledgerPacketType(InterledgerPacketType.PREPARE)
+        .sequence(UnsignedLong.MAX_VALUE)
+        .prepareAmount(UnsignedLong.valueOf(1000))
+        .addFrames(
+            firstMoneyFrame,
+            ConnectionNewAddressFrame.builder()
+                .sourceAddress(InterledgerAddress.of("example.alice"))
+                .build(),
+            StreamCloseFrame.builder()
+                .streamId(UnsignedLong.ONE)
+                .errorCode(ErrorCodes.NoError)
+                .build(),
+            secondMoneyFrame
+        )
+        .build();
+
+    streamPacketReader.read(write(streamPacket), visitor);
+
+    assertThat(visitor.interledgerPacketType).isEqualTo(InterledgerPacketType.PREPARE);
+    assertThat(visitor.sequence).isEqualTo(UnsignedLong.MAX_VALUE);
+    assertThat(visitor.prepareAmount).isEqualTo(UnsignedLong.valueOf(1000));
+    assertThat(visitor.frameTypes).containsExactly(
+        StreamFrameType.StreamMoney, StreamFrameType.ConnectionNewAddress, StreamFrameType.StreamClose,
+        StreamFrameType.StreamMoney
+    );
+    assertThat(visitor.frames).containsExactly(firstMoneyFrame, secondMoneyFrame);
+  }
+
+  @Test
+  public void readsPacketWithoutFrames() throws IOException {
+    final StreamPacket streamPacket = StreamPacket.builder()
+        .interledgerPacketType(InterledgerPacketType.FULFILL)
+        .sequence(UnsignedLong.ZERO)
+        .prepareAmount(UnsignedLong.ZERO)
+        .build();
+
+    streamPacketReader.read(write(streamPacket), visitor);
+
+    assertThat(visitor.interledgerPacketType).isEqualTo(InterledgerPacketType.FULFILL);
+    assertThat(visitor.sequence).isEqualTo(UnsignedLong.ZERO);
+    assertThat(visitor.prepareAmount).isEqualTo(UnsignedLong.ZERO);
+    assertThat(visitor.frameTypes).isEmpty();
+  }
+
+  @Test
+  public void skipsUnknownFrameTypes() throws IOException {
+    final byte[] streamPacketBytes = bytes(
+        1, // version
+        12, // PREPARE
+        1, 5, // sequence
+        1, 7, // prepare amount
+        1, 2, // two frames
+        0x30, 3, 0xAA, 0xBB, 0xCC, // a frame of an unknown type
+        0x11, 4, 1, 1, 1, 2 // StreamMoney
+    );
+
+    streamPacketReader.read(streamPacketBytes, visitor);
+
+    assertThat(visitor.sequence).isEqualTo(UnsignedLong.valueOf(5));
+    assertThat(visitor.frameTypes).containsExactly(StreamFrameType.StreamMoney);
+    assertThat(visitor.frames).containsExactly(StreamMoneyFrame.builder()
+        .streamId(UnsignedLong.ONE)
+        .shares(UnsignedLong.valueOf(2))
+        .build());
+  }
+
+  @Test
+  public void ignoresJunkDataAfterFrames() throws IOException {
+    final byte[] streamPacketBytes = bytes(1, 12, 1, 5, 1, 7, 1, 0, 0xDE, 0xAD);
+
+    streamPacketReader.read(streamPacketBytes, visitor);
+
+    assertThat(visitor.prepareAmount).isEqualTo(UnsignedLong.valueOf(7));
+  }
+
+  @Test(expected = IOException.class)
+  public void throwsOnFrameLongerThanPacket() throws IOException {
+    streamPacketReader.read(bytes(1, 12, 1, 5, 1, 7, 1, 1, 0x11, 4, 1, 1), visitor);
+  }
+
+  @Test(expected = IOException.class)
+  public void throwsOnMissingFrames() throws IOException {
+    streamPacketReader.read(bytes(1, 12, 1, 5, 1, 7, 1, 2, 0x11, 4, 1, 1, 1, 2), visitor);
+  }
+
+  @Test(expected = IOException.class)
+  public void throwsOnVarUintTooLarge() throws IOException {
+    streamPacketReader.read(bytes(1, 12, 9, 1, 0, 0, 0, 0, 0, 0, 0, 0, 1, 7, 1, 0), visitor);
+  }
+
+  /**
+   * A VarUInt with leading zero octets in front of its last eight is read the same way as the STREAM packet codec
+   * reads it.
+   */
+  @Test
+  public void readsVarUintWithLeadingZerosLikeCodec() throws IOException {
+    final byte[] streamPacketBytes = bytes(
+        1, // version
+        12, // PREPARE
+        10, 0, 0, 0x80, 0, 0, 0, 0, 0, 0, 5, // sequence
+        12, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 7, // prepare amount
+        1, 0 // no frames
+    );
+
+    streamPacketReader.read(streamPacketBytes, visitor);
+    final StreamPacket streamPacket =
+        codecContext.read(StreamPacket.class, new ByteArrayInputStream(streamPacketBytes));
+
+    assertThat(visitor.sequence).isEqualTo(UnsignedLong.valueOf("9223372036854775813"));
+    assertThat(visitor.sequence).isEqualTo(streamPacket.sequence());
+    assertThat(visitor.prepareAmount).isEqualTo(UnsignedLong.valueOf(7));
+    assertThat(visitor.prepareAmount).isEqualTo(streamPacket.prepareAmount());
+  }
+
+  @Test(expected = IOException.class)
+  public void throwsOnVarUintWithNonZeroOctetBeforeLastEight() throws IOException {
+    streamPacketReader.read(bytes(1, 12, 10, 0, 1, 0, 0, 0, 0, 0, 0, 0, 5, 1, 7, 1, 0), visitor);
+  }
+
+  @Test(expected = IOException.class)
+  public void throwsOnVarUintLongerThanPacket() throws IOException {
+    streamPacketReader.read(bytes(1, 12, 0x84, 0x7F, 0xFF, 0xFF, 0xFF, 0, 0), visitor);
+  }
+
+  @Test(expected = IOException.class)
+  public void throwsOnUnknownPacketType() throws IOException {
+    streamPacketReader.read(bytes(1, 99, 1, 5, 1, 7, 1, 0), visitor);
+  }
+
+  private byte[] write(final StreamPacket streamPacket) throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    codecContext.write(streamPacket, outputStream);
+    return outputStream.toByteArray();
+  }
+
+  private static byte[] bytes(final int... octets) {
+    final byte[] bytes = new byte[octets.length];
+    for (int i = 0; i < octets.length; i++) {
+      bytes[i] = (byte) octets[i];
+    }
+    return bytes;
+  }
+
+  private static class RecordingVisitor implements StreamFrameVisitor {
+
+    private final List<StreamFrameType> decodedFrameTypes;
+    private final List<StreamFrameType> frameTypes = new ArrayList<>();
+    private final List<StreamFrame> frames = new ArrayList<>();
+    private InterledgerPacketType interledgerPacketType;
+    private UnsignedLong sequence;
+    private UnsignedLong prepareAmount;
+
+    private RecordingVisitor(final StreamFrameType... decodedFrameTypes) {
+      this.decodedFrameTypes = Arrays.asList(decodedFrameTypes);
+    }
+
+    @Override
+    public void visitPacket(
+        final InterledgerPacketType interledgerPacketType, final UnsignedLong sequence,
+        final UnsignedLong prepareAmount
+    ) {
+      this.interledgerPacketType = interledgerPacketType;
+      this.sequence = sequence;
+      this.prepareAmount = prepareAmount;
+    }
+
+    @Override
+    public boolean visitFrameType(final StreamFrameType streamFrameType) {
+      frameTypes.add(streamFrameType);
+      return decodedFrameTypes.contains(streamFrameType);
+    }
+
+    @Override
+    public void visitFrame(final StreamFrame streamFrame) {
+      frames.add(streamFrame);
+    }
+  }
+}
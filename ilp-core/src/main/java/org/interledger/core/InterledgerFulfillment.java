@@ -88,6 +88,21 @@ public interface InterledgerFulfillment extends Comparable<InterledgerFulfillmen
    */
   class ImmutableInterledgerFulfillment implements InterledgerFulfillment {
 
+    /**
+     * MessageDigest is not threadsafe, so each thread keeps its own instance. A digest is reset after it computes a
+     * hash, so it can be used again right away.
+     */
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+      try {
+        return MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        //This should never happen as all JVMs ship with a SHA-256 digest implementation
+        throw new InterledgerRuntimeException(
+            "Unable to get SHA-256 message digest instance.", e
+        );
+      }
+    });
+
     private final byte[] preimage = new byte[32];
     private final InterledgerCondition condition;
 
@@ -98,17 +113,7 @@ public interface InterledgerFulfillment extends Comparable<InterledgerFulfillmen
       }
       System.arraycopy(preimage, 0, this.preimage, 0, 32);
 
-      try {
-        // MessageDigest is not threadsafe, but is cheap to construct...
-        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        final byte[] hash = digest.digest(preimage);
-        this.condition = InterledgerCondition.of(hash);
-      } catch (NoSuchAlgorithmException e) {
-        //This should never happen as all JVMs ship with a SHA-256 digest implementation
-        throw new InterledgerRuntimeException(
-            "Unable to get SHA-256 message digest instance.", e
-        );
-      }
+      this.condition = InterledgerCondition.of(SHA_256.get().digest(preimage));
     }
 
     @Override
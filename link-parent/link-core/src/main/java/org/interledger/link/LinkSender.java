@@ -5,6 +5,7 @@ import org.interledger.core.InterledgerPreparePacket;
 import org.interledger.core.InterledgerRejectPacket;
 import org.interledger.core.InterledgerResponsePacket;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -37,4 +38,30 @@ public interface LinkSender {
    */
   InterledgerResponsePacket sendPacket(InterledgerPreparePacket preparePacket);
 
+  /**
+   * <p>Sends an ILPv4 request packet to a peer, and returns a {@link CompletableFuture} that completes with the
+   * response packet, exactly as {@link #sendPacket(InterledgerPreparePacket)} would return it.</p>
+   *
+   * <p>If sending fails, the future completes exceptionally with the exception that
+   * {@link #sendPacket(InterledgerPreparePacket)} would have thrown.</p>
+   *
+   * <p>This default implementation calls {@link #sendPacket(InterledgerPreparePacket)} on the calling thread, and so
+   * only returns once the response has arrived. Implementations that can wait for a response without holding a thread
+   * should override this method, so that a caller can keep many packets in flight with few threads.</p>
+   *
+   * @param preparePacket An {@link InterledgerPreparePacket} to send to the remote peer.
+   *
+   * @return A {@link CompletableFuture} of an {@link InterledgerResponsePacket}, which will be of concrete type
+   *     {@link InterledgerFulfillPacket} or {@link InterledgerRejectPacket}.
+   */
+  default CompletableFuture<InterledgerResponsePacket> sendPacketAsync(InterledgerPreparePacket preparePacket) {
+    final CompletableFuture<InterledgerResponsePacket> response = new CompletableFuture<>();
+    try {
+      response.complete(sendPacket(preparePacket));
+    } catch (RuntimeException e) {
+      response.completeExceptionally(e);
+    }
+    return response;
+  }
+
 }
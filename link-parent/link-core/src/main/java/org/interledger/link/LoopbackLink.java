@@ -11,9 +11,14 @@ import org.interledger.core.InterledgerResponsePacket;
 import org.interledger.link.exceptions.LinkHandlerAlreadyRegisteredException;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 /**
@@ -29,6 +34,8 @@ public class LoopbackLink extends AbstractLink<LinkSettings> implements Link<Lin
   // A constant key that can be added to this link's customSettings to simulate a particular rejection error code.
   public static final String SIMULATED_REJECT_ERROR_CODE = "simulatedRejectErrorCode";
 
+  private static final int SIMULATED_TIMEOUT_MILLIS = 60000;
+
   private final PacketRejector packetRejector;
 
   /**
@@ -67,7 +74,7 @@ public class LoopbackLink extends AbstractLink<LinkSettings> implements Link<Lin
             return packetRejector.reject(this.getLinkId(), preparePacket, InterledgerErrorCode.T02_PEER_BUSY,
                 "Loopback set to manually reject via simulate_timeout=T02");
           } else if (value.equals("T03")) {
-            return sleepAndReject(preparePacket, 60000);
+            return sleepAndReject(preparePacket, SIMULATED_TIMEOUT_MILLIS);
           }
           if (value.equals("T99")) {
             throw new RuntimeException("T99 APPLICATION ERROR");
@@ -83,6 +90,24 @@ public class LoopbackLink extends AbstractLink<LinkSettings> implements Link<Lin
             .data(preparePacket.getData())::build);
   }
 
+  /**
+   * Responds exactly as {@link #sendPacket(InterledgerPreparePacket)} does, except that a simulated T03 timeout
+   * completes the returned future after the timeout, instead of sleeping on the calling thread.
+   */
+  @Override
+  public CompletableFuture<InterledgerResponsePacket> sendPacketAsync(final InterledgerPreparePacket preparePacket) {
+    Objects.requireNonNull(preparePacket, "preparePacket must not be null");
+
+    if ("T03".equals(this.getLinkSettings().getCustomSettings().get(SIMULATED_REJECT_ERROR_CODE))) {
+      final CompletableFuture<InterledgerResponsePacket> response = new CompletableFuture<>();
+      SimulatedTimeouts.SCHEDULER.schedule(
+          () -> response.complete(rejectAfterTimeout(preparePacket)), SIMULATED_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS
+      );
+      return response;
+    }
+    return super.sendPacketAsync(preparePacket);
+  }
+
   @VisibleForTesting
   InterledgerResponsePacket sleepAndReject(InterledgerPreparePacket preparePacket, int sleepDuraction) {
     // Sleep for 1 minute, which in the typical case will exceed the Circuit-breaker's threshold.
@@ -91,7 +116,25 @@ public class LoopbackLink extends AbstractLink<LinkSettings> implements Link<Lin
     } catch (InterruptedException e) {
       throw new RuntimeException(e);
     }
+    return rejectAfterTimeout(preparePacket);
+  }
+
+  private InterledgerResponsePacket rejectAfterTimeout(final InterledgerPreparePacket preparePacket) {
     return packetRejector.reject(this.getLinkId(), preparePacket, InterledgerErrorCode.T03_CONNECTOR_BUSY,
         "Loopback set to exceed timeout via simulate_timeout=T03");
   }
+
+  /**
+   * The scheduler that completes simulated T03 timeouts of {@link #sendPacketAsync(InterledgerPreparePacket)}. It is
+   * only created if a loopback link simulates a timeout.
+   */
+  private static final class SimulatedTimeouts {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("loopback-link-timeouts-%d")
+            .build()
+    );
+  }
 }
@@ -1,6 +1,7 @@
 package org.interledger.link;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.interledger.link.LoopbackLink.SIMULATED_REJECT_ERROR_CODE;
 import static org.junit.Assert.fail;
 
@@ -9,6 +10,7 @@ import org.interledger.core.InterledgerAddress;
 import org.interledger.core.InterledgerConstants;
 import org.interledger.core.InterledgerErrorCode;
 import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerResponsePacket;
 
 import com.google.common.collect.Maps;
 import com.google.common.primitives.UnsignedLong;
@@ -20,6 +22,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Unit tests for {@link LoopbackLink}.
@@ -197,6 +201,53 @@ public class LoopbackLinkTest {
     );
   }
 
+  @Test
+  public void sendPacketAsync() {
+    link.setLinkId(LinkId.of("foo"));
+
+    final InterledgerPreparePacket preparePacket = preparePacket();
+    final CompletableFuture<InterledgerResponsePacket> response = link.sendPacketAsync(preparePacket);
+
+    assertThat(response).isDone();
+    response.join().handle(
+        fulfillPacket -> assertThat(fulfillPacket.getData()).isEqualTo(preparePacket.getData()),
+        rejectPacket -> fail("Expected a Fulfill")
+    );
+  }
+
+  @Test
+  public void sendT03PacketAsyncDoesNotBlock() {
+    final Map<String, String> customSettings = Maps.newHashMap();
+    customSettings.put(SIMULATED_REJECT_ERROR_CODE, InterledgerErrorCode.T03_CONNECTOR_BUSY_CODE);
+    this.link = new LoopbackLink(
+        () -> OPERATOR_ADDRESS,
+        LinkSettings.builder().linkType(LoopbackLink.LINK_TYPE).customSettings(customSettings).build(),
+        packetRejector
+    );
+    link.setLinkId(LinkId.of("foo"));
+
+    final CompletableFuture<InterledgerResponsePacket> response = link.sendPacketAsync(preparePacket());
+
+    assertThat(response).isNotDone();
+    response.cancel(false);
+  }
+
+  @Test
+  public void sendT99PacketAsync() {
+    final Map<String, String> customSettings = Maps.newHashMap();
+    customSettings.put(SIMULATED_REJECT_ERROR_CODE, InterledgerErrorCode.T99_APPLICATION_ERROR_CODE);
+    this.link = new LoopbackLink(
+        () -> OPERATOR_ADDRESS,
+        LinkSettings.builder().linkType(LoopbackLink.LINK_TYPE).customSettings(customSettings).build(),
+        packetRejector
+    );
+    link.setLinkId(LinkId.of("foo"));
+
+    assertThatThrownBy(() -> link.sendPacketAsync(preparePacket()).join())
+        .isInstanceOf(CompletionException.class)
+        .hasMessageContaining("T99 APPLICATION ERROR");
+  }
+
   private InterledgerPreparePacket preparePacket() {
     return InterledgerPreparePacket.builder()
         .amount(UnsignedLong.valueOf(10L))
@@ -26,6 +26,9 @@ import org.interledger.link.http.auth.BearerTokenSupplier;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.io.CharStreams;
 import com.google.common.net.HttpHeaders;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
 import okhttp3.Headers;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -41,6 +44,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 /**
@@ -121,54 +125,119 @@ public class IlpOverHttpLink extends AbstractLink<IlpOverHttpLinkSettings> imple
     }
 
     try (Response response = okHttpClient.newCall(okHttpRequest).execute()) {
-      if (response.isSuccessful()) {
-        //////////
-        // Success
-        return ilpCodecContext.read(InterledgerResponsePacket.class, response.body().byteStream());
-      } else {
-        //////////
-        // Reject!
-        final String errorResponseBody = CharStreams.toString(response.body().charStream());
-        Optional<ThrowableProblem> problem = parseThrowableProblem(preparePacket, errorResponseBody);
-        final InterledgerRejectPacket rejectPacket;
-
-        if (response.code() == 401 || response.code() == 403) {
-          // If this code is returned, we know the Link is misconfigured, so throw a LinkException Exception.
-          throw new LinkException(String.format(
-              "Unable to connect to remote ILP-over-HTTP Link: Invalid Bearer Token. response=%s", response
-          ), this.getLinkId());
-        } else if (response.code() >= 400 && response.code() < 500) {
-          // The request was bad for some reason, likely due to whatever is in the packet.
-          rejectPacket = InterledgerRejectPacket.builder()
-              .triggeredBy(getOperatorAddressSupplier().get())
-              .code(InterledgerErrorCode.F00_BAD_REQUEST)
-              .message(problem.map(Problem::getTitle).orElse(errorResponseBody))
-              .build();
-        } else {
-          // Something else went wrong on the server...try again later.
-          rejectPacket = InterledgerRejectPacket.builder()
-              .triggeredBy(getOperatorAddressSupplier().get())
-              .code(InterledgerErrorCode.T00_INTERNAL_ERROR)
-              .message(problem.map(Problem::getTitle).orElse(errorResponseBody))
-              .build();
+      return toResponsePacket(preparePacket, response);
+    } catch (IOException e) {
+      throw toLinkException(preparePacket, e);
+    }
+  }
+
+  /**
+   * <p>Sends {@code preparePacket} with {@link Call#enqueue(Callback)}, so that no thread waits for the response. The
+   * response is read on a thread of the {@link Dispatcher} of the {@link OkHttpClient}, and the returned future
+   * completes on that thread.</p>
+   *
+   * <p>The {@link Dispatcher} limits how many requests are in flight at a time, and queues the others. Its default
+   * limit of 5 requests per host is too low for a sender that keeps many packets in flight, so configure the {@link
+   * OkHttpClient} with a larger {@link Dispatcher#setMaxRequestsPerHost(int)}.</p>
+   */
+  @Override
+  public CompletableFuture<InterledgerResponsePacket> sendPacketAsync(final InterledgerPreparePacket preparePacket) {
+    Objects.requireNonNull(preparePacket);
+
+    final CompletableFuture<InterledgerResponsePacket> responsePacket = new CompletableFuture<>();
+    final Request okHttpRequest;
+    try {
+      okHttpRequest = this.constructSendPacketRequest(preparePacket);
+    } catch (LinkException e) {
+      responsePacket.completeExceptionally(e);
+      return responsePacket;
+    }
+
+    okHttpClient.newCall(okHttpRequest).enqueue(new Callback() {
+      @Override
+      public void onFailure(final Call call, final IOException e) {
+        responsePacket.completeExceptionally(toLinkException(preparePacket, e));
+      }
+
+      @Override
+      public void onResponse(final Call call, final Response response) {
+        try (Response closeableResponse = response) {
+          responsePacket.complete(toResponsePacket(preparePacket, closeableResponse));
+        } catch (IOException e) {
+          responsePacket.completeExceptionally(toLinkException(preparePacket, e));
+        } catch (RuntimeException e) {
+          responsePacket.completeExceptionally(e);
         }
+      }
+    });
+    return responsePacket;
+  }
+
+  /**
+   * Convert the HTTP response to {@code preparePacket} into an ILP response packet.
+   *
+   * @param preparePacket The {@link InterledgerPreparePacket} that was sent.
+   * @param response      The {@link Response} of the remote ILP-over-HTTP endpoint.
+   *
+   * @return The {@link InterledgerResponsePacket} in the body of a successful response, or an {@link
+   *     InterledgerRejectPacket} for a failed one.
+   *
+   * @throws IOException   if the response body cannot be read.
+   * @throws LinkException if the remote endpoint did not accept the bearer token of this link.
+   */
+  private InterledgerResponsePacket toResponsePacket(
+      final InterledgerPreparePacket preparePacket, final Response response
+  ) throws IOException {
+    if (response.isSuccessful()) {
+      //////////
+      // Success
+      return ilpCodecContext.read(InterledgerResponsePacket.class, response.body().byteStream());
+    } else {
+      //////////
+      // Reject!
+      final String errorResponseBody = CharStreams.toString(response.body().charStream());
+      Optional<ThrowableProblem> problem = parseThrowableProblem(preparePacket, errorResponseBody);
+      final InterledgerRejectPacket rejectPacket;
 
-        logger.error(
-            "Unable to send ILP-over-HTTP packet. preparePacket={} httpResponseCode={} errorResponse={} "
-                + "rejectPacket={}",
-            preparePacket, response.code(), CharStreams.toString(response.body().charStream()), rejectPacket
-        );
-        return rejectPacket;
+      if (response.code() == 401 || response.code() == 403) {
+        // If this code is returned, we know the Link is misconfigured, so throw a LinkException Exception.
+        throw new LinkException(String.format(
+            "Unable to connect to remote ILP-over-HTTP Link: Invalid Bearer Token. response=%s", response
+        ), this.getLinkId());
+      } else if (response.code() >= 400 && response.code() < 500) {
+        // The request was bad for some reason, likely due to whatever is in the packet.
+        rejectPacket = InterledgerRejectPacket.builder()
+            .triggeredBy(getOperatorAddressSupplier().get())
+            .code(InterledgerErrorCode.F00_BAD_REQUEST)
+            .message(problem.map(Problem::getTitle).orElse(errorResponseBody))
+            .build();
+      } else {
+        // Something else went wrong on the server...try again later.
+        rejectPacket = InterledgerRejectPacket.builder()
+            .triggeredBy(getOperatorAddressSupplier().get())
+            .code(InterledgerErrorCode.T00_INTERNAL_ERROR)
+            .message(problem.map(Problem::getTitle).orElse(errorResponseBody))
+            .build();
       }
-    } catch (IOException e) {
-      throw new LinkException(
-          String.format("Unable to sendPacket. preparePacket=%s error=%s", preparePacket, e.getMessage()),
-          e,
-          getLinkId()
+
+      logger.error(
+          "Unable to send ILP-over-HTTP packet. preparePacket={} httpResponseCode={} errorResponse={} "
+              + "rejectPacket={}",
+          preparePacket, response.code(), CharStreams.toString(response.body().charStream()), rejectPacket
       );
+      return rejectPacket;
     }
   }
 
+  private LinkException toLinkException(final InterledgerPreparePacket preparePacket, final IOException e) {
+    return new LinkException(
+        String.format("Unable to sendPacket. preparePacket=%s error=%s", preparePacket, e.getMessage()),
+        e,
+        getLinkId()
+    );
+  }
+
+
   /**
    * <p>Check the `/ilp` endpoint for ping by making an HTTP Head request with a ping packet, and
    * asserting the values returned are one of the supported content-types required for ILP-over-HTTP.</p>
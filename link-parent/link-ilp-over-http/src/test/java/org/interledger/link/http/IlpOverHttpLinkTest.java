@@ -1,9 +1,12 @@
 package org.interledger.link.http;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -19,6 +22,7 @@ import org.interledger.link.http.auth.BearerTokenSupplier;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
@@ -35,6 +39,9 @@ import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CompletionException;
 
 /**
  * Unit tests for {@link IlpOverHttpLink}.
@@ -84,7 +91,7 @@ public class IlpOverHttpLinkTest {
   @Test
   public void sendFailsOnBadWrite() throws Exception {
     expectedException.expect(LinkException.class);
-    doThrow(IOException.class).when(codecContext).write(any(), any());
+    doThrow(IOException.class).when(codecContext).write(any(), any(OutputStream.class));
     link.sendPacket(packet);
   }
 
@@ -130,20 +137,71 @@ public class IlpOverHttpLinkTest {
   public void success() throws Exception {
     mockCall(200);
     InterledgerResponsePacket success = mock(InterledgerResponsePacket.class);
-    when(codecContext.read(any(), any())).thenReturn(success);
+    when(codecContext.read(any(), any(InputStream.class))).thenReturn(success);
     InterledgerResponsePacket responsePacket = link.sendPacket(packet);
     assertThat(responsePacket).isEqualTo(success);
-    verify(codecContext, times(1)).read(any(), any());
+    verify(codecContext, times(1)).read(any(), any(InputStream.class));
   }
 
   @Test
   public void fallThrough() throws Exception {
     mockCall(200);
-    when(codecContext.read(any(), any())).thenThrow(new IOException("i messed up"));
+    when(codecContext.read(any(), any(InputStream.class))).thenThrow(new IOException("i messed up"));
     expectedException.expect(LinkException.class);
     expectedException.expectMessage("i messed up");
     InterledgerResponsePacket responsePacket = link.sendPacket(packet);
-    verify(codecContext, times(1)).read(any(), any());
+    verify(codecContext, times(1)).read(any(), any(InputStream.class));
+  }
+
+  @Test
+  public void sendPacketAsyncSuccess() throws Exception {
+    final Call call = mockEnqueue(200);
+    InterledgerResponsePacket success = mock(InterledgerResponsePacket.class);
+    when(codecContext.read(any(), any(InputStream.class))).thenReturn(success);
+
+    assertThat(link.sendPacketAsync(packet).get()).isEqualTo(success);
+    verify(call, never()).execute();
+  }
+
+  @Test
+  public void sendPacketAsyncRejectOnInternalError() throws Exception {
+    mockEnqueue(500);
+    InterledgerResponsePacket responsePacket = link.sendPacketAsync(packet).get();
+    assertThat(responsePacket).extracting("code", "message")
+        .containsExactly(InterledgerErrorCode.T00_INTERNAL_ERROR, "{}");
+  }
+
+  @Test
+  public void sendPacketAsyncFailsOnNotAuthed() throws Exception {
+    mockEnqueue(401);
+    assertThatThrownBy(() -> link.sendPacketAsync(packet).join())
+        .isInstanceOf(CompletionException.class)
+        .hasCauseInstanceOf(LinkException.class)
+        .hasMessageContaining("Invalid Bearer Token");
+  }
+
+  @Test
+  public void sendPacketAsyncFailsOnNetworkFailure() throws Exception {
+    Call call = mock(Call.class);
+    when(httpClient.newCall(any())).thenReturn(call);
+    doAnswer(invocation -> {
+      invocation.<Callback>getArgument(0).onFailure(call, new IOException("connection reset"));
+      return null;
+    }).when(call).enqueue(any());
+
+    assertThatThrownBy(() -> link.sendPacketAsync(packet).join())
+        .isInstanceOf(CompletionException.class)
+        .hasCauseInstanceOf(LinkException.class)
+        .hasMessageContaining("connection reset");
+  }
+
+  @Test
+  public void sendPacketAsyncFailsOnBadWrite() throws Exception {
+    doThrow(IOException.class).when(codecContext).write(any(), any(OutputStream.class));
+    assertThatThrownBy(() -> link.sendPacketAsync(packet).join())
+        .isInstanceOf(CompletionException.class)
+        .hasCauseInstanceOf(LinkException.class);
+    verify(httpClient, never()).newCall(any());
   }
 
   @Test
@@ -227,4 +285,14 @@ public class IlpOverHttpLinkTest {
     when(call.execute()).thenReturn(response);
     return response;
   }
+
+  private Call mockEnqueue(int code) throws Exception {
+    final Response response = mockCall(code);
+    final Call call = httpClient.newCall(null);
+    doAnswer(invocation -> {
+      invocation.<Callback>getArgument(0).onResponse(call, response);
+      return null;
+    }).when(call).enqueue(any());
+    return call;
+  }
 }
@@ -0,0 +1,653 @@
+package org.interledger.stream.sender;
+
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.core.DateUtils;
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerErrorCode;
+import org.interledger.core.InterledgerErrorCode.ErrorFamily;
+import org.interledger.core.InterledgerFulfillPacket;
+import org.interledger.core.InterledgerPacketType;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.core.InterledgerResponsePacket;
+import org.interledger.core.SharedSecret;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.link.Link;
+import org.interledger.stream.Denomination;
+import org.interledger.stream.PaymentTracker;
+import org.interledger.stream.PrepareAmounts;
+import org.interledger.stream.SendMoneyRequest;
+import org.interledger.stream.SendMoneyResult;
+import org.interledger.stream.StreamConnection;
+import org.interledger.stream.StreamConnectionClosedException;
+import org.interledger.stream.StreamConnectionId;
+import org.interledger.stream.StreamPacket;
+import org.interledger.stream.crypto.CachingStreamEncryptionService;
+import org.interledger.stream.crypto.FulfillmentGenerator;
+import org.interledger.stream.crypto.StreamEncryptionService;
+import org.interledger.stream.frames.ConnectionAssetDetailsFrame;
+import org.interledger.stream.frames.ConnectionNewAddressFrame;
+import org.interledger.stream.frames.StreamFrame;
+import org.interledger.stream.frames.StreamFrameType;
+import org.interledger.stream.frames.StreamMoneyFrame;
+
+import com.google.common.collect.Lists;
+import com.google.common.primitives.UnsignedLong;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * <p>An implementation of {@link StreamSender} that is driven by packet responses instead of a thread per payment.</p>
+ *
+ * <p>{@link SimpleStreamSender} runs a loop on a new thread for every payment, and that loop sleeps whenever the
+ * congestion window is full. This implementation sends as many packets as the window allows, and then returns. Each
+ * response, and the payment timeout, sends the next packets, or completes the payment once nothing is left in flight.
+ * No thread ever waits for a payment, so thousands of concurrent payments can share a handful of threads.</p>
+ *
+ * <p>Packets are sent with {@link Link#sendPacketAsync(InterledgerPreparePacket)}, called on the supplied
+ * {@link ExecutorService}. A link that waits for responses without holding a thread, such as {@code IlpOverHttpLink},
+ * only borrows an executor thread to start each request. A link that relies on the blocking default of
+ * {@link Link#sendPacketAsync(InterledgerPreparePacket)} holds a thread per packet, so the number of Prepare packets in
+ * flight across all payments is then at most the number of threads of that executor. The timeouts of all payments
+ * share one {@link ScheduledExecutorService}.</p>
+ *
+ * <p>Like {@link SimpleStreamSender}, this implementation sends one money stream per payment, and does not support
+ * sending data.</p>
+ */
+@ThreadSafe
+public class AsyncStreamSender implements StreamSender {
+
+  private final Link link;
+  private final StreamEncryptionService streamEncryptionService;
+  private final FulfillmentGenerator fulfillmentGenerator;
+  private final CodecContext streamCodecContext;
+  private final ExecutorService executorService;
+  private final ScheduledExecutorService timeoutScheduler;
+  private final StreamConnectionManager streamConnectionManager;
+  private final CongestionControllerFactory congestionControllerFactory;
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param link A {@link Link} that is used to send ILPv4 packets to an immediate peer.
+   */
+  public AsyncStreamSender(final Link link) {
+    this(new CachingStreamEncryptionService(), link);
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param streamEncryptionService A {@link StreamEncryptionService} used to encrypt and decrypt end-to-end STREAM
+   *                                packet data.
+   * @param link                    A {@link Link} that is used to send ILPv4 packets to an immediate peer.
+   */
+  public AsyncStreamSender(final StreamEncryptionService streamEncryptionService, final Link link) {
+    this(
+        streamEncryptionService, link, newDefaultExecutor(), newDefaultTimeoutScheduler(), new StreamConnectionManager()
+    );
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param streamEncryptionService A {@link StreamEncryptionService} used to encrypt and decrypt end-to-end STREAM
+   *                                packet data.
+   * @param link                    A {@link Link} that is used to send ILPv4 packets to an immediate peer.
+   * @param executorService         An {@link ExecutorService} that sends packets on {@code link}, and handles their
+   *                                responses.
+   * @param timeoutScheduler        A {@link ScheduledExecutorService} that enforces the timeout of each payment.
+   * @param streamConnectionManager A {@link StreamConnectionManager} that manages the connections of all senders that
+   *                                share it.
+   */
+  public AsyncStreamSender(
+      final StreamEncryptionService streamEncryptionService,
+      final Link link,
+      final ExecutorService executorService,
+      final ScheduledExecutorService timeoutScheduler,
+      final StreamConnectionManager streamConnectionManager
+  ) {
+    this(
+        streamEncryptionService, link, executorService, timeoutScheduler, streamConnectionManager,
+        CongestionControllerFactory.aimd()
+    );
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param streamEncryptionService     A {@link StreamEncryptionService} used to encrypt and decrypt end-to-end STREAM
+   *                                    packet data.
+   * @param link                        A {@link Link} that is used to send ILPv4 packets to an immediate peer.
+   * @param executorService             An {@link ExecutorService} that sends packets on {@code link}, and handles
+   *                                    their responses.
+   * @param timeoutScheduler            A {@link ScheduledExecutorService} that enforces the timeout of each payment.
+   * @param streamConnectionManager     A {@link StreamConnectionManager} that manages the connections of all senders
+   *                                    that share it.
+   * @param congestionControllerFactory A {@link CongestionControllerFactory} that creates the {@link
+   *                                    CongestionController} of each payment.
+   */
+  public AsyncStreamSender(
+      final StreamEncryptionService streamEncryptionService,
+      final Link link,
+      final ExecutorService executorService,
+      final ScheduledExecutorService timeoutScheduler,
+      final StreamConnectionManager streamConnectionManager,
+      final CongestionControllerFactory congestionControllerFactory
+  ) {
+    this.streamEncryptionService = Objects.requireNonNull(streamEncryptionService);
+    this.link = Objects.requireNonNull(link);
+    this.executorService = Objects.requireNonNull(executorService);
+    this.timeoutScheduler = Objects.requireNonNull(timeoutScheduler);
+    this.streamConnectionManager = Objects.requireNonNull(streamConnectionManager);
+    this.congestionControllerFactory = Objects.requireNonNull(congestionControllerFactory);
+    this.fulfillmentGenerator = new FulfillmentGenerator();
+    this.streamCodecContext = StreamCodecContextFactory.oer();
+  }
+
+  private static ExecutorService newDefaultExecutor() {
+    return Executors.newFixedThreadPool(
+        Math.max(4, 2 * Runtime.getRuntime().availableProcessors()),
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("async-stream-sender-%d")
+            .build()
+    );
+  }
+
+  private static ScheduledExecutorService newDefaultTimeoutScheduler() {
+    final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+        .setDaemon(true)
+        .setNameFormat("async-stream-sender-timeouts-%d")
+        .build());
+    // Most payments complete before their timeout, so don't keep their cancelled timeouts around.
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
+  }
+
+  @Override
+  public CompletableFuture<SendMoneyResult> sendMoney(final SendMoneyRequest request) {
+    Objects.requireNonNull(request);
+
+    final StreamConnection streamConnection = this.streamConnectionManager.openConnection(
+        StreamConnectionId.from(request.destinationAddress(), request.sharedSecret())
+    );
+
+    return new AsyncSendMoneyAggregator(
+        this.executorService,
+        this.timeoutScheduler,
+        streamConnection,
+        this.streamCodecContext,
+        this.link,
+        this.congestionControllerFactory.newCongestionController(request),
+        this.streamEncryptionService,
+        this.fulfillmentGenerator,
+        request
+    ).send();
+  }
+
+  /**
+   * <p>Sends a single payment. Every change to the state of the payment happens in {@link #run()}, which only one
+   * thread executes at a time.</p>
+   *
+   * <p>Responses and the timeout are queued as events, and then call {@link #run()}. If another thread is already
+   * running it, that thread picks up the event before it returns, so no thread ever waits for another one.</p>
+   */
+  static class AsyncSendMoneyAggregator {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final ExecutorService executorService;
+    private final ScheduledExecutorService timeoutScheduler;
+    private final StreamConnection streamConnection;
+    private final CodecContext streamCodecContext;
+    private final StreamEncryptionService streamEncryptionService;
+    private final FulfillmentGenerator fulfillmentGenerator;
+    private final CongestionController congestionController;
+    private final Link link;
+
+    private final SharedSecret sharedSecret;
+    private final Optional<Duration> timeout;
+    private final InterledgerAddress senderAddress;
+    private final Denomination senderDenomination;
+    private final InterledgerAddress destinationAddress;
+    private final PaymentTracker paymentTracker;
+
+    private final CompletableFuture<SendMoneyResult> result;
+    private final Queue<Runnable> events;
+    private final AtomicInteger pendingRuns;
+
+    // The fields below are only read and written by run(). Successive runs are ordered by pendingRuns.
+    private Instant start;
+    private Optional<ScheduledFuture<?>> timeoutFuture;
+    private Optional<Denomination> receiverDenomination;
+    private boolean preflightComplete;
+    private boolean timeoutReached;
+    private boolean tryingToSendTooMuch;
+    private boolean sendRejected;
+    private int numFulfilledPackets;
+    private int numRejectedPackets;
+
+    /**
+     * Required-args Constructor.
+     *
+     * @param executorService         An {@link ExecutorService} that sends packets on {@code link}.
+     * @param timeoutScheduler        A {@link ScheduledExecutorService} that enforces the timeout of the payment.
+     * @param streamConnection        A {@link StreamConnection} that can be used to send packets with.
+     * @param streamCodecContext      A {@link CodecContext} that can encode and decode ASN.1 OER Stream packets and
+     *                                frames.
+     * @param link                    The {@link Link} used to send ILPv4 packets containing Stream packets.
+     * @param congestionController    A {@link CongestionController} that supports back-pressure for money streams.
+     * @param streamEncryptionService A {@link StreamEncryptionService} that allows for Stream packet encryption and
+     *                                decryption.
+     * @param fulfillmentGenerator    A {@link FulfillmentGenerator} used to generate the condition of each packet.
+     * @param request                 all relevant details about the money to send
+     */
+    AsyncSendMoneyAggregator(
+        final ExecutorService executorService,
+        final ScheduledExecutorService timeoutScheduler,
+        final StreamConnection streamConnection,
+        final CodecContext streamCodecContext,
+        final Link link,
+        final CongestionController congestionController,
+        final StreamEncryptionService streamEncryptionService,
+        final FulfillmentGenerator fulfillmentGenerator,
+        final SendMoneyRequest request
+    ) {
+      this.executorService = Objects.requireNonNull(executorService);
+      this.timeoutScheduler = Objects.requireNonNull(timeoutScheduler);
+      this.streamConnection = Objects.requireNonNull(streamConnection);
+      this.streamCodecContext = Objects.requireNonNull(streamCodecContext);
+      this.link = Objects.requireNonNull(link);
+      this.congestionController = Objects.requireNonNull(congestionController);
+      this.streamEncryptionService = Objects.requireNonNull(streamEncryptionService);
+      this.fulfillmentGenerator = Objects.requireNonNull(fulfillmentGenerator);
+
+      Objects.requireNonNull(request);
+      this.sharedSecret = request.sharedSecret();
+      this.senderAddress = request.sourceAddress();
+      this.destinationAddress = request.destinationAddress();
+      this.timeout = request.timeout();
+      this.senderDenomination = request.denomination();
+      this.paymentTracker = request.paymentTracker();
+
+      this.result = new CompletableFuture<>();
+      this.events = new ConcurrentLinkedQueue<>();
+      this.pendingRuns = new AtomicInteger(0);
+      this.timeoutFuture = Optional.empty();
+      this.receiverDenomination = Optional.empty();
+    }
+
+    /**
+     * Start sending money. This method returns as soon as the preflight packet is on its way.
+     *
+     * @return A {@link CompletableFuture} that completes with a {@link SendMoneyResult} once no more packets will be
+     *     sent and none are in flight.
+     */
+    CompletableFuture<SendMoneyResult> send() {
+      this.events.add(this::start);
+      this.run();
+      return result.whenComplete((sendMoneyResult, error) -> {
+        if (error != null) {
+          logger.error("SendMoney Stream failed: " + error.getMessage(), error);
+        } else if (!sendMoneyResult.successfulPayment()) {
+          logger.error("Failed to send full amount");
+        }
+      });
+    }
+
+    /**
+     * Handle all queued events, send as many packets as the congestion window allows, and complete the payment if
+     * nothing is left to do.
+     */
+    private void run() {
+      if (pendingRuns.getAndIncrement() != 0) {
+        // Another thread is in the loop below, and will run again because pendingRuns was incremented.
+        return;
+      }
+      do {
+        try {
+          Runnable event;
+          while ((event = events.poll()) != null) {
+            event.run();
+          }
+          if (!result.isDone()) {
+            sendPackets();
+            completeIfDone();
+          }
+        } catch (RuntimeException e) {
+          timeoutFuture.ifPresent($ -> $.cancel(false));
+          result.completeExceptionally(e);
+        }
+      } while (pendingRuns.decrementAndGet() != 0);
+    }
+
+    /**
+     * Queue {@code event}, and make sure that it is handled.
+     */
+    private void fire(final Runnable event) {
+      this.events.add(event);
+      this.run();
+    }
+
+    private void start() {
+      this.start = DateUtils.now();
+
+      final UnsignedLong sequence;
+      try {
+        sequence = this.streamConnection.nextSequence();
+      } catch (StreamConnectionClosedException e) {
+        logger.warn(
+            "Unable to send more packets on a closed StreamConnection. streamConnection={} error={}",
+            streamConnection, e
+        );
+        result.complete(SendMoneyResult.builder()
+            .sendMoneyDuration(Duration.between(start, DateUtils.now()))
+            .numRejectPackets(1)
+            .numFulfilledPackets(0)
+            .amountDelivered(UnsignedLong.ZERO)
+            .amountSent(UnsignedLong.ZERO)
+            .originalAmount(paymentTracker.getOriginalAmount())
+            .amountLeftToSend(paymentTracker.getOriginalAmountLeft())
+            .successfulPayment(paymentTracker.successful())
+            .build());
+        return;
+      }
+
+      this.timeoutFuture = timeout.map($ -> timeoutScheduler.schedule(
+          () -> fire(() -> this.timeoutReached = true), $.toMillis(), TimeUnit.MILLISECONDS
+      ));
+
+      final List<StreamFrame> frames = Lists.newArrayList(
+          StreamMoneyFrame.builder()
+              // This aggregator supports only a simple stream-id, which is one.
+              .streamId(UnsignedLong.ONE)
+              .shares(UnsignedLong.ONE)
+              .build(),
+          ConnectionNewAddressFrame.builder()
+              .sourceAddress(senderAddress)
+              .build(),
+          ConnectionAssetDetailsFrame.builder()
+              .sourceDenomination(senderDenomination)
+              .build()
+      );
+      final StreamPacket streamPacket = StreamPacket.builder()
+          .interledgerPacketType(InterledgerPacketType.PREPARE)
+          .prepareAmount(UnsignedLong.ZERO)
+          .sequence(sequence)
+          .frames(frames)
+          .build();
+
+      try {
+        sendPacket(toPreparePacket(streamPacket, UnsignedLong.ZERO)).whenComplete(
+            (responsePacket, error) -> fire(() -> handlePreflightResponse(responsePacket, error))
+        );
+      } catch (RejectedExecutionException e) {
+        logger.error("Unable to send preflight packet", e);
+        this.preflightComplete = true;
+        this.sendRejected = true;
+      }
+    }
+
+    private void handlePreflightResponse(final InterledgerResponsePacket responsePacket, final Throwable error) {
+      this.preflightComplete = true;
+      if (error != null) {
+        logger.warn("Preflight check failed", error);
+        return;
+      }
+      try {
+        final StreamPacket packet = this.fromEncrypted(sharedSecret, responsePacket.getData());
+        this.receiverDenomination = packet.frames().stream()
+            .filter(f -> f.streamFrameType() == StreamFrameType.ConnectionAssetDetails)
+            .findFirst()
+            .map(f -> (ConnectionAssetDetailsFrame) f)
+            .map(f -> Denomination.builder().from(f.sourceDenomination()).build());
+      } catch (Exception e) {
+        logger.warn("Preflight check failed", e);
+      }
+    }
+
+    /**
+     * Send packets until the congestion window is full, or until no more money should be sent.
+     */
+    private void sendPackets() {
+      while (preflightComplete && !timeoutReached && !tryingToSendTooMuch && !sendRejected
+          && !streamConnection.isClosed() && paymentTracker.moreToSend()) {
+        final PrepareAmounts amounts = paymentTracker.getSendPacketAmounts(
+            congestionController.getMaxAmount(), senderDenomination, receiverDenomination
+        );
+        final UnsignedLong amountToSend = amounts.getAmountToSend();
+        if (amountToSend.equals(UnsignedLong.ZERO)) {
+          // The window is full. The next response will make room.
+          return;
+        }
+
+        final UnsignedLong sequence;
+        try {
+          sequence = this.streamConnection.nextSequence();
+        } catch (StreamConnectionClosedException e) {
+          logger.warn(
+              "Unable to send more packets on a closed StreamConnection. streamConnection={} error={}",
+              streamConnection, e
+          );
+          return;
+        }
+
+        final StreamPacket streamPacket = StreamPacket.builder()
+            .interledgerPacketType(InterledgerPacketType.PREPARE)
+            // If the STREAM packet is sent on an ILP Prepare, this represents the minimum the receiver should accept.
+            .prepareAmount(amounts.getMinimumAmountToAccept())
+            .sequence(sequence)
+            .addFrames(StreamMoneyFrame.builder()
+                // This aggregator supports only a simple stream-id, which is one.
+                .streamId(UnsignedLong.ONE)
+                .shares(UnsignedLong.ONE)
+                .build())
+            .build();
+        final InterledgerPreparePacket preparePacket = toPreparePacket(streamPacket, amountToSend);
+
+        final PrepareAmounts prepareAmounts = PrepareAmounts.from(preparePacket, streamPacket);
+        if (!paymentTracker.auth(prepareAmounts)) {
+          tryingToSendTooMuch = true;
+          return;
+        }
+
+        congestionController.prepare(amountToSend);
+        try {
+          final long sentAtNanos = System.nanoTime();
+          sendPacket(preparePacket).whenComplete((responsePacket, error) -> {
+            final Duration roundTripTime = Duration.ofNanos(System.nanoTime() - sentAtNanos);
+            fire(() -> handleResponse(
+                preparePacket, streamPacket, prepareAmounts, responsePacket, roundTripTime, error
+            ));
+          });
+        } catch (RejectedExecutionException e) {
+          // The executor is shut down or saturated. Retrying right away would only spin, so stop sending.
+          handleResponse(preparePacket, streamPacket, prepareAmounts, null, Duration.ZERO, e);
+          sendRejected = true;
+          return;
+        }
+      }
+    }
+
+    /**
+     * Complete the payment if nothing is in flight. No response will call {@link #run()} again in that case, so
+     * {@link #sendPackets()} has sent everything that it is going to send.
+     */
+    private void completeIfDone() {
+      if (!preflightComplete || congestionController.hasInFlight()) {
+        return;
+      }
+      timeoutFuture.ifPresent($ -> $.cancel(false));
+      result.complete(SendMoneyResult.builder()
+          .amountDelivered(paymentTracker.getDeliveredAmountInReceiverUnits())
+          .amountSent(paymentTracker.getDeliveredAmountInSenderUnits())
+          .amountLeftToSend(paymentTracker.getOriginalAmountLeft())
+          .originalAmount(paymentTracker.getOriginalAmount())
+          .numFulfilledPackets(numFulfilledPackets)
+          .numRejectPackets(numRejectedPackets)
+          .sendMoneyDuration(Duration.between(start, DateUtils.now()))
+          .successfulPayment(paymentTracker.successful())
+          .build());
+    }
+
+    /**
+     * Send {@code preparePacket} from the executor, because {@link Link#sendPacketAsync(InterledgerPreparePacket)} may
+     * block until the response arrives.
+     *
+     * @throws RejectedExecutionException if the executor does not accept the packet.
+     */
+    private CompletableFuture<InterledgerResponsePacket> sendPacket(final InterledgerPreparePacket preparePacket) {
+      return CompletableFuture.supplyAsync(() -> link.sendPacketAsync(preparePacket), executorService)
+          .thenCompose(Function.identity());
+    }
+
+    private void handleResponse(
+        final InterledgerPreparePacket preparePacket,
+        final StreamPacket streamPacket,
+        final PrepareAmounts prepareAmounts,
+        final InterledgerResponsePacket responsePacket,
+        final Duration roundTripTime,
+        final Throwable error
+    ) {
+      if (error != null) {
+        logger.error("Link send failed. preparePacket={}", preparePacket, error);
+        congestionController.reject(preparePacket.getAmount(), InterledgerRejectPacket.builder()
+            .code(InterledgerErrorCode.F00_BAD_REQUEST)
+            .message(String.format("Link send failed. preparePacket=%s error=%s", preparePacket, error.getMessage()))
+            .build());
+        paymentTracker.rollback(prepareAmounts, false);
+        return;
+      }
+
+      try {
+        responsePacket.handle(
+            fulfillPacket -> handleFulfill(preparePacket, streamPacket, fulfillPacket, prepareAmounts, roundTripTime),
+            rejectPacket -> handleReject(preparePacket, streamPacket, rejectPacket, prepareAmounts)
+        );
+      } catch (RuntimeException e) {
+        logger.error("Unable to handle response. preparePacket={} responsePacket={}", preparePacket, responsePacket, e);
+      }
+    }
+
+    private void handleFulfill(
+        final InterledgerPreparePacket originalPreparePacket,
+        final StreamPacket originalStreamPacket,
+        final InterledgerFulfillPacket fulfillPacket,
+        final PrepareAmounts prepareAmounts,
+        final Duration roundTripTime
+    ) {
+      this.numFulfilledPackets++;
+      this.congestionController.fulfill(originalPreparePacket.getAmount(), roundTripTime);
+
+      final StreamPacket streamPacket = this.fromEncrypted(sharedSecret, fulfillPacket.getData());
+      if (streamPacket.interledgerPacketType() == InterledgerPacketType.FULFILL) {
+        paymentTracker.commit(prepareAmounts, streamPacket.prepareAmount());
+      } else {
+        logger.warn("Unable to parse STREAM packet from fulfill data. "
+                + "originalPreparePacket={} originalStreamPacket={} fulfillPacket={}",
+            originalPreparePacket, originalStreamPacket, fulfillPacket);
+      }
+
+      logger.debug("Prepare packet fulfilled ({} left to send). "
+              + "originalPreparePacket={} originalStreamPacket={} fulfillPacket={}",
+          paymentTracker.getOriginalAmountLeft(), originalPreparePacket, originalStreamPacket, fulfillPacket
+      );
+    }
+
+    private void handleReject(
+        final InterledgerPreparePacket originalPreparePacket,
+        final StreamPacket originalStreamPacket,
+        final InterledgerRejectPacket rejectPacket,
+        final PrepareAmounts prepareAmounts
+    ) {
+      final UnsignedLong amountToSend = originalPreparePacket.getAmount();
+
+      this.numRejectedPackets++;
+      paymentTracker.rollback(prepareAmounts, true);
+      congestionController.reject(amountToSend, rejectPacket);
+
+      logger.debug(
+          "Prepare with amount {} was rejected with code: {} ({} left to send). originalPreparePacket={} "
+              + "originalStreamPacket={} rejectPacket={}",
+          amountToSend,
+          rejectPacket.getCode().getCode(),
+          paymentTracker.getOriginalAmountLeft(),
+          originalPreparePacket,
+          originalStreamPacket,
+          rejectPacket
+      );
+
+      if (rejectPacket.getCode() != InterledgerErrorCode.T04_INSUFFICIENT_LIQUIDITY
+          && rejectPacket.getCode() != InterledgerErrorCode.F08_AMOUNT_TOO_LARGE) {
+        if (rejectPacket.getCode().getErrorFamily() == ErrorFamily.TEMPORARY) {
+          logger.warn(
+              "Temporary ILPv4 transport outage. Retrying... originalPreparePacket={} originalStreamPacket={} "
+                  + "rejectPacket={}",
+              originalPreparePacket, originalStreamPacket, rejectPacket);
+        } else {
+          logger.error(
+              "Encountered Final ILPv4 error. Retrying, but this sendMoney will likely hang until timeout."
+                  + " originalPreparePacket={} originalStreamPacket={} rejectPacket={}",
+              originalPreparePacket, originalStreamPacket, rejectPacket);
+        }
+      }
+    }
+
+    private InterledgerPreparePacket toPreparePacket(final StreamPacket streamPacket, final UnsignedLong amount) {
+      final byte[] streamPacketData = this.toEncrypted(sharedSecret, streamPacket);
+      return InterledgerPreparePacket.builder()
+          .destination(destinationAddress)
+          .amount(amount)
+          .executionCondition(
+              fulfillmentGenerator.generateFulfillment(sharedSecret, streamPacketData).getCondition()
+          )
+          .expiresAt(DateUtils.now().plusSeconds(30L))
+          .data(streamPacketData)
+          .build();
+    }
+
+    private byte[] toEncrypted(final SharedSecret sharedSecret, final StreamPacket streamPacket) {
+      try {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        streamCodecContext.write(streamPacket, baos);
+        return streamEncryptionService.encrypt(sharedSecret, baos.toByteArray());
+      } catch (IOException e) {
+        throw new StreamSenderException(e.getMessage(), e);
+      }
+    }
+
+    private StreamPacket fromEncrypted(final SharedSecret sharedSecret, final byte[] encryptedStreamPacketBytes) {
+      final byte[] streamPacketBytes = this.streamEncryptionService.decrypt(sharedSecret, encryptedStreamPacketBytes);
+      try {
+        return streamCodecContext.read(StreamPacket.class, new ByteArrayInputStream(streamPacketBytes));
+      } catch (IOException e) {
+        throw new StreamSenderException(e.getMessage(), e);
+      }
+    }
+  }
+}
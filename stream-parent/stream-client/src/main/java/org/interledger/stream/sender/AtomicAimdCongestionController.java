@@ -0,0 +1,221 @@
+package org.interledger.stream.sender;
+
+import static org.interledger.core.InterledgerErrorCode.T04_INSUFFICIENT_LIQUIDITY_CODE;
+import static org.interledger.stream.sender.CongestionMath.UNSIGNED_MAX;
+import static org.interledger.stream.sender.CongestionMath.addSaturated;
+import static org.interledger.stream.sender.CongestionMath.subtractFloored;
+
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.core.InterledgerErrorCode;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.stream.sender.AimdCongestionController.CongestionState;
+
+import com.google.common.base.Preconditions;
+import com.google.common.primitives.UnsignedLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * <p>An Additive Increase, Multiplicative Decrease (AIMD) congestion controller that behaves like {@link
+ * AimdCongestionController}, for payments whose packets are prepared, fulfilled and rejected by many threads at
+ * once.</p>
+ *
+ * <p>All of its state is kept in one immutable {@link Window} of primitive {@code long}s, which hold unsigned values.
+ * Every update replaces the whole window with a single compare-and-set, so {@link #getMaxAmount()} always sees an
+ * {@code amountInFlight}, {@code maxInFlight} and {@code maxPacketAmount} that belong together. A T04 rejection divides
+ * the window by an integer {@code decreaseFactor} with {@link Long#divideUnsigned(long, long)} instead of {@link
+ * java.math.BigDecimal}.</p>
+ *
+ * <p>Unlike {@link AimdCongestionController}, the amount left in the window is {@code 0}, instead of wrapping around,
+ * when a T04 rejection shrinks {@code maxInFlight} below the amount that is still in flight.</p>
+ *
+ * @see "https://en.wikipedia.org/wiki/Additive_increase/multiplicative_decrease"
+ */
+@ThreadSafe
+public class AtomicAimdCongestionController implements CongestionController {
+
+  private static final long HALF_UNSIGNED_MAX = Long.divideUnsigned(UNSIGNED_MAX, 2);
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final long increaseAmount;
+  private final long decreaseFactor;
+  private final CodecContext streamCodecContext;
+
+  private final AtomicReference<Window> window;
+
+  public AtomicAimdCongestionController() {
+    this(
+        UnsignedLong.valueOf(1000L), UnsignedLong.valueOf(1000L), UnsignedLong.valueOf(2L),
+        StreamCodecContextFactory.oer()
+    );
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param startAmount        An {@link UnsignedLong} representing the packet amount to start a STREAM at.
+   * @param increaseAmount     An {@link UnsignedLong} representing the amount to increase the maximum amount in flight
+   *                           by whenever a valid fulfillment is encountered.
+   * @param decreaseFactor     An {@link UnsignedLong} representing the factor to divide the maximum amount in flight by
+   *                           when a STREAM packet is rejected with a T04 error code. Must be greater than zero.
+   * @param streamCodecContext A {@link CodecContext} for encoding and decoding STREAM packets and frames.
+   */
+  public AtomicAimdCongestionController(
+      final UnsignedLong startAmount, final UnsignedLong increaseAmount, final UnsignedLong decreaseFactor,
+      final CodecContext streamCodecContext
+  ) {
+    Objects.requireNonNull(startAmount, "startAmount must not be null");
+    this.increaseAmount = Objects.requireNonNull(increaseAmount, "increaseAmount must not be null").longValue();
+    this.decreaseFactor = Objects.requireNonNull(decreaseFactor, "decreaseFactor must not be null").longValue();
+    this.streamCodecContext = Objects.requireNonNull(streamCodecContext, "streamCodecContext must not be null");
+    Preconditions.checkArgument(this.decreaseFactor != 0, "decreaseFactor must be greater than 0");
+
+    this.window = new AtomicReference<>(new Window(0, startAmount.longValue(), false, 0, false));
+  }
+
+  @Override
+  public UnsignedLong getMaxAmount() {
+    return UnsignedLong.fromLongBits(window.get().maxAmount());
+  }
+
+  @Override
+  public void prepare(final UnsignedLong amount) {
+    Objects.requireNonNull(amount);
+    final long prepareAmount = amount.longValue();
+    window.updateAndGet(current -> current.withAmountInFlight(addSaturated(current.amountInFlight, prepareAmount)));
+  }
+
+  @Override
+  public void fulfill(final UnsignedLong prepareAmount) {
+    Objects.requireNonNull(prepareAmount);
+    final long amount = prepareAmount.longValue();
+    window.updateAndGet(current -> {
+      final long maxInFlight;
+      if (current.avoidCongestion) {
+        // Add to the max in flight but don't exceed the u64 max value
+        maxInFlight = addSaturated(current.maxInFlight, increaseAmount);
+      } else {
+        // Double the max in flight but don't exceed the u64 max value
+        maxInFlight = Long.compareUnsigned(current.maxInFlight, HALF_UNSIGNED_MAX) <= 0
+            ? current.maxInFlight << 1
+            : UNSIGNED_MAX;
+      }
+      return new Window(
+          subtractFloored(current.amountInFlight, amount), maxInFlight, current.avoidCongestion,
+          current.maxPacketAmount, current.hasMaxPacketAmount
+      );
+    });
+  }
+
+  @Override
+  public void reject(final UnsignedLong prepareAmount, final InterledgerRejectPacket rejectPacket) {
+    Objects.requireNonNull(prepareAmount);
+    Objects.requireNonNull(rejectPacket);
+    final long amount = prepareAmount.longValue();
+
+    switch (rejectPacket.getCode().getCode()) {
+      case T04_INSUFFICIENT_LIQUIDITY_CODE: {
+        final Window updated = window.updateAndGet(current -> {
+          final long maxInFlight = Long.divideUnsigned(current.maxInFlight, decreaseFactor);
+          return new Window(
+              subtractFloored(current.amountInFlight, amount), maxInFlight == 0 ? 1 : maxInFlight, true,
+              current.maxPacketAmount, current.hasMaxPacketAmount
+          );
+        });
+        logger.debug("For Congestion control purposes, handled T04 rejection. amountInFlight={} maxInFlight={}",
+            Long.toUnsignedString(updated.amountInFlight), Long.toUnsignedString(updated.maxInFlight)
+        );
+        break;
+      }
+      case InterledgerErrorCode.F08_AMOUNT_TOO_LARGE_CODE: {
+        // Decode the reject data once, outside of the compare-and-set loop.
+        final long newMaxPacketAmount = CongestionMath.f08MaxPacketAmount(amount, rejectPacket, streamCodecContext);
+        final Window updated = window.updateAndGet(current -> new Window(
+            subtractFloored(current.amountInFlight, amount), current.maxInFlight, current.avoidCongestion,
+            current.hasMaxPacketAmount && Long.compareUnsigned(current.maxPacketAmount, newMaxPacketAmount) < 0
+                ? current.maxPacketAmount
+                : newMaxPacketAmount,
+            true
+        ));
+        // Actual packet data is logged by the StreamSender, so no need to log packet details here.
+        logger.debug("For Congestion control purposes, handled F08 rejection. amountInFlight={} maxPacketAmount={}",
+            Long.toUnsignedString(updated.amountInFlight), Long.toUnsignedString(updated.maxPacketAmount)
+        );
+        break;
+      }
+      default: {
+        window.updateAndGet(current -> current.withAmountInFlight(subtractFloored(current.amountInFlight, amount)));
+        // No special treatment for unhandled errors, but warn just in case we start to see a lot of them.
+        logger.warn("For Congestion control purposes, ignoring unhandled packet rejection ({}: {}).",
+            rejectPacket.getCode().getCode(), rejectPacket.getCode().getName()
+        );
+      }
+    }
+  }
+
+  @Override
+  public CongestionState getCongestionState() {
+    return window.get().avoidCongestion ? CongestionState.AVOID_CONGESTION : CongestionState.SLOW_START;
+  }
+
+  @Override
+  public Optional<UnsignedLong> getMaxPacketAmount() {
+    final Window current = window.get();
+    return current.hasMaxPacketAmount
+        ? Optional.of(UnsignedLong.fromLongBits(current.maxPacketAmount))
+        : Optional.empty();
+  }
+
+  @Override
+  public boolean hasInFlight() {
+    return window.get().amountInFlight != 0;
+  }
+
+  /**
+   * An immutable snapshot of the state of a congestion controller. All amounts are unsigned.
+   */
+  private static final class Window {
+
+    private final long amountInFlight;
+    private final long maxInFlight;
+    private final boolean avoidCongestion;
+    private final long maxPacketAmount;
+    private final boolean hasMaxPacketAmount;
+
+    private Window(
+        final long amountInFlight,
+        final long maxInFlight,
+        final boolean avoidCongestion,
+        final long maxPacketAmount,
+        final boolean hasMaxPacketAmount
+    ) {
+      this.amountInFlight = amountInFlight;
+      this.maxInFlight = maxInFlight;
+      this.avoidCongestion = avoidCongestion;
+      this.maxPacketAmount = maxPacketAmount;
+      this.hasMaxPacketAmount = hasMaxPacketAmount;
+    }
+
+    private Window withAmountInFlight(final long amountInFlight) {
+      return new Window(amountInFlight, maxInFlight, avoidCongestion, maxPacketAmount, hasMaxPacketAmount);
+    }
+
+    /**
+     * The amount left in the window, limited by the maximum packet amount.
+     */
+    private long maxAmount() {
+      final long amountLeftInWindow = subtractFloored(maxInFlight, amountInFlight);
+      return hasMaxPacketAmount && Long.compareUnsigned(maxPacketAmount, amountLeftInWindow) < 0
+          ? maxPacketAmount
+          : amountLeftInWindow;
+    }
+  }
+}
@@ -0,0 +1,183 @@
+package org.interledger.stream.sender;
+
+import org.interledger.stream.Denomination;
+import org.interledger.stream.PrepareAmounts;
+import org.interledger.stream.SenderAmountPaymentTracker;
+import org.interledger.stream.calculators.ExchangeRateCalculator;
+import org.interledger.stream.calculators.NoOpExchangeRateCalculator;
+
+import com.google.common.primitives.UnsignedLong;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * <p>An implementation of {@link SenderAmountPaymentTracker} that sends a fixed amount, denominated in the sender's
+ * units, like {@link FixedSenderAmountPaymentTracker}. It is meant for payments whose packets are completed by many
+ * threads at once.</p>
+ *
+ * <p>The amounts are kept in primitive {@code long} fields, which hold unsigned values, and are updated with
+ * compare-and-set loops, so updating an amount does not allocate. Every amount that was authorized is either in flight,
+ * or was committed or rolled back, so {@code amountLeftToSend + amountInFlight + sentAmount == amountToSend}. An
+ * authorization therefore only needs to take its amount from {@code amountLeftToSend} with a single compare-and-set,
+ * and never sends more than {@code amountToSend} in total.</p>
+ *
+ * <p>Additions are checked for unsigned overflow. {@code amountLeftToSend} never exceeds {@code amountToSend}, even if
+ * an amount is rolled back twice, and the delivered amount stops at {@link UnsignedLong#MAX_VALUE}.</p>
+ */
+@ThreadSafe
+public class AtomicFixedSenderAmountPaymentTracker implements SenderAmountPaymentTracker {
+
+  private static final AtomicLongFieldUpdater<AtomicFixedSenderAmountPaymentTracker> AMOUNT_LEFT_TO_SEND =
+      AtomicLongFieldUpdater.newUpdater(AtomicFixedSenderAmountPaymentTracker.class, "amountLeftToSend");
+  private static final AtomicLongFieldUpdater<AtomicFixedSenderAmountPaymentTracker> SENT_AMOUNT =
+      AtomicLongFieldUpdater.newUpdater(AtomicFixedSenderAmountPaymentTracker.class, "sentAmount");
+  private static final AtomicLongFieldUpdater<AtomicFixedSenderAmountPaymentTracker> DELIVERED_AMOUNT =
+      AtomicLongFieldUpdater.newUpdater(AtomicFixedSenderAmountPaymentTracker.class, "deliveredAmount");
+
+  // The original amount, in sender's units, to send
+  private final UnsignedLong amountToSend;
+  private final ExchangeRateCalculator rateCalculator;
+
+  // The amount, in sender's units, that is neither in flight nor sent.
+  private volatile long amountLeftToSend;
+  // The amount, in sender's units, that was sent.
+  private volatile long sentAmount;
+  // The amount, in receiver's units, that was actually delivered to the receiver.
+  private volatile long deliveredAmount;
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param amountToSend An {@link UnsignedLong} representing the amount to send to the receiver, denominated in the
+   *                     sender's units.
+   */
+  public AtomicFixedSenderAmountPaymentTracker(final UnsignedLong amountToSend) {
+    this(amountToSend, new NoOpExchangeRateCalculator());
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param amountToSend   An {@link UnsignedLong} representing the amount to send, in the sender's units.
+   * @param rateCalculator An {@link ExchangeRateCalculator} that informs this tracker which amounts to use is
+   *                       subsequent operations, depending on market exchange rates, observed path rates, and possibly
+   *                       other data.
+   */
+  public AtomicFixedSenderAmountPaymentTracker(
+      final UnsignedLong amountToSend, final ExchangeRateCalculator rateCalculator
+  ) {
+    this.amountToSend = Objects.requireNonNull(amountToSend);
+    this.rateCalculator = Objects.requireNonNull(rateCalculator);
+    this.amountLeftToSend = amountToSend.longValue();
+  }
+
+  @Override
+  public UnsignedLong getOriginalAmount() {
+    return amountToSend;
+  }
+
+  @Override
+  public UnsignedLong getOriginalAmountLeft() {
+    return UnsignedLong.fromLongBits(amountLeftToSend);
+  }
+
+  @Override
+  public UnsignedLong getDeliveredAmountInSenderUnits() {
+    return UnsignedLong.fromLongBits(sentAmount);
+  }
+
+  @Override
+  public UnsignedLong getDeliveredAmountInReceiverUnits() {
+    return UnsignedLong.fromLongBits(deliveredAmount);
+  }
+
+  @Override
+  public PrepareAmounts getSendPacketAmounts(
+      final UnsignedLong congestionLimit,
+      final Denomination senderDenomination,
+      final Optional<Denomination> receiverDenomination
+  ) {
+    Objects.requireNonNull(congestionLimit);
+    Objects.requireNonNull(senderDenomination);
+    Objects.requireNonNull(receiverDenomination);
+
+    final long amountLeft = amountLeftToSend;
+    final UnsignedLong packetAmountToSend = Long.compareUnsigned(amountLeft, congestionLimit.longValue()) < 0
+        ? UnsignedLong.fromLongBits(amountLeft)
+        : congestionLimit;
+    return PrepareAmounts.builder()
+        .minimumAmountToAccept(
+            rateCalculator.calculateMinAmountToAccept(packetAmountToSend, senderDenomination, receiverDenomination))
+        .amountToSend(packetAmountToSend)
+        .build();
+  }
+
+  @Override
+  public boolean auth(final PrepareAmounts prepareAmounts) {
+    Objects.requireNonNull(prepareAmounts);
+    final long amount = prepareAmounts.getAmountToSend().longValue();
+
+    long amountLeft;
+    do {
+      amountLeft = amountLeftToSend;
+      if (Long.compareUnsigned(amountLeft, amount) < 0) {
+        return false;
+      }
+    } while (!AMOUNT_LEFT_TO_SEND.compareAndSet(this, amountLeft, amountLeft - amount));
+    return true;
+  }
+
+  @Override
+  public void rollback(final PrepareAmounts prepareAmounts, final boolean packetRejected) {
+    Objects.requireNonNull(prepareAmounts);
+    final long amount = prepareAmounts.getAmountToSend().longValue();
+    final long limit = amountToSend.longValue();
+
+    long amountLeft;
+    long updated;
+    do {
+      amountLeft = amountLeftToSend;
+      updated = amountLeft + amount;
+      // Overflow, or more than was ever authorized: don't let the tracker send more than the original amount.
+      if (Long.compareUnsigned(updated, amountLeft) < 0 || Long.compareUnsigned(updated, limit) > 0) {
+        updated = limit;
+      }
+    } while (!AMOUNT_LEFT_TO_SEND.compareAndSet(this, amountLeft, updated));
+  }
+
+  @Override
+  public void commit(final PrepareAmounts prepareAmounts, final UnsignedLong deliveredAmount) {
+    Objects.requireNonNull(prepareAmounts);
+    Objects.requireNonNull(deliveredAmount);
+    addSaturated(DELIVERED_AMOUNT, deliveredAmount.longValue());
+    addSaturated(SENT_AMOUNT, prepareAmounts.getAmountToSend().longValue());
+  }
+
+  /**
+   * Add {@code amount} to the field of {@code updater}, as unsigned values. A sum that does not fit in 64 bits is
+   * replaced by {@link UnsignedLong#MAX_VALUE}.
+   */
+  private void addSaturated(
+      final AtomicLongFieldUpdater<AtomicFixedSenderAmountPaymentTracker> updater, final long amount
+  ) {
+    long current;
+    long updated;
+    do {
+      current = updater.get(this);
+      updated = current + amount;
+      if (Long.compareUnsigned(updated, current) < 0) {
+        updated = UnsignedLong.MAX_VALUE.longValue();
+      }
+    } while (!updater.compareAndSet(this, current, updated));
+  }
+
+  @Override
+  public boolean moreToSend() {
+    return Long.compareUnsigned(sentAmount, amountToSend.longValue()) < 0;
+  }
+
+}
@@ -5,6 +5,7 @@ import org.interledger.stream.sender.AimdCongestionController.CongestionState;
 
 import com.google.common.primitives.UnsignedLong;
 
+import java.time.Duration;
 import java.util.Optional;
 
 /**
@@ -29,6 +30,18 @@ public interface CongestionController {
    */
   void fulfill(final UnsignedLong prepareAmount);
 
+  /**
+   * Allows an external process to inform this controller that a packet has been fulfilled, and how long the packet took
+   * from being sent to being fulfilled. Controllers that do not use round-trip times treat this like {@link
+   * #fulfill(UnsignedLong)}.
+   *
+   * @param prepareAmount A {@link UnsignedLong} indicating the amount that was fulfilled.
+   * @param roundTripTime A {@link Duration} between sending the Prepare packet and receiving its Fulfill packet.
+   */
+  default void fulfill(final UnsignedLong prepareAmount, final Duration roundTripTime) {
+    fulfill(prepareAmount);
+  }
+
   /**
    * Allows an external process to inform this controller that a packet has been rejected.
    *
@@ -0,0 +1,48 @@
+package org.interledger.stream.sender;
+
+import org.interledger.stream.SendMoneyRequest;
+
+/**
+ * Creates the {@link CongestionController} for each payment that a {@link StreamSender} sends. A controller holds the
+ * state of one payment, so a factory must return a new controller for every call.
+ */
+@FunctionalInterface
+public interface CongestionControllerFactory {
+
+  /**
+   * A factory of {@link AimdCongestionController}s with their default settings, which is what the senders in this
+   * package use unless they are given another factory.
+   *
+   * @return A {@link CongestionControllerFactory}.
+   */
+  static CongestionControllerFactory aimd() {
+    return request -> new AimdCongestionController();
+  }
+
+  /**
+   * A factory of {@link AtomicAimdCongestionController}s with their default settings.
+   *
+   * @return A {@link CongestionControllerFactory}.
+   */
+  static CongestionControllerFactory atomicAimd() {
+    return request -> new AtomicAimdCongestionController();
+  }
+
+  /**
+   * A factory of {@link LatencyAwareCongestionController}s with their default settings.
+   *
+   * @return A {@link CongestionControllerFactory}.
+   */
+  static CongestionControllerFactory latencyAware() {
+    return request -> new LatencyAwareCongestionController();
+  }
+
+  /**
+   * Create a new {@link CongestionController} for a payment.
+   *
+   * @param request The {@link SendMoneyRequest} of the payment that the controller is for.
+   *
+   * @return A new {@link CongestionController}.
+   */
+  CongestionController newCongestionController(SendMoneyRequest request);
+}
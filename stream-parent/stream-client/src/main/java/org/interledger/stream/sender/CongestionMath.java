@@ -0,0 +1,101 @@
+package org.interledger.stream.sender;
+
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.stream.AmountTooLargeErrorData;
+
+import com.google.common.primitives.UnsignedLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+
+/**
+ * Arithmetic on amounts that are held in primitive {@code long}s as unsigned 64-bit values, shared by the congestion
+ * controllers that keep their state in primitives.
+ */
+final class CongestionMath {
+
+  static final long UNSIGNED_MAX = UnsignedLong.MAX_VALUE.longValue();
+
+  private static final Logger logger = LoggerFactory.getLogger(CongestionMath.class);
+
+  private CongestionMath() {
+  }
+
+  /**
+   * Compute the maximum packet amount that an F08 rejection allows, in the same way as {@link
+   * AimdCongestionController#handleF08Rejection}, but before it is combined with the current maximum packet amount.
+   *
+   * @param prepareAmount      The amount of the rejected Prepare packet, as an unsigned {@code long}.
+   * @param rejectPacket       The {@link InterledgerRejectPacket} that was returned from the immediate peer.
+   * @param streamCodecContext A {@link CodecContext} that can read {@link AmountTooLargeErrorData}.
+   *
+   * @return The new maximum packet amount, as an unsigned {@code long}.
+   */
+  static long f08MaxPacketAmount(
+      final long prepareAmount, final InterledgerRejectPacket rejectPacket, final CodecContext streamCodecContext
+  ) {
+    if (rejectPacket.getData().length == 0) {
+      logger.warn("F08 Reject packet had no data payload. Setting newMaxPacketAmount to be half the prepare amount.");
+      return halve(prepareAmount);
+    }
+    try {
+      final AmountTooLargeErrorData amountTooLargeErrorData =
+          streamCodecContext.read(AmountTooLargeErrorData.class, new ByteArrayInputStream(rejectPacket.getData()));
+      final long receivedAmount = amountTooLargeErrorData.receivedAmount().longValue();
+      if (receivedAmount == 0) {
+        return halve(prepareAmount);
+      }
+      // new_max_packet_amount = prepare_amount * details.max_amount() / details.amount_received();
+      return multiplyDivide(prepareAmount, amountTooLargeErrorData.maximumAmount().longValue(), receivedAmount);
+    } catch (Exception e) {
+      // log a warning, but otherwise eat this exception. We'll continue on using default reduction values.
+      logger.warn("Unable to decode AmountTooLargeErrorData from F08 Reject packet. Setting newMaxPacketAmount to be "
+          + "half the prepare amount. rejectPacket={} error={}", rejectPacket, e
+      );
+      return halve(prepareAmount);
+    }
+  }
+
+  /**
+   * Compute {@code value * multiplier / divisor}, rounded down, for unsigned values.
+   *
+   * @return The quotient, or {@link #UNSIGNED_MAX} if it does not fit in 64 bits.
+   */
+  static long multiplyDivide(final long value, final long multiplier, final long divisor) {
+    final boolean productFits = value == 0
+        || Long.compareUnsigned(multiplier, Long.divideUnsigned(UNSIGNED_MAX, value)) <= 0;
+    if (productFits) {
+      return Long.divideUnsigned(value * multiplier, divisor);
+    }
+    // The product does not fit in 64 bits, which only happens for huge amounts.
+    final BigInteger quotient = UnsignedLong.fromLongBits(value).bigIntegerValue()
+        .multiply(UnsignedLong.fromLongBits(multiplier).bigIntegerValue())
+        .divide(UnsignedLong.fromLongBits(divisor).bigIntegerValue());
+    return quotient.bitLength() > Long.SIZE ? UNSIGNED_MAX : quotient.longValue();
+  }
+
+  static long halve(final long amount) {
+    final long half = amount >>> 1;
+    return half == 0 ? 1 : half;
+  }
+
+  static long addSaturated(final long augend, final long addend) {
+    final long sum = augend + addend;
+    return Long.compareUnsigned(sum, augend) < 0 ? UNSIGNED_MAX : sum;
+  }
+
+  static long subtractFloored(final long minuend, final long subtrahend) {
+    return Long.compareUnsigned(minuend, subtrahend) < 0 ? 0 : minuend - subtrahend;
+  }
+
+  static long minUnsigned(final long first, final long second) {
+    return Long.compareUnsigned(first, second) <= 0 ? first : second;
+  }
+
+  static long maxUnsigned(final long first, final long second) {
+    return Long.compareUnsigned(first, second) >= 0 ? first : second;
+  }
+}
@@ -0,0 +1,320 @@
+package org.interledger.stream.sender;
+
+import static org.interledger.core.InterledgerErrorCode.T04_INSUFFICIENT_LIQUIDITY_CODE;
+import static org.interledger.stream.sender.CongestionMath.addSaturated;
+import static org.interledger.stream.sender.CongestionMath.maxUnsigned;
+import static org.interledger.stream.sender.CongestionMath.minUnsigned;
+import static org.interledger.stream.sender.CongestionMath.multiplyDivide;
+import static org.interledger.stream.sender.CongestionMath.subtractFloored;
+
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.core.InterledgerErrorCode;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.stream.sender.AimdCongestionController.CongestionState;
+
+import com.google.common.base.Ticker;
+import com.google.common.primitives.UnsignedLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * <p>A congestion controller that sizes its window from the amount that the path delivers per round trip, in the
+ * spirit of BBR, instead of from the number of fulfilled packets.</p>
+ *
+ * <p>Every {@link #fulfill(UnsignedLong, Duration)} updates a smoothed round-trip time. Fulfilled amounts are counted
+ * in rounds that last one smoothed round trip, and each round yields a sample of the amount delivered per round trip,
+ * which is never more than the most that was in flight during the round. The bottleneck amount is the largest sample
+ * of the last {@value #BOTTLENECK_ROUNDS} rounds.</p>
+ *
+ * <ul>
+ *   <li>In slow start, every fulfilled amount is added to the window, which doubles it once per round trip. Slow start
+ *   ends at the first T04 rejection, or once the bottleneck amount has grown by less than a quarter for {@value
+ *   #FULL_PIPE_ROUNDS} rounds.</li>
+ *   <li>After slow start, the window is the bottleneck amount times a gain that cycles through 5/4, 3/4 and six rounds
+ *   of 1, so that the window probes for more liquidity and then drains what the probe queued.</li>
+ *   <li>A T04 rejection lowers the window to the bottleneck amount, or to the amount still in flight if that is more.
+ *   If the window is already that low, the window and the bottleneck amount are lowered to {@value
+ *   #LOSS_DECREASE_TENTHS}/10 of the window. Either happens at most once per round trip, so a burst of T04 rejections
+ *   from one overshoot only shrinks the window once.</li>
+ *   <li>F08 rejections lower the maximum packet amount like {@link AimdCongestionController} does.</li>
+ * </ul>
+ *
+ * <p>{@link #fulfill(UnsignedLong)} carries no round-trip time, so a sender that only calls it keeps this controller
+ * in slow start until the first T04 rejection. Both senders in this package report round-trip times.</p>
+ */
+@ThreadSafe
+public class LatencyAwareCongestionController implements CongestionController {
+
+  /**
+   * The number of rounds whose samples the bottleneck amount is the maximum of.
+   */
+  static final int BOTTLENECK_ROUNDS = 10;
+
+  /**
+   * The number of rounds without growth of the bottleneck amount that end slow start.
+   */
+  static final int FULL_PIPE_ROUNDS = 3;
+
+  /**
+   * The share, in tenths, of the window that a T04 rejection lowers the window and the bottleneck amount to when the
+   * window is already at the bottleneck amount. This is the loss response of BBRv2, and is gentler than halving.
+   */
+  static final int LOSS_DECREASE_TENTHS = 7;
+
+  /**
+   * The window gain of each round after slow start, in quarters.
+   */
+  private static final int[] PROBE_GAIN_QUARTERS = {5, 3, 4, 4, 4, 4, 4, 4};
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final CodecContext streamCodecContext;
+  private final Ticker ticker;
+
+  // All amounts are unsigned.
+  @GuardedBy("this")
+  private long amountInFlight;
+  @GuardedBy("this")
+  private long maxInFlight;
+  @GuardedBy("this")
+  private boolean slowStart = true;
+  @GuardedBy("this")
+  private long maxPacketAmount;
+  @GuardedBy("this")
+  private boolean hasMaxPacketAmount;
+
+  @GuardedBy("this")
+  private long smoothedRttNanos;
+  @GuardedBy("this")
+  private final long[] bottleneckSamples = new long[BOTTLENECK_ROUNDS];
+  @GuardedBy("this")
+  private long round;
+  @GuardedBy("this")
+  private long roundStartNanos;
+  @GuardedBy("this")
+  private long deliveredInRound;
+  @GuardedBy("this")
+  private long peakInFlightInRound;
+  @GuardedBy("this")
+  private long fullPipeBottleneck;
+  @GuardedBy("this")
+  private int roundsWithoutGrowth;
+  @GuardedBy("this")
+  private boolean reducedBefore;
+  @GuardedBy("this")
+  private long lastReductionNanos;
+
+  public LatencyAwareCongestionController() {
+    this(UnsignedLong.valueOf(1000L), StreamCodecContextFactory.oer(), Ticker.systemTicker());
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param startAmount        An {@link UnsignedLong} representing the maximum amount in flight to start a STREAM at.
+   * @param streamCodecContext A {@link CodecContext} for encoding and decoding STREAM packets and frames.
+   * @param ticker             A {@link Ticker} that measures the length of rounds.
+   */
+  public LatencyAwareCongestionController(
+      final UnsignedLong startAmount, final CodecContext streamCodecContext, final Ticker ticker
+  ) {
+    this.maxInFlight = Objects.requireNonNull(startAmount, "startAmount must not be null").longValue();
+    this.streamCodecContext = Objects.requireNonNull(streamCodecContext, "streamCodecContext must not be null");
+    this.ticker = Objects.requireNonNull(ticker, "ticker must not be null");
+    this.roundStartNanos = ticker.read();
+  }
+
+  @Override
+  public synchronized UnsignedLong getMaxAmount() {
+    final long amountLeftInWindow = subtractFloored(maxInFlight, amountInFlight);
+    return UnsignedLong.fromLongBits(
+        hasMaxPacketAmount ? minUnsigned(amountLeftInWindow, maxPacketAmount) : amountLeftInWindow
+    );
+  }
+
+  @Override
+  public synchronized void prepare(final UnsignedLong amount) {
+    Objects.requireNonNull(amount);
+    amountInFlight = addSaturated(amountInFlight, amount.longValue());
+    peakInFlightInRound = maxUnsigned(peakInFlightInRound, amountInFlight);
+  }
+
+  @Override
+  public void fulfill(final UnsignedLong prepareAmount) {
+    Objects.requireNonNull(prepareAmount);
+    onFulfill(prepareAmount.longValue(), 0);
+  }
+
+  @Override
+  public void fulfill(final UnsignedLong prepareAmount, final Duration roundTripTime) {
+    Objects.requireNonNull(prepareAmount);
+    Objects.requireNonNull(roundTripTime);
+    // A round trip is never shorter than a nanosecond, which keeps rounds from being empty.
+    onFulfill(prepareAmount.longValue(), Math.max(1L, roundTripTime.toNanos()));
+  }
+
+  private synchronized void onFulfill(final long amount, final long rttNanos) {
+    final long now = ticker.read();
+    amountInFlight = subtractFloored(amountInFlight, amount);
+
+    if (rttNanos > 0) {
+      // The same smoothing as TCP: srtt = 7/8 srtt + 1/8 rtt.
+      smoothedRttNanos = smoothedRttNanos == 0 ? rttNanos : smoothedRttNanos + (rttNanos - smoothedRttNanos) / 8;
+    }
+    deliveredInRound = addSaturated(deliveredInRound, amount);
+    if (smoothedRttNanos > 0 && now - roundStartNanos >= smoothedRttNanos) {
+      endRound(now);
+    }
+
+    if (slowStart) {
+      // Adding every fulfilled amount doubles the window once per round trip.
+      maxInFlight = addSaturated(maxInFlight, amount);
+    } else {
+      maxInFlight = probeWindow();
+    }
+  }
+
+  @GuardedBy("this")
+  private void endRound(final long now) {
+    // Normalize to one round trip, because a round ends with the first fulfill after a round trip has passed. Jitter
+    // can bunch fulfills into a short round, but no round trip delivers more than was in flight.
+    final long sample = minUnsigned(
+        multiplyDivide(deliveredInRound, smoothedRttNanos, now - roundStartNanos), peakInFlightInRound
+    );
+    bottleneckSamples[(int) (round % BOTTLENECK_ROUNDS)] = sample;
+    round++;
+    roundStartNanos = now;
+    deliveredInRound = 0;
+    peakInFlightInRound = amountInFlight;
+
+    if (slowStart) {
+      final long bottleneckAmount = bottleneckAmount();
+      if (Long.compareUnsigned(bottleneckAmount, addSaturated(fullPipeBottleneck, fullPipeBottleneck >>> 2)) >= 0) {
+        fullPipeBottleneck = bottleneckAmount;
+        roundsWithoutGrowth = 0;
+      } else if (++roundsWithoutGrowth >= FULL_PIPE_ROUNDS) {
+        slowStart = false;
+        logger.debug("For Congestion control purposes, left slow start. bottleneckAmount={}",
+            Long.toUnsignedString(bottleneckAmount)
+        );
+      }
+    }
+  }
+
+  @GuardedBy("this")
+  private long bottleneckAmount() {
+    long bottleneckAmount = 0;
+    for (long sample : bottleneckSamples) {
+      bottleneckAmount = maxUnsigned(bottleneckAmount, sample);
+    }
+    return bottleneckAmount;
+  }
+
+  /**
+   * The window of the current round after slow start, or the current window if no round has ended yet.
+   */
+  @GuardedBy("this")
+  private long probeWindow() {
+    final long bottleneckAmount = bottleneckAmount();
+    if (bottleneckAmount == 0) {
+      return maxInFlight;
+    }
+    final long window = multiplyDivide(
+        bottleneckAmount, PROBE_GAIN_QUARTERS[(int) (round % PROBE_GAIN_QUARTERS.length)], 4
+    );
+    return window == 0 ? 1 : window;
+  }
+
+  @Override
+  public synchronized void reject(final UnsignedLong prepareAmount, final InterledgerRejectPacket rejectPacket) {
+    Objects.requireNonNull(prepareAmount);
+    Objects.requireNonNull(rejectPacket);
+    final long amount = prepareAmount.longValue();
+    amountInFlight = subtractFloored(amountInFlight, amount);
+
+    switch (rejectPacket.getCode().getCode()) {
+      case T04_INSUFFICIENT_LIQUIDITY_CODE: {
+        slowStart = false;
+        final long now = ticker.read();
+        if (reducedBefore && now - lastReductionNanos < smoothedRttNanos) {
+          // Already reduced for this round trip.
+          break;
+        }
+        reducedBefore = true;
+        lastReductionNanos = now;
+
+        long window = maxUnsigned(bottleneckAmount(), amountInFlight);
+        if (Long.compareUnsigned(window, maxInFlight) >= 0) {
+          // The window is already at the estimate, so the estimate is too high.
+          window = multiplyDivide(maxInFlight, LOSS_DECREASE_TENTHS, 10);
+          for (int i = 0; i < bottleneckSamples.length; i++) {
+            bottleneckSamples[i] = minUnsigned(bottleneckSamples[i], window);
+          }
+        }
+        maxInFlight = window == 0 ? 1 : window;
+
+        logger.debug("For Congestion control purposes, handled T04 rejection. amountInFlight={} maxInFlight={}",
+            Long.toUnsignedString(amountInFlight), Long.toUnsignedString(maxInFlight)
+        );
+        break;
+      }
+      case InterledgerErrorCode.F08_AMOUNT_TOO_LARGE_CODE: {
+        final long newMaxPacketAmount = CongestionMath.f08MaxPacketAmount(amount, rejectPacket, streamCodecContext);
+        maxPacketAmount = hasMaxPacketAmount ? minUnsigned(maxPacketAmount, newMaxPacketAmount) : newMaxPacketAmount;
+        hasMaxPacketAmount = true;
+        // Actual packet data is logged by the StreamSender, so no need to log packet details here.
+        logger.debug("For Congestion control purposes, handled F08 rejection. amountInFlight={} maxPacketAmount={}",
+            Long.toUnsignedString(amountInFlight), Long.toUnsignedString(maxPacketAmount)
+        );
+        break;
+      }
+      default: {
+        // No special treatment for unhandled errors, but warn just in case we start to see a lot of them.
+        logger.warn("For Congestion control purposes, ignoring unhandled packet rejection ({}: {}).",
+            rejectPacket.getCode().getCode(), rejectPacket.getCode().getName()
+        );
+      }
+    }
+  }
+
+  /**
+   * The estimated amount that the path delivers per round trip.
+   *
+   * @return An {@link UnsignedLong}, which is zero until the first round has ended.
+   */
+  public synchronized UnsignedLong getBottleneckAmount() {
+    return UnsignedLong.fromLongBits(bottleneckAmount());
+  }
+
+  /**
+   * The smoothed round-trip time of fulfilled packets.
+   *
+   * @return A {@link Duration}, or empty if no round-trip time has been reported.
+   */
+  public synchronized Optional<Duration> getSmoothedRoundTripTime() {
+    return smoothedRttNanos == 0 ? Optional.empty() : Optional.of(Duration.ofNanos(smoothedRttNanos));
+  }
+
+  @Override
+  public synchronized CongestionState getCongestionState() {
+    return slowStart ? CongestionState.SLOW_START : CongestionState.AVOID_CONGESTION;
+  }
+
+  @Override
+  public synchronized Optional<UnsignedLong> getMaxPacketAmount() {
+    return hasMaxPacketAmount ? Optional.of(UnsignedLong.fromLongBits(maxPacketAmount)) : Optional.empty();
+  }
+
+  @Override
+  public synchronized boolean hasInFlight() {
+    return amountInFlight != 0;
+  }
+}
@@ -0,0 +1,104 @@
+package org.interledger.stream.sender;
+
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerAddressPrefix;
+import org.interledger.stream.Denomination;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Remembers the {@link Denomination} of STREAM receivers, so that a {@link StreamSender} does not need a preflight
+ * round trip to learn it for every payment to the same receiver.</p>
+ *
+ * <p>Denominations are keyed by the prefix of the destination address, which is the address of the receiver for the
+ * destination addresses that SPSP hands out ({@code receiver address + "." + connection tag}). A destination address
+ * whose prefix is only an allocation scheme, such as {@code g.alice}, is a receiver of its own and keyed by the whole
+ * address, so that it does not share a denomination with every other receiver in that scheme. Each denomination is
+ * kept for a limited time after the receiver last reported it, and is dropped when a packet to the receiver is rejected
+ * for a reason other than the liquidity or the maximum packet amount of the path, because the receiver may have
+ * changed.</p>
+ */
+public class ReceiverDenominationCache {
+
+  @VisibleForTesting
+  static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+  @VisibleForTesting
+  static final Duration DEFAULT_EXPIRE_AFTER_WRITE = Duration.ofMinutes(5);
+
+  private final Cache<InterledgerAddressPrefix, Denomination> denominations;
+
+  /**
+   * No-args Constructor. Caches the denominations of up to {@link #DEFAULT_MAXIMUM_SIZE} receivers, each for {@link
+   * #DEFAULT_EXPIRE_AFTER_WRITE} after the receiver last reported it.
+   */
+  public ReceiverDenominationCache() {
+    this(DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_WRITE);
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param maximumSize       The maximum number of receivers to cache a denomination for.
+   * @param expireAfterWrite  How long to keep the denomination of a receiver after the receiver last reported it.
+   */
+  public ReceiverDenominationCache(final long maximumSize, final Duration expireAfterWrite) {
+    this(maximumSize, expireAfterWrite, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  ReceiverDenominationCache(final long maximumSize, final Duration expireAfterWrite, final Ticker ticker) {
+    Objects.requireNonNull(expireAfterWrite, "expireAfterWrite must not be null");
+    Objects.requireNonNull(ticker, "ticker must not be null");
+    this.denominations = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWrite.toMillis(), TimeUnit.MILLISECONDS)
+        .ticker(ticker)
+        .build();
+  }
+
+  /**
+   * Look up the denomination of the receiver of {@code destinationAddress}.
+   *
+   * @param destinationAddress The {@link InterledgerAddress} that a payment is sent to.
+   *
+   * @return The {@link Denomination} that the receiver last reported, or {@link Optional#empty()} if it is not known.
+   */
+  public Optional<Denomination> get(final InterledgerAddress destinationAddress) {
+    return Optional.ofNullable(denominations.getIfPresent(toKey(destinationAddress)));
+  }
+
+  /**
+   * Remember the denomination that the receiver of {@code destinationAddress} reported.
+   *
+   * @param destinationAddress The {@link InterledgerAddress} that a payment is sent to.
+   * @param denomination       The {@link Denomination} of the receiver.
+   */
+  public void put(final InterledgerAddress destinationAddress, final Denomination denomination) {
+    Objects.requireNonNull(denomination);
+    denominations.put(toKey(destinationAddress), denomination);
+  }
+
+  /**
+   * Forget the denomination of the receiver of {@code destinationAddress}.
+   *
+   * @param destinationAddress The {@link InterledgerAddress} that a payment is sent to.
+   */
+  public void invalidate(final InterledgerAddress destinationAddress) {
+    denominations.invalidate(toKey(destinationAddress));
+  }
+
+  private InterledgerAddressPrefix toKey(final InterledgerAddress destinationAddress) {
+    final InterledgerAddressPrefix prefix = Objects.requireNonNull(destinationAddress).getPrefix();
+    // A prefix of a single segment is the allocation scheme, which is shared by all receivers in it.
+    return prefix.getValue().indexOf('.') < 0 ? InterledgerAddressPrefix.from(destinationAddress) : prefix;
+  }
+}
@@ -2,7 +2,6 @@ package org.interledger.stream.sender;
 
 import static org.interledger.core.InterledgerErrorCode.F08_AMOUNT_TOO_LARGE_CODE;
 import static org.interledger.core.InterledgerErrorCode.T04_INSUFFICIENT_LIQUIDITY_CODE;
-import static org.interledger.stream.StreamUtils.generatedFulfillableFulfillment;
 
 import org.interledger.codecs.stream.StreamCodecContextFactory;
 import org.interledger.core.DateUtils;
@@ -27,19 +26,24 @@ import org.interledger.stream.SendMoneyResult;
 import org.interledger.stream.StreamConnection;
 import org.interledger.stream.StreamConnectionClosedException;
 import org.interledger.stream.StreamConnectionId;
+import org.interledger.stream.StreamDataOutputChannel;
 import org.interledger.stream.StreamPacket;
-import org.interledger.stream.crypto.JavaxStreamEncryptionService;
+import org.interledger.stream.crypto.CachingStreamEncryptionService;
+import org.interledger.stream.crypto.FulfillmentGenerator;
 import org.interledger.stream.crypto.StreamEncryptionService;
 import org.interledger.stream.frames.ConnectionAssetDetailsFrame;
 import org.interledger.stream.frames.ConnectionNewAddressFrame;
+import org.interledger.stream.frames.StreamDataFrame;
+import org.interledger.stream.frames.StreamDataMaxFrame;
 import org.interledger.stream.frames.StreamFrame;
 import org.interledger.stream.frames.StreamFrameType;
 import org.interledger.stream.frames.StreamMoneyFrame;
+import org.interledger.stream.sender.StreamMoneyMultiplexer.ShareResponse;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.primitives.UnsignedLong;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.immutables.value.Value.Derived;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,15 +57,16 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -69,8 +74,19 @@ import javax.annotation.concurrent.ThreadSafe;
  * <p>A simple implementation of {@link StreamSender} that opens a STREAM connection, sends money, and then closes the
  * connection, yielding a response.</p>
  *
- * <p>Note that this implementation does not currently support sending data, which is defined in the STREAM
- * protocol.</p>
+ * <p>By default, each payment sends its money on stream 1 of the connection in packets of its own. A sender built with
+ * {@link Builder#multiplexStreams(boolean)} instead opens a new stream for each payment, and combines the packets of
+ * concurrent payments to the same receiver into shared Prepare packets (see {@link StreamMoneyMultiplexer}).</p>
+ *
+ * <p>Each payment learns the denomination of the receiver from a preflight packet before it sends any money. A sender
+ * built with {@link Builder#receiverDenominationCache(ReceiverDenominationCache)} skips that round trip for receivers
+ * it already knows, and sends its connection and asset details on the first money packets instead.</p>
+ *
+ * <p>An application sends data to a receiver by writing it to the channel of {@link
+ * #openDataOutputChannel(InterledgerAddress, SharedSecret)}. The data is not sent on its own: each money packet of a
+ * payment on that connection carries the next segment, up to {@link #MAX_DATA_PER_PACKET} bytes, that the receiver's
+ * window allows. A segment is acknowledged once a packet that carried it is fulfilled with a {@code StreamDataMax}
+ * frame, and is sent again otherwise. Payments that are multiplexed do not carry data.</p>
  *
  * <p>Note that, per https://github.com/hyperledger/quilt/issues/242, as of the publication of this client,
  * connectors will reject ILP packets that exceed 32kb. This implementation does not overtly restrict the size of the
@@ -82,22 +98,40 @@ import javax.annotation.concurrent.ThreadSafe;
 @ThreadSafe
 public class SimpleStreamSender implements StreamSender {
 
+  /**
+   * The maximum number of data bytes in a single Prepare packet, which keeps each packet well below the 32kb that
+   * connectors accept.
+   */
+  public static final int MAX_DATA_PER_PACKET = 16_384;
+
   private final Link link;
   private final StreamEncryptionService streamEncryptionService;
+  private final FulfillmentGenerator fulfillmentGenerator;
   private final ExecutorService executorService;
+  private final ExecutorService paymentExecutor;
+  private final ScheduledExecutorService timeoutScheduler;
   private final StreamConnectionManager streamConnectionManager;
+  private final CongestionControllerFactory congestionControllerFactory;
+  private final boolean multiplexStreams;
+  /**
+   * The {@link StreamMoneyMultiplexer} of each connection that payments are sent on. Entries are held weakly, so that a
+   * multiplexer is collected once no payment uses it, and does not keep its connection in use after the {@link
+   * StreamConnectionManager} evicted it.
+   */
+  private final ConcurrentMap<StreamConnectionId, StreamMoneyMultiplexer> streamMoneyMultiplexers;
+  private final Optional<ReceiverDenominationCache> receiverDenominationCache;
 
   /**
-   * Required-args Constructor.
+   * Required-args Constructor. Payments run on {@link StreamSenderExecutor#shared()}.
    *
    * @param link A {@link Link} that is used to send ILPv4 packets to an immediate peer.
    */
   public SimpleStreamSender(final Link link) {
-    this(new JavaxStreamEncryptionService(), link);
+    this(new CachingStreamEncryptionService(), link);
   }
 
   /**
-   * Required-args Constructor.
+   * Required-args Constructor. Payments run on {@link StreamSenderExecutor#shared()}.
    *
    * @param streamEncryptionService An instance of {@link StreamEncryptionService} used to encrypt and decrypted
    *                                end-to-end STREAM packet data (i.e., packets that should only be visible between
@@ -105,11 +139,12 @@ public class SimpleStreamSender implements StreamSender {
    * @param link                    A {@link Link} that is used to send ILPv4 packets to an immediate peer.
    */
   public SimpleStreamSender(final StreamEncryptionService streamEncryptionService, final Link link) {
-    this(streamEncryptionService, link, newDefaultExecutor());
+    this(streamEncryptionService, link, StreamSenderExecutor.shared(), new StreamConnectionManager());
   }
 
   /**
-   * Required-args Constructor.
+   * Required-args Constructor. Packets are sent on {@code executorService}, and the send loops and timeouts of payments
+   * run on {@link StreamSenderExecutor#shared()}.
    *
    * @param streamEncryptionService An instance of {@link StreamEncryptionService} used to encrypt and decrypted
    *                                end-to-end STREAM packet data (i.e., packets that should only be visible between
@@ -124,58 +159,313 @@ public class SimpleStreamSender implements StreamSender {
   }
 
   /**
-   * Required-args Constructor.
+   * Required-args Constructor. Packets are sent on {@code executorService}, and the send loops and timeouts of payments
+   * run on {@link StreamSenderExecutor#shared()}.
    *
    * @param streamEncryptionService A {@link StreamEncryptionService} used to encrypt and decrypted end-to-end STREAM
    *                                packet data (i.e., packets that should only be visible between sender and
    *                                receiver).
    * @param link                    A {@link Link} that is used to send ILPv4 packets to an immediate peer.
    * @param executorService         A {@link ExecutorService} to run the payments.
-   * @param streamConnectionManager A {@link StreamConnectionManager} that manages connections for all senders and
-   *                                receivers in this JVM.
+   * @param streamConnectionManager A {@link StreamConnectionManager} that manages the connections of all senders that
+   *                                share it.
    */
   public SimpleStreamSender(
       final StreamEncryptionService streamEncryptionService,
       final Link link,
       final ExecutorService executorService,
       final StreamConnectionManager streamConnectionManager
+  ) {
+    this(
+        streamEncryptionService,
+        link,
+        executorService,
+        StreamSenderExecutor.shared().paymentExecutor(),
+        StreamSenderExecutor.shared().timeoutScheduler(),
+        streamConnectionManager,
+        CongestionControllerFactory.aimd(),
+        false,
+        Optional.empty()
+    );
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param streamEncryptionService A {@link StreamEncryptionService} used to encrypt and decrypted end-to-end STREAM
+   *                                packet data (i.e., packets that should only be visible between sender and
+   *                                receiver).
+   * @param link                    A {@link Link} that is used to send ILPv4 packets to an immediate peer.
+   * @param streamSenderExecutor    A {@link StreamSenderExecutor} to run payments, packets and timeouts on.
+   * @param streamConnectionManager A {@link StreamConnectionManager} that manages the connections of all senders that
+   *                                share it.
+   */
+  public SimpleStreamSender(
+      final StreamEncryptionService streamEncryptionService,
+      final Link link,
+      final StreamSenderExecutor streamSenderExecutor,
+      final StreamConnectionManager streamConnectionManager
+  ) {
+    this(
+        streamEncryptionService, link, streamSenderExecutor, streamConnectionManager, CongestionControllerFactory.aimd()
+    );
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param streamEncryptionService     A {@link StreamEncryptionService} used to encrypt and decrypted end-to-end
+   *                                    STREAM packet data (i.e., packets that should only be visible between sender
+   *                                    and receiver).
+   * @param link                        A {@link Link} that is used to send ILPv4 packets to an immediate peer.
+   * @param streamSenderExecutor        A {@link StreamSenderExecutor} to run payments, packets and timeouts on.
+   * @param streamConnectionManager     A {@link StreamConnectionManager} that manages the connections of all senders
+   *                                    that share it.
+   * @param congestionControllerFactory A {@link CongestionControllerFactory} that creates the {@link
+   *                                    CongestionController} of each payment.
+   */
+  public SimpleStreamSender(
+      final StreamEncryptionService streamEncryptionService,
+      final Link link,
+      final StreamSenderExecutor streamSenderExecutor,
+      final StreamConnectionManager streamConnectionManager,
+      final CongestionControllerFactory congestionControllerFactory
+  ) {
+    this(
+        streamEncryptionService,
+        link,
+        Objects.requireNonNull(streamSenderExecutor).packetExecutor(),
+        streamSenderExecutor.paymentExecutor(),
+        streamSenderExecutor.timeoutScheduler(),
+        streamConnectionManager,
+        congestionControllerFactory,
+        false,
+        Optional.empty()
+    );
+  }
+
+  private SimpleStreamSender(
+      final StreamEncryptionService streamEncryptionService,
+      final Link link,
+      final ExecutorService executorService,
+      final ExecutorService paymentExecutor,
+      final ScheduledExecutorService timeoutScheduler,
+      final StreamConnectionManager streamConnectionManager,
+      final CongestionControllerFactory congestionControllerFactory,
+      final boolean multiplexStreams,
+      final Optional<ReceiverDenominationCache> receiverDenominationCache
   ) {
     this.streamEncryptionService = Objects.requireNonNull(streamEncryptionService);
     this.link = Objects.requireNonNull(link);
-
-    // Note that pools with similar properties but different details (for example, timeout parameters) may be
-    // created using {@link ThreadPoolExecutor} constructors.
+    this.fulfillmentGenerator = new FulfillmentGenerator();
     this.executorService = Objects.requireNonNull(executorService);
+    this.paymentExecutor = Objects.requireNonNull(paymentExecutor);
+    this.timeoutScheduler = Objects.requireNonNull(timeoutScheduler);
     this.streamConnectionManager = Objects.requireNonNull(streamConnectionManager);
+    this.congestionControllerFactory = Objects.requireNonNull(congestionControllerFactory);
+    this.multiplexStreams = multiplexStreams;
+    this.streamMoneyMultiplexers = CacheBuilder.newBuilder()
+        .weakValues()
+        .<StreamConnectionId, StreamMoneyMultiplexer>build()
+        .asMap();
+    this.receiverDenominationCache = Objects.requireNonNull(receiverDenominationCache);
   }
 
-  private static ExecutorService newDefaultExecutor() {
-    ThreadFactory factory = new ThreadFactoryBuilder()
-        .setDaemon(true)
-        .setNameFormat("simple-stream-sender-%d")
-        .build();
-    return Executors.newFixedThreadPool(30, factory);
+  public static Builder builder() {
+    return new Builder();
   }
 
   @Override
   public CompletableFuture<SendMoneyResult> sendMoney(final SendMoneyRequest request) {
     Objects.requireNonNull(request);
 
-    final StreamConnection streamConnection = this.streamConnectionManager.openConnection(
-        StreamConnectionId.from(request.destinationAddress(), request.sharedSecret())
-    );
+    final StreamConnectionId streamConnectionId =
+        StreamConnectionId.from(request.destinationAddress(), request.sharedSecret());
+    final StreamConnection streamConnection = this.streamConnectionManager.openConnection(streamConnectionId);
+    final Optional<StreamMoneyMultiplexer> streamMoneyMultiplexer = multiplexStreams
+        ? Optional.of(streamMoneyMultiplexers.compute(
+            // A connection that was closed, or evicted and collected, is replaced by a new one, which needs a new
+            // multiplexer.
+            streamConnectionId, ($, multiplexer) -> multiplexer != null
+                && multiplexer.getStreamConnection() == streamConnection
+                ? multiplexer
+                : newStreamMoneyMultiplexer(streamConnection, request)
+        ))
+        : Optional.empty();
 
     return new SendMoneyAggregator(
         this.executorService,
+        this.paymentExecutor,
+        this.timeoutScheduler,
         streamConnection,
         StreamCodecContextFactory.oer(),
         this.link,
-        new AimdCongestionController(),
+        this.congestionControllerFactory.newCongestionController(request),
         this.streamEncryptionService,
-        request
+        this.fulfillmentGenerator,
+        request,
+        streamMoneyMultiplexer,
+        this.receiverDenominationCache
     ).send();
   }
 
+  /**
+   * Open the channel that sends data to {@code destinationAddress} on the connection of {@code sharedSecret}. The bytes
+   * written to it are sent in the packets of subsequent payments on that connection. If the connection is evicted,
+   * and collected because nothing but the channel uses it, the data the channel still holds is not sent.
+   *
+   * @param destinationAddress The {@link InterledgerAddress} of the receiver.
+   * @param sharedSecret       The {@link SharedSecret} of the connection.
+   *
+   * @return The {@link StreamDataOutputChannel} of the connection.
+   */
+  public StreamDataOutputChannel openDataOutputChannel(
+      final InterledgerAddress destinationAddress, final SharedSecret sharedSecret
+  ) {
+    Objects.requireNonNull(destinationAddress);
+    Objects.requireNonNull(sharedSecret);
+    return this.streamConnectionManager.openConnection(StreamConnectionId.from(destinationAddress, sharedSecret))
+        .openDataOutputChannel();
+  }
+
+  private StreamMoneyMultiplexer newStreamMoneyMultiplexer(
+      final StreamConnection streamConnection, final SendMoneyRequest request
+  ) {
+    return new StreamMoneyMultiplexer(
+        streamConnection,
+        StreamCodecContextFactory.oer(),
+        this.link,
+        this.streamEncryptionService,
+        this.fulfillmentGenerator,
+        request.destinationAddress(),
+        request.sharedSecret(),
+        StreamMoneyMultiplexer.DEFAULT_MAX_PREPARES_IN_FLIGHT
+    );
+  }
+
+  /**
+   * A builder for constructing instances of {@link SimpleStreamSender}. Only the {@link Link} is required.
+   */
+  public static final class Builder {
+
+    private Link link;
+    private StreamEncryptionService streamEncryptionService;
+    private StreamSenderExecutor streamSenderExecutor;
+    private StreamConnectionManager streamConnectionManager;
+    private CongestionControllerFactory congestionControllerFactory;
+    private boolean multiplexStreams;
+    private ReceiverDenominationCache receiverDenominationCache;
+
+    private Builder() {
+    }
+
+    /**
+     * The {@link Link} that is used to send ILPv4 packets to an immediate peer.
+     *
+     * @param link A {@link Link}.
+     *
+     * @return This builder.
+     */
+    public Builder link(final Link link) {
+      this.link = Objects.requireNonNull(link);
+      return this;
+    }
+
+    /**
+     * The {@link StreamEncryptionService} used to encrypt and decrypt STREAM packets. Defaults to a new {@link
+     * CachingStreamEncryptionService}.
+     *
+     * @param streamEncryptionService A {@link StreamEncryptionService}.
+     *
+     * @return This builder.
+     */
+    public Builder streamEncryptionService(final StreamEncryptionService streamEncryptionService) {
+      this.streamEncryptionService = Objects.requireNonNull(streamEncryptionService);
+      return this;
+    }
+
+    /**
+     * The {@link StreamSenderExecutor} to run payments, packets and timeouts on. Defaults to {@link
+     * StreamSenderExecutor#shared()}.
+     *
+     * @param streamSenderExecutor A {@link StreamSenderExecutor}.
+     *
+     * @return This builder.
+     */
+    public Builder streamSenderExecutor(final StreamSenderExecutor streamSenderExecutor) {
+      this.streamSenderExecutor = Objects.requireNonNull(streamSenderExecutor);
+      return this;
+    }
+
+    /**
+     * The {@link StreamConnectionManager} that manages connections. Defaults to a new {@link StreamConnectionManager}.
+     *
+     * @param streamConnectionManager A {@link StreamConnectionManager}.
+     *
+     * @return This builder.
+     */
+    public Builder streamConnectionManager(final StreamConnectionManager streamConnectionManager) {
+      this.streamConnectionManager = Objects.requireNonNull(streamConnectionManager);
+      return this;
+    }
+
+    /**
+     * The {@link CongestionControllerFactory} that creates the {@link CongestionController} of each payment. Defaults
+     * to {@link CongestionControllerFactory#aimd()}.
+     *
+     * @param congestionControllerFactory A {@link CongestionControllerFactory}.
+     *
+     * @return This builder.
+     */
+    public Builder congestionControllerFactory(final CongestionControllerFactory congestionControllerFactory) {
+      this.congestionControllerFactory = Objects.requireNonNull(congestionControllerFactory);
+      return this;
+    }
+
+    /**
+     * Whether concurrent payments to the same receiver share Prepare packets, each on a stream of its own. Defaults to
+     * {@code false}, which sends the packets of each payment separately on stream 1.
+     *
+     * @param multiplexStreams {@code true} to multiplex the streams of concurrent payments to the same receiver.
+     *
+     * @return This builder.
+     */
+    public Builder multiplexStreams(final boolean multiplexStreams) {
+      this.multiplexStreams = multiplexStreams;
+      return this;
+    }
+
+    /**
+     * The {@link ReceiverDenominationCache} that remembers the denominations of receivers, so that payments to a known
+     * receiver do not wait for a preflight round trip. Defaults to none, which sends a preflight packet for every
+     * payment.
+     *
+     * @param receiverDenominationCache A {@link ReceiverDenominationCache}, which may be shared by several senders.
+     *
+     * @return This builder.
+     */
+    public Builder receiverDenominationCache(final ReceiverDenominationCache receiverDenominationCache) {
+      this.receiverDenominationCache = Objects.requireNonNull(receiverDenominationCache);
+      return this;
+    }
+
+    public SimpleStreamSender build() {
+      final StreamSenderExecutor executor =
+          streamSenderExecutor != null ? streamSenderExecutor : StreamSenderExecutor.shared();
+      return new SimpleStreamSender(
+          streamEncryptionService != null ? streamEncryptionService : new CachingStreamEncryptionService(),
+          Objects.requireNonNull(link, "link must be set"),
+          executor.packetExecutor(),
+          executor.paymentExecutor(),
+          executor.timeoutScheduler(),
+          streamConnectionManager != null ? streamConnectionManager : new StreamConnectionManager(),
+          congestionControllerFactory != null ? congestionControllerFactory : CongestionControllerFactory.aimd(),
+          multiplexStreams,
+          Optional.ofNullable(receiverDenominationCache)
+      );
+    }
+  }
+
   /**
    * Contains summary information about a STREAM Connection.
    */
@@ -221,21 +511,27 @@ public class SimpleStreamSender implements StreamSender {
   /**
    * Encapsulates everything needed to send a particular amount of money by breaking up a payment into a bunch of
    * smaller packets, and then handling all responses. This aggregator operates on a single Connection by opening and
-   * closing a single stream.
+   * closing a single stream, which is stream 1 unless the aggregator shares the connection with other payments through
+   * a {@link StreamMoneyMultiplexer}.
    */
   static class SendMoneyAggregator {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private final ExecutorService executorService;
+    private final ExecutorService paymentExecutor;
+    private final ScheduledExecutorService timeoutScheduler;
     private final StreamConnection streamConnection;
     private final CodecContext streamCodecContext;
     private final StreamEncryptionService streamEncryptionService;
+    private final FulfillmentGenerator fulfillmentGenerator;
     private final CongestionController congestionController;
     private final Link link;
 
     private final SharedSecret sharedSecret;
     private final Optional<Duration> timeout;
+    // Set once the timeout of this payment has passed, counted from when send() was called.
+    private final AtomicBoolean timeoutReached;
 
     private final InterledgerAddress senderAddress;
     private final Denomination senderDenomination;
@@ -246,13 +542,19 @@ public class SimpleStreamSender implements StreamSender {
     private final AtomicInteger numRejectedPackets;
 
     private final PaymentTracker paymentTracker;
+    private final Optional<StreamMoneyMultiplexer> streamMoneyMultiplexer;
+    private final Optional<ReceiverDenominationCache> receiverDenominationCache;
 
-    private Optional<Denomination> receiverDenomination;
+    private volatile Optional<Denomination> receiverDenomination;
+    private UnsignedLong streamId;
 
     /**
      * Required-args Constructor.
      *
      * @param executorService         An {@link ExecutorService} for sending multiple STREAM frames in parallel.
+     * @param paymentExecutor         An {@link ExecutorService} that runs the send loop of this payment. It must not be
+     *                                {@code executorService}, because the send loop waits for the packets it submits.
+     * @param timeoutScheduler        A {@link ScheduledExecutorService} that enforces the timeout of this payment.
      * @param streamConnection        A {@link StreamConnection} that can be used to send packets with.
      * @param streamCodecContext      A {@link CodecContext} that can encode and decode ASN.1 OER Stream packets and
      *                                frames.
@@ -260,23 +562,75 @@ public class SimpleStreamSender implements StreamSender {
      * @param congestionController    A {@link CongestionController} that supports back-pressure for money streams.
      * @param streamEncryptionService A {@link StreamEncryptionService} that allows for Stream packet encryption and
      *                                decryption.
+     * @param fulfillmentGenerator    A {@link FulfillmentGenerator} used to generate the condition of each packet.
      * @param request                 all relevant details about the money to send
      */
     SendMoneyAggregator(
         final ExecutorService executorService,
+        final ExecutorService paymentExecutor,
+        final ScheduledExecutorService timeoutScheduler,
         final StreamConnection streamConnection,
         final CodecContext streamCodecContext,
         final Link link,
         final CongestionController congestionController,
         final StreamEncryptionService streamEncryptionService,
+        final FulfillmentGenerator fulfillmentGenerator,
         final SendMoneyRequest request
+    ) {
+      this(
+          executorService, paymentExecutor, timeoutScheduler, streamConnection, streamCodecContext, link,
+          congestionController, streamEncryptionService, fulfillmentGenerator, request, Optional.empty(),
+          Optional.empty()
+      );
+    }
+
+    /**
+     * Required-args Constructor.
+     *
+     * @param executorService           An {@link ExecutorService} for sending multiple STREAM frames in parallel.
+     * @param paymentExecutor           An {@link ExecutorService} that runs the send loop of this payment. It must not
+     *                                  be {@code executorService}, because the send loop waits for the packets it
+     *                                  submits.
+     * @param timeoutScheduler          A {@link ScheduledExecutorService} that enforces the timeout of this payment.
+     * @param streamConnection          A {@link StreamConnection} that can be used to send packets with.
+     * @param streamCodecContext        A {@link CodecContext} that can encode and decode ASN.1 OER Stream packets and
+     *                                  frames.
+     * @param link                      The {@link Link} used to send ILPv4 packets containing Stream packets.
+     * @param congestionController      A {@link CongestionController} that supports back-pressure for money streams.
+     * @param streamEncryptionService   A {@link StreamEncryptionService} that allows for Stream packet encryption and
+     *                                  decryption.
+     * @param fulfillmentGenerator      A {@link FulfillmentGenerator} used to generate the condition of each packet.
+     * @param request                   all relevant details about the money to send
+     * @param streamMoneyMultiplexer    An optionally-present {@link StreamMoneyMultiplexer} of {@code streamConnection}
+     *                                  that sends the money of this payment on a new stream. If it is empty, the money
+     *                                  is sent on stream 1 in packets of this payment's own.
+     * @param receiverDenominationCache An optionally-present {@link ReceiverDenominationCache}. If it knows the
+     *                                  receiver, no preflight packet is sent, and the first money packets carry the
+     *                                  connection and asset details instead.
+     */
+    SendMoneyAggregator(
+        final ExecutorService executorService,
+        final ExecutorService paymentExecutor,
+        final ScheduledExecutorService timeoutScheduler,
+        final StreamConnection streamConnection,
+        final CodecContext streamCodecContext,
+        final Link link,
+        final CongestionController congestionController,
+        final StreamEncryptionService streamEncryptionService,
+        final FulfillmentGenerator fulfillmentGenerator,
+        final SendMoneyRequest request,
+        final Optional<StreamMoneyMultiplexer> streamMoneyMultiplexer,
+        final Optional<ReceiverDenominationCache> receiverDenominationCache
     ) {
       this.executorService = Objects.requireNonNull(executorService);
+      this.paymentExecutor = Objects.requireNonNull(paymentExecutor);
+      this.timeoutScheduler = Objects.requireNonNull(timeoutScheduler);
       this.streamConnection = Objects.requireNonNull(streamConnection);
 
       this.streamCodecContext = Objects.requireNonNull(streamCodecContext);
       this.link = Objects.requireNonNull(link);
       this.streamEncryptionService = Objects.requireNonNull(streamEncryptionService);
+      this.fulfillmentGenerator = Objects.requireNonNull(fulfillmentGenerator);
       this.congestionController = Objects.requireNonNull(congestionController);
       this.shouldSendSourceAddress = new AtomicBoolean(true);
 
@@ -288,12 +642,17 @@ public class SimpleStreamSender implements StreamSender {
       this.numRejectedPackets = new AtomicInteger(0);
 
       this.timeout = request.timeout();
+      this.timeoutReached = new AtomicBoolean(false);
 
       this.senderDenomination = request.denomination();
 
       this.paymentTracker = request.paymentTracker();
 
+      this.streamMoneyMultiplexer = Objects.requireNonNull(streamMoneyMultiplexer);
+      this.receiverDenominationCache = Objects.requireNonNull(receiverDenominationCache);
+
       this.receiverDenomination = Optional.empty();
+      this.streamId = UnsignedLong.ONE;
     }
 
     /**
@@ -305,10 +664,32 @@ public class SimpleStreamSender implements StreamSender {
       Objects.requireNonNull(sharedSecret);
       Objects.requireNonNull(destinationAddress);
 
+      // The deadline starts now, so that the preflight and the wait for a payment thread count against the timeout.
+      final Optional<ScheduledFuture<?>> timeoutFuture = timeout.map($ -> timeoutScheduler.schedule(
+          () -> timeoutReached.set(true), $.toMillis(), TimeUnit.MILLISECONDS
+      ));
+
       Instant startPreflight = DateUtils.now();
       try {
-        receiverDenomination = preflightCheck();
+        if (streamMoneyMultiplexer.isPresent()) {
+          streamId = streamConnection.nextStreamId();
+        }
+        final Optional<Denomination> cachedDenomination =
+            receiverDenominationCache.flatMap(cache -> cache.get(destinationAddress));
+        if (cachedDenomination.isPresent()) {
+          // The receiver is known, so skip the preflight round trip. The first money packets carry the connection and
+          // asset details instead, and their fulfills refresh the cached denomination.
+          receiverDenomination = cachedDenomination;
+        } else {
+          receiverDenomination = preflightCheck();
+          if (receiverDenomination.isPresent()) {
+            // The preflight packet already exchanged the connection and asset details.
+            shouldSendSourceAddress.set(false);
+            receiverDenominationCache.ifPresent(cache -> cache.put(destinationAddress, receiverDenomination.get()));
+          }
+        }
       } catch (StreamConnectionClosedException e) {
+        timeoutFuture.ifPresent($ -> $.cancel(false));
         return CompletableFuture.completedFuture(SendMoneyResult.builder()
             .sendMoneyDuration(Duration.between(startPreflight, DateUtils.now()))
             .numRejectPackets(1)
@@ -322,37 +703,42 @@ public class SimpleStreamSender implements StreamSender {
       } catch (Exception e) {
         logger.warn("Preflight check failed", e);
       }
-      // A separate executor is needed for overall call to sendMoneyPacketized otherwise a livelock can occur.
-      // Using a shared executor could cause sendMoneyPacketized to internally get blocked from submitting tasks
-      // because the shared executor is already blocked waiting on the results of the call here to sendMoneyPacketized
-      ExecutorService sendMoneyExecutor = Executors.newSingleThreadExecutor();
+      // The send loop runs on a separate executor, otherwise a livelock can occur: a shared executor could be blocked
+      // waiting on sendMoneyPacketized, which in turn waits for the packets it submitted to that executor.
       final Instant start = DateUtils.now();
-      // All futures will run here using the Cached Executor service.
-      return CompletableFuture
-          .supplyAsync(() -> {
-
-            // Do all the work of sending packetized money for this Stream/sendMoney request.
-            this.sendMoneyPacketized();
-            return SendMoneyResult.builder()
-                .amountDelivered(paymentTracker.getDeliveredAmountInReceiverUnits())
-                .amountSent(paymentTracker.getDeliveredAmountInSenderUnits())
-                .amountLeftToSend(paymentTracker.getOriginalAmountLeft())
-                .originalAmount(paymentTracker.getOriginalAmount())
-                .numFulfilledPackets(numFulfilledPackets.get())
-                .numRejectPackets(numRejectedPackets.get())
-                .sendMoneyDuration(Duration.between(start, DateUtils.now()))
-                .successfulPayment(paymentTracker.successful())
-                .build();
-          }, sendMoneyExecutor)
-          .whenComplete(($, error) -> {
-            sendMoneyExecutor.shutdown();
-            if (error != null) {
-              logger.error("SendMoney Stream failed: " + error.getMessage(), error);
-            }
-            if (!$.successfulPayment()) {
-              logger.error("Failed to send full amount");
-            }
-          });
+      try {
+        return CompletableFuture
+            .supplyAsync(() -> {
+
+              // Do all the work of sending packetized money for this Stream/sendMoney request.
+              this.sendMoneyPacketized();
+              return SendMoneyResult.builder()
+                  .amountDelivered(paymentTracker.getDeliveredAmountInReceiverUnits())
+                  .amountSent(paymentTracker.getDeliveredAmountInSenderUnits())
+                  .amountLeftToSend(paymentTracker.getOriginalAmountLeft())
+                  .originalAmount(paymentTracker.getOriginalAmount())
+                  .numFulfilledPackets(numFulfilledPackets.get())
+                  .numRejectPackets(numRejectedPackets.get())
+                  .sendMoneyDuration(Duration.between(start, DateUtils.now()))
+                  .successfulPayment(paymentTracker.successful())
+                  .build();
+            }, paymentExecutor)
+            .whenComplete(($, error) -> {
+              timeoutFuture.ifPresent(future -> future.cancel(false));
+              if (error != null) {
+                logger.error("SendMoney Stream failed: " + error.getMessage(), error);
+              } else if (!$.successfulPayment()) {
+                logger.error("Failed to send full amount");
+              }
+            });
+      } catch (RejectedExecutionException e) {
+        // Too many payments are already waiting, so let the caller decide whether to try again later.
+        logger.error("Unable to schedule sendMoney. error={}", e.getMessage());
+        timeoutFuture.ifPresent($ -> $.cancel(false));
+        final CompletableFuture<SendMoneyResult> rejected = new CompletableFuture<>();
+        rejected.completeExceptionally(e);
+        return rejected;
+      }
     }
 
     /**
@@ -376,8 +762,7 @@ public class SimpleStreamSender implements StreamSender {
 
       final List<StreamFrame> frames = Lists.newArrayList(
           StreamMoneyFrame.builder()
-              // This aggregator supports only a simple stream-id, which is one.
-              .streamId(UnsignedLong.ONE)
+              .streamId(streamId)
               .shares(UnsignedLong.ONE)
               .build(),
           ConnectionNewAddressFrame.builder()
@@ -398,7 +783,7 @@ public class SimpleStreamSender implements StreamSender {
       // Create the ILP Prepare packet
       final byte[] streamPacketData = this.toEncrypted(sharedSecret, streamPacket);
       final InterledgerCondition executionCondition;
-      executionCondition = generatedFulfillableFulfillment(sharedSecret, streamPacketData).getCondition();
+      executionCondition = fulfillmentGenerator.generateFulfillment(sharedSecret, streamPacketData).getCondition();
 
       final InterledgerPreparePacket preparePacket = InterledgerPreparePacket.builder()
           .destination(destinationAddress)
@@ -410,34 +795,28 @@ public class SimpleStreamSender implements StreamSender {
 
       InterledgerResponsePacket responsePacket = link.sendPacket(preparePacket);
 
-      final Function<InterledgerResponsePacket, Optional<Denomination>> readDetails = (p) -> {
-        final StreamPacket packet = this.fromEncrypted(sharedSecret, p.getData());
-        return packet.frames().stream()
-            .filter(f -> f.streamFrameType() == StreamFrameType.ConnectionAssetDetails)
-            .findFirst()
-            .map(f -> (ConnectionAssetDetailsFrame) f)
-            .map(f -> Denomination.builder().from(f.sourceDenomination()).build());
-      };
+      final Function<InterledgerResponsePacket, Optional<Denomination>> readDetails =
+          (p) -> readReceiverDenomination(this.fromEncrypted(sharedSecret, p.getData()));
 
       return responsePacket.map(readDetails::apply, readDetails::apply);
     }
 
-    private void sendMoneyPacketized() {
-
-      final AtomicBoolean timeoutReached = new AtomicBoolean(false);
+    /**
+     * Read the {@link Denomination} of the receiver from the {@link ConnectionAssetDetailsFrame} of a STREAM packet
+     * that the receiver sent, if it has one.
+     */
+    private Optional<Denomination> readReceiverDenomination(final StreamPacket streamPacket) {
+      return streamPacket.frames().stream()
+          .filter(f -> f.streamFrameType() == StreamFrameType.ConnectionAssetDetails)
+          .findFirst()
+          .map(f -> (ConnectionAssetDetailsFrame) f)
+          .map(f -> Denomination.builder().from(f.sourceDenomination()).build());
+    }
 
-      final ScheduledExecutorService timeoutMonitor = Executors.newSingleThreadScheduledExecutor();
+    private void sendMoneyPacketized() {
 
       boolean tryingToSendTooMuch = false;
 
-      timeout.ifPresent($ -> timeoutMonitor.schedule(
-          () -> {
-            timeoutReached.set(true);
-            timeoutMonitor.shutdown();
-          },
-          $.toMillis(), TimeUnit.MILLISECONDS
-      ));
-
       while (soldierOn(timeoutReached.get(), tryingToSendTooMuch)) {
         // Determine the amount to send
         PrepareAmounts amounts = paymentTracker.getSendPacketAmounts(
@@ -457,56 +836,89 @@ public class SimpleStreamSender implements StreamSender {
           continue;
         }
 
-        // Load up the STREAM packet
-        final UnsignedLong sequence;
-        try {
-          sequence = this.streamConnection.nextSequence();
-        } catch (StreamConnectionClosedException e) {
-          // The Connection is closed, so we can't send anything more on it.
-          logger.warn(
-              "Unable to send more packets on a closed StreamConnection. streamConnection={} error={}",
-              streamConnection, e
-          );
-          continue;
-        }
+        final PrepareAmounts prepareAmounts;
+        final Runnable scheduleTask;
+        // The STREAM packet of scheduleTask, if it carries data that must be sent again when the packet is not sent.
+        Optional<StreamPacket> unsentStreamPacket = Optional.empty();
+        if (streamMoneyMultiplexer.isPresent()) {
+          // The multiplexer builds the Prepare packet, possibly together with the amounts of other payments.
+          prepareAmounts = PrepareAmounts.builder()
+              .amountToSend(amountToSend)
+              .minimumAmountToAccept(receiverMinimum)
+              .build();
+          scheduleTask = () -> scheduleShare(streamMoneyMultiplexer.get(), timeoutReached, prepareAmounts);
+        } else {
+          // Load up the STREAM packet
+          final UnsignedLong sequence;
+          try {
+            sequence = this.streamConnection.nextSequence();
+          } catch (StreamConnectionClosedException e) {
+            // The Connection is closed, so we can't send anything more on it.
+            logger.warn(
+                "Unable to send more packets on a closed StreamConnection. streamConnection={} error={}",
+                streamConnection, e
+            );
+            continue;
+          }
 
-        final List<StreamFrame> frames = Lists.newArrayList(
-            StreamMoneyFrame.builder()
-                // This aggregator supports only a simple stream-id, which is one.
-                .streamId(UnsignedLong.ONE)
-                .shares(UnsignedLong.ONE)
-                .build()
-        );
+          final List<StreamFrame> frames = Lists.newArrayList(
+              StreamMoneyFrame.builder()
+                  .streamId(streamId)
+                  .shares(UnsignedLong.ONE)
+                  .build()
+          );
+          if (shouldSendSourceAddress.get()) {
+            // No preflight packet told the receiver about this connection, so do it until a packet is fulfilled.
+            frames.add(ConnectionNewAddressFrame.builder()
+                .sourceAddress(senderAddress)
+                .build());
+            frames.add(ConnectionAssetDetailsFrame.builder()
+                .sourceDenomination(senderDenomination)
+                .build());
+          }
+          streamConnection.getDataOutputChannel().ifPresent(dataOutput -> {
+            final Optional<StreamDataFrame> dataFrame = dataOutput.nextFrame(MAX_DATA_PER_PACKET);
+            if (dataFrame.isPresent()) {
+              frames.add(dataFrame.get());
+            } else {
+              dataOutput.blockedFrame().ifPresent(frames::add);
+            }
+          });
 
-        final StreamPacket streamPacket = StreamPacket.builder()
-            .interledgerPacketType(InterledgerPacketType.PREPARE)
-            // If the STREAM packet is sent on an ILP Prepare, this represents the minimum the receiver should accept.
-            .prepareAmount(receiverMinimum)
-            .sequence(sequence)
-            .frames(frames)
-            .build();
-
-        // Create the ILP Prepare packet
-        final byte[] streamPacketData = this.toEncrypted(sharedSecret, streamPacket);
-        final InterledgerCondition executionCondition;
-        executionCondition = generatedFulfillableFulfillment(sharedSecret, streamPacketData).getCondition();
-
-        final InterledgerPreparePacket preparePacket = InterledgerPreparePacket.builder()
-            .destination(destinationAddress)
-            .amount(amountToSend)
-            .executionCondition(executionCondition)
-            .expiresAt(DateUtils.now().plusSeconds(30L))
-            .data(streamPacketData)
-            .build();
+          final StreamPacket streamPacket = StreamPacket.builder()
+              .interledgerPacketType(InterledgerPacketType.PREPARE)
+              // If the STREAM packet is sent on an ILP Prepare, this represents the minimum the receiver should accept.
+              .prepareAmount(receiverMinimum)
+              .sequence(sequence)
+              .frames(frames)
+              .build();
+
+          // Create the ILP Prepare packet
+          final byte[] streamPacketData = this.toEncrypted(sharedSecret, streamPacket);
+          final InterledgerCondition executionCondition;
+          executionCondition = fulfillmentGenerator.generateFulfillment(sharedSecret, streamPacketData).getCondition();
+
+          final InterledgerPreparePacket preparePacket = InterledgerPreparePacket.builder()
+              .destination(destinationAddress)
+              .amount(amountToSend)
+              .executionCondition(executionCondition)
+              .expiresAt(DateUtils.now().plusSeconds(30L))
+              .data(streamPacketData)
+              .build();
+
+          prepareAmounts = PrepareAmounts.from(preparePacket, streamPacket);
+          scheduleTask = () -> schedule(timeoutReached, preparePacket, streamPacket, prepareAmounts);
+          unsentStreamPacket = Optional.of(streamPacket);
+        }
 
         // auth
         // capture
         // rollback
 
-        final PrepareAmounts prepareAmounts = PrepareAmounts.from(preparePacket, streamPacket);
         if (!paymentTracker.auth(prepareAmounts)) {
           // if we can't auth, just skip this iteration of the loop until everything else completes
           tryingToSendTooMuch = true;
+          unsentStreamPacket.ifPresent(this::retransmitData);
           continue;
         }
 
@@ -518,17 +930,29 @@ public class SimpleStreamSender implements StreamSender {
             // controller to not reflect what we've actually scheduled to run, resulting in the loop
             // breaking prematurely
             congestionController.prepare(amountToSend);
-            schedule(timeoutReached, preparePacket, streamPacket, prepareAmounts);
+            scheduleTask.run();
           } else {
             logger.error("SoldierOn runLoop had more tasks to schedule but was timed-out");
+            paymentTracker.rollback(prepareAmounts, false);
+            unsentStreamPacket.ifPresent(this::retransmitData);
+          }
+        } catch (RejectedExecutionException e) {
+          // The packet queue is full, so back off as if the congestion window were full, and retry this amount.
+          paymentTracker.rollback(prepareAmounts, false);
+          unsentStreamPacket.ifPresent(this::retransmitData);
+          logger.warn("Submit rejected. error={}", e.getMessage());
+          try {
+            Thread.sleep(100);
+          } catch (InterruptedException ie) {
+            throw new StreamSenderException(ie.getMessage(), ie);
           }
         } catch (Exception e) {
           // Retry this amount on the next run...
           paymentTracker.rollback(prepareAmounts, false);
+          unsentStreamPacket.ifPresent(this::retransmitData);
           logger.error("Submit failed", e);
         }
       }
-      timeoutMonitor.shutdownNow();
     }
 
     @VisibleForTesting
@@ -547,9 +971,13 @@ public class SimpleStreamSender implements StreamSender {
         executorService.submit(() -> {
           if (!timeoutReached.get()) {
             try {
+              final long sentAtNanos = System.nanoTime();
               InterledgerResponsePacket responsePacket = link.sendPacket(preparePacket);
+              final Duration roundTripTime = Duration.ofNanos(System.nanoTime() - sentAtNanos);
               responsePacket.handle(
-                  fulfillPacket -> handleFulfill(preparePacket, streamPacket, fulfillPacket, prepareAmounts),
+                  fulfillPacket -> handleFulfill(
+                      preparePacket, streamPacket, fulfillPacket, prepareAmounts, Optional.of(roundTripTime)
+                  ),
                   rejectPacket -> handleReject(preparePacket, streamPacket, rejectPacket, prepareAmounts,
                       numRejectedPackets, congestionController)
               );
@@ -562,7 +990,17 @@ public class SimpleStreamSender implements StreamSender {
                   )
                   .build());
               paymentTracker.rollback(prepareAmounts, false);
+              retransmitData(streamPacket);
             }
+          } else {
+            // The payment timed out while this packet waited in the queue, so it is never sent. Unwind its amount, or
+            // the send loop keeps waiting for it to leave flight.
+            congestionController.reject(preparePacket.getAmount(), InterledgerRejectPacket.builder()
+                .code(InterledgerErrorCode.R00_TRANSFER_TIMED_OUT)
+                .message(String.format("Payment timed out before sending. preparePacket=%s", preparePacket))
+                .build());
+            paymentTracker.rollback(prepareAmounts, false);
+            retransmitData(streamPacket);
           }
         });
       } catch (RejectedExecutionException e) {
@@ -579,6 +1017,65 @@ public class SimpleStreamSender implements StreamSender {
       }
     }
 
+    /**
+     * Send {@code prepareAmounts} on this payment's stream through {@code streamMoneyMultiplexer}, which may combine it
+     * with the amounts of other payments to the same receiver.
+     */
+    @VisibleForTesting
+    void scheduleShare(
+        final StreamMoneyMultiplexer streamMoneyMultiplexer,
+        final AtomicBoolean timeoutReached,
+        final PrepareAmounts prepareAmounts
+    ) {
+      Objects.requireNonNull(streamMoneyMultiplexer);
+      Objects.requireNonNull(timeoutReached);
+      Objects.requireNonNull(prepareAmounts);
+
+      try {
+        executorService.submit(() -> {
+          if (!timeoutReached.get()) {
+            streamMoneyMultiplexer.send(streamId, prepareAmounts).whenComplete((shareResponse, error) -> {
+              if (error != null) {
+                logger.error("Multiplexed send failed. prepareAmounts={}", prepareAmounts, error);
+                congestionController.reject(prepareAmounts.getAmountToSend(), InterledgerRejectPacket.builder()
+                    .code(InterledgerErrorCode.F00_BAD_REQUEST)
+                    .message(String.format(
+                        "Multiplexed send failed. prepareAmounts=%s error=%s", prepareAmounts, error.getMessage()
+                    ))
+                    .build());
+                paymentTracker.rollback(prepareAmounts, false);
+              } else {
+                shareResponse.getResponsePacket().handle(
+                    fulfillPacket -> handleShareFulfill(shareResponse, prepareAmounts),
+                    rejectPacket -> handleReject(shareResponse.getPreparePacket(), shareResponse.getStreamPacket(),
+                        rejectPacket, prepareAmounts, numRejectedPackets, congestionController)
+                );
+              }
+            });
+          } else {
+            // The payment timed out while this share waited in the queue, so it is never sent. Unwind its amount, or
+            // the send loop keeps waiting for it to leave flight.
+            congestionController.reject(prepareAmounts.getAmountToSend(), InterledgerRejectPacket.builder()
+                .code(InterledgerErrorCode.R00_TRANSFER_TIMED_OUT)
+                .message(String.format("Payment timed out before sending. prepareAmounts=%s", prepareAmounts))
+                .build());
+            paymentTracker.rollback(prepareAmounts, false);
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        // If we get here, it means the task was unable to be scheduled, so we need to unwind the congestion
+        // controller to prevent deadlock.
+        congestionController.reject(prepareAmounts.getAmountToSend(), InterledgerRejectPacket.builder()
+            .code(InterledgerErrorCode.F00_BAD_REQUEST)
+            .message(String.format(
+                "Unable to schedule multiplexed sendMoney task. prepareAmounts=%s error=%s", prepareAmounts,
+                e.getMessage()
+            ))
+            .build());
+        throw e;
+      }
+    }
+
     @VisibleForTesting
     boolean soldierOn(final boolean timeoutReached, final boolean tryingToSendTooMuch) {
       // if money in flight, always soldier on
@@ -647,22 +1144,43 @@ public class SimpleStreamSender implements StreamSender {
         final StreamPacket originalStreamPacket,
         final InterledgerFulfillPacket fulfillPacket,
         final PrepareAmounts prepareAmounts
+    ) {
+      handleFulfill(originalPreparePacket, originalStreamPacket, fulfillPacket, prepareAmounts, Optional.empty());
+    }
+
+    @VisibleForTesting
+    void handleFulfill(
+        final InterledgerPreparePacket originalPreparePacket,
+        final StreamPacket originalStreamPacket,
+        final InterledgerFulfillPacket fulfillPacket,
+        final PrepareAmounts prepareAmounts,
+        final Optional<Duration> roundTripTime
     ) {
       Objects.requireNonNull(originalPreparePacket);
       Objects.requireNonNull(originalStreamPacket);
       Objects.requireNonNull(fulfillPacket);
       Objects.requireNonNull(prepareAmounts);
+      Objects.requireNonNull(roundTripTime);
 
       this.numFulfilledPackets.getAndIncrement();
-      this.congestionController.fulfill(originalPreparePacket.getAmount());
+      if (roundTripTime.isPresent()) {
+        this.congestionController.fulfill(originalPreparePacket.getAmount(), roundTripTime.get());
+      } else {
+        this.congestionController.fulfill(originalPreparePacket.getAmount());
+      }
       this.shouldSendSourceAddress.set(false);
 
       final StreamPacket streamPacket = this.fromEncrypted(sharedSecret, fulfillPacket.getData());
 
       //if let Ok (packet) = StreamPacket::from_encrypted ( & self.shared_secret, fulfill.into_data()){
+      handleDataResponse(originalStreamPacket, Optional.of(streamPacket));
       if (streamPacket.interledgerPacketType() == InterledgerPacketType.FULFILL) {
         UnsignedLong deliveredAmount = streamPacket.prepareAmount();
         paymentTracker.commit(prepareAmounts, deliveredAmount);
+        readReceiverDenomination(streamPacket).ifPresent(denomination -> {
+          this.receiverDenomination = Optional.of(denomination);
+          receiverDenominationCache.ifPresent(cache -> cache.put(destinationAddress, denomination));
+        });
       } else {
         logger.warn("Unable to parse STREAM packet from fulfill data. "
                 + "originalPreparePacket={} originalStreamPacket={} fulfillPacket={}",
@@ -675,6 +1193,32 @@ public class SimpleStreamSender implements StreamSender {
       );
     }
 
+    /**
+     * Handle the fulfillment of a Prepare packet that carried {@code prepareAmounts} of this payment, possibly together
+     * with the amounts of other payments.
+     */
+    @VisibleForTesting
+    void handleShareFulfill(final ShareResponse shareResponse, final PrepareAmounts prepareAmounts) {
+      Objects.requireNonNull(shareResponse);
+      Objects.requireNonNull(prepareAmounts);
+
+      this.numFulfilledPackets.getAndIncrement();
+      this.congestionController.fulfill(prepareAmounts.getAmountToSend(), shareResponse.getRoundTripTime());
+      this.shouldSendSourceAddress.set(false);
+
+      if (shareResponse.getDeliveredAmount().isPresent()) {
+        paymentTracker.commit(prepareAmounts, shareResponse.getDeliveredAmount().get());
+      } else {
+        logger.warn("Unable to parse STREAM packet from fulfill data. "
+                + "originalPreparePacket={} originalStreamPacket={} fulfillPacket={}",
+            shareResponse.getPreparePacket(), shareResponse.getStreamPacket(), shareResponse.getResponsePacket());
+      }
+
+      logger.debug("Prepare packet fulfilled ({} left to send). prepareAmounts={} originalPreparePacket={}",
+          paymentTracker.getOriginalAmountLeft(), prepareAmounts, shareResponse.getPreparePacket()
+      );
+    }
+
     /**
      * Handle a rejection packet.
      *
@@ -682,6 +1226,8 @@ public class SimpleStreamSender implements StreamSender {
      * @param originalStreamPacket  The {@link StreamPacket} that was inside of {@code originalPreparePacket}.
      * @param rejectPacket          The {@link InterledgerRejectPacket} received from a peer directly connected via a
      *                              {@link Link}.
+     * @param prepareAmounts        The {@link PrepareAmounts} of this payment in {@code originalPreparePacket}, which
+     *                              also carries the amounts of other payments if it was multiplexed.
      */
     @VisibleForTesting
     void handleReject(
@@ -699,12 +1245,15 @@ public class SimpleStreamSender implements StreamSender {
       Objects.requireNonNull(congestionController);
       Objects.requireNonNull(prepareAmounts);
 
-      final UnsignedLong amountToSend = originalPreparePacket.getAmount();
+      final UnsignedLong amountToSend = prepareAmounts.getAmountToSend();
 
       numRejectedPackets.getAndIncrement();
 
       paymentTracker.rollback(prepareAmounts, true);
       congestionController.reject(amountToSend, rejectPacket);
+      if (streamConnection.getDataOutputChannel().isPresent()) {
+        handleDataResponse(originalStreamPacket, readStreamPacket(rejectPacket));
+      }
 
       logger.debug(
           "Prepare with amount {} was rejected with code: {} ({} left to send). originalPreparePacket={} "
@@ -725,6 +1274,8 @@ public class SimpleStreamSender implements StreamSender {
           break;
         }
         default: {
+          // The receiver may have changed, so learn its denomination again on the next payment.
+          receiverDenominationCache.ifPresent(cache -> cache.invalidate(destinationAddress));
           if (rejectPacket.getCode().getErrorFamily() == ErrorFamily.TEMPORARY) {
             logger.warn(
                 "Temporary ILPv4 transport outage. Retrying... originalPreparePacket={} originalStreamPacket={} "
@@ -742,6 +1293,70 @@ public class SimpleStreamSender implements StreamSender {
       }
     }
 
+    /**
+     * Update the data channel of the connection, if any, from the response to {@code originalStreamPacket}. The data of
+     * {@code originalStreamPacket} is acknowledged if the receiver fulfilled the packet and reported the max offset of
+     * the stream, and is sent again otherwise.
+     *
+     * @param originalStreamPacket The {@link StreamPacket} that was sent.
+     * @param responseStreamPacket An optionally-present {@link StreamPacket} of the receiver's response, which is empty
+     *                             if the response did not come from the receiver.
+     */
+    @VisibleForTesting
+    void handleDataResponse(
+        final StreamPacket originalStreamPacket, final Optional<StreamPacket> responseStreamPacket
+    ) {
+      Objects.requireNonNull(originalStreamPacket);
+      Objects.requireNonNull(responseStreamPacket);
+
+      streamConnection.getDataOutputChannel().ifPresent(dataOutput -> {
+        final Optional<UnsignedLong> maxOffset = responseStreamPacket.flatMap(streamPacket -> streamPacket.frames()
+            .stream()
+            .filter(f -> f.streamFrameType() == StreamFrameType.StreamDataMax)
+            .map(f -> (StreamDataMaxFrame) f)
+            .filter(f -> f.streamId().equals(dataOutput.getStreamId()))
+            .findFirst()
+            .map(StreamDataMaxFrame::maxOffset));
+        maxOffset.ifPresent(dataOutput::updateRemoteMaxOffset);
+
+        // A receiver that does not support data fulfills the packet without taking its data, and never reports a max
+        // offset, so its data is never acknowledged.
+        final boolean accepted = maxOffset.isPresent()
+            && responseStreamPacket.get().interledgerPacketType() == InterledgerPacketType.FULFILL;
+        dataFrames(originalStreamPacket).forEach(accepted ? dataOutput::acknowledge : dataOutput::retransmit);
+      });
+    }
+
+    /**
+     * Queue the data of {@code streamPacket}, which never reached the receiver, to be sent again.
+     */
+    private void retransmitData(final StreamPacket streamPacket) {
+      streamConnection.getDataOutputChannel()
+          .ifPresent(dataOutput -> dataFrames(streamPacket).forEach(dataOutput::retransmit));
+    }
+
+    private Stream<StreamDataFrame> dataFrames(final StreamPacket streamPacket) {
+      return streamPacket.frames().stream()
+          .filter(f -> f.streamFrameType() == StreamFrameType.StreamData)
+          .map(f -> (StreamDataFrame) f);
+    }
+
+    /**
+     * Read the STREAM packet of a rejection, which is only present if the receiver rejected the packet.
+     */
+    private Optional<StreamPacket> readStreamPacket(final InterledgerRejectPacket rejectPacket) {
+      if (rejectPacket.getData().length == 0) {
+        return Optional.empty();
+      }
+      try {
+        return Optional.of(this.fromEncrypted(sharedSecret, rejectPacket.getData()));
+      } catch (Exception e) {
+        // A connector rejected the packet, with data that it did not encrypt with our shared secret.
+        logger.debug("Unable to read STREAM packet from reject data. rejectPacket={}", rejectPacket, e);
+        return Optional.empty();
+      }
+    }
+
     ///**
     // * Close the current STREAM connection by sending a {@link ConnectionCloseFrame} to the receiver.
     // *
@@ -3,14 +3,20 @@ package org.interledger.stream.sender;
 import org.interledger.stream.StreamConnection;
 import org.interledger.stream.StreamConnectionId;
 
-import com.google.common.collect.Maps;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 
-import java.util.Map;
+import java.time.Duration;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
- * <p>Manages all STREAM connections across this JVM.</p>
+ * <p>Manages the STREAM connections of the senders that share an instance of this class.</p>
  *
  * <p>Connection management in STREAM is somewhat complicated by the fact that connection identifiers can be derieved
  * from a destination address and shared secret. These values are often stored in a sender and/or receiver, so it can be
@@ -20,24 +26,75 @@ import java.util.Optional;
  * to make it thread-safe, but another instance might accidentally be constructed at the same time. These two
  * implementations' sequence might collide in this case.</p>
  *
- * <p>This implementation provides a JVM-wide location to open and close connections so that no two instances of a
- * Stream sender or receiver accidentally use sequences that might overlap. While this implementation does not guard
- * against two classes in _different_ JVMs using the same destination address and secret, and thus potentially
- * colliding, this possibility is considered to be extremely remote since the chances of two different JVMs using the
- * same shared secret remote. However, care should be taken when designing clustered STREAM senders and receivers
- * because it is possible that certain implementations of Stream Receiver might return the same shared secret if queried
- * more than once using the same receiver address.</p>
+ * <p>This implementation provides a single location to open and close connections so that no two Stream senders that
+ * share an instance of this class accidentally use sequences that might overlap. Senders that do not share an instance
+ * do not share connections, in the same way that senders in different JVMs do not. This possibility is considered to
+ * be remote since the chances of two different senders using the same shared secret remote. However, care should be
+ * taken when designing clustered STREAM senders and receivers because it is possible that certain implementations of
+ * Stream Receiver might return the same shared secret if queried more than once using the same receiver address.</p>
+ *
+ * <p>Connections are kept in a table that is bounded in size. A connection that has not been opened for {@link
+ * #DEFAULT_EXPIRE_AFTER_ACCESS} (by default) is evicted from it, as is the least recently opened connection when the
+ * table is full. Eviction only drops the reference of the table: as long as a payment, multiplexer or caller still
+ * holds an evicted connection, {@link #openConnection(StreamConnectionId)} returns that same connection for its
+ * identifier, so its sequence never restarts while it is in use. Only once nothing uses it anymore is it collected, and
+ * is the next connection for its identifier a new one.</p>
  */
 public class StreamConnectionManager {
 
+  @VisibleForTesting
+  static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+  @VisibleForTesting
+  static final Duration DEFAULT_EXPIRE_AFTER_ACCESS = Duration.ofMinutes(30);
+
   /**
-   * A {@link Map} of {@link StreamConnection} keyed by a {@link StreamConnectionId}. This ensures that while multiple
+   * A {@link Cache} of {@link StreamConnection} keyed by a {@link StreamConnectionId}. This ensures that while multiple
    * {@link StreamSender#sendMoney} requests can operate in parallel, the underlying StreamConnection will guarantee a
    * monotonically increasing sequence number so that parallel Streams acrros multiple instances of the same
-   * StreamConnection do not interfere with each other. per Connection (i.e., SharedSecret+destination address) may be
-   * executed at a single time.
+   * StreamConnection do not interfere with each other.
+   */
+  private final Cache<StreamConnectionId, StreamConnection> connections;
+
+  /**
+   * Every {@link StreamConnection} of this manager that is still reachable, held weakly and keyed by its {@link
+   * StreamConnectionId}. This includes connections that were evicted from {@link #connections} while in use, which are
+   * returned again by {@link #openConnection(StreamConnectionId)} instead of a new connection with the same identifier.
+   */
+  private final Cache<StreamConnectionId, StreamConnection> reachableConnections;
+
+  /**
+   * No-args Constructor. Keeps up to {@link #DEFAULT_MAXIMUM_SIZE} connections, each until it has not been opened for
+   * {@link #DEFAULT_EXPIRE_AFTER_ACCESS}.
+   */
+  public StreamConnectionManager() {
+    this(DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_ACCESS);
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param maximumSize       The maximum number of connections to keep.
+   * @param expireAfterAccess How long to keep a connection after it was last opened.
    */
-  private static final Map<StreamConnectionId, StreamConnection> connections = Maps.newConcurrentMap();
+  public StreamConnectionManager(final long maximumSize, final Duration expireAfterAccess) {
+    this(maximumSize, expireAfterAccess, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  StreamConnectionManager(final long maximumSize, final Duration expireAfterAccess, final Ticker ticker) {
+    Objects.requireNonNull(expireAfterAccess, "expireAfterAccess must not be null");
+    Objects.requireNonNull(ticker, "ticker must not be null");
+    this.connections = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterAccess(expireAfterAccess.toMillis(), TimeUnit.MILLISECONDS)
+        .ticker(ticker)
+        .recordStats()
+        .build();
+    this.reachableConnections = CacheBuilder.newBuilder()
+        .weakValues()
+        .build();
+  }
 
   /**
    * Open a new Stream Connection for the specified {@code streamConnectionId}, or return an existing Connection if one
@@ -53,20 +110,31 @@ public class StreamConnectionManager {
   public StreamConnection openConnection(final StreamConnectionId streamConnectionId) {
     Objects.requireNonNull(streamConnectionId);
 
-    // If the connection is already open, then return it. Otherwise, return a new Connection.
-    return connections.computeIfAbsent(streamConnectionId, StreamConnection::new);
+    // If the connection is already open, then return it, even if it was evicted but is still in use. Otherwise, return
+    // a new Connection.
+    try {
+      return connections.get(streamConnectionId, () -> reachableConnections.get(
+          streamConnectionId, () -> new StreamConnection(streamConnectionId)
+      ));
+    } catch (ExecutionException e) {
+      // The constructor of StreamConnection throws no checked exceptions.
+      throw new IllegalStateException(e.getCause());
+    }
   }
 
   /**
-   * <p>Close the {@link StreamConnection} identified by {@code streamConnectionId}. This method is thread-safe because
-   * the underlying {@link StreamConnection} is itself thread-safe, and will not allow emitted sequences that are
-   * invalid.</p>
+   * <p>Close the {@link StreamConnection} identified by {@code streamConnectionId}, and remove it from this manager.
+   * This method is thread-safe because the underlying {@link StreamConnection} is itself thread-safe, and will not
+   * allow emitted sequences that are invalid.</p>
    *
    * <p>One concurrency-related note is that there is a small moment of time after this method has been called, but
    * where it has not yet processed the close request. During this time, an in-use Connection will process calls to
    * {@link StreamConnection#nextSequence()} so long as the sequence is not too large. Ultimately it is the
    * responsibility of {@link StreamConnection} to manage it effective Connection state.</p>
    *
+   * <p>A later call to {@link #openConnection(StreamConnectionId)} for the same identifier returns a new
+   * connection.</p>
+   *
    * @param streamConnectionId A {@link StreamConnectionId} that uniquely identifies a stream connection to close.
    *
    * @return An optionally-present {@link StreamConnection}, if one is open. Otherwise, {@link Optional#empty()}.
@@ -74,12 +142,35 @@ public class StreamConnectionManager {
   public Optional<StreamConnection> closeConnection(final StreamConnectionId streamConnectionId) {
     Objects.requireNonNull(streamConnectionId);
 
-    // WARNING: Don't ever remove the connection once it's closed. Closed connections MUST never be re-used so that they
-    // don't accidentally use a sequence number that exceeds the StreamConnection.MAX_FRAMES_PER_CONNECTION
-    return Optional.ofNullable(connections.get(streamConnectionId))
+    final StreamConnection reachableConnection = reachableConnections.asMap().remove(streamConnectionId);
+    final StreamConnection tableConnection = connections.asMap().remove(streamConnectionId);
+    return Optional.ofNullable(tableConnection != null ? tableConnection : reachableConnection)
         .map(connectionToClose -> {
           connectionToClose.closeConnection();
           return connectionToClose;
         });
   }
+
+  /**
+   * The number of connections that this manager currently keeps in its table, including connections that closed
+   * themselves but have not been evicted yet. Evicted connections that are still in use are not counted.
+   *
+   * @return The number of live connections.
+   */
+  public long liveConnectionCount() {
+    connections.cleanUp();
+    return connections.size();
+  }
+
+  /**
+   * The hit, miss and eviction counts of the connection table. A miss opens a new connection, or returns an evicted
+   * connection that is still in use, and {@link CacheStats#evictionCount()} counts the connections that were evicted
+   * because they were idle or the table was full. Connections removed by {@link #closeConnection(StreamConnectionId)}
+   * are not counted as evicted.
+   *
+   * @return A {@link CacheStats} snapshot.
+   */
+  public CacheStats stats() {
+    return connections.stats();
+  }
 }
@@ -0,0 +1,413 @@
+package org.interledger.stream.sender;
+
+import static org.interledger.core.InterledgerErrorCode.F08_AMOUNT_TOO_LARGE_CODE;
+import static org.interledger.stream.sender.CongestionMath.UNSIGNED_MAX;
+import static org.interledger.stream.sender.CongestionMath.addSaturated;
+
+import org.interledger.core.DateUtils;
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerCondition;
+import org.interledger.core.InterledgerFulfillPacket;
+import org.interledger.core.InterledgerPacketType;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.core.InterledgerResponsePacket;
+import org.interledger.core.SharedSecret;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.link.Link;
+import org.interledger.stream.PrepareAmounts;
+import org.interledger.stream.StreamConnection;
+import org.interledger.stream.StreamPacket;
+import org.interledger.stream.crypto.FulfillmentGenerator;
+import org.interledger.stream.crypto.StreamEncryptionService;
+import org.interledger.stream.frames.StreamFrame;
+import org.interledger.stream.frames.StreamMoneyFrame;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.UnsignedLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * <p>Multiplexes the money streams of concurrent payments to one receiver over their shared {@link
+ * StreamConnection}.</p>
+ *
+ * <p>Each payment opens its own stream with {@link StreamConnection#nextStreamId()}, and hands the amount of each of
+ * its packets to {@link #send} as a share. At most {@code maxPreparesInFlight} Prepare packets are in flight on the
+ * connection at a time. Shares that arrive while that many are in flight are queued, and the thread whose Prepare
+ * completes next sends the queued shares together in one Prepare packet, with a {@link StreamMoneyFrame} for each
+ * stream whose number of shares is the amount of that stream. The more payments to a receiver are in flight, the fewer
+ * packets and sequence numbers each of them uses.</p>
+ *
+ * <p>The amount that the receiver reports for a fulfilled packet is split between its shares in the same way that
+ * the receiver splits it between the streams: rounded down, with the remainder going to the lowest stream id.</p>
+ */
+@ThreadSafe
+class StreamMoneyMultiplexer {
+
+  /**
+   * The maximum number of Prepare packets that a multiplexer has in flight on a connection, unless it is told
+   * otherwise.
+   */
+  static final int DEFAULT_MAX_PREPARES_IN_FLIGHT = 10;
+
+  /**
+   * The maximum number of shares in one Prepare packet, which keeps the packet far below the 32kb that connectors
+   * accept.
+   */
+  static final int MAX_SHARES_PER_PACKET = 100;
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final StreamConnection streamConnection;
+  private final CodecContext streamCodecContext;
+  private final Link link;
+  private final StreamEncryptionService streamEncryptionService;
+  private final FulfillmentGenerator fulfillmentGenerator;
+  private final InterledgerAddress destinationAddress;
+  private final SharedSecret sharedSecret;
+  private final int maxPreparesInFlight;
+
+  @GuardedBy("this")
+  private final Queue<Share> queuedShares = new ArrayDeque<>();
+  @GuardedBy("this")
+  private int preparesInFlight;
+  /**
+   * The largest amount that a Prepare of several shares may have, learned from F08 rejections, so that combining
+   * shares does not turn packets that the path accepts into packets that it rejects.
+   */
+  @GuardedBy("this")
+  private long maxPacketAmount = UNSIGNED_MAX;
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param streamConnection        The {@link StreamConnection} that all streams of this multiplexer share.
+   * @param streamCodecContext      A {@link CodecContext} that can encode and decode ASN.1 OER Stream packets and
+   *                                frames.
+   * @param link                    The {@link Link} used to send ILPv4 packets containing Stream packets.
+   * @param streamEncryptionService A {@link StreamEncryptionService} that allows for Stream packet encryption and
+   *                                decryption.
+   * @param fulfillmentGenerator    A {@link FulfillmentGenerator} used to generate the condition of each packet.
+   * @param destinationAddress      The {@link InterledgerAddress} of the receiver.
+   * @param sharedSecret            The {@link SharedSecret} of the connection.
+   * @param maxPreparesInFlight     The maximum number of Prepare packets in flight on the connection at a time.
+   */
+  StreamMoneyMultiplexer(
+      final StreamConnection streamConnection,
+      final CodecContext streamCodecContext,
+      final Link link,
+      final StreamEncryptionService streamEncryptionService,
+      final FulfillmentGenerator fulfillmentGenerator,
+      final InterledgerAddress destinationAddress,
+      final SharedSecret sharedSecret,
+      final int maxPreparesInFlight
+  ) {
+    this.streamConnection = Objects.requireNonNull(streamConnection);
+    this.streamCodecContext = Objects.requireNonNull(streamCodecContext);
+    this.link = Objects.requireNonNull(link);
+    this.streamEncryptionService = Objects.requireNonNull(streamEncryptionService);
+    this.fulfillmentGenerator = Objects.requireNonNull(fulfillmentGenerator);
+    this.destinationAddress = Objects.requireNonNull(destinationAddress);
+    this.sharedSecret = Objects.requireNonNull(sharedSecret);
+    if (maxPreparesInFlight < 1) {
+      throw new IllegalArgumentException("maxPreparesInFlight must be at least 1");
+    }
+    this.maxPreparesInFlight = maxPreparesInFlight;
+  }
+
+  /**
+   * The {@link StreamConnection} that all streams of this multiplexer share.
+   *
+   * @return A {@link StreamConnection}.
+   */
+  StreamConnection getStreamConnection() {
+    return streamConnection;
+  }
+
+  /**
+   * Send {@code prepareAmounts} on the stream {@code streamId}, either in a new Prepare packet on the calling thread,
+   * or together with other shares once a Prepare that is in flight completes. The calling thread may send the shares
+   * of other streams as well before this method returns.
+   *
+   * @param streamId       The id of the stream that the share is for.
+   * @param prepareAmounts The {@link PrepareAmounts} of the share.
+   *
+   * @return A {@link CompletableFuture} that completes with the {@link ShareResponse} of the share, or exceptionally
+   *     if its Prepare packet could not be sent.
+   */
+  CompletableFuture<ShareResponse> send(final UnsignedLong streamId, final PrepareAmounts prepareAmounts) {
+    final Share share = new Share(Objects.requireNonNull(streamId), Objects.requireNonNull(prepareAmounts));
+    List<Share> batch;
+    synchronized (this) {
+      queuedShares.add(share);
+      if (preparesInFlight >= maxPreparesInFlight) {
+        return share.response;
+      }
+      preparesInFlight++;
+      batch = nextBatch();
+    }
+    while (true) {
+      sendBatch(batch);
+      synchronized (this) {
+        if (queuedShares.isEmpty()) {
+          preparesInFlight--;
+          return share.response;
+        }
+        batch = nextBatch();
+      }
+    }
+  }
+
+  /**
+   * Take the shares of the next Prepare packet from {@link #queuedShares}. There is always at least one share, even if
+   * it alone exceeds {@link #maxPacketAmount}, so that the congestion controller of its payment learns about it.
+   */
+  @GuardedBy("this")
+  private List<Share> nextBatch() {
+    final List<Share> batch = Lists.newArrayList(queuedShares.remove());
+    long amount = batch.get(0).prepareAmounts.getAmountToSend().longValue();
+    while (!queuedShares.isEmpty() && batch.size() < MAX_SHARES_PER_PACKET) {
+      final long nextAmount = addSaturated(amount, queuedShares.peek().prepareAmounts.getAmountToSend().longValue());
+      if (Long.compareUnsigned(nextAmount, maxPacketAmount) > 0) {
+        break;
+      }
+      batch.add(queuedShares.remove());
+      amount = nextAmount;
+    }
+    return batch;
+  }
+
+  private void sendBatch(final List<Share> batch) {
+    try {
+      long amountSum = 0;
+      long minimumSum = 0;
+      final Map<UnsignedLong, Long> sharesByStreamId = Maps.newLinkedHashMap();
+      for (final Share share : batch) {
+        final long shareAmount = share.prepareAmounts.getAmountToSend().longValue();
+        amountSum = addSaturated(amountSum, shareAmount);
+        minimumSum = addSaturated(minimumSum, share.prepareAmounts.getMinimumAmountToAccept().longValue());
+        sharesByStreamId.merge(share.streamId, shareAmount, CongestionMath::addSaturated);
+      }
+      final long amountToSend = amountSum;
+
+      final List<StreamFrame> frames = Lists.newArrayList();
+      sharesByStreamId.forEach((streamId, shares) -> frames.add(StreamMoneyFrame.builder()
+          .streamId(streamId)
+          // A stream needs at least one share to receive anything, even if its amount is zero.
+          .shares(UnsignedLong.fromLongBits(shares == 0 ? 1 : shares))
+          .build()
+      ));
+
+      final StreamPacket streamPacket = StreamPacket.builder()
+          .interledgerPacketType(InterledgerPacketType.PREPARE)
+          .prepareAmount(UnsignedLong.fromLongBits(minimumSum))
+          .sequence(streamConnection.nextSequence())
+          .frames(frames)
+          .build();
+
+      final byte[] streamPacketData = toEncrypted(streamPacket);
+      final InterledgerCondition executionCondition =
+          fulfillmentGenerator.generateFulfillment(sharedSecret, streamPacketData).getCondition();
+
+      final InterledgerPreparePacket preparePacket = InterledgerPreparePacket.builder()
+          .destination(destinationAddress)
+          .amount(UnsignedLong.fromLongBits(amountToSend))
+          .executionCondition(executionCondition)
+          .expiresAt(DateUtils.now().plusSeconds(30L))
+          .data(streamPacketData)
+          .build();
+
+      final long sentAtNanos = System.nanoTime();
+      final InterledgerResponsePacket responsePacket = link.sendPacket(preparePacket);
+      final Duration roundTripTime = Duration.ofNanos(System.nanoTime() - sentAtNanos);
+
+      final Optional<UnsignedLong> deliveredAmount = responsePacket.map(
+          this::readDeliveredAmount,
+          rejectPacket -> {
+            learnMaxPacketAmount(batch, amountToSend, rejectPacket);
+            return Optional.of(UnsignedLong.ZERO);
+          }
+      );
+      final List<Optional<UnsignedLong>> deliveredAmounts = deliveredAmount.isPresent()
+          ? splitDeliveredAmount(batch, amountToSend, deliveredAmount.get())
+          : Collections.nCopies(batch.size(), Optional.empty());
+
+      for (int i = 0; i < batch.size(); i++) {
+        batch.get(i).response.complete(new ShareResponse(
+            preparePacket, streamPacket, responsePacket, deliveredAmounts.get(i), roundTripTime
+        ));
+      }
+    } catch (Exception e) {
+      logger.error("Unable to send multiplexed Prepare packet. numShares={}", batch.size(), e);
+      batch.forEach(share -> share.response.completeExceptionally(e));
+    }
+  }
+
+  private Optional<UnsignedLong> readDeliveredAmount(final InterledgerFulfillPacket fulfillPacket) {
+    try {
+      final byte[] streamPacketBytes = streamEncryptionService.decrypt(sharedSecret, fulfillPacket.getData());
+      final StreamPacket streamPacket = streamCodecContext.read(
+          StreamPacket.class, new ByteArrayInputStream(streamPacketBytes)
+      );
+      if (streamPacket.interledgerPacketType() == InterledgerPacketType.FULFILL) {
+        return Optional.of(streamPacket.prepareAmount());
+      }
+    } catch (Exception e) {
+      logger.warn("Unable to read STREAM packet from fulfill data. fulfillPacket={}", fulfillPacket, e);
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Remember the amount that the path allows from an F08 rejection of a packet with several shares. A packet with one
+   * share is left to the congestion controller of its payment.
+   */
+  private void learnMaxPacketAmount(
+      final List<Share> batch, final long amountToSend, final InterledgerRejectPacket rejectPacket
+  ) {
+    if (batch.size() > 1 && rejectPacket.getCode().getCode().equals(F08_AMOUNT_TOO_LARGE_CODE)) {
+      final long newMaxPacketAmount = CongestionMath.f08MaxPacketAmount(amountToSend, rejectPacket, streamCodecContext);
+      synchronized (this) {
+        maxPacketAmount = CongestionMath.minUnsigned(maxPacketAmount, newMaxPacketAmount);
+      }
+    }
+  }
+
+  /**
+   * Split {@code deliveredAmount} between the shares of {@code batch} in proportion to their amounts.
+   */
+  @VisibleForTesting
+  static List<Optional<UnsignedLong>> splitDeliveredAmount(
+      final List<Share> batch, final long amountToSend, final UnsignedLong deliveredAmount
+  ) {
+    final List<Optional<UnsignedLong>> deliveredAmounts = Lists.newArrayListWithCapacity(batch.size());
+    long remainder = deliveredAmount.longValue();
+    int lowestStreamIdIndex = 0;
+    for (int i = 0; i < batch.size(); i++) {
+      final Share share = batch.get(i);
+      final long shareAmount = amountToSend == 0 ? 0 : CongestionMath.multiplyDivide(
+          deliveredAmount.longValue(), share.prepareAmounts.getAmountToSend().longValue(), amountToSend
+      );
+      deliveredAmounts.add(Optional.of(UnsignedLong.fromLongBits(shareAmount)));
+      remainder -= shareAmount;
+      if (share.streamId.compareTo(batch.get(lowestStreamIdIndex).streamId) < 0) {
+        lowestStreamIdIndex = i;
+      }
+    }
+    final long lowestStreamIdAmount = deliveredAmounts.get(lowestStreamIdIndex).get().longValue();
+    deliveredAmounts.set(lowestStreamIdIndex, Optional.of(UnsignedLong.fromLongBits(lowestStreamIdAmount + remainder)));
+    return deliveredAmounts;
+  }
+
+  private byte[] toEncrypted(final StreamPacket streamPacket) {
+    try {
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      streamCodecContext.write(streamPacket, baos);
+      return streamEncryptionService.encrypt(sharedSecret, baos.toByteArray());
+    } catch (IOException e) {
+      throw new StreamSenderException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * An amount of one stream that is waiting to be sent.
+   */
+  @VisibleForTesting
+  static final class Share {
+
+    private final UnsignedLong streamId;
+    private final PrepareAmounts prepareAmounts;
+    private final CompletableFuture<ShareResponse> response = new CompletableFuture<>();
+
+    Share(final UnsignedLong streamId, final PrepareAmounts prepareAmounts) {
+      this.streamId = streamId;
+      this.prepareAmounts = prepareAmounts;
+    }
+  }
+
+  /**
+   * The response to the Prepare packet that carried a share.
+   */
+  static final class ShareResponse {
+
+    private final InterledgerPreparePacket preparePacket;
+    private final StreamPacket streamPacket;
+    private final InterledgerResponsePacket responsePacket;
+    private final Optional<UnsignedLong> deliveredAmount;
+    private final Duration roundTripTime;
+
+    private ShareResponse(
+        final InterledgerPreparePacket preparePacket,
+        final StreamPacket streamPacket,
+        final InterledgerResponsePacket responsePacket,
+        final Optional<UnsignedLong> deliveredAmount,
+        final Duration roundTripTime
+    ) {
+      this.preparePacket = preparePacket;
+      this.streamPacket = streamPacket;
+      this.responsePacket = responsePacket;
+      this.deliveredAmount = deliveredAmount;
+      this.roundTripTime = roundTripTime;
+    }
+
+    /**
+     * The Prepare packet that carried the share, together with the shares of other streams.
+     *
+     * @return An {@link InterledgerPreparePacket}.
+     */
+    InterledgerPreparePacket getPreparePacket() {
+      return preparePacket;
+    }
+
+    /**
+     * The {@link StreamPacket} inside of {@link #getPreparePacket()}.
+     *
+     * @return A {@link StreamPacket}.
+     */
+    StreamPacket getStreamPacket() {
+      return streamPacket;
+    }
+
+    /**
+     * The Fulfill or Reject packet that was returned for {@link #getPreparePacket()}.
+     *
+     * @return An {@link InterledgerResponsePacket}.
+     */
+    InterledgerResponsePacket getResponsePacket() {
+      return responsePacket;
+    }
+
+    /**
+     * The part of the amount that the receiver reported for a fulfilled packet that belongs to the share, which is zero
+     * for a rejected packet.
+     *
+     * @return An {@link UnsignedLong}, or {@link Optional#empty()} if the fulfill data could not be read.
+     */
+    Optional<UnsignedLong> getDeliveredAmount() {
+      return deliveredAmount;
+    }
+
+    Duration getRoundTripTime() {
+      return roundTripTime;
+    }
+  }
+}
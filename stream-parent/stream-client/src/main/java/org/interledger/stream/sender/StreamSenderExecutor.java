@@ -0,0 +1,310 @@
+package org.interledger.stream.sender;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * <p>The threads that a {@link SimpleStreamSender} runs payments on. Many senders can share one instance, so that the
+ * number of threads does not grow with the number of senders or payments.</p>
+ *
+ * <p>An instance holds three executors:</p>
+ *
+ * <ul>
+ *   <li>A payment pool, which runs the send loop of each payment. A payment holds one of its threads until it
+ *   completes, so this pool bounds the number of payments in progress. Other payments wait in its queue.</li>
+ *   <li>A packet pool, which sends Prepare packets on the link and handles their responses.</li>
+ *   <li>A single timer thread, which enforces the timeout of every payment.</li>
+ * </ul>
+ *
+ * <p>Both pools have bounded queues. When a queue is full, the pool rejects the task with a
+ * {@link RejectedExecutionException}: {@link SimpleStreamSender#sendMoney} then returns a future that failed with that
+ * exception, and a payment whose packet is rejected backs off before it tries again. The queue depths and the number
+ * of rejected tasks are exposed for monitoring.</p>
+ *
+ * <p>On a JVM with virtual threads (see {@link VirtualThreadExecutors}), {@link Builder#virtualThreads(boolean)}
+ * replaces both pools with executors that start a virtual thread for each task. Those executors have no queue, so the
+ * queue depths are always {@code 0}, and they only reject tasks after {@link #shutdown()}. On other JVMs the option
+ * has no effect.</p>
+ */
+@ThreadSafe
+public class StreamSenderExecutor {
+
+  static final int DEFAULT_PAYMENT_THREADS = 32;
+  static final int DEFAULT_PAYMENT_QUEUE_CAPACITY = 10_000;
+  static final int DEFAULT_PACKET_THREADS = 30;
+  static final int DEFAULT_PACKET_QUEUE_CAPACITY = 10_000;
+
+  private final ExecutorService paymentExecutor;
+  private final ExecutorService packetExecutor;
+  private final ScheduledThreadPoolExecutor timeoutScheduler;
+  private final LongAdder paymentRejections;
+  private final LongAdder packetRejections;
+
+  private StreamSenderExecutor(final Builder builder) {
+    this.paymentRejections = new LongAdder();
+    this.packetRejections = new LongAdder();
+    this.paymentExecutor = newExecutor(
+        builder.virtualThreads,
+        builder.threadNamePrefix + "-payment",
+        builder.paymentThreads,
+        builder.paymentQueueCapacity,
+        paymentRejections
+    );
+    this.packetExecutor = newExecutor(
+        builder.virtualThreads,
+        builder.threadNamePrefix + "-packet",
+        builder.packetThreads,
+        builder.packetQueueCapacity,
+        packetRejections
+    );
+    this.timeoutScheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+        .setDaemon(true)
+        .setNameFormat(builder.threadNamePrefix + "-timeout-%d")
+        .build());
+    // Most payments complete before their timeout, so don't keep their cancelled timeouts around.
+    this.timeoutScheduler.setRemoveOnCancelPolicy(true);
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * The instance that {@link SimpleStreamSender}s use unless they are given another one. It is created with the
+   * defaults of {@link Builder} the first time it is used, and is never shut down.
+   *
+   * @return The shared {@link StreamSenderExecutor}.
+   */
+  public static StreamSenderExecutor shared() {
+    return SharedInstance.INSTANCE;
+  }
+
+  private static ExecutorService newExecutor(
+      final boolean virtualThreads,
+      final String threadNamePrefix,
+      final int threads,
+      final int queueCapacity,
+      final LongAdder rejections
+  ) {
+    if (virtualThreads) {
+      final Optional<ExecutorService> virtualThreadExecutor =
+          VirtualThreadExecutors.newVirtualThreadPerTaskExecutor(threadNamePrefix);
+      if (virtualThreadExecutor.isPresent()) {
+        return virtualThreadExecutor.get();
+      }
+    }
+    return newBoundedPool(threadNamePrefix + "-%d", threads, queueCapacity, rejections);
+  }
+
+  private static ThreadPoolExecutor newBoundedPool(
+      final String nameFormat, final int threads, final int queueCapacity, final LongAdder rejections
+  ) {
+    final RejectedExecutionHandler countingAbortPolicy = (task, executor) -> {
+      rejections.increment();
+      throw new RejectedExecutionException(String.format(
+          "Task rejected. threads=%s queueCapacity=%s shutdown=%s", threads, queueCapacity, executor.isShutdown()
+      ));
+    };
+    return new ThreadPoolExecutor(
+        threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat(nameFormat)
+            .build(),
+        countingAbortPolicy
+    );
+  }
+
+  ExecutorService paymentExecutor() {
+    return paymentExecutor;
+  }
+
+  ExecutorService packetExecutor() {
+    return packetExecutor;
+  }
+
+  ScheduledExecutorService timeoutScheduler() {
+    return timeoutScheduler;
+  }
+
+  /**
+   * The number of payments that are waiting for a thread of the payment pool.
+   *
+   * @return The current depth of the payment queue.
+   */
+  public int getPaymentQueueDepth() {
+    return queueDepth(paymentExecutor);
+  }
+
+  /**
+   * The number of packets that are waiting for a thread of the packet pool.
+   *
+   * @return The current depth of the packet queue.
+   */
+  public int getPacketQueueDepth() {
+    return queueDepth(packetExecutor);
+  }
+
+  private static int queueDepth(final ExecutorService executor) {
+    return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getQueue().size() : 0;
+  }
+
+  /**
+   * Whether payments and packets run on virtual threads.
+   *
+   * @return {@code true} if this instance was built with {@link Builder#virtualThreads(boolean)} on a JVM that
+   *     supports virtual threads.
+   */
+  public boolean usesVirtualThreads() {
+    return !(paymentExecutor instanceof ThreadPoolExecutor);
+  }
+
+  /**
+   * The number of payments that were rejected because the payment queue was full, or because this instance was shut
+   * down.
+   *
+   * @return The number of rejected payments since this instance was created.
+   */
+  public long getPaymentRejections() {
+    return paymentRejections.sum();
+  }
+
+  /**
+   * The number of packets that were rejected because the packet queue was full, or because this instance was shut
+   * down.
+   *
+   * @return The number of rejected packets since this instance was created.
+   */
+  public long getPacketRejections() {
+    return packetRejections.sum();
+  }
+
+  /**
+   * Stop accepting payments and packets. Payments and packets that were already accepted still run.
+   */
+  public void shutdown() {
+    paymentExecutor.shutdown();
+    packetExecutor.shutdown();
+    timeoutScheduler.shutdown();
+  }
+
+  /**
+   * Holds {@link #shared()}, so that its threads are only created if it is used.
+   */
+  private static final class SharedInstance {
+
+    private static final StreamSenderExecutor INSTANCE = builder().build();
+  }
+
+  /**
+   * A builder for constructing instances of {@link StreamSenderExecutor}.
+   */
+  public static final class Builder {
+
+    private int paymentThreads = DEFAULT_PAYMENT_THREADS;
+    private int paymentQueueCapacity = DEFAULT_PAYMENT_QUEUE_CAPACITY;
+    private int packetThreads = DEFAULT_PACKET_THREADS;
+    private int packetQueueCapacity = DEFAULT_PACKET_QUEUE_CAPACITY;
+    private String threadNamePrefix = "stream-sender";
+    private boolean virtualThreads;
+
+    private Builder() {
+    }
+
+    /**
+     * The number of payments that can be in progress at the same time. Defaults to {@code 32}.
+     *
+     * @param paymentThreads The number of threads of the payment pool.
+     *
+     * @return This builder.
+     */
+    public Builder paymentThreads(final int paymentThreads) {
+      Preconditions.checkArgument(paymentThreads > 0, "paymentThreads must be greater than 0");
+      this.paymentThreads = paymentThreads;
+      return this;
+    }
+
+    /**
+     * The number of payments that can wait for a thread of the payment pool. Defaults to {@code 10000}.
+     *
+     * @param paymentQueueCapacity The capacity of the payment queue.
+     *
+     * @return This builder.
+     */
+    public Builder paymentQueueCapacity(final int paymentQueueCapacity) {
+      Preconditions.checkArgument(paymentQueueCapacity > 0, "paymentQueueCapacity must be greater than 0");
+      this.paymentQueueCapacity = paymentQueueCapacity;
+      return this;
+    }
+
+    /**
+     * The number of packets that can be sent at the same time, across all payments. Defaults to {@code 30}.
+     *
+     * @param packetThreads The number of threads of the packet pool.
+     *
+     * @return This builder.
+     */
+    public Builder packetThreads(final int packetThreads) {
+      Preconditions.checkArgument(packetThreads > 0, "packetThreads must be greater than 0");
+      this.packetThreads = packetThreads;
+      return this;
+    }
+
+    /**
+     * The number of packets that can wait for a thread of the packet pool. Defaults to {@code 10000}.
+     *
+     * @param packetQueueCapacity The capacity of the packet queue.
+     *
+     * @return This builder.
+     */
+    public Builder packetQueueCapacity(final int packetQueueCapacity) {
+      Preconditions.checkArgument(packetQueueCapacity > 0, "packetQueueCapacity must be greater than 0");
+      this.packetQueueCapacity = packetQueueCapacity;
+      return this;
+    }
+
+    /**
+     * The prefix of the names of all threads. Defaults to {@code stream-sender}.
+     *
+     * @param threadNamePrefix A prefix for thread names.
+     *
+     * @return This builder.
+     */
+    public Builder threadNamePrefix(final String threadNamePrefix) {
+      this.threadNamePrefix = Objects.requireNonNull(threadNamePrefix);
+      return this;
+    }
+
+    /**
+     * Run each payment and each packet on its own virtual thread, instead of on the bounded pools, if this JVM
+     * supports virtual threads. The pool sizes and queue capacities are then ignored. Defaults to {@code false}.
+     *
+     * @param virtualThreads {@code true} to use virtual threads where they are supported.
+     *
+     * @return This builder.
+     */
+    public Builder virtualThreads(final boolean virtualThreads) {
+      this.virtualThreads = virtualThreads;
+      return this;
+    }
+
+    public StreamSenderExecutor build() {
+      return new StreamSenderExecutor(this);
+    }
+  }
+}
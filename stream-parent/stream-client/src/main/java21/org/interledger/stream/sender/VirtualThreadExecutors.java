@@ -0,0 +1,42 @@
+package org.interledger.stream.sender;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>Creates {@link ExecutorService}s that run each task on a new virtual thread.</p>
+ *
+ * <p>This is the Java 21 version of this class, which the multi-release jar uses on Java 21 and newer JVMs. Both
+ * versions must have the same public methods.</p>
+ */
+public final class VirtualThreadExecutors {
+
+  private VirtualThreadExecutors() {
+  }
+
+  /**
+   * Whether this JVM supports virtual threads.
+   *
+   * @return {@code true} if {@link #newVirtualThreadPerTaskExecutor(String)} returns an executor.
+   */
+  public static boolean isSupported() {
+    return true;
+  }
+
+  /**
+   * Create an {@link ExecutorService} that starts a new virtual thread for each task, if this JVM supports virtual
+   * threads.
+   *
+   * @param threadNamePrefix The prefix of the names of the threads of the executor.
+   *
+   * @return An {@link ExecutorService}, or {@link Optional#empty()} on a JVM without virtual threads.
+   */
+  public static Optional<ExecutorService> newVirtualThreadPerTaskExecutor(final String threadNamePrefix) {
+    Objects.requireNonNull(threadNamePrefix);
+    return Optional.of(Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name(threadNamePrefix + "-", 0).factory()
+    ));
+  }
+}
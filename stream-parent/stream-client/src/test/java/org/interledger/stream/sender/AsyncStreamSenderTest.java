@@ -0,0 +1,210 @@
+package org.interledger.stream.sender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerErrorCode;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.core.InterledgerResponsePacket;
+import org.interledger.core.SharedSecret;
+import org.interledger.link.Link;
+import org.interledger.link.LinkId;
+import org.interledger.link.exceptions.LinkException;
+import org.interledger.stream.Denominations;
+import org.interledger.stream.SendMoneyRequest;
+import org.interledger.stream.SendMoneyResult;
+import org.interledger.stream.SenderAmountMode;
+import org.interledger.stream.StreamConnectionId;
+import org.interledger.stream.calculators.NoOpExchangeRateCalculator;
+import org.interledger.stream.crypto.JavaxStreamEncryptionService;
+
+import com.google.common.primitives.UnsignedLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.Timeout;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Unit tests for {@link AsyncStreamSender}. Payments between a sender and a receiver are tested in the
+ * {@code stream-receiver} module.
+ */
+public class AsyncStreamSenderTest {
+
+  // 10 seconds max per method tested
+  @Rule
+  public Timeout globalTimeout = Timeout.seconds(10);
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private static final InterledgerAddress DESTINATION_ADDRESS = InterledgerAddress.of("example.destination");
+
+  private static final SharedSecret SHARED_SECRET = SharedSecret.of(new byte[32]);
+
+  @Mock
+  private Link linkMock;
+
+  private ExecutorService executorService;
+
+  private ScheduledExecutorService timeoutScheduler;
+
+  private StreamConnectionManager streamConnectionManager;
+
+  private AsyncStreamSender asyncStreamSender;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    when(linkMock.getLinkId()).thenReturn(LinkId.of("test"));
+
+    executorService = Executors.newFixedThreadPool(2);
+    timeoutScheduler = Executors.newSingleThreadScheduledExecutor();
+    streamConnectionManager = new StreamConnectionManager();
+    asyncStreamSender = new AsyncStreamSender(
+        new JavaxStreamEncryptionService(), linkMock, executorService, timeoutScheduler, streamConnectionManager
+    );
+  }
+
+  @After
+  public void tearDown() {
+    executorService.shutdownNow();
+    timeoutScheduler.shutdownNow();
+  }
+
+  @Test
+  public void constructWithNullLink() {
+    expectedException.expect(NullPointerException.class);
+    new AsyncStreamSender(null);
+  }
+
+  @Test
+  public void constructWithNullExecutor() {
+    expectedException.expect(NullPointerException.class);
+    new AsyncStreamSender(
+        new JavaxStreamEncryptionService(), linkMock, null, timeoutScheduler, streamConnectionManager
+    );
+  }
+
+  @Test
+  public void constructWithNullTimeoutScheduler() {
+    expectedException.expect(NullPointerException.class);
+    new AsyncStreamSender(
+        new JavaxStreamEncryptionService(), linkMock, executorService, null, streamConnectionManager
+    );
+  }
+
+  @Test
+  public void constructWithNullCongestionControllerFactory() {
+    expectedException.expect(NullPointerException.class);
+    new AsyncStreamSender(
+        new JavaxStreamEncryptionService(), linkMock, executorService, timeoutScheduler, streamConnectionManager, null
+    );
+  }
+
+  @Test
+  public void sendMoneyUsesCongestionControllerFactory() {
+    final CongestionControllerFactory congestionControllerFactory = mock(CongestionControllerFactory.class);
+    when(congestionControllerFactory.newCongestionController(any())).thenReturn(new AimdCongestionController());
+    asyncStreamSender = new AsyncStreamSender(
+        new JavaxStreamEncryptionService(), linkMock, executorService, timeoutScheduler, streamConnectionManager,
+        congestionControllerFactory
+    );
+    // Completes the payment without sending anything.
+    executorService.shutdownNow();
+    final SendMoneyRequest request = request(Duration.ofSeconds(1));
+
+    asyncStreamSender.sendMoney(request).join();
+
+    verify(congestionControllerFactory).newCongestionController(request);
+  }
+
+  @Test
+  public void sendMoneyOnClosedConnection() {
+    streamConnectionManager.openConnection(StreamConnectionId.from(DESTINATION_ADDRESS, SHARED_SECRET))
+        .closeConnection();
+
+    final SendMoneyResult result = asyncStreamSender.sendMoney(request(Duration.ofSeconds(1))).join();
+
+    assertThat(result.successfulPayment()).isFalse();
+    assertThat(result.numFulfilledPackets()).isEqualTo(0);
+    assertThat(result.numRejectPackets()).isEqualTo(1);
+    assertThat(result.amountLeftToSend()).isEqualTo(UnsignedLong.valueOf(1000));
+    verify(linkMock, never()).sendPacketAsync(any());
+  }
+
+  @Test
+  public void sendMoneyCompletesAtTimeoutWhenLinkFails() {
+    when(linkMock.sendPacketAsync(any())).thenAnswer(invocation -> {
+      final CompletableFuture<InterledgerResponsePacket> response = new CompletableFuture<>();
+      response.completeExceptionally(new LinkException("link failed", LinkId.of("test")));
+      return response;
+    });
+
+    final SendMoneyResult result = asyncStreamSender.sendMoney(request(Duration.ofSeconds(2))).join();
+
+    assertThat(result.successfulPayment()).isFalse();
+    assertThat(result.amountDelivered()).isEqualTo(UnsignedLong.ZERO);
+    assertThat(result.amountLeftToSend()).isEqualTo(UnsignedLong.valueOf(1000));
+    // The preflight packet, and at least one attempt to send money.
+    verify(linkMock, atLeast(2)).sendPacketAsync(any());
+  }
+
+  @Test
+  public void sendMoneyCompletesAtTimeoutWhenPacketsAreRejected() {
+    when(linkMock.sendPacketAsync(any())).thenAnswer(invocation -> CompletableFuture.completedFuture(
+        InterledgerRejectPacket.builder()
+            .code(InterledgerErrorCode.T00_INTERNAL_ERROR)
+            .message("try again")
+            .build()
+    ));
+
+    final SendMoneyResult result = asyncStreamSender.sendMoney(request(Duration.ofSeconds(2))).join();
+
+    assertThat(result.successfulPayment()).isFalse();
+    assertThat(result.numFulfilledPackets()).isEqualTo(0);
+    assertThat(result.numRejectPackets()).isGreaterThan(0);
+    assertThat(result.amountLeftToSend()).isEqualTo(UnsignedLong.valueOf(1000));
+  }
+
+  @Test
+  public void sendMoneyCompletesBeforeTimeoutWhenExecutorIsShutDown() {
+    executorService.shutdownNow();
+
+    final SendMoneyResult result = asyncStreamSender.sendMoney(request(Duration.ofMinutes(1))).join();
+
+    assertThat(result.successfulPayment()).isFalse();
+    assertThat(result.amountLeftToSend()).isEqualTo(UnsignedLong.valueOf(1000));
+    verify(linkMock, never()).sendPacketAsync(any());
+  }
+
+  private SendMoneyRequest request(final Duration timeout) {
+    return SendMoneyRequest.builder()
+        .sourceAddress(InterledgerAddress.of("example.source"))
+        .destinationAddress(DESTINATION_ADDRESS)
+        .sharedSecret(SHARED_SECRET)
+        .amount(UnsignedLong.valueOf(1000))
+        .senderAmountMode(SenderAmountMode.SENDER_AMOUNT)
+        .denomination(Denominations.XRP)
+        .paymentTracker(
+            new FixedSenderAmountPaymentTracker(UnsignedLong.valueOf(1000), new NoOpExchangeRateCalculator())
+        )
+        .timeout(timeout)
+        .build();
+  }
+}
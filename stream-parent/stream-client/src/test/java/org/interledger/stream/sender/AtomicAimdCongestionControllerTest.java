@@ -0,0 +1,321 @@
+package org.interledger.stream.sender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerErrorCode;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.encoding.asn.framework.CodecContextFactory;
+import org.interledger.stream.AmountTooLargeErrorData;
+import org.interledger.stream.sender.AimdCongestionController.CongestionState;
+
+import com.google.common.primitives.UnsignedLong;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link AtomicAimdCongestionController}.
+ */
+public class AtomicAimdCongestionControllerTest {
+
+  private static final InterledgerAddress OPERATOR_ADRESS = InterledgerAddress.of("test.operator");
+  private static final UnsignedLong ONE_K = UnsignedLong.valueOf(1000L);
+  private static final UnsignedLong TWO = UnsignedLong.valueOf(2L);
+  private static final InterledgerRejectPacket T04_INSUFFICIENT_LIQUIDITY = InterledgerRejectPacket.builder()
+      .code(InterledgerErrorCode.T04_INSUFFICIENT_LIQUIDITY)
+      .triggeredBy(OPERATOR_ADRESS)
+      .message("the error message")
+      .build();
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+  private AtomicAimdCongestionController controller;
+
+  @Before
+  public void setUp() {
+    this.controller = new AtomicAimdCongestionController();
+  }
+
+  @Test
+  public void constructWithNullStartAmount() {
+    expectedException.expect(NullPointerException.class);
+    expectedException.expectMessage("startAmount must not be null");
+    new AtomicAimdCongestionController(null, UnsignedLong.ONE, TWO, CodecContextFactory.oer());
+  }
+
+  @Test
+  public void constructWithNullDecreaseFactor() {
+    expectedException.expect(NullPointerException.class);
+    expectedException.expectMessage("decreaseFactor must not be null");
+    new AtomicAimdCongestionController(UnsignedLong.ONE, UnsignedLong.ONE, null, CodecContextFactory.oer());
+  }
+
+  @Test
+  public void constructWithZeroDecreaseFactor() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("decreaseFactor must be greater than 0");
+    new AtomicAimdCongestionController(
+        UnsignedLong.ONE, UnsignedLong.ONE, UnsignedLong.ZERO, CodecContextFactory.oer()
+    );
+  }
+
+  @Test
+  public void constructWithNullCodecContext() {
+    expectedException.expect(NullPointerException.class);
+    expectedException.expectMessage("streamCodecContext must not be null");
+    new AtomicAimdCongestionController(UnsignedLong.ONE, UnsignedLong.ONE, TWO, null);
+  }
+
+  @Test
+  public void doublesMaxAmountOnFulfill() {
+    assertThat(controller.getCongestionState()).isEqualTo(CongestionState.SLOW_START);
+    for (long expected : new long[] {2000L, 4000L, 8000L}) {
+      UnsignedLong amount = controller.getMaxAmount();
+      controller.prepare(amount);
+      controller.fulfill(amount);
+      assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(expected));
+    }
+  }
+
+  @Test
+  public void doesntOverflowU64WithSlowStart() {
+    this.controller = new AtomicAimdCongestionController(
+        UnsignedLong.MAX_VALUE.minus(UnsignedLong.ONE), ONE_K, TWO, StreamCodecContextFactory.oer()
+    );
+
+    UnsignedLong amount = controller.getMaxAmount();
+    controller.prepare(amount);
+    controller.fulfill(amount);
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.MAX_VALUE);
+
+    controller.prepare(amount);
+    controller.fulfill(amount);
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.MAX_VALUE);
+  }
+
+  @Test
+  public void additiveIncrease() {
+    avoidCongestionAt(ONE_K);
+
+    for (long i = 1; i <= 5; i++) {
+      UnsignedLong amount = UnsignedLong.valueOf(i).times(ONE_K);
+      controller.prepare(amount);
+      controller.fulfill(amount);
+      assertThat(controller.getMaxAmount()).isEqualTo((ONE_K.times(UnsignedLong.valueOf(i)).plus(ONE_K)));
+    }
+  }
+
+  @Test
+  public void multiplicativeDecrease() {
+    avoidCongestionAt(ONE_K);
+
+    for (long expected : new long[] {500L, 250L, 125L, 62L, 31L, 15L, 7L, 3L, 1L, 1L, 1L}) {
+      UnsignedLong amount = controller.getMaxAmount();
+      controller.prepare(amount);
+      controller.reject(amount, T04_INSUFFICIENT_LIQUIDITY);
+      assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(expected));
+    }
+  }
+
+  @Test
+  public void multiplicativeDecreaseByOtherFactor() {
+    this.controller = new AtomicAimdCongestionController(
+        ONE_K, ONE_K, UnsignedLong.valueOf(3L), StreamCodecContextFactory.oer()
+    );
+    controller.reject(UnsignedLong.ZERO, T04_INSUFFICIENT_LIQUIDITY);
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(333L));
+  }
+
+  @Test
+  public void aimdCombined() {
+    avoidCongestionAt(ONE_K);
+
+    for (long expected : new long[] {2000L, 3000L}) {
+      UnsignedLong amount = controller.getMaxAmount();
+      controller.prepare(amount);
+      controller.fulfill(amount);
+      assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(expected));
+    }
+
+    UnsignedLong amount = controller.getMaxAmount();
+    controller.prepare(amount);
+    controller.reject(amount, T04_INSUFFICIENT_LIQUIDITY);
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(1500L));
+
+    amount = controller.getMaxAmount();
+    controller.prepare(amount);
+    controller.fulfill(amount);
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(2500L));
+  }
+
+  @Test
+  public void amountLeftInWindowDoesNotWrapWhenWindowShrinksBelowAmountInFlight() {
+    controller.prepare(UnsignedLong.valueOf(600L));
+    controller.prepare(UnsignedLong.valueOf(400L));
+    controller.reject(UnsignedLong.valueOf(400L), T04_INSUFFICIENT_LIQUIDITY);
+
+    // 600 is still in flight, but the window is now 500.
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.ZERO);
+    assertThat(controller.hasInFlight()).isTrue();
+  }
+
+  @Test
+  public void maxPacketAmount() throws IOException {
+    assertThat(controller.getMaxAmount()).isEqualTo(ONE_K);
+    assertThat(controller.getMaxPacketAmount()).isEmpty();
+
+    controller.prepare(ONE_K);
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.ZERO);
+
+    controller.reject(ONE_K, f08(UnsignedLong.valueOf(100L), UnsignedLong.valueOf(10L)));
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(100L));
+    assertThat(controller.getMaxPacketAmount()).contains(UnsignedLong.valueOf(100L));
+    assertThat(controller.hasInFlight()).isFalse();
+
+    for (int i = 0; i < 100; i++) {
+      UnsignedLong amount = controller.getMaxAmount();
+      controller.prepare(amount);
+      assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(100L));
+      controller.fulfill(amount);
+      assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(100L));
+    }
+
+    // A larger maximum from a later F08 does not raise the maximum packet amount.
+    controller.reject(ONE_K, f08(UnsignedLong.valueOf(10L), UnsignedLong.valueOf(10L)));
+    assertThat(controller.getMaxPacketAmount()).contains(UnsignedLong.valueOf(100L));
+  }
+
+  @Test
+  public void f08WithoutDataHalvesPrepareAmount() {
+    controller.reject(ONE_K, InterledgerRejectPacket.builder()
+        .code(InterledgerErrorCode.F08_AMOUNT_TOO_LARGE)
+        .triggeredBy(OPERATOR_ADRESS)
+        .message("too large")
+        .build());
+    assertThat(controller.getMaxPacketAmount()).contains(UnsignedLong.valueOf(500L));
+  }
+
+  @Test
+  public void f08WithGarbageDataHalvesPrepareAmount() {
+    controller.reject(ONE_K, InterledgerRejectPacket.builder()
+        .code(InterledgerErrorCode.F08_AMOUNT_TOO_LARGE)
+        .triggeredBy(OPERATOR_ADRESS)
+        .message("too large")
+        .data(new byte[] {1, 2, 3})
+        .build());
+    assertThat(controller.getMaxPacketAmount()).contains(UnsignedLong.valueOf(500L));
+  }
+
+  @Test
+  public void f08RoundsDown() throws IOException {
+    controller.reject(UnsignedLong.valueOf(13L), f08(UnsignedLong.valueOf(7L), UnsignedLong.valueOf(2L)));
+    assertThat(controller.getMaxPacketAmount()).contains(UnsignedLong.valueOf(3L));
+  }
+
+  @Test
+  public void f08WithZeroReceivedAmountHalvesPrepareAmount() throws IOException {
+    controller.reject(ONE_K, f08(UnsignedLong.ZERO, UnsignedLong.valueOf(10L)));
+    assertThat(controller.getMaxPacketAmount()).contains(UnsignedLong.valueOf(500L));
+  }
+
+  @Test
+  public void f08WithProductAboveU64() throws IOException {
+    final UnsignedLong prepareAmount = UnsignedLong.MAX_VALUE.minus(UnsignedLong.ONE);
+    controller.reject(prepareAmount, f08(UnsignedLong.valueOf(4L), UnsignedLong.valueOf(3L)));
+    assertThat(controller.getMaxPacketAmount()).contains(UnsignedLong.valueOf(
+        prepareAmount.bigIntegerValue().multiply(UnsignedLong.valueOf(3L).bigIntegerValue())
+            .divide(UnsignedLong.valueOf(4L).bigIntegerValue())
+    ));
+  }
+
+  @Test
+  public void otherRejectionsOnlyReduceAmountInFlight() {
+    controller.prepare(ONE_K);
+    controller.reject(ONE_K, InterledgerRejectPacket.builder()
+        .code(InterledgerErrorCode.T00_INTERNAL_ERROR)
+        .triggeredBy(OPERATOR_ADRESS)
+        .message("internal error")
+        .build());
+    assertThat(controller.getMaxAmount()).isEqualTo(ONE_K);
+    assertThat(controller.getCongestionState()).isEqualTo(CongestionState.SLOW_START);
+    assertThat(controller.hasInFlight()).isFalse();
+  }
+
+  @Test
+  public void concurrentPacketsKeepAmountInFlightConsistent() throws Exception {
+    final int threads = 8;
+    this.controller = new AtomicAimdCongestionController(
+        UnsignedLong.valueOf(1_000_000L), ONE_K, TWO, StreamCodecContextFactory.oer()
+    );
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      final boolean rejects = i % 2 == 0;
+      futures.add(executor.submit(() -> {
+        start.await();
+        for (int j = 0; j < 10_000; j++) {
+          controller.prepare(UnsignedLong.ONE);
+          assertThat(controller.hasInFlight()).isTrue();
+          if (rejects) {
+            controller.reject(UnsignedLong.ONE, T04_INSUFFICIENT_LIQUIDITY);
+          } else {
+            controller.fulfill(UnsignedLong.ONE);
+          }
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    assertThat(controller.hasInFlight()).isFalse();
+    assertThat(controller.getCongestionState()).isEqualTo(CongestionState.AVOID_CONGESTION);
+  }
+
+  /**
+   * Switch {@link #controller} to congestion avoidance, with a window of {@code maxInFlight}.
+   */
+  private void avoidCongestionAt(final UnsignedLong maxInFlight) {
+    this.controller = new AtomicAimdCongestionController(
+        maxInFlight.times(TWO), ONE_K, TWO, StreamCodecContextFactory.oer()
+    );
+    controller.reject(UnsignedLong.ZERO, T04_INSUFFICIENT_LIQUIDITY);
+    assertThat(controller.getCongestionState()).isEqualTo(CongestionState.AVOID_CONGESTION);
+    assertThat(controller.getMaxAmount()).isEqualTo(maxInFlight);
+  }
+
+  private InterledgerRejectPacket f08(final UnsignedLong receivedAmount, final UnsignedLong maximumAmount)
+      throws IOException {
+    final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    StreamCodecContextFactory.oer().write(AmountTooLargeErrorData.builder()
+            .receivedAmount(receivedAmount)
+            .maximumAmount(maximumAmount)
+            .build(),
+        byteArrayOutputStream
+    );
+    return InterledgerRejectPacket.builder()
+        .code(InterledgerErrorCode.F08_AMOUNT_TOO_LARGE)
+        .triggeredBy(OPERATOR_ADRESS)
+        .message("too large")
+        .data(byteArrayOutputStream.toByteArray())
+        .build();
+  }
+}
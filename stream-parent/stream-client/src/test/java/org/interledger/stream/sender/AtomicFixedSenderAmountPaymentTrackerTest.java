@@ -0,0 +1,178 @@
+package org.interledger.stream.sender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.interledger.stream.Denominations;
+import org.interledger.stream.PrepareAmounts;
+
+import com.google.common.primitives.UnsignedLong;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link AtomicFixedSenderAmountPaymentTracker}.
+ */
+public class AtomicFixedSenderAmountPaymentTrackerTest {
+
+  @Test
+  public void checkAllInteractions() {
+    AtomicFixedSenderAmountPaymentTracker tracker = new AtomicFixedSenderAmountPaymentTracker(
+        UnsignedLong.valueOf(12L), new HalfsiesExchangeRateCalculator());
+
+    assertThat(tracker.getDeliveredAmountInSenderUnits()).isEqualTo(UnsignedLong.ZERO);
+    assertThat(tracker.getDeliveredAmountInReceiverUnits()).isEqualTo(UnsignedLong.ZERO);
+    assertThat(tracker.getOriginalAmount()).isEqualTo(UnsignedLong.valueOf(12));
+    assertThat(tracker.getOriginalAmountLeft()).isEqualTo(UnsignedLong.valueOf(12));
+    assertThat(tracker.moreToSend()).isTrue();
+
+    PrepareAmounts amounts = tracker.getSendPacketAmounts(UnsignedLong.ZERO, Denominations.XRP,
+        Optional.of(Denominations.XRP));
+
+    assertThat(amounts.getAmountToSend()).isEqualTo(UnsignedLong.ZERO);
+    assertThat(amounts.getMinimumAmountToAccept()).isEqualTo(UnsignedLong.ZERO);
+
+    amounts = tracker.getSendPacketAmounts(UnsignedLong.valueOf(6), Denominations.XRP,
+        Optional.of(Denominations.XRP));
+
+    assertThat(amounts.getAmountToSend()).isEqualTo(UnsignedLong.valueOf(6));
+    assertThat(amounts.getMinimumAmountToAccept()).isEqualTo(UnsignedLong.valueOf(3));
+
+    assertThat(tracker.auth(amounts)).isTrue();
+    assertThat(tracker.getDeliveredAmountInSenderUnits()).isEqualTo(UnsignedLong.ZERO);
+    assertThat(tracker.getOriginalAmountLeft()).isEqualTo(UnsignedLong.valueOf(6));
+    assertThat(tracker.moreToSend()).isTrue();
+
+    tracker.rollback(amounts, false);
+    assertThat(tracker.getDeliveredAmountInSenderUnits()).isEqualTo(UnsignedLong.ZERO);
+    assertThat(tracker.getOriginalAmountLeft()).isEqualTo(UnsignedLong.valueOf(12));
+    assertThat(tracker.moreToSend()).isTrue();
+
+    assertThat(tracker.auth(amounts)).isTrue();
+    tracker.commit(amounts, UnsignedLong.valueOf(3));
+    assertThat(tracker.getDeliveredAmountInSenderUnits()).isEqualTo(UnsignedLong.valueOf(6));
+    assertThat(tracker.getDeliveredAmountInReceiverUnits()).isEqualTo(UnsignedLong.valueOf(3));
+    assertThat(tracker.getOriginalAmountLeft()).isEqualTo(UnsignedLong.valueOf(6));
+    assertThat(tracker.moreToSend()).isTrue();
+
+    assertThat(tracker.auth(amounts)).isTrue();
+    tracker.commit(amounts, UnsignedLong.valueOf(4));
+    assertThat(tracker.getDeliveredAmountInSenderUnits()).isEqualTo(UnsignedLong.valueOf(12));
+    assertThat(tracker.getDeliveredAmountInReceiverUnits()).isEqualTo(UnsignedLong.valueOf(7));
+    assertThat(tracker.getOriginalAmountLeft()).isEqualTo(UnsignedLong.ZERO);
+    assertThat(tracker.moreToSend()).isFalse();
+    assertThat(tracker.successful()).isTrue();
+
+    assertThat(tracker.auth(amounts)).isFalse();
+    assertThat(tracker.getDeliveredAmountInSenderUnits()).isEqualTo(UnsignedLong.valueOf(12));
+    assertThat(tracker.getOriginalAmountLeft()).isEqualTo(UnsignedLong.ZERO);
+  }
+
+  @Test
+  public void sendPacketAmountsAreLimitedByAmountLeft() {
+    AtomicFixedSenderAmountPaymentTracker tracker = new AtomicFixedSenderAmountPaymentTracker(
+        UnsignedLong.valueOf(5L));
+
+    PrepareAmounts amounts = tracker.getSendPacketAmounts(UnsignedLong.MAX_VALUE, Denominations.XRP,
+        Optional.of(Denominations.XRP));
+
+    assertThat(amounts.getAmountToSend()).isEqualTo(UnsignedLong.valueOf(5));
+  }
+
+  @Test
+  public void amountsAboveLongMaxValueAreUnsigned() {
+    final UnsignedLong amountToSend = UnsignedLong.MAX_VALUE.minus(UnsignedLong.ONE);
+    AtomicFixedSenderAmountPaymentTracker tracker = new AtomicFixedSenderAmountPaymentTracker(amountToSend);
+
+    PrepareAmounts amounts = tracker.getSendPacketAmounts(UnsignedLong.MAX_VALUE, Denominations.XRP,
+        Optional.of(Denominations.XRP));
+    assertThat(amounts.getAmountToSend()).isEqualTo(amountToSend);
+
+    assertThat(tracker.auth(amounts)).isTrue();
+    tracker.commit(amounts, UnsignedLong.MAX_VALUE);
+    assertThat(tracker.getDeliveredAmountInSenderUnits()).isEqualTo(amountToSend);
+    assertThat(tracker.getOriginalAmountLeft()).isEqualTo(UnsignedLong.ZERO);
+    assertThat(tracker.moreToSend()).isFalse();
+  }
+
+  @Test
+  public void deliveredAmountSaturatesInsteadOfOverflowing() {
+    AtomicFixedSenderAmountPaymentTracker tracker = new AtomicFixedSenderAmountPaymentTracker(
+        UnsignedLong.valueOf(2L));
+    PrepareAmounts amounts = amounts(1);
+
+    tracker.auth(amounts);
+    tracker.commit(amounts, UnsignedLong.MAX_VALUE);
+    tracker.auth(amounts);
+    tracker.commit(amounts, UnsignedLong.MAX_VALUE);
+
+    assertThat(tracker.getDeliveredAmountInReceiverUnits()).isEqualTo(UnsignedLong.MAX_VALUE);
+    assertThat(tracker.getDeliveredAmountInSenderUnits()).isEqualTo(UnsignedLong.valueOf(2));
+  }
+
+  @Test
+  public void rollbackNeverExceedsOriginalAmount() {
+    AtomicFixedSenderAmountPaymentTracker tracker = new AtomicFixedSenderAmountPaymentTracker(
+        UnsignedLong.valueOf(10L));
+    PrepareAmounts amounts = amounts(4);
+
+    tracker.auth(amounts);
+    tracker.rollback(amounts, false);
+    tracker.rollback(amounts, true);
+
+    assertThat(tracker.getOriginalAmountLeft()).isEqualTo(UnsignedLong.valueOf(10));
+  }
+
+  @Test
+  public void concurrentPacketsNeverSendMoreThanOriginalAmount() throws Exception {
+    final int threads = 8;
+    final long amountToSend = 100_000;
+    final AtomicFixedSenderAmountPaymentTracker tracker = new AtomicFixedSenderAmountPaymentTracker(
+        UnsignedLong.valueOf(amountToSend));
+    final PrepareAmounts amounts = amounts(3);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      final boolean rejectEveryOtherPacket = i % 2 == 0;
+      futures.add(executor.submit(() -> {
+        start.await();
+        boolean reject = false;
+        while (tracker.auth(amounts)) {
+          if (rejectEveryOtherPacket && (reject = !reject)) {
+            tracker.rollback(amounts, true);
+          } else {
+            tracker.commit(amounts, amounts.getMinimumAmountToAccept());
+          }
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    // 100,000 is not a multiple of 3, so 1 unit is left that no packet can take.
+    assertThat(tracker.getDeliveredAmountInSenderUnits()).isEqualTo(UnsignedLong.valueOf(99_999));
+    assertThat(tracker.getDeliveredAmountInReceiverUnits()).isEqualTo(UnsignedLong.valueOf(99_999));
+    assertThat(tracker.getOriginalAmountLeft()).isEqualTo(UnsignedLong.ONE);
+    assertThat(tracker.moreToSend()).isTrue();
+  }
+
+  private PrepareAmounts amounts(final long amountToSend) {
+    return PrepareAmounts.builder()
+        .amountToSend(UnsignedLong.valueOf(amountToSend))
+        .minimumAmountToAccept(UnsignedLong.valueOf(amountToSend))
+        .build();
+  }
+}
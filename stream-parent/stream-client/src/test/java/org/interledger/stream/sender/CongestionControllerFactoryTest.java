@@ -0,0 +1,44 @@
+package org.interledger.stream.sender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.interledger.stream.SendMoneyRequest;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CongestionControllerFactory}.
+ */
+public class CongestionControllerFactoryTest {
+
+  private final SendMoneyRequest request = mock(SendMoneyRequest.class);
+
+  @Test
+  public void aimd() {
+    assertNewControllerPerPayment(CongestionControllerFactory.aimd(), AimdCongestionController.class);
+  }
+
+  @Test
+  public void atomicAimd() {
+    assertNewControllerPerPayment(CongestionControllerFactory.atomicAimd(), AtomicAimdCongestionController.class);
+  }
+
+  @Test
+  public void latencyAware() {
+    assertNewControllerPerPayment(
+        CongestionControllerFactory.latencyAware(), LatencyAwareCongestionController.class
+    );
+  }
+
+  private void assertNewControllerPerPayment(
+      final CongestionControllerFactory factory, final Class<? extends CongestionController> type
+  ) {
+    final CongestionController first = factory.newCongestionController(request);
+    final CongestionController second = factory.newCongestionController(request);
+
+    assertThat(first).isInstanceOf(type);
+    assertThat(second).isInstanceOf(type);
+    assertThat(first).isNotSameAs(second);
+  }
+}
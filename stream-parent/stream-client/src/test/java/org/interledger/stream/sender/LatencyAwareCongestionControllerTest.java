@@ -0,0 +1,256 @@
+package org.interledger.stream.sender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerErrorCode;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.stream.AmountTooLargeErrorData;
+import org.interledger.stream.sender.AimdCongestionController.CongestionState;
+
+import com.google.common.base.Ticker;
+import com.google.common.primitives.UnsignedLong;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link LatencyAwareCongestionController}.
+ */
+public class LatencyAwareCongestionControllerTest {
+
+  private static final InterledgerAddress OPERATOR_ADRESS = InterledgerAddress.of("test.operator");
+  private static final UnsignedLong ONE_K = UnsignedLong.valueOf(1000L);
+  private static final UnsignedLong TEN_K = UnsignedLong.valueOf(10_000L);
+  private static final Duration RTT = Duration.ofMillis(100);
+  private static final InterledgerRejectPacket T04_INSUFFICIENT_LIQUIDITY = InterledgerRejectPacket.builder()
+      .code(InterledgerErrorCode.T04_INSUFFICIENT_LIQUIDITY)
+      .triggeredBy(OPERATOR_ADRESS)
+      .message("the error message")
+      .build();
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private long nowNanos;
+  private LatencyAwareCongestionController controller;
+
+  @Before
+  public void setUp() {
+    this.nowNanos = 0;
+    this.controller = new LatencyAwareCongestionController(ONE_K, StreamCodecContextFactory.oer(), new Ticker() {
+      @Override
+      public long read() {
+        return nowNanos;
+      }
+    });
+  }
+
+  @Test
+  public void constructWithNullStartAmount() {
+    expectedException.expect(NullPointerException.class);
+    expectedException.expectMessage("startAmount must not be null");
+    new LatencyAwareCongestionController(null, StreamCodecContextFactory.oer(), Ticker.systemTicker());
+  }
+
+  @Test
+  public void constructWithNullTicker() {
+    expectedException.expect(NullPointerException.class);
+    expectedException.expectMessage("ticker must not be null");
+    new LatencyAwareCongestionController(ONE_K, StreamCodecContextFactory.oer(), null);
+  }
+
+  @Test
+  public void slowStartAddsFulfilledAmountToWindow() {
+    assertThat(controller.getCongestionState()).isEqualTo(CongestionState.SLOW_START);
+
+    controller.prepare(ONE_K);
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.ZERO);
+    assertThat(controller.hasInFlight()).isTrue();
+
+    controller.fulfill(ONE_K, RTT);
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(2000L));
+    assertThat(controller.hasInFlight()).isFalse();
+    assertThat(controller.getSmoothedRoundTripTime()).contains(RTT);
+  }
+
+  @Test
+  public void withoutRoundTripTimesStaysInSlowStart() {
+    for (int i = 0; i < 10; i++) {
+      final UnsignedLong amount = controller.getMaxAmount();
+      controller.prepare(amount);
+      nowNanos += RTT.toNanos();
+      controller.fulfill(amount);
+    }
+
+    assertThat(controller.getCongestionState()).isEqualTo(CongestionState.SLOW_START);
+    assertThat(controller.getSmoothedRoundTripTime()).isEmpty();
+    assertThat(controller.getBottleneckAmount()).isEqualTo(UnsignedLong.ZERO);
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(1024_000L));
+  }
+
+  @Test
+  public void bottleneckAmountIsAmountDeliveredPerRoundTrip() {
+    deliverRound(TEN_K, RTT);
+    assertThat(controller.getBottleneckAmount()).isEqualTo(TEN_K);
+
+    // Twice the amount over twice the time is the same amount per round trip.
+    nowNanos += RTT.toNanos();
+    deliverRound(UnsignedLong.valueOf(20_000L), RTT);
+    assertThat(controller.getBottleneckAmount()).isEqualTo(TEN_K);
+  }
+
+  @Test
+  public void bottleneckAmountIsMaximumOfRecentRounds() {
+    deliverRound(TEN_K, RTT);
+    for (int i = 1; i < LatencyAwareCongestionController.BOTTLENECK_ROUNDS; i++) {
+      deliverRound(ONE_K, RTT);
+    }
+    assertThat(controller.getBottleneckAmount()).isEqualTo(TEN_K);
+
+    deliverRound(ONE_K, RTT);
+    assertThat(controller.getBottleneckAmount()).isEqualTo(ONE_K);
+  }
+
+  @Test
+  public void leavesSlowStartWhenBottleneckAmountStopsGrowing() {
+    leaveSlowStartAt(TEN_K);
+
+    assertThat(controller.getCongestionState()).isEqualTo(CongestionState.AVOID_CONGESTION);
+    assertThat(controller.getMaxAmount()).isEqualTo(TEN_K);
+  }
+
+  @Test
+  public void windowCyclesThroughProbeGains() {
+    leaveSlowStartAt(TEN_K);
+
+    // Rounds 5 to 7 use a gain of 1, round 8 probes with 5/4, and round 9 drains with 3/4.
+    for (int round = 5; round <= 7; round++) {
+      deliverRound(TEN_K, RTT);
+      assertThat(controller.getMaxAmount()).isEqualTo(TEN_K);
+    }
+    deliverRound(TEN_K, RTT);
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(12_500L));
+    deliverRound(TEN_K, RTT);
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(7_500L));
+  }
+
+  @Test
+  public void burstOfT04RejectionsShrinksWindowOnce() {
+    leaveSlowStartAt(TEN_K);
+    final UnsignedLong quarter = UnsignedLong.valueOf(2_500L);
+    for (int i = 0; i < 4; i++) {
+      controller.prepare(quarter);
+    }
+
+    for (int i = 0; i < 3; i++) {
+      controller.reject(quarter, T04_INSUFFICIENT_LIQUIDITY);
+    }
+
+    // The window was already at the bottleneck amount, so both are lowered to 7/10 of it, but only once.
+    assertThat(controller.getBottleneckAmount()).isEqualTo(UnsignedLong.valueOf(7_000L));
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(4_500L));
+
+    // A round trip later, another T04 rejection shrinks the window again.
+    nowNanos += RTT.toNanos();
+    controller.reject(quarter, T04_INSUFFICIENT_LIQUIDITY);
+    assertThat(controller.getBottleneckAmount()).isEqualTo(UnsignedLong.valueOf(4_900L));
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(4_900L));
+  }
+
+  @Test
+  public void t04RejectionInSlowStartKeepsAmountInFlight() {
+    final UnsignedLong twoK = UnsignedLong.valueOf(2000L);
+    for (int i = 0; i < 3; i++) {
+      final UnsignedLong amount = controller.getMaxAmount();
+      controller.prepare(amount);
+      controller.fulfill(amount);
+    }
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(8000L));
+    for (int i = 0; i < 4; i++) {
+      controller.prepare(twoK);
+    }
+
+    controller.reject(twoK, T04_INSUFFICIENT_LIQUIDITY);
+
+    assertThat(controller.getCongestionState()).isEqualTo(CongestionState.AVOID_CONGESTION);
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.ZERO);
+    for (int i = 0; i < 3; i++) {
+      controller.fulfill(twoK);
+    }
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(6000L));
+  }
+
+  @Test
+  public void f08RejectionLimitsPacketAmount() throws IOException {
+    controller.prepare(ONE_K);
+    controller.reject(ONE_K, f08(UnsignedLong.valueOf(100L), UnsignedLong.valueOf(10L)));
+
+    assertThat(controller.getMaxPacketAmount()).contains(UnsignedLong.valueOf(100L));
+    assertThat(controller.getMaxAmount()).isEqualTo(UnsignedLong.valueOf(100L));
+    assertThat(controller.getCongestionState()).isEqualTo(CongestionState.SLOW_START);
+
+    controller.prepare(ONE_K);
+    controller.reject(ONE_K, f08(UnsignedLong.valueOf(100L), UnsignedLong.valueOf(50L)));
+    assertThat(controller.getMaxPacketAmount()).contains(UnsignedLong.valueOf(100L));
+  }
+
+  @Test
+  public void otherRejectionsOnlyReduceAmountInFlight() {
+    controller.prepare(ONE_K);
+    controller.reject(ONE_K, InterledgerRejectPacket.builder()
+        .code(InterledgerErrorCode.T00_INTERNAL_ERROR)
+        .triggeredBy(OPERATOR_ADRESS)
+        .message("the error message")
+        .build());
+
+    assertThat(controller.hasInFlight()).isFalse();
+    assertThat(controller.getMaxAmount()).isEqualTo(ONE_K);
+    assertThat(controller.getCongestionState()).isEqualTo(CongestionState.SLOW_START);
+  }
+
+  /**
+   * Deliver {@code amount} in one packet that takes {@code rtt}, which ends the current round.
+   */
+  private void deliverRound(final UnsignedLong amount, final Duration rtt) {
+    controller.prepare(amount);
+    nowNanos += rtt.toNanos();
+    controller.fulfill(amount, rtt);
+  }
+
+  /**
+   * Deliver {@code amount} in each round until slow start ends, which takes {@value
+   * LatencyAwareCongestionController#FULL_PIPE_ROUNDS} rounds after the first.
+   */
+  private void leaveSlowStartAt(final UnsignedLong amount) {
+    for (int i = 0; i <= LatencyAwareCongestionController.FULL_PIPE_ROUNDS; i++) {
+      assertThat(controller.getCongestionState()).isEqualTo(CongestionState.SLOW_START);
+      deliverRound(amount, RTT);
+    }
+    assertThat(TimeUnit.NANOSECONDS.toMillis(nowNanos)).isEqualTo(400L);
+  }
+
+  private InterledgerRejectPacket f08(final UnsignedLong receivedAmount, final UnsignedLong maximumAmount)
+      throws IOException {
+    final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    StreamCodecContextFactory.oer().write(AmountTooLargeErrorData.builder()
+            .receivedAmount(receivedAmount)
+            .maximumAmount(maximumAmount)
+            .build(),
+        byteArrayOutputStream
+    );
+    return InterledgerRejectPacket.builder()
+        .code(InterledgerErrorCode.F08_AMOUNT_TOO_LARGE)
+        .triggeredBy(OPERATOR_ADRESS)
+        .message("too large")
+        .data(byteArrayOutputStream.toByteArray())
+        .build();
+  }
+}
@@ -0,0 +1,94 @@
+package org.interledger.stream.sender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.interledger.core.InterledgerAddress;
+import org.interledger.stream.Denomination;
+import org.interledger.stream.Denominations;
+
+import com.google.common.base.Ticker;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for {@link ReceiverDenominationCache}.
+ */
+public class ReceiverDenominationCacheTest {
+
+  private static final InterledgerAddress DESTINATION_ADDRESS = InterledgerAddress.of("example.receiver.abc123");
+
+  private AtomicLong nanos;
+  private ReceiverDenominationCache cache;
+
+  @Before
+  public void setUp() {
+    this.nanos = new AtomicLong();
+    final Ticker ticker = new Ticker() {
+      @Override
+      public long read() {
+        return nanos.get();
+      }
+    };
+    this.cache = new ReceiverDenominationCache(10, Duration.ofMinutes(1), ticker);
+  }
+
+  @Test
+  public void getWhenUnknown() {
+    assertThat(cache.get(DESTINATION_ADDRESS)).isEmpty();
+  }
+
+  @Test
+  public void getIsSharedByAllConnectionsToTheSameReceiver() {
+    cache.put(DESTINATION_ADDRESS, Denominations.XRP);
+
+    assertThat(cache.get(DESTINATION_ADDRESS)).hasValue(Denominations.XRP);
+    assertThat(cache.get(InterledgerAddress.of("example.receiver.def456"))).hasValue(Denominations.XRP);
+    assertThat(cache.get(InterledgerAddress.of("example.other.abc123"))).isEmpty();
+  }
+
+  @Test
+  public void getIsNotSharedByReceiversDirectlyUnderAllocationScheme() {
+    cache.put(InterledgerAddress.of("g.alice"), Denominations.XRP);
+
+    assertThat(cache.get(InterledgerAddress.of("g.alice"))).hasValue(Denominations.XRP);
+    assertThat(cache.get(InterledgerAddress.of("g.bob"))).isEmpty();
+    // A connection of SPSP to g.alice.
+    assertThat(cache.get(InterledgerAddress.of("g.alice.abc123"))).hasValue(Denominations.XRP);
+  }
+
+  @Test
+  public void putReplacesDenomination() {
+    final Denomination usd = Denomination.builder().assetCode("USD").assetScale((short) 2).build();
+    cache.put(DESTINATION_ADDRESS, Denominations.XRP);
+    cache.put(DESTINATION_ADDRESS, usd);
+
+    assertThat(cache.get(DESTINATION_ADDRESS)).hasValue(usd);
+  }
+
+  @Test
+  public void getAfterExpiry() {
+    cache.put(DESTINATION_ADDRESS, Denominations.XRP);
+
+    nanos.addAndGet(Duration.ofSeconds(59).toNanos());
+    assertThat(cache.get(DESTINATION_ADDRESS)).hasValue(Denominations.XRP);
+
+    nanos.addAndGet(Duration.ofSeconds(1).toNanos());
+    assertThat(cache.get(DESTINATION_ADDRESS)).isEmpty();
+  }
+
+  @Test
+  public void invalidate() {
+    cache.put(DESTINATION_ADDRESS, Denominations.XRP);
+    cache.invalidate(InterledgerAddress.of("example.receiver.def456"));
+
+    assertThat(cache.get(DESTINATION_ADDRESS)).isEmpty();
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void putNullDenomination() {
+    cache.put(DESTINATION_ADDRESS, null);
+  }
+}
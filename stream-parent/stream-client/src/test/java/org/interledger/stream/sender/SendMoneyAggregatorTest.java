@@ -2,6 +2,7 @@ package org.interledger.stream.sender;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -25,13 +26,20 @@ import org.interledger.stream.Denominations;
 import org.interledger.stream.PaymentTracker;
 import org.interledger.stream.PrepareAmounts;
 import org.interledger.stream.SendMoneyRequest;
+import org.interledger.stream.SendMoneyResult;
 import org.interledger.stream.SenderAmountMode;
 import org.interledger.stream.StreamConnection;
 import org.interledger.stream.StreamConnectionClosedException;
 import org.interledger.stream.StreamConnectionId;
+import org.interledger.stream.StreamDataOutputChannel;
 import org.interledger.stream.StreamPacket;
 import org.interledger.stream.calculators.NoOpExchangeRateCalculator;
+import org.interledger.stream.crypto.FulfillmentGenerator;
 import org.interledger.stream.crypto.StreamEncryptionService;
+import org.interledger.stream.frames.ConnectionAssetDetailsFrame;
+import org.interledger.stream.frames.StreamDataFrame;
+import org.interledger.stream.frames.StreamDataMaxFrame;
+import org.interledger.stream.frames.StreamFrame;
 import org.interledger.stream.frames.StreamMoneyFrame;
 import org.interledger.stream.sender.SimpleStreamSender.SendMoneyAggregator;
 
@@ -41,6 +49,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.Timeout;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
@@ -48,13 +57,20 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -111,8 +127,8 @@ public class SendMoneyAggregatorTest {
         .paymentTracker(paymentTracker)
         .build();
     this.sendMoneyAggregator = new SendMoneyAggregator(
-        executor, streamConnectionMock, streamCodecContextMock, linkMock, congestionControllerMock,
-        streamEncryptionServiceMock, request);
+        executor, paymentExecutor(), timeoutScheduler(), streamConnectionMock, streamCodecContextMock, linkMock,
+        congestionControllerMock, streamEncryptionServiceMock, new FulfillmentGenerator(), request);
 
     defaultPrepareAmounts = PrepareAmounts.from(samplePreparePacket(), sampleStreamPacket());
   }
@@ -222,8 +238,8 @@ public class SendMoneyAggregatorTest {
         .build();
     ExecutorService executor = mock(ExecutorService.class);
     this.sendMoneyAggregator = new SendMoneyAggregator(
-        executor, streamConnectionMock, streamCodecContextMock, linkMock, congestionControllerMock,
-        streamEncryptionServiceMock, request);
+        executor, paymentExecutor(), timeoutScheduler(), streamConnectionMock, streamCodecContextMock, linkMock,
+        congestionControllerMock, streamEncryptionServiceMock, new FulfillmentGenerator(), request);
 
     when(executor.submit(any(Runnable.class))).thenThrow(new RejectedExecutionException());
 
@@ -242,6 +258,101 @@ public class SendMoneyAggregatorTest {
     verify(congestionControllerMock, times(1)).reject(UnsignedLong.ONE, expectedReject);
   }
 
+  /**
+   * The timeout fires while the packets of a payment still wait for a thread of a busy executor. When they run, they
+   * must give their amounts back, or the congestion controller keeps them in flight and the payment never completes.
+   */
+  @Test
+  public void timeoutWhilePacketsAreQueuedCompletesPayment() throws Exception {
+    final CountDownLatch executorBusy = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.submit(() -> {
+      executorBusy.await();
+      return null;
+    });
+    // The test fires the timeout itself, once the packets of the payment are queued.
+    final ScheduledExecutorService timeoutScheduler = mock(ScheduledExecutorService.class);
+    final ArgumentCaptor<Runnable> timeoutTask = ArgumentCaptor.forClass(Runnable.class);
+    when(timeoutScheduler.schedule(timeoutTask.capture(), anyLong(), any())).thenReturn(null);
+    final CongestionController congestionController = new AimdCongestionController();
+    this.sendMoneyAggregator = new SendMoneyAggregator(
+        executor, paymentExecutor(), timeoutScheduler, streamConnectionMock, streamCodecContextMock, linkMock,
+        congestionController, streamEncryptionServiceMock, new FulfillmentGenerator(),
+        requestWithTimeout(Duration.ofSeconds(1)));
+    when(streamConnectionMock.nextSequence()).thenReturn(UnsignedLong.ONE);
+    when(linkMock.sendPacket(any())).thenReturn(sampleFulfillPacket());
+    when(streamCodecContextMock.read(any(), any(InputStream.class))).thenReturn(sampleStreamPacket());
+
+    try {
+      final CompletableFuture<SendMoneyResult> result = sendMoneyAggregator.send();
+      while (!congestionController.hasInFlight()) {
+        Thread.sleep(10);
+      }
+      timeoutTask.getValue().run();
+      executorBusy.countDown();
+
+      assertThat(result.get(3, TimeUnit.SECONDS).amountSent()).isEqualTo(UnsignedLong.ZERO);
+      assertThat(congestionController.hasInFlight()).isFalse();
+      assertThat(paymentTracker.getOriginalAmountLeft()).isEqualTo(originalAmountToSend);
+      // Only the preflight packet was sent.
+      verify(linkMock, times(1)).sendPacket(any());
+    } finally {
+      executorBusy.countDown();
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * The timeout of a payment counts from sendMoney, so a payment that waited out its timeout for a payment thread
+   * sends no money.
+   */
+  @Test
+  public void timeoutWhileWaitingForPaymentThreadSendsNothing() throws Exception {
+    final CountDownLatch paymentExecutorBusy = new CountDownLatch(1);
+    final ExecutorService paymentExecutor = Executors.newSingleThreadExecutor();
+    paymentExecutor.submit(() -> {
+      paymentExecutorBusy.await();
+      return null;
+    });
+    this.sendMoneyAggregator = new SendMoneyAggregator(
+        Executors.newSingleThreadExecutor(), paymentExecutor, timeoutScheduler(), streamConnectionMock,
+        streamCodecContextMock, linkMock, new AimdCongestionController(), streamEncryptionServiceMock,
+        new FulfillmentGenerator(), requestWithTimeout(Duration.ofMillis(100)));
+    when(streamConnectionMock.nextSequence()).thenReturn(UnsignedLong.ONE);
+
+    try {
+      final CompletableFuture<SendMoneyResult> result = sendMoneyAggregator.send();
+      Thread.sleep(300);
+      paymentExecutorBusy.countDown();
+
+      assertThat(result.get(3, TimeUnit.SECONDS).amountSent()).isEqualTo(UnsignedLong.ZERO);
+      assertThat(paymentTracker.getOriginalAmountLeft()).isEqualTo(originalAmountToSend);
+      // Only the preflight packet was sent.
+      verify(linkMock, times(1)).sendPacket(any());
+    } finally {
+      paymentExecutorBusy.countDown();
+      paymentExecutor.shutdown();
+    }
+  }
+
+  @Test
+  public void scheduleShareAfterTimeoutPutsMoneyBack() {
+    final PaymentTracker tracker = Mockito.spy(paymentTracker);
+    this.sendMoneyAggregator = new SendMoneyAggregator(
+        Executors.newSingleThreadExecutor(), paymentExecutor(), timeoutScheduler(), streamConnectionMock,
+        streamCodecContextMock, linkMock, congestionControllerMock, streamEncryptionServiceMock,
+        new FulfillmentGenerator(), SendMoneyRequest.builder().from(requestWithTimeout(Duration.ofSeconds(60)))
+            .paymentTracker(tracker)
+            .build());
+    final StreamMoneyMultiplexer streamMoneyMultiplexer = mock(StreamMoneyMultiplexer.class);
+
+    sendMoneyAggregator.scheduleShare(streamMoneyMultiplexer, new AtomicBoolean(true), defaultPrepareAmounts);
+
+    verify(tracker, Mockito.timeout(1000)).rollback(defaultPrepareAmounts, false);
+    verify(congestionControllerMock).reject(any(), any());
+    verify(streamMoneyMultiplexer, times(0)).send(any(), any());
+  }
+
   @Test
   public void preflightCheckFindsNoDenomination() throws Exception {
     when(streamConnectionMock.nextSequence()).thenReturn(UnsignedLong.ONE);
@@ -252,7 +363,7 @@ public class SendMoneyAggregatorTest {
             .streamId(UnsignedLong.ONE)
             .build())
         .build();
-    when(streamCodecContextMock.read(any(), any())).thenReturn(streamPacket);
+    when(streamCodecContextMock.read(any(), any(InputStream.class))).thenReturn(streamPacket);
 
     Optional<Denomination> denomination = sendMoneyAggregator.preflightCheck();
     assertThat(denomination).isEmpty();
@@ -268,11 +379,127 @@ public class SendMoneyAggregatorTest {
             .streamId(UnsignedLong.ONE)
             .build())
         .build();
-    when(streamCodecContextMock.read(any(), any())).thenReturn(streamPacket);
+    when(streamCodecContextMock.read(any(), any(InputStream.class))).thenReturn(streamPacket);
     Optional<Denomination> denomination = sendMoneyAggregator.preflightCheck();
     assertThat(denomination).isEmpty();
   }
 
+  @Test
+  public void sendMoneyToCachedReceiverSkipsPreflight() throws Exception {
+    final ReceiverDenominationCache cache = new ReceiverDenominationCache();
+    cache.put(destinationAddress, Denominations.XRP);
+    this.sendMoneyAggregator = newCachingSendMoneyAggregator(cache);
+    setSoldierOnBooleans(false, false, false);
+
+    sendMoneyAggregator.send().get();
+
+    Mockito.verifyNoMoreInteractions(linkMock);
+  }
+
+  @Test
+  public void sendMoneyCachesDenominationFromPreflight() throws Exception {
+    final ReceiverDenominationCache cache = new ReceiverDenominationCache();
+    this.sendMoneyAggregator = newCachingSendMoneyAggregator(cache);
+    setSoldierOnBooleans(false, false, false);
+    when(streamConnectionMock.nextSequence()).thenReturn(UnsignedLong.ONE);
+    when(linkMock.sendPacket(any())).thenReturn(sampleFulfillPacket());
+    when(streamCodecContextMock.read(any(), any(InputStream.class))).thenReturn(assetDetailsStreamPacket());
+
+    sendMoneyAggregator.send().get();
+
+    Mockito.verify(linkMock, times(1)).sendPacket(any());
+    assertThat(cache.get(destinationAddress)).hasValue(Denominations.EUR_CENTS);
+  }
+
+  @Test
+  public void handleFulfillCachesReceiverDenomination() throws Exception {
+    final ReceiverDenominationCache cache = new ReceiverDenominationCache();
+    cache.put(destinationAddress, Denominations.XRP);
+    this.sendMoneyAggregator = newCachingSendMoneyAggregator(cache);
+    when(streamCodecContextMock.read(any(), any(InputStream.class))).thenReturn(assetDetailsStreamPacket());
+
+    sendMoneyAggregator.handleFulfill(
+        samplePreparePacket(), sampleStreamPacket(), sampleFulfillPacket(), defaultPrepareAmounts
+    );
+
+    assertThat(cache.get(destinationAddress)).hasValue(Denominations.EUR_CENTS);
+  }
+
+  @Test
+  public void handleRejectInvalidatesCachedDenomination() {
+    final ReceiverDenominationCache cache = new ReceiverDenominationCache();
+    cache.put(destinationAddress, Denominations.XRP);
+    this.sendMoneyAggregator = newCachingSendMoneyAggregator(cache);
+
+    sendMoneyAggregator.handleReject(samplePreparePacket(), sampleStreamPacket(),
+        sampleRejectPacket(InterledgerErrorCode.F99_APPLICATION_ERROR), defaultPrepareAmounts, new AtomicInteger(),
+        congestionControllerMock);
+
+    assertThat(cache.get(destinationAddress)).isEmpty();
+  }
+
+  @Test
+  public void handleRejectForLiquidityKeepsCachedDenomination() {
+    final ReceiverDenominationCache cache = new ReceiverDenominationCache();
+    cache.put(destinationAddress, Denominations.XRP);
+    this.sendMoneyAggregator = newCachingSendMoneyAggregator(cache);
+
+    sendMoneyAggregator.handleReject(samplePreparePacket(), sampleStreamPacket(),
+        sampleRejectPacket(InterledgerErrorCode.T04_INSUFFICIENT_LIQUIDITY), defaultPrepareAmounts,
+        new AtomicInteger(), congestionControllerMock);
+
+    assertThat(cache.get(destinationAddress)).hasValue(Denominations.XRP);
+  }
+
+  @Test
+  public void handleDataResponseAcknowledgesDataOfFulfilledPacket() throws Exception {
+    final StreamDataOutputChannel dataOutput = new StreamDataOutputChannel(UnsignedLong.ONE);
+    when(streamConnectionMock.getDataOutputChannel()).thenReturn(Optional.of(dataOutput));
+    dataOutput.write(ByteBuffer.wrap(new byte[10]));
+    final StreamDataFrame dataFrame = dataOutput.nextFrame(100).get();
+
+    sendMoneyAggregator.handleDataResponse(dataStreamPacket(InterledgerPacketType.PREPARE, dataFrame), Optional.of(
+        dataStreamPacket(InterledgerPacketType.FULFILL, StreamDataMaxFrame.builder()
+            .streamId(UnsignedLong.ONE)
+            .maxOffset(UnsignedLong.valueOf(100_000))
+            .build())
+    ));
+
+    assertThat(dataOutput.bufferedBytes()).isEqualTo(0);
+    assertThat(dataOutput.hasPendingData()).isFalse();
+  }
+
+  @Test
+  public void handleDataResponseRetransmitsDataWithoutDataMax() throws Exception {
+    final StreamDataOutputChannel dataOutput = new StreamDataOutputChannel(UnsignedLong.ONE);
+    when(streamConnectionMock.getDataOutputChannel()).thenReturn(Optional.of(dataOutput));
+    dataOutput.write(ByteBuffer.wrap(new byte[10]));
+    final StreamDataFrame dataFrame = dataOutput.nextFrame(100).get();
+
+    // A receiver that does not support data fulfills the packet without reporting a max offset.
+    sendMoneyAggregator.handleDataResponse(
+        dataStreamPacket(InterledgerPacketType.PREPARE, dataFrame),
+        Optional.of(dataStreamPacket(InterledgerPacketType.FULFILL))
+    );
+
+    assertThat(dataOutput.bufferedBytes()).isEqualTo(10);
+    assertThat(dataOutput.nextFrame(100)).hasValue(dataFrame);
+  }
+
+  @Test
+  public void handleRejectRetransmitsData() throws Exception {
+    final StreamDataOutputChannel dataOutput = new StreamDataOutputChannel(UnsignedLong.ONE);
+    when(streamConnectionMock.getDataOutputChannel()).thenReturn(Optional.of(dataOutput));
+    dataOutput.write(ByteBuffer.wrap(new byte[10]));
+    final StreamDataFrame dataFrame = dataOutput.nextFrame(100).get();
+
+    sendMoneyAggregator.handleReject(samplePreparePacket(), dataStreamPacket(InterledgerPacketType.PREPARE, dataFrame),
+        sampleRejectPacket(InterledgerErrorCode.T04_INSUFFICIENT_LIQUIDITY), defaultPrepareAmounts,
+        new AtomicInteger(), congestionControllerMock);
+
+    assertThat(dataOutput.nextFrame(100)).hasValue(dataFrame);
+  }
+
   @Test
   public void soldierOn() {
     // if money in flight, always soldier on
@@ -355,8 +582,8 @@ public class SendMoneyAggregatorTest {
     ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
 
     this.sendMoneyAggregator = new SendMoneyAggregator(
-        executor, streamConnectionMock, streamCodecContextMock, linkMock, congestionControllerMock,
-        streamEncryptionServiceMock, request);
+        executor, paymentExecutor(), timeoutScheduler(), streamConnectionMock, streamCodecContextMock, linkMock,
+        congestionControllerMock, streamEncryptionServiceMock, new FulfillmentGenerator(), request);
 
     setSoldierOnBooleans(false, false, true);
     when(streamConnectionMock.nextSequence()).thenReturn(UnsignedLong.ONE);
@@ -367,7 +594,7 @@ public class SendMoneyAggregatorTest {
 
   @Test
   public void toEncrypted() throws Exception {
-    doThrow(new IOException()).when(streamCodecContextMock).write(any(), any());
+    doThrow(new IOException()).when(streamCodecContextMock).write(any(), any(OutputStream.class));
     expectedException.expect(StreamSenderException.class);
     StreamPacket packet = sampleStreamPacket();
     sendMoneyAggregator.toEncrypted(sharedSecret, packet);
@@ -375,7 +602,7 @@ public class SendMoneyAggregatorTest {
 
   @Test
   public void fromEncrypted() throws Exception {
-    doThrow(new IOException()).when(streamCodecContextMock).read(any(), any());
+    doThrow(new IOException()).when(streamCodecContextMock).read(any(), any(InputStream.class));
     expectedException.expect(StreamSenderException.class);
     sendMoneyAggregator.fromEncrypted(sharedSecret, new byte[0]);
   }
@@ -456,6 +683,45 @@ public class SendMoneyAggregatorTest {
     }
   }
 
+  private SendMoneyAggregator newCachingSendMoneyAggregator(final ReceiverDenominationCache cache) {
+    SendMoneyRequest request = SendMoneyRequest.builder()
+        .sharedSecret(sharedSecret)
+        .sourceAddress(sourceAddress)
+        .senderAmountMode(SenderAmountMode.SENDER_AMOUNT)
+        .destinationAddress(destinationAddress)
+        .amount(originalAmountToSend)
+        .timeout(Optional.of(Duration.ofSeconds(60)))
+        .denomination(Denominations.XRP)
+        .paymentTracker(paymentTracker)
+        .build();
+    return new SendMoneyAggregator(
+        Executors.newFixedThreadPool(1), paymentExecutor(), timeoutScheduler(), streamConnectionMock,
+        streamCodecContextMock, linkMock, congestionControllerMock, streamEncryptionServiceMock,
+        new FulfillmentGenerator(), request, Optional.empty(), Optional.of(cache));
+  }
+
+  private StreamPacket assetDetailsStreamPacket() {
+    return StreamPacket.builder()
+        .prepareAmount(UnsignedLong.ONE)
+        .sequence(UnsignedLong.ONE)
+        .interledgerPacketType(InterledgerPacketType.FULFILL)
+        .addFrames(ConnectionAssetDetailsFrame.builder()
+            .sourceDenomination(Denominations.EUR_CENTS)
+            .build())
+        .build();
+  }
+
+  private StreamPacket dataStreamPacket(
+      final InterledgerPacketType interledgerPacketType, final StreamFrame... frames
+  ) {
+    return StreamPacket.builder()
+        .prepareAmount(UnsignedLong.ONE)
+        .sequence(UnsignedLong.ONE)
+        .interledgerPacketType(interledgerPacketType)
+        .addFrames(frames)
+        .build();
+  }
+
   private StreamPacket sampleStreamPacket() {
     return StreamPacket.builder()
         .prepareAmount(UnsignedLong.ZERO)
@@ -489,4 +755,24 @@ public class SendMoneyAggregatorTest {
         .build();
   }
 
+  private SendMoneyRequest requestWithTimeout(final Duration timeout) {
+    return SendMoneyRequest.builder()
+        .sharedSecret(sharedSecret)
+        .sourceAddress(sourceAddress)
+        .senderAmountMode(SenderAmountMode.SENDER_AMOUNT)
+        .destinationAddress(destinationAddress)
+        .amount(originalAmountToSend)
+        .timeout(Optional.of(timeout))
+        .denomination(Denominations.XRP)
+        .paymentTracker(paymentTracker)
+        .build();
+  }
+
+  private ExecutorService paymentExecutor() {
+    return StreamSenderExecutor.shared().paymentExecutor();
+  }
+
+  private ScheduledExecutorService timeoutScheduler() {
+    return StreamSenderExecutor.shared().timeoutScheduler();
+  }
 }
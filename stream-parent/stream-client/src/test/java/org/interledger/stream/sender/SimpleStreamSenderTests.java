@@ -68,6 +68,48 @@ public class SimpleStreamSenderTests {
     new SimpleStreamSender(streamEncryptionServiceMock, linkMock, null);
   }
 
+  @Test
+  public void builderWithoutLink() {
+    expectedException.expect(NullPointerException.class);
+    expectedException.expectMessage("link must be set");
+    SimpleStreamSender.builder().build();
+  }
+
+  @Test
+  public void builderWithNullStreamSenderExecutor() {
+    expectedException.expect(NullPointerException.class);
+    SimpleStreamSender.builder().link(linkMock).streamSenderExecutor(null);
+  }
+
+  @Test
+  public void builderWithNullCongestionControllerFactory() {
+    expectedException.expect(NullPointerException.class);
+    SimpleStreamSender.builder().link(linkMock).congestionControllerFactory(null);
+  }
+
+  @Test
+  public void builderWithCongestionControllerFactory() {
+    assertThat(SimpleStreamSender.builder()
+        .link(linkMock)
+        .congestionControllerFactory(CongestionControllerFactory.latencyAware())
+        .build()
+    ).isNotNull();
+  }
+
+  @Test
+  public void builderWithMultiplexStreams() {
+    assertThat(SimpleStreamSender.builder()
+        .link(linkMock)
+        .multiplexStreams(true)
+        .build()
+    ).isNotNull();
+  }
+
+  @Test
+  public void builderWithDefaults() {
+    assertThat(SimpleStreamSender.builder().link(linkMock).build()).isNotNull();
+  }
+
   @Test
   public void connectionStats() {
     SimpleStreamSender.ConnectionStatistics stats = SimpleStreamSender.ConnectionStatistics.builder()
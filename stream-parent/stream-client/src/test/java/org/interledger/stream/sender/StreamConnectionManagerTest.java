@@ -3,11 +3,17 @@ package org.interledger.stream.sender;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import org.interledger.stream.StreamConnection;
+import org.interledger.stream.StreamConnectionClosedException;
 import org.interledger.stream.StreamConnectionId;
 
+import com.google.common.base.Ticker;
+import com.google.common.primitives.UnsignedLong;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Unit tests for {@link StreamConnectionManager}.
  */
@@ -15,9 +21,12 @@ public class StreamConnectionManagerTest {
 
   private StreamConnectionManager streamConnectionManager;
 
+  private AtomicLong nanos;
+
   @Before
   public void setUp() {
     this.streamConnectionManager = new StreamConnectionManager();
+    this.nanos = new AtomicLong();
   }
 
   @Test
@@ -27,6 +36,17 @@ public class StreamConnectionManagerTest {
         .openConnection(streamConnectionId);
     assertThat(streamConnectionManager.openConnection(streamConnectionId)).isEqualTo(streamConnection);
     assertThat(streamConnectionManager.openConnection(streamConnectionId)).isEqualTo(streamConnection);
+    assertThat(streamConnectionManager.liveConnectionCount()).isEqualTo(1);
+    assertThat(streamConnectionManager.stats().missCount()).isEqualTo(1);
+    assertThat(streamConnectionManager.stats().hitCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void openConnectionIsNotSharedByManagers() {
+    StreamConnectionId streamConnectionId = StreamConnectionId.of("foo");
+    final StreamConnection streamConnection = streamConnectionManager.openConnection(streamConnectionId);
+
+    assertThat(new StreamConnectionManager().openConnection(streamConnectionId)).isNotSameAs(streamConnection);
   }
 
   @Test
@@ -36,6 +56,125 @@ public class StreamConnectionManagerTest {
         .openConnection(streamConnectionId);
 
     assertThat(streamConnectionManager.closeConnection(streamConnectionId)).get().isEqualTo(streamConnection);
-    assertThat(streamConnectionManager.closeConnection(streamConnectionId)).get().isEqualTo(streamConnection);
+    assertThat(streamConnection.isClosed()).isTrue();
+    assertThat(streamConnectionManager.closeConnection(streamConnectionId)).isEmpty();
+    assertThat(streamConnectionManager.liveConnectionCount()).isEqualTo(0);
+    assertThat(streamConnectionManager.stats().evictionCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void openConnectionAfterClose() {
+    StreamConnectionId streamConnectionId = StreamConnectionId.of("foo");
+    final StreamConnection streamConnection = streamConnectionManager.openConnection(streamConnectionId);
+    streamConnectionManager.closeConnection(streamConnectionId);
+
+    final StreamConnection reopenedConnection = streamConnectionManager.openConnection(streamConnectionId);
+    assertThat(reopenedConnection).isNotSameAs(streamConnection);
+    assertThat(reopenedConnection.isClosed()).isFalse();
+  }
+
+  @Test
+  public void openConnectionThatClosedItself() {
+    StreamConnectionId streamConnectionId = StreamConnectionId.of("foo");
+    final StreamConnection streamConnection = streamConnectionManager.openConnection(streamConnectionId);
+    streamConnection.closeConnection();
+
+    assertThat(streamConnectionManager.openConnection(streamConnectionId)).isSameAs(streamConnection);
+  }
+
+  @Test
+  public void evictIdleConnection() {
+    this.streamConnectionManager = new StreamConnectionManager(10, Duration.ofMinutes(1), ticker());
+    StreamConnectionId idleConnectionId = StreamConnectionId.of("idle");
+    StreamConnectionId busyConnectionId = StreamConnectionId.of("busy");
+    streamConnectionManager.openConnection(idleConnectionId);
+    final StreamConnection busyConnection = streamConnectionManager.openConnection(busyConnectionId);
+
+    nanos.addAndGet(Duration.ofSeconds(45).toNanos());
+    streamConnectionManager.openConnection(busyConnectionId);
+    nanos.addAndGet(Duration.ofSeconds(15).toNanos());
+
+    assertThat(streamConnectionManager.liveConnectionCount()).isEqualTo(1);
+    assertThat(streamConnectionManager.stats().evictionCount()).isEqualTo(1);
+    assertThat(streamConnectionManager.openConnection(busyConnectionId)).isSameAs(busyConnection);
+  }
+
+  /**
+   * A payment that is still using an evicted connection must not be joined by a second connection with the same
+   * identifier, whose sequence would start again at 1.
+   */
+  @Test
+  public void openConnectionEvictedWhileInUse() throws StreamConnectionClosedException {
+    this.streamConnectionManager = new StreamConnectionManager(1, Duration.ofMinutes(1), ticker());
+    StreamConnectionId streamConnectionId = StreamConnectionId.of("foo");
+    final StreamConnection streamConnection = streamConnectionManager.openConnection(streamConnectionId);
+    streamConnection.nextSequence();
+    streamConnection.nextSequence();
+
+    streamConnectionManager.openConnection(StreamConnectionId.of("bar"));
+    nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+    assertThat(streamConnectionManager.liveConnectionCount()).isEqualTo(0);
+    assertThat(streamConnectionManager.stats().evictionCount()).isEqualTo(2);
+
+    final StreamConnection reopenedConnection = streamConnectionManager.openConnection(streamConnectionId);
+    assertThat(reopenedConnection).isSameAs(streamConnection);
+    assertThat(reopenedConnection.nextSequence()).isEqualTo(UnsignedLong.valueOf(3));
+    assertThat(streamConnectionManager.liveConnectionCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void closeConnectionEvictedWhileInUse() {
+    this.streamConnectionManager = new StreamConnectionManager(1, Duration.ofMinutes(1), ticker());
+    StreamConnectionId streamConnectionId = StreamConnectionId.of("foo");
+    final StreamConnection streamConnection = streamConnectionManager.openConnection(streamConnectionId);
+    streamConnectionManager.openConnection(StreamConnectionId.of("bar"));
+
+    assertThat(streamConnectionManager.closeConnection(streamConnectionId)).get().isSameAs(streamConnection);
+    assertThat(streamConnection.isClosed()).isTrue();
+    assertThat(streamConnectionManager.openConnection(streamConnectionId)).isNotSameAs(streamConnection);
+  }
+
+  @Test
+  public void evictWhenFull() {
+    this.streamConnectionManager = new StreamConnectionManager(2, Duration.ofMinutes(1), ticker());
+    streamConnectionManager.openConnection(StreamConnectionId.of("first"));
+    streamConnectionManager.openConnection(StreamConnectionId.of("second"));
+    streamConnectionManager.openConnection(StreamConnectionId.of("third"));
+
+    assertThat(streamConnectionManager.liveConnectionCount()).isEqualTo(2);
+    assertThat(streamConnectionManager.stats().evictionCount()).isEqualTo(1);
+  }
+
+  /**
+   * A long-running sender opens a connection for every payment to a new receiver. The connection table must not grow
+   * with the number of payments.
+   */
+  @Test
+  public void openMillionsOfConnectionsKeepsTableBounded() {
+    this.streamConnectionManager = new StreamConnectionManager(1_000, Duration.ofMinutes(1), ticker());
+    final int connections = 2_000_000;
+
+    for (int i = 0; i < connections; i++) {
+      streamConnectionManager.openConnection(StreamConnectionId.of("connection" + i));
+      if (i % 100 == 0) {
+        nanos.addAndGet(Duration.ofMillis(10).toNanos());
+      }
+      if (i % 100_000 == 0) {
+        assertThat(streamConnectionManager.liveConnectionCount()).isLessThanOrEqualTo(1_000);
+      }
+    }
+
+    assertThat(streamConnectionManager.liveConnectionCount()).isLessThanOrEqualTo(1_000);
+    assertThat(streamConnectionManager.stats().evictionCount())
+        .isEqualTo(connections - streamConnectionManager.liveConnectionCount());
+  }
+
+  private Ticker ticker() {
+    return new Ticker() {
+      @Override
+      public long read() {
+        return nanos.get();
+      }
+    };
   }
 }
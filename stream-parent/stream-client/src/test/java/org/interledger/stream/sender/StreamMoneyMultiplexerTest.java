@@ -0,0 +1,271 @@
+package org.interledger.stream.sender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerErrorCode;
+import org.interledger.core.InterledgerFulfillPacket;
+import org.interledger.core.InterledgerPacketType;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.core.InterledgerResponsePacket;
+import org.interledger.core.SharedSecret;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.link.Link;
+import org.interledger.stream.AmountTooLargeErrorData;
+import org.interledger.stream.PrepareAmounts;
+import org.interledger.stream.StreamConnection;
+import org.interledger.stream.StreamConnectionId;
+import org.interledger.stream.StreamPacket;
+import org.interledger.stream.crypto.FulfillmentGenerator;
+import org.interledger.stream.crypto.JavaxStreamEncryptionService;
+import org.interledger.stream.crypto.StreamEncryptionService;
+import org.interledger.stream.frames.StreamMoneyFrame;
+import org.interledger.stream.sender.StreamMoneyMultiplexer.ShareResponse;
+
+import com.google.common.collect.Lists;
+import com.google.common.primitives.UnsignedLong;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Unit tests for {@link StreamMoneyMultiplexer}.
+ */
+public class StreamMoneyMultiplexerTest {
+
+  // 5 seconds max per method tested
+  @Rule
+  public Timeout globalTimeout = Timeout.seconds(5);
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private static final InterledgerAddress DESTINATION_ADDRESS = InterledgerAddress.of("example.destination");
+  private static final SharedSecret SHARED_SECRET = SharedSecret.of(new byte[32]);
+  private static final UnsignedLong STREAM_1 = UnsignedLong.ONE;
+  private static final UnsignedLong STREAM_3 = UnsignedLong.valueOf(3L);
+  private static final UnsignedLong STREAM_5 = UnsignedLong.valueOf(5L);
+
+  private final CodecContext streamCodecContext = StreamCodecContextFactory.oer();
+  private final StreamEncryptionService streamEncryptionService = new JavaxStreamEncryptionService();
+
+  /**
+   * Released by the link when it starts to send a Prepare packet.
+   */
+  private final Semaphore preparesStarted = new Semaphore(0);
+  /**
+   * Acquired by the link before it returns the response to a Prepare packet.
+   */
+  private final Semaphore responsesAllowed = new Semaphore(Integer.MAX_VALUE);
+  private final List<InterledgerPreparePacket> preparePackets = Collections.synchronizedList(Lists.newArrayList());
+  private final List<StreamPacket> streamPackets = Collections.synchronizedList(Lists.newArrayList());
+
+  private volatile Function<InterledgerPreparePacket, InterledgerResponsePacket> receiver;
+
+  @Before
+  public void setUp() {
+    this.receiver = preparePacket -> fulfill(preparePacket.getAmount());
+  }
+
+  @Test
+  public void constructWithZeroMaxPreparesInFlight() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("maxPreparesInFlight must be at least 1");
+    newMultiplexer(0);
+  }
+
+  @Test
+  public void shareIsSentInItsOwnPrepareWhenNoneIsInFlight() {
+    final ShareResponse response = newMultiplexer(1).send(STREAM_1, amounts(100L, 90L)).join();
+
+    assertThat(preparePackets).hasSize(1);
+    assertThat(preparePackets.get(0).getAmount()).isEqualTo(UnsignedLong.valueOf(100L));
+    assertThat(streamPackets.get(0).prepareAmount()).isEqualTo(UnsignedLong.valueOf(90L));
+    assertThat(streamPackets.get(0).sequence()).isEqualTo(UnsignedLong.ONE);
+    assertThat(streamPackets.get(0).frames()).containsExactly(moneyFrame(STREAM_1, 100L));
+
+    assertThat(response.getPreparePacket()).isEqualTo(preparePackets.get(0));
+    assertThat(response.getResponsePacket()).isInstanceOf(InterledgerFulfillPacket.class);
+    assertThat(response.getDeliveredAmount()).contains(UnsignedLong.valueOf(100L));
+    assertThat(response.getRoundTripTime()).isNotNull();
+  }
+
+  @Test
+  public void queuedSharesAreSentTogetherInTheNextPrepare() throws InterruptedException {
+    final StreamMoneyMultiplexer multiplexer = newMultiplexer(1);
+    responsesAllowed.drainPermits();
+    final CompletableFuture<ShareResponse> first = CompletableFuture
+        .supplyAsync(() -> multiplexer.send(STREAM_1, amounts(10L, 10L)).join());
+    preparesStarted.acquire();
+
+    // The one Prepare that may be in flight is in flight, so these shares are queued.
+    final CompletableFuture<ShareResponse> second = multiplexer.send(STREAM_5, amounts(70L, 60L));
+    final CompletableFuture<ShareResponse> third = multiplexer.send(STREAM_3, amounts(30L, 20L));
+    assertThat(second).isNotDone();
+    assertThat(third).isNotDone();
+
+    // The receiver delivers one unit less than the Prepare amount, which leaves one unit to the lowest stream id.
+    receiver = preparePacket -> fulfill(preparePacket.getAmount().minus(UnsignedLong.ONE));
+    responsesAllowed.release(Integer.MAX_VALUE);
+
+    assertThat(first.join().getDeliveredAmount()).contains(UnsignedLong.valueOf(9L));
+    assertThat(second.join().getDeliveredAmount()).contains(UnsignedLong.valueOf(69L));
+    assertThat(third.join().getDeliveredAmount()).contains(UnsignedLong.valueOf(30L));
+    assertThat(second.join().getPreparePacket()).isEqualTo(third.join().getPreparePacket());
+
+    assertThat(preparePackets).hasSize(2);
+    assertThat(preparePackets.get(1).getAmount()).isEqualTo(UnsignedLong.valueOf(100L));
+    assertThat(streamPackets.get(1).prepareAmount()).isEqualTo(UnsignedLong.valueOf(80L));
+    assertThat(streamPackets.get(1).frames()).containsExactly(moneyFrame(STREAM_5, 70L), moneyFrame(STREAM_3, 30L));
+  }
+
+  @Test
+  public void queuedSharesOfOneStreamAreMergedIntoOneFrame() throws InterruptedException {
+    final StreamMoneyMultiplexer multiplexer = newMultiplexer(1);
+    responsesAllowed.drainPermits();
+    final CompletableFuture<ShareResponse> first = CompletableFuture
+        .supplyAsync(() -> multiplexer.send(STREAM_1, amounts(10L, 10L)).join());
+    preparesStarted.acquire();
+
+    final CompletableFuture<ShareResponse> second = multiplexer.send(STREAM_3, amounts(30L, 30L));
+    final CompletableFuture<ShareResponse> third = multiplexer.send(STREAM_3, amounts(20L, 20L));
+    responsesAllowed.release(Integer.MAX_VALUE);
+    CompletableFuture.allOf(first, second, third).join();
+
+    assertThat(streamPackets.get(1).frames()).containsExactly(moneyFrame(STREAM_3, 50L));
+    assertThat(second.join().getDeliveredAmount()).contains(UnsignedLong.valueOf(30L));
+    assertThat(third.join().getDeliveredAmount()).contains(UnsignedLong.valueOf(20L));
+  }
+
+  @Test
+  public void f08RejectionLimitsAmountOfCombinedPrepares() throws InterruptedException {
+    final StreamMoneyMultiplexer multiplexer = newMultiplexer(1);
+    responsesAllowed.drainPermits();
+    final CompletableFuture<ShareResponse> first = CompletableFuture
+        .supplyAsync(() -> multiplexer.send(STREAM_1, amounts(10L, 10L)).join());
+    preparesStarted.acquire();
+
+    final CompletableFuture<ShareResponse> second = multiplexer.send(STREAM_3, amounts(60L, 60L));
+    final CompletableFuture<ShareResponse> third = multiplexer.send(STREAM_5, amounts(60L, 60L));
+    receiver = preparePacket -> preparePacket.getAmount().longValue() > 100L ? f08(preparePacket.getAmount(), 100L)
+        : fulfill(preparePacket.getAmount());
+    responsesAllowed.release();
+    preparesStarted.acquire();
+
+    // The combined Prepare of 120 is in flight, and will be rejected, so these can not be sent together anymore.
+    final CompletableFuture<ShareResponse> fourth = multiplexer.send(STREAM_3, amounts(60L, 60L));
+    final CompletableFuture<ShareResponse> fifth = multiplexer.send(STREAM_5, amounts(60L, 60L));
+    responsesAllowed.release(Integer.MAX_VALUE);
+    CompletableFuture.allOf(first, second, third, fourth, fifth).join();
+
+    assertThat(second.join().getResponsePacket()).isInstanceOf(InterledgerRejectPacket.class);
+    assertThat(second.join().getDeliveredAmount()).contains(UnsignedLong.ZERO);
+    assertThat(fourth.join().getDeliveredAmount()).contains(UnsignedLong.valueOf(60L));
+    assertThat(fifth.join().getDeliveredAmount()).contains(UnsignedLong.valueOf(60L));
+    assertThat(preparePackets).extracting(InterledgerPreparePacket::getAmount).containsExactly(
+        UnsignedLong.valueOf(10L), UnsignedLong.valueOf(120L), UnsignedLong.valueOf(60L), UnsignedLong.valueOf(60L)
+    );
+  }
+
+  @Test
+  public void sendWhenConnectionIsClosed() {
+    final StreamConnection streamConnection = new StreamConnection(StreamConnectionId.of("closed"));
+    streamConnection.closeConnection();
+    final StreamMoneyMultiplexer multiplexer = new StreamMoneyMultiplexer(
+        streamConnection, streamCodecContext, newLink(), streamEncryptionService, new FulfillmentGenerator(),
+        DESTINATION_ADDRESS, SHARED_SECRET, 1
+    );
+
+    assertThat(multiplexer.send(STREAM_1, amounts(10L, 10L))).isCompletedExceptionally();
+    assertThat(preparePackets).isEmpty();
+  }
+
+  private StreamMoneyMultiplexer newMultiplexer(final int maxPreparesInFlight) {
+    return new StreamMoneyMultiplexer(
+        new StreamConnection(StreamConnectionId.of("test")), streamCodecContext, newLink(), streamEncryptionService,
+        new FulfillmentGenerator(), DESTINATION_ADDRESS, SHARED_SECRET, maxPreparesInFlight
+    );
+  }
+
+  private Link newLink() {
+    final Link link = mock(Link.class);
+    when(link.sendPacket(any())).thenAnswer(invocation -> {
+      final InterledgerPreparePacket preparePacket = invocation.getArgument(0);
+      preparePackets.add(preparePacket);
+      streamPackets.add(streamCodecContext.read(StreamPacket.class, new ByteArrayInputStream(
+          streamEncryptionService.decrypt(SHARED_SECRET, preparePacket.getData())
+      )));
+      preparesStarted.release();
+      responsesAllowed.acquire();
+      return receiver.apply(preparePacket);
+    });
+    return link;
+  }
+
+  private InterledgerResponsePacket fulfill(final UnsignedLong deliveredAmount) {
+    final StreamPacket streamPacket = StreamPacket.builder()
+        .interledgerPacketType(InterledgerPacketType.FULFILL)
+        .prepareAmount(deliveredAmount)
+        .sequence(UnsignedLong.ONE)
+        .build();
+    try {
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      streamCodecContext.write(streamPacket, baos);
+      final byte[] data = streamEncryptionService.encrypt(SHARED_SECRET, baos.toByteArray());
+      return InterledgerFulfillPacket.builder()
+          .fulfillment(new FulfillmentGenerator().generateFulfillment(SHARED_SECRET, data))
+          .data(data)
+          .build();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private InterledgerResponsePacket f08(final UnsignedLong receivedAmount, final long maximumAmount) {
+    try {
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      streamCodecContext.write(AmountTooLargeErrorData.builder()
+          .receivedAmount(receivedAmount)
+          .maximumAmount(UnsignedLong.valueOf(maximumAmount))
+          .build(), baos);
+      return InterledgerRejectPacket.builder()
+          .code(InterledgerErrorCode.F08_AMOUNT_TOO_LARGE)
+          .triggeredBy(DESTINATION_ADDRESS)
+          .message("too large")
+          .data(baos.toByteArray())
+          .build();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private PrepareAmounts amounts(final long amountToSend, final long minimumAmountToAccept) {
+    return PrepareAmounts.builder()
+        .amountToSend(UnsignedLong.valueOf(amountToSend))
+        .minimumAmountToAccept(UnsignedLong.valueOf(minimumAmountToAccept))
+        .build();
+  }
+
+  private StreamMoneyFrame moneyFrame(final UnsignedLong streamId, final long shares) {
+    return StreamMoneyFrame.builder()
+        .streamId(streamId)
+        .shares(UnsignedLong.valueOf(shares))
+        .build();
+  }
+}
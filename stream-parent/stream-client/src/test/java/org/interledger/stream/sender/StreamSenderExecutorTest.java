@@ -0,0 +1,137 @@
+package org.interledger.stream.sender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Unit tests for {@link StreamSenderExecutor}.
+ */
+public class StreamSenderExecutorTest {
+
+  // 5 seconds max per method tested
+  @Rule
+  public Timeout globalTimeout = Timeout.seconds(5);
+
+  private CountDownLatch release;
+
+  private StreamSenderExecutor streamSenderExecutor;
+
+  @Before
+  public void setUp() {
+    release = new CountDownLatch(1);
+    streamSenderExecutor = StreamSenderExecutor.builder()
+        .paymentThreads(1)
+        .paymentQueueCapacity(1)
+        .packetThreads(1)
+        .packetQueueCapacity(2)
+        .threadNamePrefix("test")
+        .build();
+  }
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    streamSenderExecutor.shutdown();
+  }
+
+  @Test
+  public void builderRejectsNonPositiveSizes() {
+    assertThatThrownBy(() -> StreamSenderExecutor.builder().paymentThreads(0))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("paymentThreads must be greater than 0");
+    assertThatThrownBy(() -> StreamSenderExecutor.builder().paymentQueueCapacity(0))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("paymentQueueCapacity must be greater than 0");
+    assertThatThrownBy(() -> StreamSenderExecutor.builder().packetThreads(-1))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("packetThreads must be greater than 0");
+    assertThatThrownBy(() -> StreamSenderExecutor.builder().packetQueueCapacity(-1))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("packetQueueCapacity must be greater than 0");
+  }
+
+  @Test
+  public void fullPaymentQueueRejectsAndCounts() throws InterruptedException {
+    final CountDownLatch running = new CountDownLatch(1);
+    streamSenderExecutor.paymentExecutor().submit(() -> {
+      running.countDown();
+      release.await();
+      return null;
+    });
+    running.await();
+    streamSenderExecutor.paymentExecutor().submit(() -> { });
+
+    assertThat(streamSenderExecutor.getPaymentQueueDepth()).isEqualTo(1);
+    assertThatThrownBy(() -> streamSenderExecutor.paymentExecutor().submit(() -> { }))
+        .isInstanceOf(RejectedExecutionException.class);
+    assertThat(streamSenderExecutor.getPaymentRejections()).isEqualTo(1);
+    assertThat(streamSenderExecutor.getPacketRejections()).isEqualTo(0);
+  }
+
+  @Test
+  public void fullPacketQueueRejectsAndCounts() throws InterruptedException {
+    final CountDownLatch running = new CountDownLatch(1);
+    streamSenderExecutor.packetExecutor().submit(() -> {
+      running.countDown();
+      release.await();
+      return null;
+    });
+    running.await();
+    streamSenderExecutor.packetExecutor().submit(() -> { });
+    streamSenderExecutor.packetExecutor().submit(() -> { });
+
+    assertThat(streamSenderExecutor.getPacketQueueDepth()).isEqualTo(2);
+    for (int i = 0; i < 2; i++) {
+      assertThatThrownBy(() -> streamSenderExecutor.packetExecutor().submit(() -> { }))
+          .isInstanceOf(RejectedExecutionException.class);
+    }
+    assertThat(streamSenderExecutor.getPacketRejections()).isEqualTo(2);
+    assertThat(streamSenderExecutor.getPaymentRejections()).isEqualTo(0);
+  }
+
+  @Test
+  public void shutdownRejectsAndCounts() {
+    streamSenderExecutor.shutdown();
+
+    assertThatThrownBy(() -> streamSenderExecutor.paymentExecutor().submit(() -> { }))
+        .isInstanceOf(RejectedExecutionException.class);
+    assertThatThrownBy(() -> streamSenderExecutor.packetExecutor().submit(() -> { }))
+        .isInstanceOf(RejectedExecutionException.class);
+    assertThat(streamSenderExecutor.getPaymentRejections()).isEqualTo(1);
+    assertThat(streamSenderExecutor.getPacketRejections()).isEqualTo(1);
+  }
+
+  @Test
+  public void virtualThreadsWhereSupported() throws Exception {
+    final StreamSenderExecutor virtualThreadExecutor = StreamSenderExecutor.builder()
+        .virtualThreads(true)
+        .build();
+    try {
+      assertThat(virtualThreadExecutor.usesVirtualThreads()).isEqualTo(VirtualThreadExecutors.isSupported());
+      assertThat(virtualThreadExecutor.paymentExecutor().submit(() -> "payment").get()).isEqualTo("payment");
+      assertThat(virtualThreadExecutor.packetExecutor().submit(() -> "packet").get()).isEqualTo("packet");
+      assertThat(virtualThreadExecutor.getPaymentQueueDepth()).isEqualTo(0);
+    } finally {
+      virtualThreadExecutor.shutdown();
+    }
+  }
+
+  @Test
+  public void noVirtualThreadsByDefault() {
+    assertThat(streamSenderExecutor.usesVirtualThreads()).isFalse();
+  }
+
+  @Test
+  public void sharedIsASingleton() {
+    assertThat(StreamSenderExecutor.shared()).isSameAs(StreamSenderExecutor.shared());
+  }
+}
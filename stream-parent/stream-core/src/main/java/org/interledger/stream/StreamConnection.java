@@ -13,6 +13,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.StringJoiner;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -29,6 +30,12 @@ public class StreamConnection implements Closeable {
   public static final UnsignedLong MAX_FRAMES_PER_CONNECTION =
       UnsignedLong.valueOf((long) Integer.MAX_VALUE + 1L);
 
+  /**
+   * The stream that carries the data of {@link #openDataOutputChannel()}. This is the first stream that a client opens,
+   * which is also the stream that carries money when a payment is not multiplexed.
+   */
+  public static final UnsignedLong DATA_STREAM_ID = UnsignedLong.ONE;
+
   /**
    * The unique identifier of this Connection. A Connection is unique to a destination {@link InterledgerAddress} and a
    * {@link SharedSecret}.
@@ -36,7 +43,9 @@ public class StreamConnection implements Closeable {
   private final Instant creationDateTime;
   private final StreamConnectionId streamConnectionId;
   private final AtomicReference<UnsignedLong> sequence;
+  private final AtomicReference<UnsignedLong> streamId;
   private final AtomicReference<StreamConnectionState> connectionState;
+  private final AtomicReference<StreamDataOutputChannel> dataOutputChannel;
 
   /**
    * Required-args Constructor that derives the {@link StreamConnectionId} from the supplied inputs. This implementation
@@ -61,7 +70,9 @@ public class StreamConnection implements Closeable {
     this.creationDateTime = DateUtils.now();
     this.streamConnectionId = Objects.requireNonNull(streamConnectionId, "streamConnectionId must not be null");
     this.sequence = new AtomicReference<>(UnsignedLong.ONE);
+    this.streamId = new AtomicReference<>(UnsignedLong.ONE);
     this.connectionState = new AtomicReference<>(StreamConnectionState.AVAILABLE);
+    this.dataOutputChannel = new AtomicReference<>();
   }
 
   /**
@@ -84,6 +95,22 @@ public class StreamConnection implements Closeable {
     }
   }
 
+  /**
+   * Return the next stream id from {@link #streamId} for a new stream that this endpoint opens on this Connection. Per
+   * IL-RFC-29, streams opened by the client use odd numbers, so the first call to this method will return {@link
+   * UnsignedLong#ONE}, and each subsequent call will return the next odd number.
+   *
+   * @return A {@link UnsignedLong} representing a stream id that no other stream on this Connection uses.
+   *
+   * @throws StreamConnectionClosedException if this Connection is closed.
+   */
+  public UnsignedLong nextStreamId() throws StreamConnectionClosedException {
+    if (isClosed()) {
+      throw new StreamConnectionClosedException(streamConnectionId);
+    }
+    return streamId.getAndUpdate(currentStreamId -> currentStreamId.plus(UnsignedLong.valueOf(2L)));
+  }
+
   /**
    * Determines if {@code sequence} can be safely used to encrypt data using a single shared secret. Per IL-RFC-29,
    * "Implementations MUST close the connection once either endpoint has sent 2^31 packets. According to NIST, it is
@@ -100,6 +127,29 @@ public class StreamConnection implements Closeable {
     return !isClosed() && is(Objects.requireNonNull(sequence)).lessThanOrEqualTo(MAX_FRAMES_PER_CONNECTION);
   }
 
+  /**
+   * Open the channel that sends data to the receiver of this Connection, on stream {@link #DATA_STREAM_ID}. Every
+   * call to this method returns the same channel. A STREAM sender sends the bytes written to it in the packets of the
+   * payments on this Connection.
+   *
+   * @return The {@link StreamDataOutputChannel} of this Connection.
+   */
+  public StreamDataOutputChannel openDataOutputChannel() {
+    return dataOutputChannel.updateAndGet(
+        channel -> channel != null ? channel : new StreamDataOutputChannel(DATA_STREAM_ID)
+    );
+  }
+
+  /**
+   * Accessor for the channel that sends data to the receiver of this Connection.
+   *
+   * @return The {@link StreamDataOutputChannel} of this Connection, or empty if {@link #openDataOutputChannel()} was
+   *     never called.
+   */
+  public Optional<StreamDataOutputChannel> getDataOutputChannel() {
+    return Optional.ofNullable(dataOutputChannel.get());
+  }
+
   public Instant getCreationDateTime() {
     return creationDateTime;
   }
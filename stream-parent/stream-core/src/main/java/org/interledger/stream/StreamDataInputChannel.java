@@ -0,0 +1,185 @@
+package org.interledger.stream;
+
+import com.google.common.primitives.UnsignedLong;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * <p>The receiving side of the data of a single stream, as a {@link ReadableByteChannel}.</p>
+ *
+ * <p>A STREAM receiver hands the segments of every {@code StreamData} frame to {@link #receive(long, byte[])}, in
+ * whatever order the packets arrive. This channel puts the segments back in order, drops the bytes it already has, and
+ * lets an application read the bytes once every byte before them has arrived.</p>
+ *
+ * <p>The receive window bounds the bytes that this channel holds: it accepts bytes only below {@link #maxOffset()},
+ * which is the read offset plus the window size. The receiver advertises that offset to the sender in a {@code
+ * StreamDataMax} frame, so the window slides forward only as fast as the application reads.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ */
+public class StreamDataInputChannel implements ReadableByteChannel {
+
+  /**
+   * The default number of bytes that this channel holds for an application.
+   */
+  public static final int DEFAULT_WINDOW_SIZE = 16_384;
+
+  private final UnsignedLong streamId;
+  private final int windowSize;
+
+  // Holds the bytes from readOffset (at index 0) to contiguousOffset. Allocated on the first received byte.
+  private byte[] buffer;
+  private long readOffset;
+  // Every byte below this offset has arrived.
+  private long contiguousOffset;
+  // Segments above contiguousOffset, by their offset.
+  private final TreeMap<Long, byte[]> segments;
+  private boolean open;
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param streamId The identifier of the stream that this channel receives data on.
+   */
+  public StreamDataInputChannel(final UnsignedLong streamId) {
+    this(streamId, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param streamId   The identifier of the stream that this channel receives data on.
+   * @param windowSize The maximum number of bytes that arrived but were not yet read.
+   */
+  public StreamDataInputChannel(final UnsignedLong streamId, final int windowSize) {
+    this.streamId = Objects.requireNonNull(streamId, "streamId must not be null");
+    if (windowSize <= 0) {
+      throw new IllegalArgumentException("windowSize must be greater than 0");
+    }
+    this.windowSize = windowSize;
+    this.segments = new TreeMap<>();
+    this.open = true;
+  }
+
+  public UnsignedLong getStreamId() {
+    return streamId;
+  }
+
+  /**
+   * The offset up to which this channel accepts bytes.
+   *
+   * @return The read offset plus the window size.
+   */
+  public synchronized long maxOffset() {
+    return readOffset + windowSize;
+  }
+
+  /**
+   * Whether this channel would accept a segment, without receiving it.
+   *
+   * @param offset The offset of the first byte of the segment.
+   * @param length The number of bytes of the segment.
+   *
+   * @return {@code true} if the segment ends at or below {@link #maxOffset()}; {@code false} otherwise.
+   */
+  public synchronized boolean accepts(final long offset, final int length) {
+    // Compared without computing the end of the segment, which overflows for an offset close to Long.MAX_VALUE.
+    return offset >= 0 && length >= 0 && offset <= maxOffset() - length;
+  }
+
+  /**
+   * Adds a segment of the stream. Bytes that already arrived are ignored. This channel copies the bytes it keeps, so
+   * the caller may reuse {@code data} afterwards.
+   *
+   * @param offset The offset of the first byte of {@code data}.
+   * @param data   The bytes of the segment.
+   *
+   * @return {@code true} if the segment was accepted; {@code false} if it does not fit into the receive window, in
+   *     which case nothing is added.
+   */
+  public synchronized boolean receive(final long offset, final byte[] data) {
+    Objects.requireNonNull(data, "data must not be null");
+    if (!accepts(offset, data.length)) {
+      return false;
+    }
+    final long end = offset + data.length;
+    if (end <= contiguousOffset || !open) {
+      return true;
+    }
+    final byte[] existing = segments.get(offset);
+    if (existing == null || existing.length < data.length) {
+      // A segment at or below contiguousOffset is copied into the buffer below, before this method returns. Only a
+      // segment that waits for the bytes before it is kept, and needs its own copy.
+      segments.put(offset, offset <= contiguousOffset ? data : data.clone());
+    }
+
+    Entry<Long, byte[]> segment;
+    while ((segment = segments.firstEntry()) != null && segment.getKey() <= contiguousOffset) {
+      segments.pollFirstEntry();
+      final long segmentEnd = segment.getKey() + segment.getValue().length;
+      if (segmentEnd > contiguousOffset) {
+        if (buffer == null) {
+          buffer = new byte[windowSize];
+        }
+        final int skip = (int) (contiguousOffset - segment.getKey());
+        System.arraycopy(segment.getValue(), skip, buffer, (int) (contiguousOffset - readOffset),
+            segment.getValue().length - skip);
+        contiguousOffset = segmentEnd;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The number of bytes that can be read without waiting for more packets.
+   *
+   * @return The number of readable bytes.
+   */
+  public synchronized int available() {
+    return (int) (contiguousOffset - readOffset);
+  }
+
+  /**
+   * Copies the bytes that arrived in order into {@code destination}, which opens the receive window by as many bytes.
+   *
+   * @param destination The {@link ByteBuffer} to copy bytes into.
+   *
+   * @return The number of bytes read, possibly {@code 0} if no bytes can be read yet.
+   *
+   * @throws ClosedChannelException if this channel is closed.
+   */
+  @Override
+  public synchronized int read(final ByteBuffer destination) throws ClosedChannelException {
+    Objects.requireNonNull(destination, "destination must not be null");
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+    final int length = Math.min(destination.remaining(), available());
+    if (length > 0) {
+      destination.put(buffer, 0, length);
+      System.arraycopy(buffer, length, buffer, 0, available() - length);
+      readOffset += length;
+    }
+    return length;
+  }
+
+  @Override
+  public synchronized boolean isOpen() {
+    return open;
+  }
+
+  /**
+   * Closes this channel for reading. Bytes that arrive afterwards are accepted but dropped.
+   */
+  @Override
+  public synchronized void close() {
+    this.open = false;
+    this.buffer = null;
+    this.segments.clear();
+  }
+}
@@ -0,0 +1,258 @@
+package org.interledger.stream;
+
+import org.interledger.stream.frames.StreamDataBlockedFrame;
+import org.interledger.stream.frames.StreamDataFrame;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.primitives.UnsignedLong;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * <p>The sending side of the data of a single stream, as a {@link WritableByteChannel}.</p>
+ *
+ * <p>Bytes that an application writes to this channel are held in a bounded send buffer until the receiver
+ * acknowledges them. A STREAM sender takes the next segment of the buffer with {@link #nextFrame(int)} and puts it into
+ * a packet. Once that packet is fulfilled, the sender calls {@link #acknowledge(StreamDataFrame)}, which frees the
+ * segment. If the packet is rejected, or never sent, the sender calls {@link #retransmit(StreamDataFrame)}, and the
+ * segment is sent again before any new bytes.</p>
+ *
+ * <p>This channel applies backpressure in two places. {@link #write(ByteBuffer)} accepts only as many bytes as fit
+ * into the send buffer, and returns {@code 0} when the buffer is full. {@link #nextFrame(int)} never returns bytes
+ * beyond the max offset that the receiver advertised in its last {@code StreamDataMax} frame (see {@link
+ * #updateRemoteMaxOffset(UnsignedLong)}). Until the receiver advertises anything, it assumes a window of {@link
+ * #DEFAULT_REMOTE_WINDOW} bytes.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ */
+public class StreamDataOutputChannel implements WritableByteChannel {
+
+  @VisibleForTesting
+  static final int DEFAULT_BUFFER_SIZE = 65_536;
+
+  /**
+   * The number of bytes a receiver is assumed to accept before it advertises a max offset. This is the same as the
+   * default window of a {@link StreamDataInputChannel}.
+   */
+  public static final int DEFAULT_REMOTE_WINDOW = StreamDataInputChannel.DEFAULT_WINDOW_SIZE;
+
+  private final UnsignedLong streamId;
+  private final int bufferSize;
+
+  // Holds the bytes from ackedOffset (at index 0) to writeOffset. Allocated on the first write.
+  private byte[] buffer;
+  // Every byte below this offset was acknowledged by the receiver.
+  private long ackedOffset;
+  // Every byte below this offset was sent at least once.
+  private long sentOffset;
+  private long writeOffset;
+  private long remoteMaxOffset;
+  // Segments above ackedOffset, as start -> end offsets.
+  private final TreeMap<Long, Long> ackedSegments;
+  private final TreeMap<Long, Long> resendSegments;
+  private boolean open;
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param streamId The identifier of the stream that this channel sends data on.
+   */
+  public StreamDataOutputChannel(final UnsignedLong streamId) {
+    this(streamId, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param streamId   The identifier of the stream that this channel sends data on.
+   * @param bufferSize The maximum number of bytes that were written but not yet acknowledged.
+   */
+  public StreamDataOutputChannel(final UnsignedLong streamId, final int bufferSize) {
+    this.streamId = Objects.requireNonNull(streamId, "streamId must not be null");
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("bufferSize must be greater than 0");
+    }
+    this.bufferSize = bufferSize;
+    this.remoteMaxOffset = DEFAULT_REMOTE_WINDOW;
+    this.ackedSegments = new TreeMap<>();
+    this.resendSegments = new TreeMap<>();
+    this.open = true;
+  }
+
+  public UnsignedLong getStreamId() {
+    return streamId;
+  }
+
+  /**
+   * Copies as many bytes from {@code source} into the send buffer as fit.
+   *
+   * @param source The {@link ByteBuffer} to read bytes from.
+   *
+   * @return The number of bytes written, possibly {@code 0} if the send buffer is full.
+   *
+   * @throws ClosedChannelException if this channel is closed.
+   */
+  @Override
+  public synchronized int write(final ByteBuffer source) throws ClosedChannelException {
+    Objects.requireNonNull(source, "source must not be null");
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+    final int buffered = (int) (writeOffset - ackedOffset);
+    final int length = Math.min(source.remaining(), bufferSize - buffered);
+    if (length > 0) {
+      if (buffer == null) {
+        buffer = new byte[bufferSize];
+      }
+      source.get(buffer, buffered, length);
+      writeOffset += length;
+    }
+    return length;
+  }
+
+  /**
+   * Takes the next segment to send, which is the first segment to retransmit, if any, or else the next bytes that were
+   * never sent.
+   *
+   * @param maxBytes The maximum number of bytes to take.
+   *
+   * @return An optionally-present {@link StreamDataFrame}, empty if there is nothing to send, or if the receiver's
+   *     window does not allow to send anything.
+   */
+  public synchronized Optional<StreamDataFrame> nextFrame(final int maxBytes) {
+    final long start;
+    final long end;
+    final Entry<Long, Long> resendSegment = resendSegments.pollFirstEntry();
+    if (resendSegment != null) {
+      start = resendSegment.getKey();
+      end = Math.min(resendSegment.getValue(), Math.min(start + maxBytes, remoteMaxOffset));
+      if (end < resendSegment.getValue()) {
+        resendSegments.put(end, resendSegment.getValue());
+      }
+    } else {
+      start = sentOffset;
+      end = Math.min(writeOffset, Math.min(start + maxBytes, remoteMaxOffset));
+      sentOffset = Math.max(sentOffset, end);
+    }
+    if (end <= start) {
+      return Optional.empty();
+    }
+
+    final byte[] data = new byte[(int) (end - start)];
+    System.arraycopy(buffer, (int) (start - ackedOffset), data, 0, data.length);
+    return Optional.of(StreamDataFrame.builder()
+        .streamId(streamId)
+        .offset(UnsignedLong.valueOf(start))
+        .data(data)
+        .build());
+  }
+
+  /**
+   * Reports that the receiver's window keeps this channel from sending any of its pending bytes.
+   *
+   * @return An optionally-present {@link StreamDataBlockedFrame} carrying the offset that the sender would like to send
+   *     up to, empty if this channel is not blocked.
+   */
+  public synchronized Optional<StreamDataBlockedFrame> blockedFrame() {
+    final long pendingOffset = resendSegments.isEmpty() ? sentOffset : resendSegments.firstKey();
+    if (pendingOffset < writeOffset && pendingOffset >= remoteMaxOffset) {
+      return Optional.of(StreamDataBlockedFrame.builder()
+          .streamId(streamId)
+          .maxOffset(UnsignedLong.valueOf(writeOffset))
+          .build());
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Frees the bytes of {@code frame}, which the receiver accepted. Segments may be acknowledged in any order.
+   *
+   * @param frame A {@link StreamDataFrame} that was returned by {@link #nextFrame(int)}.
+   */
+  public synchronized void acknowledge(final StreamDataFrame frame) {
+    Objects.requireNonNull(frame, "frame must not be null");
+    final long start = frame.offset().longValue();
+    final long end = start + frame.data().length;
+    if (end <= ackedOffset) {
+      return;
+    }
+    ackedSegments.merge(start, end, Math::max);
+
+    long acknowledgedOffset = ackedOffset;
+    Entry<Long, Long> segment;
+    while ((segment = ackedSegments.firstEntry()) != null && segment.getKey() <= acknowledgedOffset) {
+      acknowledgedOffset = Math.max(acknowledgedOffset, segment.getValue());
+      ackedSegments.pollFirstEntry();
+    }
+    if (acknowledgedOffset > ackedOffset) {
+      final int freed = (int) (acknowledgedOffset - ackedOffset);
+      System.arraycopy(buffer, freed, buffer, 0, (int) (writeOffset - acknowledgedOffset));
+      ackedOffset = acknowledgedOffset;
+    }
+  }
+
+  /**
+   * Queues the bytes of {@code frame}, which the receiver did not accept, to be sent again.
+   *
+   * @param frame A {@link StreamDataFrame} that was returned by {@link #nextFrame(int)}.
+   */
+  public synchronized void retransmit(final StreamDataFrame frame) {
+    Objects.requireNonNull(frame, "frame must not be null");
+    final long start = Math.max(frame.offset().longValue(), ackedOffset);
+    final long end = frame.offset().longValue() + frame.data().length;
+    if (start < end) {
+      resendSegments.merge(start, end, Math::max);
+    }
+  }
+
+  /**
+   * Raises the offset up to which the receiver accepts bytes. Per IL-RFC-29, the max offset of a stream never
+   * decreases, so a lower value is ignored.
+   *
+   * @param maxOffset The max offset of a {@code StreamDataMax} frame from the receiver.
+   */
+  public synchronized void updateRemoteMaxOffset(final UnsignedLong maxOffset) {
+    Objects.requireNonNull(maxOffset, "maxOffset must not be null");
+    // Offsets above Long.MAX_VALUE are never reached, so they are the same as no limit.
+    final long offset = maxOffset.compareTo(UnsignedLong.valueOf(Long.MAX_VALUE)) > 0
+        ? Long.MAX_VALUE : maxOffset.longValue();
+    remoteMaxOffset = Math.max(remoteMaxOffset, offset);
+  }
+
+  /**
+   * Whether any written bytes still need to be sent.
+   *
+   * @return {@code true} if some bytes were never sent, or must be sent again; {@code false} otherwise.
+   */
+  public synchronized boolean hasPendingData() {
+    return sentOffset < writeOffset || !resendSegments.isEmpty();
+  }
+
+  /**
+   * The number of bytes that were written but not yet acknowledged by the receiver.
+   *
+   * @return The number of buffered bytes.
+   */
+  public synchronized int bufferedBytes() {
+    return (int) (writeOffset - ackedOffset);
+  }
+
+  @Override
+  public synchronized boolean isOpen() {
+    return open;
+  }
+
+  /**
+   * Closes this channel for writing. Bytes that were already written are still sent.
+   */
+  @Override
+  public synchronized void close() {
+    this.open = false;
+  }
+}
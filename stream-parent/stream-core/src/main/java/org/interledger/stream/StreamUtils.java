@@ -5,6 +5,7 @@ import static org.interledger.stream.FluentCompareTo.is;
 import org.interledger.core.InterledgerCondition;
 import org.interledger.core.InterledgerFulfillment;
 import org.interledger.core.SharedSecret;
+import org.interledger.stream.crypto.FulfillmentGenerator;
 import org.interledger.stream.crypto.Random;
 
 import com.google.common.hash.Hashing;
@@ -45,6 +46,9 @@ public class StreamUtils {
    * Setup. The string "ilp_stream_fulfillment" is encoded as UTF-8 or ASCII (the byte representation is the same with
    * both encodings). Finally, the data is the encrypted STREAM packet.</p>
    *
+   * <p>This method derives the HMAC key on every call. Senders and receivers that generate a fulfillment for every
+   * packet should use a {@link FulfillmentGenerator} instead.</p>
+   *
    * @param sharedSecret The cryptographic seed exchanged during STREAM Setup.
    * @param data         The encrypted STREAM packet in ASN.1 OER bytes.
    *
@@ -0,0 +1,235 @@
+package org.interledger.stream.crypto;
+
+import org.interledger.core.SharedSecret;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * <p>A {@link StreamEncryptionService} for senders and receivers that encrypt and decrypt many packets with the same
+ * {@link SharedSecret}, such as every packet of a STREAM payment.</p>
+ *
+ * <p>The output is identical to {@link JavaxStreamEncryptionService}, but this implementation:</p>
+ *
+ * <ul>
+ *   <li>derives the AES key ({@code HmacSHA256(sharedSecret, "ilp_stream_encryption")}) once per shared secret, and
+ *   keeps it in a cache that is bounded in size and drops keys that have not been used for a while;</li>
+ *   <li>reuses one {@link Cipher} per thread instead of looking one up for every packet;</li>
+ *   <li>writes the cipher message ({@code iv || tag || ciphertext}) into a single array of the exact size, using a
+ *   reusable buffer of each thread for the output of the {@link Cipher}, and decrypts without rearranging the tag into
+ *   a copy of the ciphertext; and</li>
+ *   <li>encrypts a range of a larger array, such as a buffer that the caller reuses, without copying it first.</li>
+ * </ul>
+ *
+ * <p>Cached keys are looked up with a constant-time comparison of the shared secret, and the authentication tag is
+ * still verified by the {@link Cipher}, so the timing behaviour does not depend on secret values any more than that of
+ * {@link JavaxStreamEncryptionService} does.</p>
+ */
+public class CachingStreamEncryptionService implements StreamEncryptionService {
+
+  @VisibleForTesting
+  static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+  @VisibleForTesting
+  static final Duration DEFAULT_EXPIRE_AFTER_ACCESS = Duration.ofMinutes(30);
+
+  private static final int AES_GCM_NONCE_IV_LENGTH = JavaxStreamEncryptionService.AES_GCM_NONCE_IV_LENGTH;
+
+  private static final String CIPHER_ALGO = "AES/GCM/NoPadding";
+
+  private static final byte[] ENCRYPTION_KEY_STRING = "ilp_stream_encryption".getBytes(StandardCharsets.US_ASCII);
+
+  private static final int AUTH_TAG_LENGTH_BITS = 128;
+  private static final int AUTH_TAG_LENGTH_BYTES = AUTH_TAG_LENGTH_BITS / 8;
+
+  private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+    try {
+      return Cipher.getInstance(CIPHER_ALGO);
+    } catch (GeneralSecurityException e) {
+      throw new EncryptionException("Unable to create " + CIPHER_ALGO + " cipher", e);
+    }
+  });
+
+  // Holds the output of the cipher before it is rearranged into a cipher message. Grows to the largest message.
+  private static final ThreadLocal<byte[]> SCRATCH_BUFFERS = ThreadLocal.withInitial(() -> new byte[1024]);
+
+  private final Cache<SharedSecretKey, SecretKey> encryptionKeys;
+
+  /**
+   * No-args Constructor. Caches the keys of up to {@link #DEFAULT_MAXIMUM_SIZE} shared secrets, each for
+   * {@link #DEFAULT_EXPIRE_AFTER_ACCESS} after it was last used.
+   */
+  public CachingStreamEncryptionService() {
+    this(DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_ACCESS);
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param maximumSize       The maximum number of shared secrets to cache an encryption key for.
+   * @param expireAfterAccess How long to keep the encryption key of a shared secret after it was last used.
+   */
+  public CachingStreamEncryptionService(final long maximumSize, final Duration expireAfterAccess) {
+    Objects.requireNonNull(expireAfterAccess);
+    this.encryptionKeys = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterAccess(expireAfterAccess.toMillis(), TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  @Override
+  public byte[] encrypt(final SharedSecret sharedSecret, final byte[] plainText) throws EncryptionException {
+    Objects.requireNonNull(plainText);
+
+    return encrypt(sharedSecret, plainText, 0, plainText.length);
+  }
+
+  @Override
+  public byte[] encrypt(final SharedSecret sharedSecret, final byte[] plainText, final int offset, final int length)
+      throws EncryptionException {
+    Objects.requireNonNull(plainText);
+
+    // For GCM a 12 byte random byte-array is recommend by NIST because it's faster and more secure.
+    return encryptWithIv(sharedSecret, plainText, offset, length, Random.randBytes(AES_GCM_NONCE_IV_LENGTH));
+  }
+
+  @VisibleForTesting
+  byte[] encryptWithIv(final SharedSecret sharedSecret, final byte[] plainText, final byte[] iv)
+      throws EncryptionException {
+    Objects.requireNonNull(plainText);
+    return encryptWithIv(sharedSecret, plainText, 0, plainText.length, iv);
+  }
+
+  private byte[] encryptWithIv(
+      final SharedSecret sharedSecret, final byte[] plainText, final int offset, final int length, final byte[] iv
+  ) throws EncryptionException {
+    Objects.requireNonNull(sharedSecret);
+    Objects.requireNonNull(plainText);
+    Objects.requireNonNull(iv);
+    if (offset < 0 || length < 0 || length > plainText.length - offset) {
+      throw new IndexOutOfBoundsException(String.format(
+          "offset %s and length %s do not fit into a plainText of %s bytes", offset, length, plainText.length
+      ));
+    }
+
+    final SecretKey encryptionKey = getEncryptionKey(sharedSecret);
+    final GCMParameterSpec parameterSpec = new GCMParameterSpec(AUTH_TAG_LENGTH_BITS, iv);
+
+    // The cipher writes `ciphertext || tag` into the scratch buffer of this thread. STREAM puts the tag first, so both
+    // parts are then copied into the cipher message in that order, which is the only array that this method allocates.
+    final byte[] scratch = scratchBuffer(length + AUTH_TAG_LENGTH_BYTES);
+    try {
+      final Cipher cipher = initCipher(Cipher.ENCRYPT_MODE, encryptionKey, parameterSpec);
+      cipher.doFinal(plainText, offset, length, scratch, 0);
+    } catch (GeneralSecurityException e) {
+      throw new EncryptionException("Unable to Encrypt: ", e);
+    }
+
+    final byte[] cipherMessage = new byte[iv.length + AUTH_TAG_LENGTH_BYTES + length];
+    System.arraycopy(iv, 0, cipherMessage, 0, iv.length);
+    System.arraycopy(scratch, length, cipherMessage, iv.length, AUTH_TAG_LENGTH_BYTES);
+    System.arraycopy(scratch, 0, cipherMessage, iv.length + AUTH_TAG_LENGTH_BYTES, length);
+    return cipherMessage;
+  }
+
+  @Override
+  public byte[] decrypt(final SharedSecret sharedSecret, final byte[] cipherMessage) {
+    Objects.requireNonNull(sharedSecret);
+    Objects.requireNonNull(cipherMessage);
+
+    final int cipherTextLength = cipherMessage.length - AES_GCM_NONCE_IV_LENGTH - AUTH_TAG_LENGTH_BYTES;
+    if (cipherTextLength < 0) {
+      throw new EncryptionException(String.format(
+          "Cipher message must be at least %s bytes, but was %s",
+          AES_GCM_NONCE_IV_LENGTH + AUTH_TAG_LENGTH_BYTES, cipherMessage.length
+      ));
+    }
+
+    try {
+      final GCMParameterSpec parameterSpec =
+          new GCMParameterSpec(AUTH_TAG_LENGTH_BITS, cipherMessage, 0, AES_GCM_NONCE_IV_LENGTH);
+      final Cipher cipher = initCipher(Cipher.DECRYPT_MODE, getEncryptionKey(sharedSecret), parameterSpec);
+
+      // The cipher expects `ciphertext || tag`, but the message holds `iv || tag || ciphertext`. In decrypt mode, GCM
+      // buffers its input until doFinal, so the two parts can be passed in that order without copying them.
+      final byte[] plainText = new byte[cipherTextLength];
+      final int tagOffset = AES_GCM_NONCE_IV_LENGTH;
+      final int written = cipher.update(
+          cipherMessage, tagOffset + AUTH_TAG_LENGTH_BYTES, cipherTextLength, plainText, 0
+      );
+      cipher.doFinal(cipherMessage, tagOffset, AUTH_TAG_LENGTH_BYTES, plainText, written);
+      return plainText;
+    } catch (Exception e) {
+      throw new EncryptionException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Get the AES key for {@code sharedSecret}, deriving it if it is not cached.
+   */
+  private SecretKey getEncryptionKey(final SharedSecret sharedSecret) {
+    final byte[] sharedSecretBytes = sharedSecret.key();
+    final SecretKey cachedKey = encryptionKeys.getIfPresent(new SharedSecretKey(sharedSecretBytes));
+    if (cachedKey != null) {
+      return cachedKey;
+    }
+
+    final byte[] encryptionKey = Hashing.hmacSha256(sharedSecretBytes).hashBytes(ENCRYPTION_KEY_STRING).asBytes();
+    try {
+      // SecretKeySpec copies the key bytes, and so does the cache key, so neither changes if the caller wipes them.
+      final SecretKey typedEncryptionKey = new SecretKeySpec(encryptionKey, "AES");
+      encryptionKeys.put(new SharedSecretKey(sharedSecretBytes.clone()), typedEncryptionKey);
+      return typedEncryptionKey;
+    } finally {
+      Arrays.fill(encryptionKey, (byte) 0);
+    }
+  }
+
+  /**
+   * Get the scratch buffer of this thread, with room for at least {@code minimumLength} bytes.
+   */
+  private static byte[] scratchBuffer(final int minimumLength) {
+    final byte[] scratch = SCRATCH_BUFFERS.get();
+    if (scratch.length >= minimumLength) {
+      return scratch;
+    }
+    final byte[] largerScratch = new byte[Math.max(minimumLength, scratch.length * 2)];
+    SCRATCH_BUFFERS.set(largerScratch);
+    return largerScratch;
+  }
+
+  /**
+   * Initialize the {@link Cipher} of this thread. A GCM cipher refuses to encrypt twice in a row with the same key and
+   * IV, which only a caller that supplies its own IV can ask for. In that case, a new {@link Cipher} is used, so that
+   * the behaviour is the same as that of {@link JavaxStreamEncryptionService}.
+   */
+  private static Cipher initCipher(final int mode, final SecretKey key, final GCMParameterSpec parameterSpec)
+      throws GeneralSecurityException {
+    final Cipher cipher = CIPHERS.get();
+    try {
+      cipher.init(mode, key, parameterSpec);
+      return cipher;
+    } catch (InvalidAlgorithmParameterException e) {
+      if (mode != Cipher.ENCRYPT_MODE) {
+        throw e;
+      }
+      final Cipher newCipher = Cipher.getInstance(CIPHER_ALGO);
+      newCipher.init(mode, key, parameterSpec);
+      return newCipher;
+    }
+  }
+}
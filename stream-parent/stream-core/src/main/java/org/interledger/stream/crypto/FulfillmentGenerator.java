@@ -0,0 +1,126 @@
+package org.interledger.stream.crypto;
+
+import org.interledger.core.InterledgerFulfillment;
+import org.interledger.core.SharedSecret;
+import org.interledger.stream.StreamUtils;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * <p>Generates the fulfillment of a STREAM packet, for senders and receivers that generate many fulfillments with the
+ * same {@link SharedSecret}, such as one for every packet of a STREAM payment.</p>
+ *
+ * <p>The fulfillments are identical to those of {@link StreamUtils#generatedFulfillableFulfillment(SharedSecret,
+ * byte[])}, but the HMAC key ({@code HmacSHA256(sharedSecret, "ilp_stream_fulfillment")}) is derived once per shared
+ * secret, and each thread reuses one {@link Mac}, which is initialized with the key of each packet. The HMAC keys are
+ * kept in a cache that is bounded in size and drops keys that have not been used for a while.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ */
+public class FulfillmentGenerator {
+
+  @VisibleForTesting
+  static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+  @VisibleForTesting
+  static final Duration DEFAULT_EXPIRE_AFTER_ACCESS = Duration.ofMinutes(30);
+
+  private static final String HMAC_SHA256_ALG_NAME = "HmacSHA256";
+
+  /**
+   * The string "ilp_stream_fulfillment" is encoded as UTF-8 or ASCII (the byte representation is the same with both
+   * encodings).
+   */
+  private static final byte[] ILP_STREAM_FULFILLMENT = "ilp_stream_fulfillment".getBytes(StandardCharsets.UTF_8);
+
+  private static final ThreadLocal<Mac> MACS = ThreadLocal.withInitial(() -> {
+    try {
+      return Mac.getInstance(HMAC_SHA256_ALG_NAME);
+    } catch (GeneralSecurityException e) {
+      throw new EncryptionException("Unable to create " + HMAC_SHA256_ALG_NAME + " mac", e);
+    }
+  });
+
+  private final Cache<SharedSecretKey, SecretKey> fulfillmentKeys;
+
+  /**
+   * No-args Constructor. Caches the HMAC keys of up to {@link #DEFAULT_MAXIMUM_SIZE} shared secrets, each for
+   * {@link #DEFAULT_EXPIRE_AFTER_ACCESS} after it was last used.
+   */
+  public FulfillmentGenerator() {
+    this(DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_ACCESS);
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param maximumSize       The maximum number of shared secrets to cache an HMAC key for.
+   * @param expireAfterAccess How long to keep the HMAC key of a shared secret after it was last used.
+   */
+  public FulfillmentGenerator(final long maximumSize, final Duration expireAfterAccess) {
+    Objects.requireNonNull(expireAfterAccess);
+    this.fulfillmentKeys = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterAccess(expireAfterAccess.toMillis(), TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  /**
+   * Generate the fulfillment for a STREAM packet: {@code HmacSHA256(HmacSHA256(sharedSecret,
+   * "ilp_stream_fulfillment"), data)}.
+   *
+   * @param sharedSecret The cryptographic seed exchanged during STREAM Setup.
+   * @param data         The encrypted STREAM packet in ASN.1 OER bytes.
+   *
+   * @return An {@link InterledgerFulfillment} that can be used to prove a payment.
+   */
+  public InterledgerFulfillment generateFulfillment(final SharedSecret sharedSecret, final byte[] data) {
+    Objects.requireNonNull(sharedSecret);
+    Objects.requireNonNull(data);
+
+    final SecretKey fulfillmentKey = getFulfillmentKey(sharedSecret);
+    final Mac mac = MACS.get();
+    try {
+      // Initializing a Mac with a derived key is cheap compared with deriving the key.
+      mac.init(fulfillmentKey);
+    } catch (GeneralSecurityException e) {
+      throw new EncryptionException("Unable to initialize " + HMAC_SHA256_ALG_NAME + " mac", e);
+    }
+    return InterledgerFulfillment.of(mac.doFinal(data));
+  }
+
+  /**
+   * Get the HMAC key for {@code sharedSecret}, deriving it if it is not cached.
+   */
+  private SecretKey getFulfillmentKey(final SharedSecret sharedSecret) {
+    final byte[] sharedSecretBytes = sharedSecret.key();
+    final SecretKey cachedKey = fulfillmentKeys.getIfPresent(new SharedSecretKey(sharedSecretBytes));
+    if (cachedKey != null) {
+      return cachedKey;
+    }
+
+    // hmac_key = hmac_sha256(shared_secret, "ilp_stream_fulfillment");
+    final byte[] hmacKey = Hashing.hmacSha256(sharedSecretBytes).hashBytes(ILP_STREAM_FULFILLMENT).asBytes();
+    try {
+      // SecretKeySpec copies the key bytes, and so does the cache key, so neither changes if the caller wipes them.
+      final SecretKey fulfillmentKey = new SecretKeySpec(hmacKey, HMAC_SHA256_ALG_NAME);
+      fulfillmentKeys.put(new SharedSecretKey(sharedSecretBytes.clone()), fulfillmentKey);
+      return fulfillmentKey;
+    } finally {
+      Arrays.fill(hmacKey, (byte) 0);
+    }
+  }
+}
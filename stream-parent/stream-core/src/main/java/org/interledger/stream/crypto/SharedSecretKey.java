@@ -0,0 +1,35 @@
+package org.interledger.stream.crypto;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A cache key for the bytes of a shared secret. Its {@link #equals(Object)} compares the secret in constant time.
+ */
+final class SharedSecretKey {
+
+  private final byte[] key;
+  private final int hashCode;
+
+  /**
+   * Required-args Constructor. The supplied array is not copied, so a key that is put into a cache must be given an
+   * array that no caller can change.
+   *
+   * @param key The bytes of a shared secret.
+   */
+  SharedSecretKey(final byte[] key) {
+    this.key = Objects.requireNonNull(key);
+    this.hashCode = Arrays.hashCode(key);
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    return obj instanceof SharedSecretKey && MessageDigest.isEqual(key, ((SharedSecretKey) obj).key);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+}
@@ -2,6 +2,8 @@ package org.interledger.stream.crypto;
 
 import org.interledger.core.SharedSecret;
 
+import java.util.Arrays;
+
 /**
  * A helper class for performing encryption and decryption operations required by the STREAM protocol.
  *
@@ -20,6 +22,25 @@ public interface StreamEncryptionService {
    */
   byte[] encrypt(final SharedSecret sharedSecret, final byte[] plainText);
 
+  /**
+   * Encrypt {@code length} bytes of {@code plainText}, starting at {@code offset}. This lets a caller encode the
+   * plaintext into a buffer that it reuses, and pass that buffer as is.
+   *
+   * <p>The default implementation copies those bytes and calls {@link #encrypt(SharedSecret, byte[])}. Implementations
+   * should override it if they can encrypt directly out of {@code plainText}.</p>
+   *
+   * @param sharedSecret A byte array containing the secret STREAM connection value shared between sender and
+   *                     receiver.
+   * @param plainText    A byte-array containing the plaintext value to encrypt.
+   * @param offset       The index of the first byte of {@code plainText} to encrypt.
+   * @param length       The number of bytes of {@code plainText} to encrypt.
+   *
+   * @return An byte array containing the {@code length} bytes of {@code plainText}, but in encrypted form.
+   */
+  default byte[] encrypt(final SharedSecret sharedSecret, final byte[] plainText, final int offset, final int length) {
+    return encrypt(sharedSecret, Arrays.copyOfRange(plainText, offset, offset + length));
+  }
+
   /**
    * Decrypt the supplied {@code cipherText}.
    *
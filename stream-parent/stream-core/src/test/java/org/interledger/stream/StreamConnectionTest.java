@@ -71,6 +71,16 @@ public class StreamConnectionTest {
     assertThat(new StreamConnection(streamConnectionId).getStreamConnectionId()).isEqualTo(streamConnectionId);
   }
 
+  @Test
+  public void openDataOutputChannel() {
+    assertThat(streamConnection.getDataOutputChannel()).isEmpty();
+
+    final StreamDataOutputChannel dataOutputChannel = streamConnection.openDataOutputChannel();
+    assertThat(dataOutputChannel.getStreamId()).isEqualTo(StreamConnection.DATA_STREAM_ID);
+    assertThat(streamConnection.openDataOutputChannel()).isSameAs(dataOutputChannel);
+    assertThat(streamConnection.getDataOutputChannel()).get().isSameAs(dataOutputChannel);
+  }
+
   @Test
   public void nextSequence() throws StreamConnectionClosedException {
     assertThat(streamConnection.nextSequence()).isEqualTo(UnsignedLong.ONE);
@@ -110,6 +120,21 @@ public class StreamConnectionTest {
     streamConnection.nextSequence();
   }
 
+  @Test
+  public void nextStreamId() throws StreamConnectionClosedException {
+    assertThat(streamConnection.nextStreamId()).isEqualTo(UnsignedLong.ONE);
+    assertThat(streamConnection.nextStreamId()).isEqualTo(UnsignedLong.valueOf(3L));
+    assertThat(streamConnection.nextStreamId()).isEqualTo(UnsignedLong.valueOf(5L));
+    assertThat(streamConnection.nextSequence()).isEqualTo(UnsignedLong.ONE);
+  }
+
+  @Test
+  public void nextStreamIdWhenClosed() throws StreamConnectionClosedException {
+    expectedException.expect(StreamConnectionClosedException.class);
+    streamConnection.closeConnection();
+    streamConnection.nextStreamId();
+  }
+
   @Test
   public void transitionConnectionState() {
     assertThat(streamConnection.isClosed()).isFalse();
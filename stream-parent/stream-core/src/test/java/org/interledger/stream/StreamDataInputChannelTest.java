@@ -0,0 +1,116 @@
+package org.interledger.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.primitives.UnsignedLong;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.Arrays;
+
+/**
+ * Unit tests for {@link StreamDataInputChannel}.
+ */
+public class StreamDataInputChannelTest {
+
+  private StreamDataInputChannel channel;
+
+  @Before
+  public void setUp() {
+    this.channel = new StreamDataInputChannel(UnsignedLong.ONE, 100);
+  }
+
+  @Test
+  public void readsSegmentsInOrder() throws Exception {
+    assertThat(channel.receive(0, bytes(0, 10))).isTrue();
+    assertThat(channel.receive(10, bytes(10, 10))).isTrue();
+
+    assertThat(read(100)).isEqualTo(bytes(0, 20));
+    assertThat(read(100)).isEmpty();
+  }
+
+  @Test
+  public void reassemblesSegmentsOutOfOrder() throws Exception {
+    channel.receive(20, bytes(20, 10));
+    channel.receive(10, bytes(10, 10));
+    assertThat(channel.available()).isEqualTo(0);
+
+    channel.receive(0, bytes(0, 10));
+    assertThat(channel.available()).isEqualTo(30);
+    assertThat(read(100)).isEqualTo(bytes(0, 30));
+  }
+
+  @Test
+  public void ignoresBytesThatAlreadyArrived() throws Exception {
+    channel.receive(0, bytes(0, 10));
+    channel.receive(0, bytes(0, 10));
+    channel.receive(5, bytes(5, 10));
+    channel.receive(12, bytes(12, 3));
+
+    assertThat(read(100)).isEqualTo(bytes(0, 15));
+  }
+
+  @Test
+  public void rejectsSegmentBeyondWindow() throws Exception {
+    assertThat(channel.maxOffset()).isEqualTo(100);
+    assertThat(channel.accepts(90, 11)).isFalse();
+    assertThat(channel.receive(90, bytes(90, 11))).isFalse();
+    assertThat(channel.receive(-1, bytes(0, 1))).isFalse();
+    assertThat(channel.receive(0, bytes(0, 100))).isTrue();
+
+    assertThat(channel.receive(100, bytes(100, 1))).isFalse();
+  }
+
+  @Test
+  public void rejectsSegmentWhoseEndOverflows() {
+    assertThat(channel.accepts(Long.MAX_VALUE, 1)).isFalse();
+    assertThat(channel.accepts(Long.MAX_VALUE - 5, 10)).isFalse();
+    assertThat(channel.accepts(0, -1)).isFalse();
+    assertThat(channel.receive(Long.MAX_VALUE, bytes(0, 1))).isFalse();
+    assertThat(channel.available()).isEqualTo(0);
+  }
+
+  @Test
+  public void copiesSegmentsThatArriveOutOfOrder() throws Exception {
+    final byte[] segment = bytes(10, 10);
+    channel.receive(10, segment);
+    Arrays.fill(segment, (byte) 0);
+
+    channel.receive(0, bytes(0, 10));
+    assertThat(read(100)).isEqualTo(bytes(0, 20));
+  }
+
+  @Test
+  public void readSlidesWindow() throws Exception {
+    channel.receive(0, bytes(0, 100));
+    assertThat(read(60)).isEqualTo(bytes(0, 60));
+
+    assertThat(channel.maxOffset()).isEqualTo(160);
+    assertThat(channel.receive(100, bytes(100, 60))).isTrue();
+    assertThat(read(200)).isEqualTo(bytes(60, 100));
+  }
+
+  @Test(expected = ClosedChannelException.class)
+  public void readFromClosedChannel() throws Exception {
+    channel.receive(0, bytes(0, 10));
+    channel.close();
+    assertThat(channel.isOpen()).isFalse();
+    read(10);
+  }
+
+  private byte[] read(final int maxBytes) throws ClosedChannelException {
+    final ByteBuffer destination = ByteBuffer.allocate(maxBytes);
+    final int read = channel.read(destination);
+    return Arrays.copyOf(destination.array(), read);
+  }
+
+  private static byte[] bytes(final int from, final int length) {
+    final byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = (byte) (from + i);
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,130 @@
+package org.interledger.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.interledger.stream.frames.StreamDataBlockedFrame;
+import org.interledger.stream.frames.StreamDataFrame;
+
+import com.google.common.primitives.UnsignedLong;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+
+/**
+ * Unit tests for {@link StreamDataOutputChannel}.
+ */
+public class StreamDataOutputChannelTest {
+
+  private StreamDataOutputChannel channel;
+
+  @Before
+  public void setUp() {
+    this.channel = new StreamDataOutputChannel(UnsignedLong.ONE, 100);
+  }
+
+  @Test
+  public void writeAcceptsOnlyWhatFitsIntoBuffer() throws Exception {
+    final ByteBuffer source = ByteBuffer.wrap(bytes(0, 150));
+
+    assertThat(channel.write(source)).isEqualTo(100);
+    assertThat(source.remaining()).isEqualTo(50);
+    assertThat(channel.write(source)).isEqualTo(0);
+    assertThat(channel.bufferedBytes()).isEqualTo(100);
+  }
+
+  @Test
+  public void nextFrameTakesSegmentsInOrder() throws Exception {
+    channel.write(ByteBuffer.wrap(bytes(0, 25)));
+
+    final StreamDataFrame first = channel.nextFrame(10).get();
+    final StreamDataFrame second = channel.nextFrame(20).get();
+
+    assertThat(first.streamId()).isEqualTo(UnsignedLong.ONE);
+    assertThat(first.offset()).isEqualTo(UnsignedLong.ZERO);
+    assertThat(first.data()).isEqualTo(bytes(0, 10));
+    assertThat(second.offset()).isEqualTo(UnsignedLong.valueOf(10));
+    assertThat(second.data()).isEqualTo(bytes(10, 15));
+    assertThat(channel.nextFrame(10)).isEmpty();
+    assertThat(channel.hasPendingData()).isFalse();
+  }
+
+  @Test
+  public void acknowledgeFreesBuffer() throws Exception {
+    channel.write(ByteBuffer.wrap(bytes(0, 100)));
+    final StreamDataFrame first = channel.nextFrame(40).get();
+    final StreamDataFrame second = channel.nextFrame(40).get();
+
+    // Out of order, so nothing is freed yet.
+    channel.acknowledge(second);
+    assertThat(channel.bufferedBytes()).isEqualTo(100);
+
+    channel.acknowledge(first);
+    assertThat(channel.bufferedBytes()).isEqualTo(20);
+    assertThat(channel.write(ByteBuffer.wrap(bytes(100, 80)))).isEqualTo(80);
+
+    assertThat(channel.nextFrame(100).get().data()).isEqualTo(bytes(80, 100));
+  }
+
+  @Test
+  public void retransmitSendsSegmentAgainBeforeNewBytes() throws Exception {
+    channel.write(ByteBuffer.wrap(bytes(0, 30)));
+    final StreamDataFrame first = channel.nextFrame(10).get();
+    channel.nextFrame(10);
+
+    channel.retransmit(first);
+    assertThat(channel.hasPendingData()).isTrue();
+
+    final StreamDataFrame resent = channel.nextFrame(4).get();
+    assertThat(resent.offset()).isEqualTo(UnsignedLong.ZERO);
+    assertThat(resent.data()).isEqualTo(bytes(0, 4));
+    assertThat(channel.nextFrame(100).get().data()).isEqualTo(bytes(4, 6));
+    assertThat(channel.nextFrame(100).get().offset()).isEqualTo(UnsignedLong.valueOf(20));
+  }
+
+  @Test
+  public void nextFrameRespectsRemoteWindow() throws Exception {
+    this.channel = new StreamDataOutputChannel(UnsignedLong.ONE);
+    final byte[] data = bytes(0, StreamDataOutputChannel.DEFAULT_REMOTE_WINDOW + 10);
+    channel.write(ByteBuffer.wrap(data));
+
+    assertThat(channel.blockedFrame()).isEmpty();
+    assertThat(channel.nextFrame(Integer.MAX_VALUE).get().data())
+        .hasSize(StreamDataOutputChannel.DEFAULT_REMOTE_WINDOW);
+    assertThat(channel.nextFrame(Integer.MAX_VALUE)).isEmpty();
+
+    final StreamDataBlockedFrame blockedFrame = channel.blockedFrame().get();
+    assertThat(blockedFrame.maxOffset()).isEqualTo(UnsignedLong.valueOf(data.length));
+
+    channel.updateRemoteMaxOffset(UnsignedLong.valueOf(5));
+    assertThat(channel.nextFrame(Integer.MAX_VALUE)).isEmpty();
+
+    channel.updateRemoteMaxOffset(UnsignedLong.MAX_VALUE);
+    assertThat(channel.nextFrame(Integer.MAX_VALUE).get().data()).hasSize(10);
+    assertThat(channel.blockedFrame()).isEmpty();
+  }
+
+  @Test(expected = ClosedChannelException.class)
+  public void writeToClosedChannel() throws Exception {
+    channel.close();
+    assertThat(channel.isOpen()).isFalse();
+    channel.write(ByteBuffer.wrap(bytes(0, 1)));
+  }
+
+  @Test
+  public void closedChannelStillSendsWrittenBytes() throws Exception {
+    channel.write(ByteBuffer.wrap(bytes(0, 10)));
+    channel.close();
+
+    assertThat(channel.nextFrame(100).get().data()).isEqualTo(bytes(0, 10));
+  }
+
+  private static byte[] bytes(final int from, final int length) {
+    final byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = (byte) (from + i);
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,161 @@
+package org.interledger.stream.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import org.interledger.core.SharedSecret;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Unit tests for {@link CachingStreamEncryptionService}, using the same test values as
+ * {@link JavaxStreamEncryptionServiceTest}.
+ */
+public class CachingStreamEncryptionServiceTest {
+
+  private static final SharedSecret SHARED_SECRET = SharedSecret.of(new byte[] {
+      (byte) 126, (byte) 219, (byte) 117, (byte) 93, (byte) 118, (byte) 248, (byte) 249, (byte) 211, (byte) 20,
+      (byte) 211, (byte) 65, 110, (byte) 237, (byte) 80, (byte) 253, (byte) 179, (byte) 81, (byte) 146, (byte) 229,
+      (byte) 67, (byte) 231, (byte) 49, (byte) 92, (byte) 127, (byte) 254, (byte) 230, (byte) 144, (byte) 102,
+      (byte) 103, (byte) 166, (byte) 150, (byte) 36
+  });
+
+  private static final byte[] PLAINTEXT = new byte[] {99, 0, 12, (byte) 255, 77, 31};
+
+  private static final byte[] CIPHERTEXT = new byte[] {
+      (byte) 119, (byte) 248, (byte) 213, (byte) 234, (byte) 63, (byte) 200, (byte) 224, (byte) 140, (byte) 212,
+      (byte) 222, (byte) 105, (byte) 159, (byte) 246, (byte) 203, (byte) 66, (byte) 155, (byte) 151, (byte) 172,
+      (byte) 68, (byte) 24, (byte) 76, (byte) 232, (byte) 90, (byte) 10, (byte) 237, (byte) 146, (byte) 189, (byte) 73,
+      (byte) 248, (byte) 196, (byte) 177, (byte) 108, (byte) 115, (byte) 223
+  };
+
+  private static final byte[] NONCE_IV = new byte[] {(byte) 119, (byte) 248, (byte) 213, (byte) 234, (byte) 63,
+      (byte) 200, (byte) 224, (byte) 140, (byte) 212, (byte) 222, (byte) 105, (byte) 159};
+
+  private static final SharedSecret OTHER_SHARED_SECRET = SharedSecret.of(new byte[32]);
+
+  private CachingStreamEncryptionService streamEncryptionService;
+
+  @Before
+  public void setUp() {
+    this.streamEncryptionService = new CachingStreamEncryptionService();
+  }
+
+  @Test
+  public void testEncryptToSameRustJs() {
+    byte[] encryptedValue = streamEncryptionService.encryptWithIv(SHARED_SECRET, PLAINTEXT, NONCE_IV.clone());
+    assertThat(encryptedValue).isEqualTo(CIPHERTEXT);
+  }
+
+  @Test
+  public void testDecryptToSameAsRustJs() {
+    byte[] decryptedValue = streamEncryptionService.decrypt(SHARED_SECRET, CIPHERTEXT);
+    assertThat(decryptedValue).isEqualTo(PLAINTEXT);
+  }
+
+  @Test
+  public void encryptTwiceWithSameIv() {
+    assertThat(streamEncryptionService.encryptWithIv(SHARED_SECRET, PLAINTEXT, NONCE_IV.clone()))
+        .isEqualTo(CIPHERTEXT);
+    assertThat(streamEncryptionService.encryptWithIv(SHARED_SECRET, PLAINTEXT, NONCE_IV.clone()))
+        .isEqualTo(CIPHERTEXT);
+  }
+
+  @Test
+  public void matchesJavaxStreamEncryptionService() {
+    final JavaxStreamEncryptionService javaxStreamEncryptionService = new JavaxStreamEncryptionService();
+    for (int length : new int[] {0, 1, 15, 16, 17, 1000, 5000}) {
+      final byte[] plainText = new byte[length];
+      Arrays.fill(plainText, (byte) length);
+      for (SharedSecret sharedSecret : new SharedSecret[] {SHARED_SECRET, OTHER_SHARED_SECRET}) {
+        final byte[] iv = Random.randBytes(12);
+        final byte[] cipherMessage = streamEncryptionService.encryptWithIv(sharedSecret, plainText, iv.clone());
+
+        assertThat(cipherMessage)
+            .isEqualTo(javaxStreamEncryptionService.encryptWithIv(sharedSecret, plainText, iv.clone()));
+        assertThat(javaxStreamEncryptionService.decrypt(sharedSecret, cipherMessage)).isEqualTo(plainText);
+        assertThat(streamEncryptionService.decrypt(sharedSecret, cipherMessage)).isEqualTo(plainText);
+      }
+    }
+  }
+
+  @Test
+  public void encryptsRangeOfLargerArray() {
+    final JavaxStreamEncryptionService javaxStreamEncryptionService = new JavaxStreamEncryptionService();
+    // 5000 bytes is more than the initial scratch buffer holds.
+    for (int length : new int[] {0, PLAINTEXT.length, 5000}) {
+      final byte[] plainText = Arrays.copyOf(PLAINTEXT, length);
+      final byte[] buffer = new byte[length + 10];
+      Arrays.fill(buffer, (byte) 0xFF);
+      System.arraycopy(plainText, 0, buffer, 3, length);
+
+      final byte[] cipherMessage = streamEncryptionService.encrypt(SHARED_SECRET, buffer, 3, length);
+      assertThat(cipherMessage).hasSize(12 + 16 + length);
+      assertThat(javaxStreamEncryptionService.decrypt(SHARED_SECRET, cipherMessage)).isEqualTo(plainText);
+
+      final byte[] javaxCipherMessage = javaxStreamEncryptionService.encrypt(SHARED_SECRET, buffer, 3, length);
+      assertThat(streamEncryptionService.decrypt(SHARED_SECRET, javaxCipherMessage)).isEqualTo(plainText);
+    }
+  }
+
+  @Test
+  public void encryptRangeOutsideOfArrayThrows() {
+    assertThat(catchThrowable(() -> streamEncryptionService.encrypt(SHARED_SECRET, PLAINTEXT, 1, PLAINTEXT.length)))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+    assertThat(catchThrowable(() -> streamEncryptionService.encrypt(SHARED_SECRET, PLAINTEXT, 1, Integer.MAX_VALUE)))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  @Test
+  public void losslesslyEncryptAndDecrypts() {
+    byte[] cipherMessage = streamEncryptionService.encrypt(SHARED_SECRET, PLAINTEXT);
+    byte[] decryptedValue = streamEncryptionService.decrypt(SHARED_SECRET, cipherMessage);
+    assertThat(decryptedValue).isEqualTo(PLAINTEXT);
+  }
+
+  @Test
+  public void decryptWithWrongSharedSecretThrows() {
+    assertThat(catchThrowable(() -> streamEncryptionService.decrypt(OTHER_SHARED_SECRET, CIPHERTEXT)))
+        .isInstanceOf(EncryptionException.class);
+  }
+
+  @Test
+  public void decryptTamperedMessageThrows() {
+    for (int i = 0; i < CIPHERTEXT.length; i++) {
+      final byte[] tampered = CIPHERTEXT.clone();
+      tampered[i] ^= 1;
+      assertThat(catchThrowable(() -> streamEncryptionService.decrypt(SHARED_SECRET, tampered))).as("byte " + i)
+          .isInstanceOf(EncryptionException.class);
+    }
+    // A failed decryption must not leave the cipher of this thread unusable.
+    assertThat(streamEncryptionService.decrypt(SHARED_SECRET, CIPHERTEXT)).isEqualTo(PLAINTEXT);
+  }
+
+  @Test
+  public void decryptMessageThatIsTooShortThrows() {
+    assertThat(catchThrowable(() -> streamEncryptionService.decrypt(SHARED_SECRET, Arrays.copyOf(CIPHERTEXT, 27))))
+        .isInstanceOf(EncryptionException.class);
+  }
+
+  @Test
+  public void keysAreDerivedAgainAfterEviction() {
+    streamEncryptionService = new CachingStreamEncryptionService(1, Duration.ofMinutes(1));
+
+    assertThat(streamEncryptionService.decrypt(SHARED_SECRET, CIPHERTEXT)).isEqualTo(PLAINTEXT);
+    final byte[] otherCipherMessage = streamEncryptionService.encrypt(OTHER_SHARED_SECRET, PLAINTEXT);
+    assertThat(streamEncryptionService.decrypt(SHARED_SECRET, CIPHERTEXT)).isEqualTo(PLAINTEXT);
+    assertThat(streamEncryptionService.decrypt(OTHER_SHARED_SECRET, otherCipherMessage)).isEqualTo(PLAINTEXT);
+  }
+
+  @Test
+  public void equalSharedSecretsShareAKey() {
+    final SharedSecret sameSharedSecret = SharedSecret.of(SHARED_SECRET.value());
+
+    assertThat(streamEncryptionService.decrypt(sameSharedSecret, CIPHERTEXT)).isEqualTo(PLAINTEXT);
+    assertThat(streamEncryptionService.decrypt(SHARED_SECRET, CIPHERTEXT)).isEqualTo(PLAINTEXT);
+  }
+}
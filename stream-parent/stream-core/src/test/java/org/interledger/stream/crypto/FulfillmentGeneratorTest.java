@@ -0,0 +1,106 @@
+package org.interledger.stream.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.interledger.core.InterledgerFulfillment;
+import org.interledger.core.SharedSecret;
+import org.interledger.stream.StreamUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Unit tests for {@link FulfillmentGenerator}, using the same test values as {@code StreamUtilsTest}.
+ */
+public class FulfillmentGeneratorTest {
+
+  private static final SharedSecret SHARED_SECRET = SharedSecret.of(new byte[] {
+      (byte) 126, (byte) 219, (byte) 117, (byte) 93, (byte) 118, (byte) 248, (byte) 249, (byte) 211, (byte) 20,
+      (byte) 211, (byte) 65, (byte) 110, (byte) 237, (byte) 80, (byte) 253, (byte) 179, (byte) 81, (byte) 146,
+      (byte) 229, (byte) 67, (byte) 231, (byte) 49, (byte) 92, (byte) 127, (byte) 254, (byte) 230, (byte) 144,
+      (byte) 102, (byte) 103, (byte) 166, (byte) 150, (byte) 36
+  });
+
+  private static final byte[] DATA = new byte[] {
+      (byte) 119, (byte) 248, (byte) 213, (byte) 234, (byte) 63, (byte) 200, (byte) 224, (byte) 140, (byte) 212,
+      (byte) 222, (byte) 105, (byte) 159, (byte) 246, (byte) 203, (byte) 66, (byte) 155, (byte) 151, (byte) 172,
+      (byte) 68, (byte) 24, (byte) 76, (byte) 232, (byte) 90, (byte) 10, (byte) 237, (byte) 146, (byte) 189, (byte) 73,
+      (byte) 248, (byte) 196, (byte) 177, (byte) 108, (byte) 115, (byte) 223
+  };
+
+  private static final byte[] FULFILLMENT = new byte[] {
+      (byte) 24, (byte) 6, (byte) 56, (byte) 73, (byte) 229, (byte) 236, (byte) 88, (byte) 227, (byte) 82, (byte) 112,
+      (byte) 152, (byte) 49, (byte) 152, (byte) 73, (byte) 182, (byte) 183, (byte) 198, (byte) 7, (byte) 233,
+      (byte) 124, (byte) 119, (byte) 65, (byte) 13, (byte) 68, (byte) 54, (byte) 108, (byte) 120, (byte) 193, (byte) 59,
+      (byte) 226, (byte) 107, (byte) 39
+  };
+
+  private static final SharedSecret OTHER_SHARED_SECRET = SharedSecret.of(new byte[32]);
+
+  private FulfillmentGenerator fulfillmentGenerator;
+
+  @Before
+  public void setUp() {
+    this.fulfillmentGenerator = new FulfillmentGenerator();
+  }
+
+  @Test
+  public void generateFulfillmentToSameAsRustJs() {
+    final InterledgerFulfillment fulfillment = fulfillmentGenerator.generateFulfillment(SHARED_SECRET, DATA);
+
+    assertThat(fulfillment.getPreimage()).isEqualTo(FULFILLMENT);
+    assertThat(fulfillment.getCondition()).isEqualTo(InterledgerFulfillment.of(FULFILLMENT).getCondition());
+  }
+
+  @Test
+  public void generateFulfillmentTwice() {
+    assertThat(fulfillmentGenerator.generateFulfillment(SHARED_SECRET, DATA).getPreimage()).isEqualTo(FULFILLMENT);
+    assertThat(fulfillmentGenerator.generateFulfillment(SHARED_SECRET, DATA).getPreimage()).isEqualTo(FULFILLMENT);
+  }
+
+  @Test
+  public void matchesStreamUtils() {
+    for (int length : new int[] {0, 1, 32, 63, 64, 65, 1000}) {
+      final byte[] data = Random.randBytes(length);
+      for (SharedSecret sharedSecret : new SharedSecret[] {SHARED_SECRET, OTHER_SHARED_SECRET}) {
+        assertThat(fulfillmentGenerator.generateFulfillment(sharedSecret, data))
+            .isEqualTo(StreamUtils.generatedFulfillableFulfillment(sharedSecret, data));
+      }
+    }
+  }
+
+  @Test
+  public void keysAreDerivedAgainAfterEviction() {
+    this.fulfillmentGenerator = new FulfillmentGenerator(1, Duration.ofMinutes(1));
+
+    assertThat(fulfillmentGenerator.generateFulfillment(SHARED_SECRET, DATA).getPreimage()).isEqualTo(FULFILLMENT);
+    assertThat(fulfillmentGenerator.generateFulfillment(OTHER_SHARED_SECRET, DATA))
+        .isEqualTo(StreamUtils.generatedFulfillableFulfillment(OTHER_SHARED_SECRET, DATA));
+    assertThat(fulfillmentGenerator.generateFulfillment(SHARED_SECRET, DATA).getPreimage()).isEqualTo(FULFILLMENT);
+  }
+
+  @Test
+  public void generateFulfillmentOnManyThreads() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<byte[]>> preimages = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        preimages.add(executor.submit(
+            () -> fulfillmentGenerator.generateFulfillment(SHARED_SECRET, DATA).getPreimage()
+        ));
+      }
+      for (Future<byte[]> preimage : preimages) {
+        assertThat(preimage.get()).isEqualTo(FULFILLMENT);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package org.interledger.stream.receiver;
+
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.SharedSecret;
+import org.interledger.spsp.StreamConnectionDetails;
+import org.interledger.stream.StreamException;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A {@link StreamConnectionGenerator} that remembers the shared secrets that another generator derived from
+ * receiver addresses.</p>
+ *
+ * <p>Every packet of a STREAM payment is sent to the same destination address, and deriving the shared secret from it
+ * takes three HMACs. This implementation derives it once per address and server secret supplier, and keeps it in a
+ * cache that is bounded in size. Only addresses that pass the auth tag check of the delegate are cached, and each
+ * entry expires a fixed time after it was derived, so that a rotated server secret is picked up.</p>
+ *
+ * <p>Connection details are generated by the delegate on every call, because they are unique on every call.</p>
+ */
+public class CachingStreamConnectionGenerator implements StreamConnectionGenerator {
+
+  @VisibleForTesting
+  static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+  @VisibleForTesting
+  static final Duration DEFAULT_EXPIRE_AFTER_WRITE = Duration.ofMinutes(5);
+
+  private final StreamConnectionGenerator delegate;
+  private final Cache<SharedSecretKey, SharedSecret> sharedSecrets;
+
+  /**
+   * Required-args Constructor. Caches the shared secrets of up to {@link #DEFAULT_MAXIMUM_SIZE} addresses, each for
+   * {@link #DEFAULT_EXPIRE_AFTER_WRITE}.
+   *
+   * @param delegate The {@link StreamConnectionGenerator} that generates connection details and derives shared
+   *                 secrets.
+   */
+  public CachingStreamConnectionGenerator(final StreamConnectionGenerator delegate) {
+    this(delegate, DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_WRITE);
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param delegate         The {@link StreamConnectionGenerator} that generates connection details and derives shared
+   *                         secrets.
+   * @param maximumSize      The maximum number of receiver addresses to cache a shared secret for.
+   * @param expireAfterWrite How long to keep a shared secret after it was derived.
+   */
+  public CachingStreamConnectionGenerator(
+      final StreamConnectionGenerator delegate, final long maximumSize, final Duration expireAfterWrite
+  ) {
+    this.delegate = Objects.requireNonNull(delegate, "delegate must not be null");
+    Objects.requireNonNull(expireAfterWrite, "expireAfterWrite must not be null");
+    this.sharedSecrets = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWrite.toMillis(), TimeUnit.MILLISECONDS)
+        .recordStats()
+        .build();
+  }
+
+  @Override
+  public StreamConnectionDetails generateConnectionDetails(
+      final ServerSecretSupplier serverSecretSupplier, final InterledgerAddress receiverAddress
+  ) throws StreamException {
+    return delegate.generateConnectionDetails(serverSecretSupplier, receiverAddress);
+  }
+
+  @Override
+  public SharedSecret deriveSecretFromAddress(
+      final ServerSecretSupplier serverSecretSupplier, final InterledgerAddress receiverAddress
+  ) throws StreamException {
+    Objects.requireNonNull(serverSecretSupplier, "serverSecretSupplier must not be null");
+    Objects.requireNonNull(receiverAddress, "receiverAddress must not be null");
+
+    final SharedSecretKey key = new SharedSecretKey(serverSecretSupplier, receiverAddress);
+    final SharedSecret cachedSharedSecret = sharedSecrets.getIfPresent(key);
+    if (cachedSharedSecret != null) {
+      return cachedSharedSecret;
+    }
+
+    // Will throw if the address is invalid, in which case nothing is cached.
+    final SharedSecret sharedSecret = delegate.deriveSecretFromAddress(serverSecretSupplier, receiverAddress);
+    sharedSecrets.put(key, sharedSecret);
+    return sharedSecret;
+  }
+
+  /**
+   * The hit and miss counts of the shared secret cache. Addresses that fail validation count as misses.
+   *
+   * @return A {@link CacheStats} snapshot.
+   */
+  public CacheStats stats() {
+    return sharedSecrets.stats();
+  }
+
+  /**
+   * The cache key for a receiver address. Different server secrets derive different shared secrets from the same
+   * address, so the key also holds the supplier of the server secret.
+   */
+  private static final class SharedSecretKey {
+
+    private final ServerSecretSupplier serverSecretSupplier;
+    private final InterledgerAddress receiverAddress;
+
+    private SharedSecretKey(final ServerSecretSupplier serverSecretSupplier, final InterledgerAddress receiverAddress) {
+      this.serverSecretSupplier = serverSecretSupplier;
+      this.receiverAddress = receiverAddress;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof SharedSecretKey)) {
+        return false;
+      }
+      final SharedSecretKey other = (SharedSecretKey) obj;
+      return serverSecretSupplier == other.serverSecretSupplier && receiverAddress.equals(other.receiverAddress);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(serverSecretSupplier) + receiverAddress.hashCode();
+    }
+  }
+}
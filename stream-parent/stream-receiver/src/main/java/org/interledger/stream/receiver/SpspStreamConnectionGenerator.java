@@ -8,10 +8,12 @@ import org.interledger.stream.StreamException;
 import org.interledger.stream.crypto.Random;
 
 import com.google.common.base.Preconditions;
+import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hashing;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Objects;
@@ -26,6 +28,12 @@ public class SpspStreamConnectionGenerator implements StreamConnectionGenerator
   private static final Charset US_ASCII = StandardCharsets.US_ASCII;
   private static final byte[] STREAM_SERVER_SECRET_GENERATOR = "ilp_stream_secret_generator".getBytes(US_ASCII);
 
+  /**
+   * The generator of the server secret that was used last. Every packet sent to this receiver derives its shared
+   * secret from the same server secret, so the generator is only computed again when the server secret changes.
+   */
+  private volatile SecretGenerator secretGenerator;
+
   @Override
   public StreamConnectionDetails generateConnectionDetails(
       final ServerSecretSupplier serverSecretSupplier, final InterledgerAddress receiverAddress
@@ -38,8 +46,7 @@ public class SpspStreamConnectionGenerator implements StreamConnectionGenerator
     final Builder streamConnectionDetailsBuilder = StreamConnectionDetails.builder();
 
     final byte[] randomBytes = Random.randBytes(18);
-    final byte[] sharedSecret = Hashing
-        .hmacSha256(secretGenerator(serverSecretSupplier))
+    final byte[] sharedSecret = secretGenerator(serverSecretSupplier)
         .hashBytes(randomBytes)
         .asBytes();
 
@@ -81,8 +88,7 @@ public class SpspStreamConnectionGenerator implements StreamConnectionGenerator
 
     // Bytes 0 through 17
     final byte[] randomBytes = Arrays.copyOf(localPartBytes, 18);
-    final byte[] sharedSecret = Hashing.hmacSha256(secretGenerator(serverSecretSupplier)).hashBytes(randomBytes)
-        .asBytes();
+    final byte[] sharedSecret = secretGenerator(serverSecretSupplier).hashBytes(randomBytes).asBytes();
     // Bytes 18 through 31
     final byte[] authTag = Arrays.copyOfRange(localPartBytes, 18, localPartBytes.length);
 
@@ -92,7 +98,7 @@ public class SpspStreamConnectionGenerator implements StreamConnectionGenerator
         .hashBytes(addressWithoutBytes.getBytes(US_ASCII)).asBytes();
     derivedAuthTag = Arrays.copyOf(derivedAuthTag, 14);
 
-    if (!Arrays.equals(derivedAuthTag, authTag)) {
+    if (!MessageDigest.isEqual(derivedAuthTag, authTag)) {
       throw new StreamException("Invalid Receiver Address (derived AuthTag failure)!");
     }
 
@@ -105,10 +111,37 @@ public class SpspStreamConnectionGenerator implements StreamConnectionGenerator
    * @param serverSecretSupplier A {@link Supplier} for this node's main secret, which is the root seed for all derived
    *                             secrets provided by this node.
    *
-   * @return A secret derived from a primary secret.
+   * @return A {@link HashFunction} that computes the HmacSha256 of its input, keyed with a secret derived from a
+   *     primary secret.
    */
-  private byte[] secretGenerator(final ServerSecretSupplier serverSecretSupplier) {
+  private HashFunction secretGenerator(final ServerSecretSupplier serverSecretSupplier) {
     Objects.requireNonNull(serverSecretSupplier);
-    return Hashing.hmacSha256(serverSecretSupplier.get()).hashBytes(STREAM_SERVER_SECRET_GENERATOR).asBytes();
+    final byte[] serverSecret = serverSecretSupplier.get();
+
+    final SecretGenerator lastSecretGenerator = this.secretGenerator;
+    if (lastSecretGenerator != null && MessageDigest.isEqual(lastSecretGenerator.serverSecret, serverSecret)) {
+      return lastSecretGenerator.hmac;
+    }
+
+    final byte[] generatorKey = Hashing.hmacSha256(serverSecret).hashBytes(STREAM_SERVER_SECRET_GENERATOR).asBytes();
+    final SecretGenerator newSecretGenerator =
+        new SecretGenerator(serverSecret.clone(), Hashing.hmacSha256(generatorKey));
+    Arrays.fill(generatorKey, (byte) 0);
+    this.secretGenerator = newSecretGenerator;
+    return newSecretGenerator.hmac;
+  }
+
+  /**
+   * A server secret, and the HmacSha256 function keyed with the secret that was derived from it.
+   */
+  private static final class SecretGenerator {
+
+    private final byte[] serverSecret;
+    private final HashFunction hmac;
+
+    private SecretGenerator(final byte[] serverSecret, final HashFunction hmac) {
+      this.serverSecret = serverSecret;
+      this.hmac = hmac;
+    }
   }
 }
@@ -0,0 +1,655 @@
+package org.interledger.stream.receiver;
+
+import static org.interledger.stream.FluentCompareTo.is;
+
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerErrorCode;
+import org.interledger.core.InterledgerFulfillPacket;
+import org.interledger.core.InterledgerFulfillment;
+import org.interledger.core.InterledgerPacketType;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.core.InterledgerResponsePacket;
+import org.interledger.core.SharedSecret;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.spsp.StreamConnectionDetails;
+import org.interledger.stream.Denomination;
+import org.interledger.stream.StreamDataInputChannel;
+import org.interledger.stream.StreamException;
+import org.interledger.stream.StreamPacket;
+import org.interledger.stream.crypto.FulfillmentGenerator;
+import org.interledger.stream.crypto.StreamEncryptionService;
+import org.interledger.stream.frames.ConnectionAssetDetailsFrame;
+import org.interledger.stream.frames.ConnectionCloseFrame;
+import org.interledger.stream.frames.ErrorCodes;
+import org.interledger.stream.frames.StreamDataBlockedFrame;
+import org.interledger.stream.frames.StreamDataFrame;
+import org.interledger.stream.frames.StreamDataMaxFrame;
+import org.interledger.stream.frames.StreamFrame;
+import org.interledger.stream.frames.StreamFrameType;
+import org.interledger.stream.frames.StreamMoneyFrame;
+import org.interledger.stream.frames.StreamMoneyMaxFrame;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableList.Builder;
+import com.google.common.primitives.UnsignedLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * <p>An implementation of {@link StreamReceiver} that keeps the state of every STREAM connection, so that it can report
+ * how much each stream has received, limit how much a connection may receive, and reject a Prepare packet whose
+ * sequence it has already fulfilled.</p>
+ *
+ * <p>Connections are kept in a table that is keyed by the shared secret derived from the destination address of their
+ * packets, and that is bounded in size. A connection that has not received a packet for {@link
+ * #DEFAULT_EXPIRE_AFTER_ACCESS} (by default) is evicted, as is the least recently used connection when the table is
+ * full. A packet for an evicted connection opens a new connection without a receive limit, so the maximum size should
+ * be larger than the number of connections that are expected to be live at the same time. Each connection keeps a few
+ * primitive fields plus the id and total of each of its streams, so that a hundred thousand connections fit in a few
+ * tens of megabytes.</p>
+ *
+ * <p>A connection that was set up with {@link #setupStream(InterledgerAddress, UnsignedLong)} can receive at most the
+ * given amount, and is closed with a {@link ConnectionCloseFrame} once it has received exactly that amount. Any packet
+ * on a closed connection is rejected. Connections that were set up with {@link #setupStream(InterledgerAddress)}, or
+ * that were not set up by this instance, have no limit.</p>
+ *
+ * <p>Sequences are checked against the 64 sequences up to the highest fulfilled sequence of the connection. A sequence
+ * below that window is treated as already fulfilled.</p>
+ *
+ * <p>The data of the {@code StreamData} frames of fulfilled packets is put back in order by a {@link
+ * StreamDataInputChannel} for each stream, which an application reads from {@link #getDataInputChannel(SharedSecret,
+ * UnsignedLong)}. A packet with data beyond the window of its stream is rejected, and every response to a packet with
+ * data reports the window in a {@code StreamDataMax} frame. Unread data is dropped when its connection is
+ * evicted.</p>
+ */
+public class StatefulStreamReceiver implements StreamReceiver {
+
+  @VisibleForTesting
+  static final int DEFAULT_MAXIMUM_SIZE = 100_000;
+
+  @VisibleForTesting
+  static final Duration DEFAULT_EXPIRE_AFTER_ACCESS = Duration.ofMinutes(30);
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+  private final ServerSecretSupplier serverSecretSupplier;
+  private final StreamConnectionGenerator streamConnectionGenerator;
+  private final StreamEncryptionService streamEncryptionService;
+  private final CodecContext streamCodecContext;
+  private final FulfillmentGenerator fulfillmentGenerator;
+  private final Cache<ConnectionKey, ConnectionState> connections;
+
+  /**
+   * Required-args Constructor. Keeps up to {@link #DEFAULT_MAXIMUM_SIZE} connections, each until it has not received a
+   * packet for {@link #DEFAULT_EXPIRE_AFTER_ACCESS}.
+   *
+   * @param serverSecretSupplier      A {@link ServerSecretSupplier} for the secret that shared secrets are derived
+   *                                  from.
+   * @param streamConnectionGenerator A {@link StreamConnectionGenerator} that derives the shared secret of a packet
+   *                                  from its destination address.
+   * @param streamEncryptionService   A {@link StreamEncryptionService} used to decrypt incoming and encrypt outgoing
+   *                                  STREAM packets.
+   * @param streamCodecContext        A {@link CodecContext} that can encode and decode ASN.1 OER STREAM packets.
+   */
+  public StatefulStreamReceiver(
+      final ServerSecretSupplier serverSecretSupplier, final StreamConnectionGenerator streamConnectionGenerator,
+      final StreamEncryptionService streamEncryptionService, final CodecContext streamCodecContext
+  ) {
+    this(
+        serverSecretSupplier, streamConnectionGenerator, streamEncryptionService, streamCodecContext,
+        new FulfillmentGenerator(), DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_ACCESS
+    );
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param serverSecretSupplier      A {@link ServerSecretSupplier} for the secret that shared secrets are derived
+   *                                  from.
+   * @param streamConnectionGenerator A {@link StreamConnectionGenerator} that derives the shared secret of a packet
+   *                                  from its destination address.
+   * @param streamEncryptionService   A {@link StreamEncryptionService} used to decrypt incoming and encrypt outgoing
+   *                                  STREAM packets.
+   * @param streamCodecContext        A {@link CodecContext} that can encode and decode ASN.1 OER STREAM packets.
+   * @param fulfillmentGenerator      A {@link FulfillmentGenerator} used to generate the fulfillment of each packet.
+   * @param maximumSize               The maximum number of connections to keep.
+   * @param expireAfterAccess         How long to keep a connection after it last received a packet.
+   */
+  public StatefulStreamReceiver(
+      final ServerSecretSupplier serverSecretSupplier, final StreamConnectionGenerator streamConnectionGenerator,
+      final StreamEncryptionService streamEncryptionService, final CodecContext streamCodecContext,
+      final FulfillmentGenerator fulfillmentGenerator, final long maximumSize, final Duration expireAfterAccess
+  ) {
+    this(
+        serverSecretSupplier, streamConnectionGenerator, streamEncryptionService, streamCodecContext,
+        fulfillmentGenerator, maximumSize, expireAfterAccess, Ticker.systemTicker()
+    );
+  }
+
+  @VisibleForTesting
+  StatefulStreamReceiver(
+      final ServerSecretSupplier serverSecretSupplier, final StreamConnectionGenerator streamConnectionGenerator,
+      final StreamEncryptionService streamEncryptionService, final CodecContext streamCodecContext,
+      final FulfillmentGenerator fulfillmentGenerator, final long maximumSize, final Duration expireAfterAccess,
+      final Ticker ticker
+  ) {
+    this.serverSecretSupplier = Objects.requireNonNull(serverSecretSupplier, "serverSecretSupplier must not be null");
+    this.streamConnectionGenerator = Objects
+        .requireNonNull(streamConnectionGenerator, "connectionGenerator must not be null");
+    this.streamEncryptionService = Objects
+        .requireNonNull(streamEncryptionService, "streamEncryptionService must not be null");
+    this.streamCodecContext = Objects.requireNonNull(streamCodecContext, "streamCodecContext must not be null");
+    this.fulfillmentGenerator = Objects.requireNonNull(fulfillmentGenerator, "fulfillmentGenerator must not be null");
+    Objects.requireNonNull(expireAfterAccess, "expireAfterAccess must not be null");
+    Objects.requireNonNull(ticker, "ticker must not be null");
+    this.connections = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterAccess(expireAfterAccess.toMillis(), TimeUnit.MILLISECONDS)
+        .ticker(ticker)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Setup a stream without a receive limit.
+   *
+   * @param receiverAddress The {@link InterledgerAddress} of the receiver.
+   *
+   * @return A {@link StreamConnectionDetails} that is uniquely generated on every request.
+   */
+  @Override
+  public StreamConnectionDetails setupStream(final InterledgerAddress receiverAddress) {
+    return setupStream(receiverAddress, UnsignedLong.MAX_VALUE);
+  }
+
+  /**
+   * Setup a stream that can receive at most {@code receiveMax}, for example the amount of an invoice. The connection is
+   * closed once it has received exactly that amount.
+   *
+   * @param receiverAddress The {@link InterledgerAddress} of the receiver.
+   * @param receiveMax      The {@link UnsignedLong} amount that the connection can receive, in the units of the
+   *                        receiver. {@link UnsignedLong#MAX_VALUE} means that there is no limit.
+   *
+   * @return A {@link StreamConnectionDetails} that is uniquely generated on every request.
+   */
+  public StreamConnectionDetails setupStream(final InterledgerAddress receiverAddress, final UnsignedLong receiveMax) {
+    Objects.requireNonNull(receiverAddress);
+    Objects.requireNonNull(receiveMax);
+    final StreamConnectionDetails connectionDetails =
+        streamConnectionGenerator.generateConnectionDetails(serverSecretSupplier, receiverAddress);
+    connections.put(ConnectionKey.of(connectionDetails.sharedSecret()), new ConnectionState(receiveMax.longValue()));
+    return connectionDetails;
+  }
+
+  @Override
+  public InterledgerResponsePacket receiveMoney(
+      final InterledgerPreparePacket preparePacket, final InterledgerAddress receiverAddress,
+      final Denomination denomination
+  ) {
+    Objects.requireNonNull(preparePacket);
+    Objects.requireNonNull(receiverAddress);
+
+    // Will throw if there's an error...
+    final SharedSecret streamSharedSecret = this.streamConnectionGenerator
+        .deriveSecretFromAddress(serverSecretSupplier, preparePacket.getDestination());
+
+    // Try to parse the STREAM data from the payload.
+    final byte[] streamPacketBytes = streamEncryptionService.decrypt(streamSharedSecret, preparePacket.getData());
+    final StreamPacket streamPacket;
+    try {
+      streamPacket = streamCodecContext.read(StreamPacket.class, new ByteArrayInputStream(streamPacketBytes));
+    } catch (IOException e) {
+      logger.error(
+          "Unable to decrypt packet. preparePacket={} receiverAddress={} error={}",
+          preparePacket, receiverAddress, e
+      );
+      return InterledgerRejectPacket.builder()
+          .code(InterledgerErrorCode.F06_UNEXPECTED_PAYMENT)
+          .message("Could not decrypt data")
+          .triggeredBy(receiverAddress)
+          .build();
+    }
+
+    // Generate fulfillment using the shared secret that was pre-negotiated with the sender.
+    final InterledgerFulfillment fulfillment = fulfillmentGenerator
+        .generateFulfillment(streamSharedSecret, preparePacket.getData());
+    final boolean isFulfillable = fulfillment.getCondition().equals(preparePacket.getExecutionCondition())
+        && is(preparePacket.getAmount()).greaterThanEqualTo(streamPacket.prepareAmount());
+
+    final Builder<StreamFrame> responseFrames = ImmutableList.builder();
+    final ConnectionState connection = openConnection(streamSharedSecret);
+    final Optional<String> rejectMessage;
+    synchronized (connection) {
+      rejectMessage = connection.receive(streamPacket, preparePacket.getAmount(), isFulfillable, responseFrames);
+    }
+    if (streamPacket.sequenceIsSafeForSingleSharedSecret()) {
+      streamPacket.frames().stream()
+          .filter(streamFrame -> streamFrame.streamFrameType() == StreamFrameType.ConnectionNewAddress)
+          .findFirst()
+          .map(streamFrame -> responseFrames.add(ConnectionAssetDetailsFrame.builder()
+              .sourceDenomination(denomination)
+              .build()));
+    }
+
+    // Return Fulfill or Reject Packet
+    if (!rejectMessage.isPresent()) {
+      final StreamPacket returnableStreamPacketResponse = StreamPacket.builder()
+          .sequence(streamPacket.sequence())
+          .interledgerPacketType(InterledgerPacketType.FULFILL)
+          .prepareAmount(preparePacket.getAmount())
+          .frames(responseFrames.build())
+          .build();
+
+      logger.debug(
+          "Fulfilling prepare packet. preparePacket={} fulfillment={} returnableStreamPacketResponse={}",
+          preparePacket, fulfillment, returnableStreamPacketResponse
+      );
+
+      return InterledgerFulfillPacket.builder()
+          .fulfillment(fulfillment)
+          .data(encrypt(streamSharedSecret, returnableStreamPacketResponse))
+          .build();
+    } else {
+      final StreamPacket returnableStreamPacketResponse = StreamPacket.builder()
+          .sequence(streamPacket.sequence())
+          .interledgerPacketType(InterledgerPacketType.REJECT)
+          .prepareAmount(preparePacket.getAmount())
+          .frames(responseFrames.build())
+          .build();
+
+      logger.debug(
+          "Rejecting Prepare and including encrypted stream packet. reason={} preparePacket={} "
+              + "returnableStreamPacketResponse={}",
+          rejectMessage.get(), preparePacket, returnableStreamPacketResponse
+      );
+
+      return InterledgerRejectPacket.builder()
+          .code(InterledgerErrorCode.F99_APPLICATION_ERROR)
+          .message(rejectMessage.get())
+          .triggeredBy(receiverAddress)
+          .data(encrypt(streamSharedSecret, returnableStreamPacketResponse))
+          .build();
+    }
+  }
+
+  /**
+   * The total amount that the connection of {@code sharedSecret} has received.
+   *
+   * @param sharedSecret The {@link SharedSecret} of a connection.
+   *
+   * @return The {@link UnsignedLong} amount that was received, or {@link Optional#empty()} if this receiver does not
+   *     keep the connection.
+   */
+  public Optional<UnsignedLong> getTotalReceived(final SharedSecret sharedSecret) {
+    Objects.requireNonNull(sharedSecret);
+    return Optional.ofNullable(connections.getIfPresent(ConnectionKey.of(sharedSecret)))
+        .map(connection -> {
+          synchronized (connection) {
+            return UnsignedLong.fromLongBits(connection.totalReceived);
+          }
+        });
+  }
+
+  /**
+   * The channel that the data of a stream of the connection of {@code sharedSecret} can be read from. The channel is
+   * opened on the first call, or on the first data of the stream.
+   *
+   * @param sharedSecret The {@link SharedSecret} of a connection.
+   * @param streamId     The {@link UnsignedLong} id of a stream of that connection.
+   *
+   * @return The {@link StreamDataInputChannel} of the stream, or {@link Optional#empty()} if this receiver does not
+   *     keep the connection.
+   */
+  public Optional<StreamDataInputChannel> getDataInputChannel(
+      final SharedSecret sharedSecret, final UnsignedLong streamId
+  ) {
+    Objects.requireNonNull(sharedSecret);
+    Objects.requireNonNull(streamId);
+    return Optional.ofNullable(connections.getIfPresent(ConnectionKey.of(sharedSecret)))
+        .map(connection -> {
+          synchronized (connection) {
+            return connection.dataInput(streamId);
+          }
+        });
+  }
+
+  /**
+   * The number of connections that this receiver currently keeps, including closed connections that have not been
+   * evicted yet.
+   *
+   * @return The number of live connections.
+   */
+  public long liveConnectionCount() {
+    connections.cleanUp();
+    return connections.size();
+  }
+
+  /**
+   * The hit, miss and eviction counts of the connection table. A miss opens a connection without a receive limit.
+   *
+   * @return A {@link CacheStats} snapshot.
+   */
+  public CacheStats stats() {
+    return connections.stats();
+  }
+
+  private ConnectionState openConnection(final SharedSecret sharedSecret) {
+    try {
+      return connections.get(ConnectionKey.of(sharedSecret), () -> new ConnectionState(ConnectionState.UNLIMITED));
+    } catch (ExecutionException e) {
+      // The constructor of ConnectionState throws no checked exceptions.
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private byte[] encrypt(final SharedSecret sharedSecret, final StreamPacket streamPacket) {
+    try {
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      streamCodecContext.write(streamPacket, baos);
+      return streamEncryptionService.encrypt(sharedSecret, baos.toByteArray());
+    } catch (IOException e) {
+      throw new StreamException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * The 32 bytes of a {@link SharedSecret}, which take less memory than the Base64 string and byte array that the
+   * shared secret keeps.
+   */
+  private static final class ConnectionKey {
+
+    private final long first;
+    private final long second;
+    private final long third;
+    private final long fourth;
+
+    private ConnectionKey(final long first, final long second, final long third, final long fourth) {
+      this.first = first;
+      this.second = second;
+      this.third = third;
+      this.fourth = fourth;
+    }
+
+    static ConnectionKey of(final SharedSecret sharedSecret) {
+      final ByteBuffer key = ByteBuffer.wrap(sharedSecret.key());
+      return new ConnectionKey(key.getLong(), key.getLong(), key.getLong(), key.getLong());
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      final ConnectionKey that = (ConnectionKey) obj;
+      return first == that.first && second == that.second && third == that.third && fourth == that.fourth;
+    }
+
+    @Override
+    public int hashCode() {
+      // The key is random, so any of its bits are a good hash.
+      return Long.hashCode(first);
+    }
+  }
+
+  /**
+   * The state of one connection. All amounts are unsigned, and all access must be synchronized on the instance.
+   */
+  private static final class ConnectionState {
+
+    /**
+     * The number of sequences below the highest fulfilled sequence that are checked for duplicates.
+     */
+    static final int SEQUENCE_WINDOW = Long.SIZE;
+
+    static final long UNLIMITED = UnsignedLong.MAX_VALUE.longValue();
+
+    private static final String CLOSED_MESSAGE = "STREAM connection is closed";
+
+    private final long receiveMax;
+    private long totalReceived;
+    private boolean closed;
+
+    private long highestSequence;
+    // Bit n is set if sequence (highestSequence - n) was fulfilled.
+    private long fulfilledSequences;
+
+    // The ids and totals of the streams that have received money, allocated on the first money.
+    private long[] streamIds;
+    private long[] streamTotals;
+    private int streamCount;
+
+    // The data of each stream by its id, allocated on the first data.
+    private Map<UnsignedLong, StreamDataInputChannel> dataInputs;
+
+    ConnectionState(final long receiveMax) {
+      this.receiveMax = receiveMax;
+    }
+
+    /**
+     * Account for one Prepare packet, and add the frames of the response.
+     *
+     * @return The message of the reject if the packet must be rejected, or {@link Optional#empty()} if it can be
+     *     fulfilled.
+     */
+    Optional<String> receive(
+        final StreamPacket streamPacket, final UnsignedLong amount, final boolean isFulfillable,
+        final Builder<StreamFrame> responseFrames
+    ) {
+      if (closed) {
+        responseFrames.add(ConnectionCloseFrame.builder()
+            .errorCode(ErrorCodes.NoError)
+            .errorMessage(CLOSED_MESSAGE)
+            .build());
+        return Optional.of(CLOSED_MESSAGE);
+      }
+      if (!streamPacket.sequenceIsSafeForSingleSharedSecret()) {
+        // If the sequence it too high, we should close the Connection.
+        closed = true;
+        responseFrames.add(ConnectionCloseFrame.builder()
+            .errorCode(ErrorCodes.ProtocolViolation)
+            .errorMessage("Sequence number was too high for safe encryption")
+            .build());
+        return Optional.of(CLOSED_MESSAGE);
+      }
+
+      final List<StreamMoneyFrame> moneyFrames = streamPacket.frames().stream()
+          .filter(streamFrame -> streamFrame.streamFrameType() == StreamFrameType.StreamMoney)
+          .map($ -> (StreamMoneyFrame) $)
+          .collect(Collectors.toList());
+      final List<StreamDataFrame> dataFrames = streamPacket.frames().stream()
+          .filter(streamFrame -> streamFrame.streamFrameType() == StreamFrameType.StreamData)
+          .map($ -> (StreamDataFrame) $)
+          .collect(Collectors.toList());
+      final long sequence = streamPacket.sequence().longValue();
+
+      final Optional<String> rejectMessage;
+      if (!isFulfillable) {
+        rejectMessage = Optional.of("STREAM packet not fulfillable (prepare amount < stream packet amount)");
+      } else if (isFulfilled(sequence)) {
+        rejectMessage = Optional.of("STREAM packet sequence was already fulfilled");
+      } else if (Long.compareUnsigned(amount.longValue(), remaining()) > 0) {
+        rejectMessage = Optional.of("STREAM packet amount exceeds the receive max of the connection");
+      } else if (!dataFrames.stream().allMatch(this::acceptsData)) {
+        rejectMessage = Optional.of("STREAM packet data exceeds the data max of the stream");
+      } else {
+        rejectMessage = Optional.empty();
+        markFulfilled(sequence);
+        credit(amount, moneyFrames);
+        dataFrames.forEach(dataFrame -> dataInput(dataFrame.streamId())
+            .receive(dataFrame.offset().longValue(), dataFrame.data()));
+      }
+
+      for (StreamMoneyFrame moneyFrame : moneyFrames) {
+        final long streamTotal = streamTotal(moneyFrame.streamId().longValue());
+        // What the stream has received plus what the connection can still receive, without overflowing.
+        final long streamReceiveMax =
+            receiveMax == UNLIMITED || Long.compareUnsigned(remaining(), UNLIMITED - streamTotal) > 0
+                ? UNLIMITED
+                : streamTotal + remaining();
+        responseFrames.add(StreamMoneyMaxFrame.builder()
+            .streamId(moneyFrame.streamId())
+            .totalReceived(UnsignedLong.fromLongBits(streamTotal))
+            .receiveMax(UnsignedLong.fromLongBits(streamReceiveMax))
+            .build());
+      }
+
+      // Report the window of every stream that the sender sent data on, or is blocked on.
+      final Set<UnsignedLong> dataStreamIds = new LinkedHashSet<>();
+      dataFrames.forEach(dataFrame -> dataStreamIds.add(dataFrame.streamId()));
+      streamPacket.frames().stream()
+          .filter(streamFrame -> streamFrame.streamFrameType() == StreamFrameType.StreamDataBlocked)
+          .forEach(streamFrame -> dataStreamIds.add(((StreamDataBlockedFrame) streamFrame).streamId()));
+      for (UnsignedLong streamId : dataStreamIds) {
+        responseFrames.add(StreamDataMaxFrame.builder()
+            .streamId(streamId)
+            .maxOffset(UnsignedLong.valueOf(dataMaxOffset(streamId)))
+            .build());
+      }
+
+      final boolean completed = receiveMax != UNLIMITED && totalReceived == receiveMax;
+      final boolean closedBySender = streamPacket.frames().stream()
+          .anyMatch(streamFrame -> streamFrame.streamFrameType() == StreamFrameType.ConnectionClose);
+      if (completed || closedBySender) {
+        closed = true;
+        if (completed) {
+          responseFrames.add(ConnectionCloseFrame.builder()
+              .errorCode(ErrorCodes.NoError)
+              .errorMessage("Connection received its receive max")
+              .build());
+        }
+      }
+      return rejectMessage;
+    }
+
+    StreamDataInputChannel dataInput(final UnsignedLong streamId) {
+      if (dataInputs == null) {
+        dataInputs = new HashMap<>();
+      }
+      return dataInputs.computeIfAbsent(streamId, StreamDataInputChannel::new);
+    }
+
+    private boolean acceptsData(final StreamDataFrame dataFrame) {
+      final StreamDataInputChannel dataInput = dataInputs == null ? null : dataInputs.get(dataFrame.streamId());
+      final long offset = dataFrame.offset().longValue();
+      // A stream without data yet accepts the default window, and is not opened for a packet that is rejected.
+      return dataInput != null
+          ? dataInput.accepts(offset, dataFrame.data().length)
+          : offset >= 0 && offset + dataFrame.data().length <= StreamDataInputChannel.DEFAULT_WINDOW_SIZE;
+    }
+
+    private long dataMaxOffset(final UnsignedLong streamId) {
+      final StreamDataInputChannel dataInput = dataInputs == null ? null : dataInputs.get(streamId);
+      return dataInput != null ? dataInput.maxOffset() : StreamDataInputChannel.DEFAULT_WINDOW_SIZE;
+    }
+
+    private long remaining() {
+      return receiveMax - totalReceived;
+    }
+
+    private boolean isFulfilled(final long sequence) {
+      if (sequence > highestSequence) {
+        return false;
+      }
+      final long distance = highestSequence - sequence;
+      return distance >= SEQUENCE_WINDOW || (fulfilledSequences & (1L << distance)) != 0;
+    }
+
+    private void markFulfilled(final long sequence) {
+      if (sequence > highestSequence) {
+        final long shift = sequence - highestSequence;
+        fulfilledSequences = shift >= SEQUENCE_WINDOW ? 1L : (fulfilledSequences << shift) | 1L;
+        highestSequence = sequence;
+      } else {
+        fulfilledSequences |= 1L << (highestSequence - sequence);
+      }
+    }
+
+    /**
+     * Split {@code amount} between the streams of {@code moneyFrames} by their shares. Each stream gets its share
+     * rounded down, and the remainder goes to the lowest-numbered stream.
+     */
+    private void credit(final UnsignedLong amount, final List<StreamMoneyFrame> moneyFrames) {
+      totalReceived += amount.longValue();
+
+      final BigInteger totalShares = moneyFrames.stream()
+          .map(moneyFrame -> moneyFrame.shares().bigIntegerValue())
+          .reduce(BigInteger.ZERO, BigInteger::add);
+      if (totalShares.signum() == 0) {
+        return;
+      }
+      if (moneyFrames.size() == 1) {
+        addToStream(moneyFrames.get(0).streamId().longValue(), amount.longValue());
+        return;
+      }
+
+      long remainder = amount.longValue();
+      long lowestStreamId = UNLIMITED;
+      for (StreamMoneyFrame moneyFrame : moneyFrames) {
+        final long streamAmount = amount.bigIntegerValue()
+            .multiply(moneyFrame.shares().bigIntegerValue())
+            .divide(totalShares)
+            .longValue();
+        addToStream(moneyFrame.streamId().longValue(), streamAmount);
+        remainder -= streamAmount;
+        if (Long.compareUnsigned(moneyFrame.streamId().longValue(), lowestStreamId) < 0) {
+          lowestStreamId = moneyFrame.streamId().longValue();
+        }
+      }
+      addToStream(lowestStreamId, remainder);
+    }
+
+    private void addToStream(final long streamId, final long amount) {
+      for (int i = 0; i < streamCount; i++) {
+        if (streamIds[i] == streamId) {
+          streamTotals[i] += amount;
+          return;
+        }
+      }
+      if (streamIds == null) {
+        streamIds = new long[1];
+        streamTotals = new long[1];
+      } else if (streamCount == streamIds.length) {
+        streamIds = Arrays.copyOf(streamIds, streamCount * 2);
+        streamTotals = Arrays.copyOf(streamTotals, streamCount * 2);
+      }
+      streamIds[streamCount] = streamId;
+      streamTotals[streamCount] = amount;
+      streamCount++;
+    }
+
+    private long streamTotal(final long streamId) {
+      for (int i = 0; i < streamCount; i++) {
+        if (streamIds[i] == streamId) {
+          return streamTotals[i];
+        }
+      }
+      return 0;
+    }
+  }
+}
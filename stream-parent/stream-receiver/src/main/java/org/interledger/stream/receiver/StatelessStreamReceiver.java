@@ -2,6 +2,8 @@ package org.interledger.stream.receiver;
 
 import static org.interledger.stream.FluentCompareTo.is;
 
+import org.interledger.codecs.stream.StreamFrameVisitor;
+import org.interledger.codecs.stream.StreamPacketReader;
 import org.interledger.core.InterledgerAddress;
 import org.interledger.core.InterledgerErrorCode;
 import org.interledger.core.InterledgerFulfillPacket;
@@ -14,9 +16,10 @@ import org.interledger.core.SharedSecret;
 import org.interledger.encoding.asn.framework.CodecContext;
 import org.interledger.spsp.StreamConnectionDetails;
 import org.interledger.stream.Denomination;
+import org.interledger.stream.StreamConnection;
 import org.interledger.stream.StreamException;
 import org.interledger.stream.StreamPacket;
-import org.interledger.stream.StreamUtils;
+import org.interledger.stream.crypto.FulfillmentGenerator;
 import org.interledger.stream.crypto.StreamEncryptionService;
 import org.interledger.stream.frames.ConnectionAssetDetailsFrame;
 import org.interledger.stream.frames.ConnectionCloseFrame;
@@ -32,10 +35,17 @@ import com.google.common.primitives.UnsignedLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 /**
  * <p>A stateless implementation of {@link StreamReceiver} that does **not** maintain STREAM state, but instead
@@ -52,15 +62,79 @@ import java.util.Objects;
  */
 public class StatelessStreamReceiver implements StreamReceiver {
 
+  private static final ConnectionCloseFrame SEQUENCE_TOO_HIGH = ConnectionCloseFrame.builder()
+      .errorCode(ErrorCodes.ProtocolViolation)
+      .errorMessage("Sequence number was to too high for safe encryption")
+      .build();
+
+  /**
+   * The number of packets from which {@link #receiveMoneyBatch(List, InterledgerAddress, Denomination, ForkJoinPool)}
+   * receives a batch in parallel.
+   */
+  static final int PARALLEL_BATCH_THRESHOLD = 64;
+
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
   private final ServerSecretSupplier serverSecretSupplier;
   private final StreamConnectionGenerator streamConnectionGenerator;
   private final StreamEncryptionService streamEncryptionService;
   private final CodecContext streamCodecContext;
+  private final StreamPacketReader streamPacketReader;
+  private final FulfillmentGenerator fulfillmentGenerator;
+  private final Optional<StreamResponseEncoder> streamResponseEncoder;
 
   public StatelessStreamReceiver(
       final ServerSecretSupplier serverSecretSupplier, final StreamConnectionGenerator streamConnectionGenerator,
       final StreamEncryptionService streamEncryptionService, final CodecContext streamCodecContext
+  ) {
+    this(
+        serverSecretSupplier, streamConnectionGenerator, streamEncryptionService, streamCodecContext,
+        new FulfillmentGenerator()
+    );
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param serverSecretSupplier      A {@link ServerSecretSupplier} for the secret that shared secrets are derived
+   *                                  from.
+   * @param streamConnectionGenerator A {@link StreamConnectionGenerator} that derives the shared secret of a packet
+   *                                  from its destination address.
+   * @param streamEncryptionService   A {@link StreamEncryptionService} used to decrypt incoming and encrypt outgoing
+   *                                  STREAM packets.
+   * @param streamCodecContext        A {@link CodecContext} that can encode and decode ASN.1 OER STREAM packets.
+   * @param fulfillmentGenerator      A {@link FulfillmentGenerator} used to generate the fulfillment of each packet.
+   */
+  public StatelessStreamReceiver(
+      final ServerSecretSupplier serverSecretSupplier, final StreamConnectionGenerator streamConnectionGenerator,
+      final StreamEncryptionService streamEncryptionService, final CodecContext streamCodecContext,
+      final FulfillmentGenerator fulfillmentGenerator
+  ) {
+    this(
+        serverSecretSupplier, streamConnectionGenerator, streamEncryptionService, streamCodecContext,
+        fulfillmentGenerator, false
+    );
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param serverSecretSupplier      A {@link ServerSecretSupplier} for the secret that shared secrets are derived
+   *                                  from.
+   * @param streamConnectionGenerator A {@link StreamConnectionGenerator} that derives the shared secret of a packet
+   *                                  from its destination address.
+   * @param streamEncryptionService   A {@link StreamEncryptionService} used to decrypt incoming and encrypt outgoing
+   *                                  STREAM packets.
+   * @param streamCodecContext        A {@link CodecContext} that can encode and decode ASN.1 OER STREAM packets.
+   * @param fulfillmentGenerator      A {@link FulfillmentGenerator} used to generate the fulfillment of each packet.
+   * @param prebuiltResponses         {@code true} to encode responses with a {@link StreamResponseEncoder}, which
+   *                                  writes them into a reusable buffer of each thread; {@code false} to build a
+   *                                  {@link StreamPacket} for each response and write it with {@code
+   *                                  streamCodecContext}.
+   */
+  public StatelessStreamReceiver(
+      final ServerSecretSupplier serverSecretSupplier, final StreamConnectionGenerator streamConnectionGenerator,
+      final StreamEncryptionService streamEncryptionService, final CodecContext streamCodecContext,
+      final FulfillmentGenerator fulfillmentGenerator, final boolean prebuiltResponses
   ) {
     this.serverSecretSupplier = Objects.requireNonNull(serverSecretSupplier, "serverSecretSupplier must not be null");
     this.streamConnectionGenerator = Objects
@@ -68,6 +142,11 @@ public class StatelessStreamReceiver implements StreamReceiver {
     this.streamEncryptionService = Objects
         .requireNonNull(streamEncryptionService, "streamEncryptionService must not be null");
     this.streamCodecContext = Objects.requireNonNull(streamCodecContext, "streamCodecContext must not be null");
+    this.streamPacketReader = new StreamPacketReader(streamCodecContext);
+    this.fulfillmentGenerator = Objects.requireNonNull(fulfillmentGenerator, "fulfillmentGenerator must not be null");
+    this.streamResponseEncoder = prebuiltResponses
+        ? Optional.of(new StreamResponseEncoder(streamEncryptionService))
+        : Optional.empty();
   }
 
   @Override
@@ -85,15 +164,91 @@ public class StatelessStreamReceiver implements StreamReceiver {
     Objects.requireNonNull(receiverAddress);
 
     // Will throw if there's an error...
-    final SharedSecret spspSharedSecret = this.streamConnectionGenerator
+    final SharedSecret streamSharedSecret = this.streamConnectionGenerator
         .deriveSecretFromAddress(serverSecretSupplier, preparePacket.getDestination());
-    final SharedSecret streamSharedSecret = SharedSecret.of(spspSharedSecret.key());
 
+    return receiveMoney(preparePacket, receiverAddress, denomination, streamSharedSecret);
+  }
+
+  /**
+   * <p>Receive money for each of {@code preparePackets}, deriving the shared secret of each distinct destination
+   * address only once, when the first packet to it is received. A batch of at least {@link #PARALLEL_BATCH_THRESHOLD}
+   * packets is received in parallel in {@code forkJoinPool}. A smaller batch is received on the calling thread, where
+   * handing it to {@code forkJoinPool} would cost more than it saves.</p>
+   *
+   * <p>Unlike {@link #receiveMoney(InterledgerPreparePacket, InterledgerAddress, Denomination)}, a packet that cannot
+   * be received, such as one to a destination address that this receiver did not generate, does not throw. It is
+   * rejected with {@link InterledgerErrorCode#F06_UNEXPECTED_PAYMENT}, so that the other packets of the batch are still
+   * received.</p>
+   */
+  @Override
+  public List<InterledgerResponsePacket> receiveMoneyBatch(
+      final List<InterledgerPreparePacket> preparePackets, final InterledgerAddress receiverAddress,
+      final Denomination denomination, final ForkJoinPool forkJoinPool
+  ) {
+    Objects.requireNonNull(preparePackets, "preparePackets must not be null");
+    Objects.requireNonNull(receiverAddress, "receiverAddress must not be null");
+    Objects.requireNonNull(forkJoinPool, "forkJoinPool must not be null");
+
+    if (preparePackets.size() < PARALLEL_BATCH_THRESHOLD) {
+      final Map<InterledgerAddress, SharedSecret> streamSharedSecrets = new HashMap<>();
+      final List<InterledgerResponsePacket> responses = new ArrayList<>(preparePackets.size());
+      for (InterledgerPreparePacket preparePacket : preparePackets) {
+        responses.add(receiveMoneyInBatch(preparePacket, receiverAddress, denomination, streamSharedSecrets));
+      }
+      return responses;
+    }
+
+    // computeIfAbsent of a ConcurrentHashMap derives the shared secret of each destination once, even when packets to
+    // it are received at the same time.
+    final Map<InterledgerAddress, SharedSecret> streamSharedSecrets = new ConcurrentHashMap<>();
+    return forkJoinPool.submit(() -> preparePackets.parallelStream()
+        .map(preparePacket -> receiveMoneyInBatch(
+            preparePacket, receiverAddress, denomination, streamSharedSecrets
+        ))
+        .collect(Collectors.toList())
+    ).join();
+  }
+
+  /**
+   * Receive money for {@code preparePacket} of a batch, with the shared secret of its destination in {@code
+   * streamSharedSecrets}, which is derived if no earlier packet of the batch derived it. Rejects the packet if it
+   * cannot be received, instead of throwing and so failing the whole batch.
+   */
+  private InterledgerResponsePacket receiveMoneyInBatch(
+      final InterledgerPreparePacket preparePacket, final InterledgerAddress receiverAddress,
+      final Denomination denomination, final Map<InterledgerAddress, SharedSecret> streamSharedSecrets
+  ) {
+    try {
+      return receiveMoney(
+          preparePacket, receiverAddress, denomination,
+          streamSharedSecrets.computeIfAbsent(preparePacket.getDestination(), this::deriveSecretFromAddress)
+      );
+    } catch (RuntimeException e) {
+      logger.error(
+          "Unable to receive packet. preparePacket={} receiverAddress={} error={}", preparePacket, receiverAddress, e
+      );
+      return InterledgerRejectPacket.builder()
+          .code(InterledgerErrorCode.F06_UNEXPECTED_PAYMENT)
+          .message("Unable to receive packet")
+          .triggeredBy(receiverAddress)
+          .build();
+    }
+  }
+
+  private SharedSecret deriveSecretFromAddress(final InterledgerAddress destinationAddress) {
+    return streamConnectionGenerator.deriveSecretFromAddress(serverSecretSupplier, destinationAddress);
+  }
+
+  private InterledgerResponsePacket receiveMoney(
+      final InterledgerPreparePacket preparePacket, final InterledgerAddress receiverAddress,
+      final Denomination denomination, final SharedSecret streamSharedSecret
+  ) {
     // Try to parse the STREAM data from the payload.
     final byte[] streamPacketBytes = streamEncryptionService.decrypt(streamSharedSecret, preparePacket.getData());
-    final StreamPacket streamPacket;
+    final ReceivedStreamPacket receivedPacket = new ReceivedStreamPacket();
     try {
-      streamPacket = streamCodecContext.read(StreamPacket.class, new ByteArrayInputStream(streamPacketBytes));
+      streamPacketReader.read(streamPacketBytes, receivedPacket);
     } catch (IOException e) {
       logger.error(
           "Unable to decrypt packet. preparePacket={} receiverAddress={} error={}",
@@ -106,106 +261,140 @@ public class StatelessStreamReceiver implements StreamReceiver {
           .build();
     }
 
-    final Builder<StreamFrame> responseFrames = ImmutableList.builder();
-
-    if (streamPacket.sequenceIsSafeForSingleSharedSecret()) {
-      streamPacket.frames().stream()
-          .filter(streamFrame -> streamFrame.streamFrameType() == StreamFrameType.StreamMoney)
-          .map($ -> (StreamMoneyFrame) $)
-          // Tell the sender the stream can handle lots of money
-          .forEach(streamMoneyFrame -> responseFrames.add(StreamMoneyMaxFrame.builder()
-              .streamId(streamMoneyFrame.streamId())
-              .totalReceived(UnsignedLong.ZERO)
-              .receiveMax(UnsignedLong.MAX_VALUE)
-              .build()));
-      streamPacket.frames().stream()
-          .filter(streamFrame -> streamFrame.streamFrameType() == StreamFrameType.ConnectionNewAddress)
-          .findFirst()
-          .map(streamFrame -> responseFrames.add(ConnectionAssetDetailsFrame.builder()
-              .sourceDenomination(denomination)
-              .build()));
-    } else {
+    if (!receivedPacket.sequenceIsSafeForSingleSharedSecret()) {
       logger.warn("This STREAM Connection's sequence {} was too high for safe encryption. CLOSING the stream!",
-          streamPacket.sequence());
-      // If the sequence it too high, we should close the Connection.
-      responseFrames.add(ConnectionCloseFrame.builder()
-          .errorCode(ErrorCodes.ProtocolViolation)
-          .errorMessage("Sequence number was to too high for safe encryption")
-          .build());
+          receivedPacket.sequence);
     }
 
     // Generate fulfillment using the shared secret that was pre-negotiated with the sender.
-    final InterledgerFulfillment fulfillment = StreamUtils
-        .generatedFulfillableFulfillment(streamSharedSecret, preparePacket.getData());
+    final InterledgerFulfillment fulfillment = fulfillmentGenerator
+        .generateFulfillment(streamSharedSecret, preparePacket.getData());
     final boolean isFulfillable = fulfillment.getCondition().equals(preparePacket.getExecutionCondition());
 
     // Return Fulfill or Reject Packet
-    if (isFulfillable && is(preparePacket.getAmount()).greaterThanEqualTo(streamPacket.prepareAmount())) {
-      final StreamPacket returnableStreamPacketResponse = StreamPacket.builder()
-          .sequence(streamPacket.sequence())
-          .interledgerPacketType(InterledgerPacketType.FULFILL)
-          .prepareAmount(preparePacket.getAmount())
-          .frames(responseFrames.build())
-          .build();
-
-      logger.debug(
-          "Fulfilling prepare packet. preparePacket={} fulfillment={} returnableStreamPacketResponse={}",
-          preparePacket, fulfillment, returnableStreamPacketResponse
-      );
-
-      try {
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        streamCodecContext.write(returnableStreamPacketResponse, baos);
-        final byte[] returnableStreamPacketBytes = baos.toByteArray();
-        final byte[] encryptedReturnableStreamPacketBytes = streamEncryptionService
-            .encrypt(streamSharedSecret, returnableStreamPacketBytes);
-
-        return InterledgerFulfillPacket.builder()
-            .fulfillment(fulfillment)
-            .data(encryptedReturnableStreamPacketBytes)
-            .build();
+    if (isFulfillable && is(preparePacket.getAmount()).greaterThanEqualTo(receivedPacket.prepareAmount)) {
+      logger.debug("Fulfilling prepare packet. preparePacket={} fulfillment={}", preparePacket, fulfillment);
 
-      } catch (IOException e) {
-        throw new StreamException(e.getMessage(), e);
-      }
-    } else {
-      final StreamPacket returnableStreamPacketResponse = StreamPacket.builder()
-          .sequence(streamPacket.sequence())
-          .interledgerPacketType(InterledgerPacketType.REJECT)
-          .prepareAmount(preparePacket.getAmount())
-          .frames(responseFrames.build())
+      return InterledgerFulfillPacket.builder()
+          .fulfillment(fulfillment)
+          .data(encryptResponse(
+              streamSharedSecret, InterledgerPacketType.FULFILL, receivedPacket, preparePacket.getAmount(), denomination
+          ))
           .build();
-
+    } else {
       if (isFulfillable) {
         logger.debug("Packet is unfulfillable. preparePacket={}", preparePacket);
-      } else if (is(preparePacket.getAmount()).lessThan(streamPacket.prepareAmount())) {
+      } else if (is(preparePacket.getAmount()).lessThan(receivedPacket.prepareAmount)) {
         logger.debug(
             "Received only: {} when we should have received at least: {}",
-            preparePacket.getAmount(), streamPacket.prepareAmount()
+            preparePacket.getAmount(), receivedPacket.prepareAmount
         );
       }
 
-      logger.debug(
-          "Rejecting Prepare and including encrypted stream packet. preparePacket={} returnableStreamPacketResponse={}",
-          preparePacket, returnableStreamPacketResponse
+      logger.debug("Rejecting Prepare and including encrypted stream packet. preparePacket={}", preparePacket);
+
+      return InterledgerRejectPacket.builder()
+          .code(InterledgerErrorCode.F99_APPLICATION_ERROR)
+          .message("STREAM packet not fulfillable (prepare amount < stream packet amount)")
+          .triggeredBy(receiverAddress)
+          .data(encryptResponse(
+              streamSharedSecret, InterledgerPacketType.REJECT, receivedPacket, preparePacket.getAmount(), denomination
+          ))
+          .build();
+    }
+  }
+
+  /**
+   * Encode and encrypt the STREAM packet to return in the ILP response to {@code receivedPacket}.
+   */
+  private byte[] encryptResponse(
+      final SharedSecret streamSharedSecret, final InterledgerPacketType interledgerPacketType,
+      final ReceivedStreamPacket receivedPacket, final UnsignedLong prepareAmount, final Denomination denomination
+  ) {
+    if (streamResponseEncoder.isPresent()) {
+      if (!receivedPacket.sequenceIsSafeForSingleSharedSecret()) {
+        return streamResponseEncoder.get().encodeConnectionClose(
+            streamSharedSecret, interledgerPacketType, receivedPacket.sequence, prepareAmount, SEQUENCE_TOO_HIGH
+        );
+      }
+      return streamResponseEncoder.get().encode(
+          streamSharedSecret, interledgerPacketType, receivedPacket.sequence, prepareAmount,
+          receivedPacket.moneyStreamIds,
+          receivedPacket.hasNewAddress ? Optional.of(denomination) : Optional.empty()
       );
+    }
 
-      try {
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        streamCodecContext.write(returnableStreamPacketResponse, baos);
-        final byte[] returnableStreamPacketBytes = baos.toByteArray();
-        final byte[] encryptedReturnableStreamPacketBytes = streamEncryptionService
-            .encrypt(streamSharedSecret, returnableStreamPacketBytes);
-
-        return InterledgerRejectPacket.builder()
-            .code(InterledgerErrorCode.F99_APPLICATION_ERROR)
-            .message("STREAM packet not fulfillable (prepare amount < stream packet amount)")
-            .triggeredBy(receiverAddress)
-            .data(encryptedReturnableStreamPacketBytes)
-            .build();
-      } catch (IOException e) {
-        throw new StreamException(e.getMessage(), e);
+    final Builder<StreamFrame> responseFrames = ImmutableList.builder();
+    if (receivedPacket.sequenceIsSafeForSingleSharedSecret()) {
+      // Tell the sender the stream can handle lots of money
+      receivedPacket.moneyStreamIds.forEach(streamId -> responseFrames.add(StreamMoneyMaxFrame.builder()
+          .streamId(streamId)
+          .totalReceived(UnsignedLong.ZERO)
+          .receiveMax(UnsignedLong.MAX_VALUE)
+          .build()));
+      if (receivedPacket.hasNewAddress) {
+        responseFrames.add(ConnectionAssetDetailsFrame.builder()
+            .sourceDenomination(denomination)
+            .build());
+      }
+    } else {
+      // If the sequence it too high, we should close the Connection.
+      responseFrames.add(SEQUENCE_TOO_HIGH);
+    }
+
+    final StreamPacket returnableStreamPacketResponse = StreamPacket.builder()
+        .sequence(receivedPacket.sequence)
+        .interledgerPacketType(interledgerPacketType)
+        .prepareAmount(prepareAmount)
+        .frames(responseFrames.build())
+        .build();
+    logger.debug("Encoding response. returnableStreamPacketResponse={}", returnableStreamPacketResponse);
+
+    try {
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      streamCodecContext.write(returnableStreamPacketResponse, baos);
+      final byte[] returnableStreamPacketBytes = baos.toByteArray();
+      return streamEncryptionService.encrypt(streamSharedSecret, returnableStreamPacketBytes);
+    } catch (IOException e) {
+      throw new StreamException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Collects the parts of an incoming STREAM packet that this receiver responds to. Only {@code StreamMoney} frames are
+   * decoded; a {@code ConnectionNewAddress} frame is only noted, and every other frame is skipped.
+   */
+  private static class ReceivedStreamPacket implements StreamFrameVisitor {
+
+    private UnsignedLong sequence;
+    private UnsignedLong prepareAmount;
+    private final List<UnsignedLong> moneyStreamIds = new ArrayList<>(1);
+    private boolean hasNewAddress;
+
+    private boolean sequenceIsSafeForSingleSharedSecret() {
+      return is(sequence).lessThan(StreamConnection.MAX_FRAMES_PER_CONNECTION);
+    }
+
+    @Override
+    public void visitPacket(
+        final InterledgerPacketType interledgerPacketType, final UnsignedLong sequence,
+        final UnsignedLong prepareAmount
+    ) {
+      this.sequence = sequence;
+      this.prepareAmount = prepareAmount;
+    }
+
+    @Override
+    public boolean visitFrameType(final StreamFrameType streamFrameType) {
+      if (streamFrameType == StreamFrameType.ConnectionNewAddress) {
+        this.hasNewAddress = true;
       }
+      return streamFrameType == StreamFrameType.StreamMoney;
+    }
+
+    @Override
+    public void visitFrame(final StreamFrame streamFrame) {
+      moneyStreamIds.add(((StreamMoneyFrame) streamFrame).streamId());
     }
   }
 }
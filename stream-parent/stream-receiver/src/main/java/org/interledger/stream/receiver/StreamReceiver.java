@@ -1,11 +1,18 @@
 package org.interledger.stream.receiver;
 
 import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerErrorCode;
 import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerRejectPacket;
 import org.interledger.core.InterledgerResponsePacket;
 import org.interledger.spsp.StreamConnectionDetails;
 import org.interledger.stream.Denomination;
 
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
 /**
  * <p>A service that fulfills incoming STREAM packets.</p>
  */
@@ -41,4 +48,67 @@ public interface StreamReceiver {
       InterledgerPreparePacket preparePacket, InterledgerAddress clientAddress, Denomination denomination
   );
 
+  /**
+   * Receive money for each of {@code preparePackets} on behalf of {@code clientAddress}, in parallel in the common
+   * {@link ForkJoinPool}.
+   *
+   * @param preparePackets A {@link List} of {@link InterledgerPreparePacket} to receive, each as {@link
+   *                       #receiveMoney(InterledgerPreparePacket, InterledgerAddress, Denomination)} would.
+   * @param clientAddress  A {@link InterledgerAddress} of the account these packets should be delivered to.
+   * @param denomination   A {@link Denomination} containing information about the value this receiever is receiving.
+   *
+   * @return A {@link List} of {@link InterledgerResponsePacket}, with the response to each Prepare packet at the same
+   *     index as that packet in {@code preparePackets}.
+   */
+  default List<InterledgerResponsePacket> receiveMoneyBatch(
+      final List<InterledgerPreparePacket> preparePackets, final InterledgerAddress clientAddress,
+      final Denomination denomination
+  ) {
+    return receiveMoneyBatch(preparePackets, clientAddress, denomination, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Receive money for each of {@code preparePackets} on behalf of {@code clientAddress}, in parallel in {@code
+   * forkJoinPool}.
+   *
+   * <p>This default implementation calls {@link #receiveMoney(InterledgerPreparePacket, InterledgerAddress,
+   * Denomination)} for each packet. Implementations may override it to share the work that packets to the same
+   * destination have in common.</p>
+   *
+   * <p>A packet for which {@code receiveMoney} throws is rejected with {@link
+   * InterledgerErrorCode#F06_UNEXPECTED_PAYMENT}, so that the other packets of the batch are still received.</p>
+   *
+   * @param preparePackets A {@link List} of {@link InterledgerPreparePacket} to receive, each as {@link
+   *                       #receiveMoney(InterledgerPreparePacket, InterledgerAddress, Denomination)} would.
+   * @param clientAddress  A {@link InterledgerAddress} of the account these packets should be delivered to.
+   * @param denomination   A {@link Denomination} containing information about the value this receiever is receiving.
+   * @param forkJoinPool   The {@link ForkJoinPool} to receive the packets in.
+   *
+   * @return A {@link List} of {@link InterledgerResponsePacket}, with the response to each Prepare packet at the same
+   *     index as that packet in {@code preparePackets}.
+   */
+  default List<InterledgerResponsePacket> receiveMoneyBatch(
+      final List<InterledgerPreparePacket> preparePackets, final InterledgerAddress clientAddress,
+      final Denomination denomination, final ForkJoinPool forkJoinPool
+  ) {
+    Objects.requireNonNull(preparePackets, "preparePackets must not be null");
+    Objects.requireNonNull(forkJoinPool, "forkJoinPool must not be null");
+
+    // A parallel stream that is collected in a task of forkJoinPool runs in forkJoinPool.
+    return forkJoinPool.submit(() -> preparePackets.parallelStream()
+        .map(preparePacket -> {
+          try {
+            return receiveMoney(preparePacket, clientAddress, denomination);
+          } catch (RuntimeException e) {
+            return InterledgerRejectPacket.builder()
+                .code(InterledgerErrorCode.F06_UNEXPECTED_PAYMENT)
+                .message("Unable to receive packet")
+                .triggeredBy(clientAddress)
+                .build();
+          }
+        })
+        .collect(Collectors.<InterledgerResponsePacket>toList())
+    ).join();
+  }
+
 }
@@ -0,0 +1,239 @@
+package org.interledger.stream.receiver;
+
+import org.interledger.core.InterledgerPacketType;
+import org.interledger.core.SharedSecret;
+import org.interledger.encoding.asn.serializers.oer.OerLengthSerializer;
+import org.interledger.stream.Denomination;
+import org.interledger.stream.StreamPacket;
+import org.interledger.stream.crypto.CachingStreamEncryptionService;
+import org.interledger.stream.crypto.StreamEncryptionService;
+import org.interledger.stream.frames.ConnectionCloseFrame;
+import org.interledger.stream.frames.StreamFrameConstants;
+
+import com.google.common.primitives.UnsignedLong;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * <p>Encodes and encrypts the STREAM packet that a receiver returns in a Fulfill or Reject packet, without building a
+ * {@link StreamPacket}, a list of frames, or any intermediate byte arrays.</p>
+ *
+ * <p>The plaintext is written as ASN.1 OER straight into a buffer that each thread reuses. The parts of a response
+ * that are the same for every packet are encoded once and copied: the {@code receiveMax} and {@code totalReceived} of a
+ * {@code StreamMoneyMax} frame, and the {@code ConnectionAssetDetails} frame of the last denomination. The output is
+ * identical to writing the equivalent {@link StreamPacket} with the {@code CodecContext} of {@code
+ * StreamCodecContextFactory.oer()}.</p>
+ *
+ * <p>The buffer is encrypted with {@link StreamEncryptionService#encrypt(SharedSecret, byte[], int, int)}. With a
+ * {@link CachingStreamEncryptionService}, that encrypts directly out of the buffer, so the cipher message is the only
+ * array allocated for a response.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ */
+public class StreamResponseEncoder {
+
+  private static final int INITIAL_BUFFER_SIZE = 1024;
+
+  // A var-uint takes a length octet and at most 8 value octets.
+  private static final int MAX_VAR_UINT_SIZE = 1 + Long.BYTES;
+
+  // A frame type, and a length prefix of at most 5 octets.
+  private static final int MAX_FRAME_HEADER_SIZE = 1 + 5;
+
+  // The receiveMax (UnsignedLong.MAX_VALUE) and totalReceived (0) of a StreamMoneyMax frame.
+  private static final byte[] UNLIMITED_MONEY_MAX_SUFFIX = new byte[] {
+      8, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 1, 0
+  };
+
+  private static final ThreadLocal<ByteBuffer> BUFFERS =
+      ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_BUFFER_SIZE));
+
+  private final StreamEncryptionService streamEncryptionService;
+
+  private volatile AssetDetailsTemplate assetDetailsTemplate;
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param streamEncryptionService A {@link StreamEncryptionService} used to encrypt the encoded responses.
+   */
+  public StreamResponseEncoder(final StreamEncryptionService streamEncryptionService) {
+    this.streamEncryptionService = Objects
+        .requireNonNull(streamEncryptionService, "streamEncryptionService must not be null");
+  }
+
+  /**
+   * Encode and encrypt a response that tells the sender that each of {@code moneyStreamIds} can receive any amount,
+   * which is a {@code StreamMoneyMax} frame with a {@code receiveMax} of {@link UnsignedLong#MAX_VALUE} and a {@code
+   * totalReceived} of zero for each of them.
+   *
+   * @param sharedSecret          The {@link SharedSecret} to encrypt the response with.
+   * @param interledgerPacketType The {@link InterledgerPacketType} of the ILP packet that carries the response.
+   * @param sequence              The sequence of the STREAM packet that this responds to.
+   * @param prepareAmount         The amount of the Prepare packet that this responds to.
+   * @param moneyStreamIds        The identifiers of the streams to return a {@code StreamMoneyMax} frame for.
+   * @param assetDetails          An optionally-present {@link Denomination} to return in a {@code
+   *                              ConnectionAssetDetails} frame, after the {@code StreamMoneyMax} frames.
+   *
+   * @return The encrypted response.
+   */
+  public byte[] encode(
+      final SharedSecret sharedSecret, final InterledgerPacketType interledgerPacketType, final UnsignedLong sequence,
+      final UnsignedLong prepareAmount, final List<UnsignedLong> moneyStreamIds,
+      final Optional<Denomination> assetDetails
+  ) {
+    Objects.requireNonNull(sharedSecret, "sharedSecret must not be null");
+    Objects.requireNonNull(interledgerPacketType, "interledgerPacketType must not be null");
+    Objects.requireNonNull(sequence, "sequence must not be null");
+    Objects.requireNonNull(prepareAmount, "prepareAmount must not be null");
+    Objects.requireNonNull(moneyStreamIds, "moneyStreamIds must not be null");
+    Objects.requireNonNull(assetDetails, "assetDetails must not be null");
+
+    final byte[] assetDetailsFrame = assetDetails.map(this::assetDetailsFrame).orElse(null);
+    final int frameCount = moneyStreamIds.size() + (assetDetailsFrame == null ? 0 : 1);
+    final int maxSize = maxHeaderSize()
+        + moneyStreamIds.size() * (MAX_FRAME_HEADER_SIZE + MAX_VAR_UINT_SIZE + UNLIMITED_MONEY_MAX_SUFFIX.length)
+        + (assetDetailsFrame == null ? 0 : assetDetailsFrame.length);
+
+    final ByteBuffer buffer = buffer(maxSize);
+    writeHeader(buffer, interledgerPacketType, sequence, prepareAmount, frameCount);
+    for (UnsignedLong streamId : moneyStreamIds) {
+      final long streamIdBits = streamId.longValue();
+      buffer.put((byte) StreamFrameConstants.STREAM_MONEY_MAX);
+      OerLengthSerializer.writeLength(varUintSize(streamIdBits) + UNLIMITED_MONEY_MAX_SUFFIX.length, buffer);
+      writeVarUint(buffer, streamIdBits);
+      buffer.put(UNLIMITED_MONEY_MAX_SUFFIX);
+    }
+    if (assetDetailsFrame != null) {
+      buffer.put(assetDetailsFrame);
+    }
+    return encrypt(sharedSecret, buffer);
+  }
+
+  /**
+   * Encode and encrypt a response that closes the connection.
+   *
+   * @param sharedSecret          The {@link SharedSecret} to encrypt the response with.
+   * @param interledgerPacketType The {@link InterledgerPacketType} of the ILP packet that carries the response.
+   * @param sequence              The sequence of the STREAM packet that this responds to.
+   * @param prepareAmount         The amount of the Prepare packet that this responds to.
+   * @param connectionCloseFrame  The {@link ConnectionCloseFrame} to return as the only frame of the response.
+   *
+   * @return The encrypted response.
+   */
+  public byte[] encodeConnectionClose(
+      final SharedSecret sharedSecret, final InterledgerPacketType interledgerPacketType, final UnsignedLong sequence,
+      final UnsignedLong prepareAmount, final ConnectionCloseFrame connectionCloseFrame
+  ) {
+    Objects.requireNonNull(sharedSecret, "sharedSecret must not be null");
+    Objects.requireNonNull(interledgerPacketType, "interledgerPacketType must not be null");
+    Objects.requireNonNull(sequence, "sequence must not be null");
+    Objects.requireNonNull(prepareAmount, "prepareAmount must not be null");
+    Objects.requireNonNull(connectionCloseFrame, "connectionCloseFrame must not be null");
+
+    final byte[] errorMessage = connectionCloseFrame.errorMessage().orElse("").getBytes(StandardCharsets.US_ASCII);
+    final int contentLength = 1 + OerLengthSerializer.sizeOfLength(errorMessage.length) + errorMessage.length;
+
+    final ByteBuffer buffer = buffer(maxHeaderSize() + MAX_FRAME_HEADER_SIZE + contentLength);
+    writeHeader(buffer, interledgerPacketType, sequence, prepareAmount, 1);
+    buffer.put((byte) StreamFrameConstants.CONNECTION_CLOSE);
+    OerLengthSerializer.writeLength(contentLength, buffer);
+    buffer.put((byte) connectionCloseFrame.errorCode().code());
+    OerLengthSerializer.writeLength(errorMessage.length, buffer);
+    buffer.put(errorMessage);
+    return encrypt(sharedSecret, buffer);
+  }
+
+  private byte[] encrypt(final SharedSecret sharedSecret, final ByteBuffer buffer) {
+    return streamEncryptionService.encrypt(sharedSecret, buffer.array(), 0, buffer.position());
+  }
+
+  /**
+   * The encoded {@code ConnectionAssetDetails} frame for {@code denomination}. Receivers usually respond with a single
+   * denomination, so only the frame of the last one is kept.
+   */
+  private byte[] assetDetailsFrame(final Denomination denomination) {
+    final AssetDetailsTemplate template = this.assetDetailsTemplate;
+    if (template != null && template.denomination.equals(denomination)) {
+      return template.frame;
+    }
+
+    final byte[] assetCode = denomination.assetCode().getBytes(StandardCharsets.UTF_8);
+    final int contentLength = OerLengthSerializer.sizeOfLength(assetCode.length) + assetCode.length + 1;
+    final ByteBuffer frame =
+        ByteBuffer.allocate(1 + OerLengthSerializer.sizeOfLength(contentLength) + contentLength);
+    frame.put((byte) StreamFrameConstants.CONNECTION_ASSET_DETAILS);
+    OerLengthSerializer.writeLength(contentLength, frame);
+    OerLengthSerializer.writeLength(assetCode.length, frame);
+    frame.put(assetCode);
+    frame.put((byte) denomination.assetScale());
+
+    this.assetDetailsTemplate = new AssetDetailsTemplate(denomination, frame.array());
+    return frame.array();
+  }
+
+  /**
+   * Get the buffer of this thread, cleared and with room for at least {@code minimumSize} bytes.
+   */
+  private static ByteBuffer buffer(final int minimumSize) {
+    final ByteBuffer buffer = BUFFERS.get();
+    if (buffer.capacity() >= minimumSize) {
+      ((Buffer) buffer).clear();
+      return buffer;
+    }
+    final ByteBuffer largerBuffer = ByteBuffer.allocate(Math.max(minimumSize, buffer.capacity() * 2));
+    BUFFERS.set(largerBuffer);
+    return largerBuffer;
+  }
+
+  private static int maxHeaderSize() {
+    // version, packet type, sequence, prepare amount and the number of frames.
+    return 2 + 3 * MAX_VAR_UINT_SIZE;
+  }
+
+  private static void writeHeader(
+      final ByteBuffer buffer, final InterledgerPacketType interledgerPacketType, final UnsignedLong sequence,
+      final UnsignedLong prepareAmount, final int frameCount
+  ) {
+    buffer.put((byte) StreamPacket.VERSION_1);
+    buffer.put((byte) interledgerPacketType.getType());
+    writeVarUint(buffer, sequence.longValue());
+    writeVarUint(buffer, prepareAmount.longValue());
+    writeVarUint(buffer, frameCount);
+  }
+
+  /**
+   * The number of octets of {@code value} as an OER var-uint, not counting its length prefix. Zero takes one octet.
+   */
+  private static int varUintLength(final long value) {
+    return Math.max(1, (Long.SIZE - Long.numberOfLeadingZeros(value) + 7) / Byte.SIZE);
+  }
+
+  private static int varUintSize(final long value) {
+    return 1 + varUintLength(value);
+  }
+
+  private static void writeVarUint(final ByteBuffer buffer, final long value) {
+    final int length = varUintLength(value);
+    buffer.put((byte) length);
+    for (int i = length - 1; i >= 0; i--) {
+      buffer.put((byte) (value >>> (Byte.SIZE * i)));
+    }
+  }
+
+  private static final class AssetDetailsTemplate {
+
+    private final Denomination denomination;
+    private final byte[] frame;
+
+    private AssetDetailsTemplate(final Denomination denomination, final byte[] frame) {
+      this.denomination = denomination;
+      this.frame = frame;
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package org.interledger.stream.receiver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.interledger.core.InterledgerAddress;
+import org.interledger.spsp.StreamConnectionDetails;
+import org.interledger.stream.StreamException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+
+/**
+ * Unit tests for {@link CachingStreamConnectionGenerator}.
+ */
+public class CachingStreamConnectionGeneratorTest {
+
+  private static final InterledgerAddress RECEIVER_ADDRESS = InterledgerAddress.of("example.receiver");
+
+  private ServerSecretSupplier serverSecret;
+
+  private StreamConnectionGenerator delegate;
+
+  private CachingStreamConnectionGenerator connectionGenerator;
+
+  @Before
+  public void setUp() {
+    serverSecret = () -> new byte[32];
+    delegate = spy(new SpspStreamConnectionGenerator());
+    connectionGenerator = new CachingStreamConnectionGenerator(delegate);
+  }
+
+  @Test
+  public void deriveSecretFromAddressIsCached() {
+    final StreamConnectionDetails connectionDetails =
+        connectionGenerator.generateConnectionDetails(serverSecret, RECEIVER_ADDRESS);
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(connectionGenerator.deriveSecretFromAddress(serverSecret, connectionDetails.destinationAddress()))
+          .isEqualTo(connectionDetails.sharedSecret());
+    }
+
+    verify(delegate, times(1)).deriveSecretFromAddress(serverSecret, connectionDetails.destinationAddress());
+    assertThat(connectionGenerator.stats().missCount()).isEqualTo(1);
+    assertThat(connectionGenerator.stats().hitCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void generateConnectionDetailsIsNotCached() {
+    assertThat(connectionGenerator.generateConnectionDetails(serverSecret, RECEIVER_ADDRESS))
+        .isNotEqualTo(connectionGenerator.generateConnectionDetails(serverSecret, RECEIVER_ADDRESS));
+  }
+
+  @Test
+  public void invalidAddressIsNotCached() {
+    final StreamConnectionDetails connectionDetails =
+        connectionGenerator.generateConnectionDetails(serverSecret, RECEIVER_ADDRESS);
+    final ServerSecretSupplier otherServerSecret = () -> new byte[] {
+        1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1
+    };
+
+    for (int i = 0; i < 2; i++) {
+      assertThatThrownBy(
+          () -> connectionGenerator.deriveSecretFromAddress(otherServerSecret, connectionDetails.destinationAddress())
+      ).isInstanceOf(StreamException.class).hasMessage("Invalid Receiver Address (derived AuthTag failure)!");
+    }
+
+    verify(delegate, times(2)).deriveSecretFromAddress(otherServerSecret, connectionDetails.destinationAddress());
+    assertThat(connectionGenerator.stats().hitCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void sharedSecretsAreCachedPerServerSecretSupplier() {
+    final StreamConnectionDetails connectionDetails =
+        connectionGenerator.generateConnectionDetails(serverSecret, RECEIVER_ADDRESS);
+    assertThat(connectionGenerator.deriveSecretFromAddress(serverSecret, connectionDetails.destinationAddress()))
+        .isEqualTo(connectionDetails.sharedSecret());
+
+    final ServerSecretSupplier otherServerSecret = () -> new byte[] {
+        1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1
+    };
+    assertThatThrownBy(
+        () -> connectionGenerator.deriveSecretFromAddress(otherServerSecret, connectionDetails.destinationAddress())
+    ).isInstanceOf(StreamException.class);
+  }
+
+  @Test
+  public void sharedSecretsAreDerivedAgainAfterEviction() {
+    connectionGenerator = new CachingStreamConnectionGenerator(delegate, 1, Duration.ofMinutes(1));
+    final StreamConnectionDetails first = connectionGenerator.generateConnectionDetails(serverSecret, RECEIVER_ADDRESS);
+    final StreamConnectionDetails second =
+        connectionGenerator.generateConnectionDetails(serverSecret, RECEIVER_ADDRESS);
+
+    connectionGenerator.deriveSecretFromAddress(serverSecret, first.destinationAddress());
+    connectionGenerator.deriveSecretFromAddress(serverSecret, second.destinationAddress());
+    assertThat(connectionGenerator.deriveSecretFromAddress(serverSecret, first.destinationAddress()))
+        .isEqualTo(first.sharedSecret());
+
+    verify(delegate, times(2)).deriveSecretFromAddress(serverSecret, first.destinationAddress());
+    assertThat(connectionGenerator.stats().hitCount()).isEqualTo(0);
+  }
+}
@@ -12,15 +12,20 @@ import org.interledger.spsp.StreamConnectionDetails;
 import org.interledger.stream.Denomination;
 import org.interledger.stream.SendMoneyRequest;
 import org.interledger.stream.SendMoneyResult;
+import org.interledger.stream.StreamConnection;
+import org.interledger.stream.StreamDataOutputChannel;
 import org.interledger.stream.calculators.ExchangeRateCalculator;
 import org.interledger.stream.calculators.NoOpExchangeRateCalculator;
 import org.interledger.stream.crypto.JavaxStreamEncryptionService;
 import org.interledger.stream.crypto.StreamEncryptionService;
 import org.interledger.stream.receiver.testutils.SimulatedIlpv4Network;
 import org.interledger.stream.receiver.testutils.SimulatedPathConditions;
+import org.interledger.stream.sender.AsyncStreamSender;
 import org.interledger.stream.sender.FixedReceiverAmountPaymentTracker;
 import org.interledger.stream.sender.FixedSenderAmountPaymentTracker;
+import org.interledger.stream.sender.ReceiverDenominationCache;
 import org.interledger.stream.sender.SimpleStreamSender;
+import org.interledger.stream.sender.StreamConnectionManager;
 import org.interledger.stream.sender.StreamSender;
 
 import com.google.common.collect.Lists;
@@ -33,16 +38,20 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -408,6 +417,191 @@ public class SenderReceiverTest {
     });
   }
 
+  @Test
+  public void sendFromLeftToRightWithAsyncSender() {
+    final UnsignedLong paymentAmount = UnsignedLong.valueOf(1000);
+
+    final SendMoneyResult sendMoneyResult =
+        sendMoney(new AsyncStreamSender(leftStreamNode.link()), leftStreamNode, rightStreamNode, paymentAmount);
+
+    assertThat(sendMoneyResult.successfulPayment()).isTrue();
+    assertThat(sendMoneyResult.amountDelivered()).isEqualTo(paymentAmount);
+    assertThat(sendMoneyResult.originalAmount()).isEqualTo(paymentAmount);
+    assertThat(sendMoneyResult.numFulfilledPackets()).isEqualTo(1);
+    assertThat(sendMoneyResult.numRejectPackets()).isEqualTo(0);
+  }
+
+  @Test
+  public void sendFromLeftToRightWithAsyncSenderAnd50PercentLoss() {
+    final UnsignedLong paymentAmount = UnsignedLong.valueOf(1000000);
+    this.initIlpNetworkForStream(new SimulatedIlpv4Network(
+        SimulatedPathConditions.builder().packetRejectionPercentage(0.5f).build(),
+        SimulatedPathConditions.builder().build()
+    ));
+
+    final SendMoneyResult sendMoneyResult =
+        sendMoney(new AsyncStreamSender(leftStreamNode.link()), leftStreamNode, rightStreamNode, paymentAmount);
+
+    assertThat(sendMoneyResult.successfulPayment()).isTrue();
+    assertThat(sendMoneyResult.amountDelivered()).isEqualTo(paymentAmount);
+    assertThat(sendMoneyResult.numFulfilledPackets()).isGreaterThan(1);
+  }
+
+  @Test
+  public void sendFromLeftToRightWithAsyncSenderAndSmallMaxPacketValueInNetwork() {
+    final UnsignedLong paymentAmount = UnsignedLong.valueOf(100);
+    this.initIlpNetworkForStream(new SimulatedIlpv4Network(
+        SimulatedPathConditions.builder().maxPacketAmount(() -> UnsignedLong.ONE).build(),
+        SimulatedPathConditions.builder().build()
+    ));
+
+    final SendMoneyResult sendMoneyResult =
+        sendMoney(new AsyncStreamSender(leftStreamNode.link()), leftStreamNode, rightStreamNode, paymentAmount);
+
+    assertThat(sendMoneyResult.successfulPayment()).isTrue();
+    assertThat(sendMoneyResult.amountDelivered()).isEqualTo(paymentAmount);
+    assertThat(sendMoneyResult.numFulfilledPackets()).isEqualTo(100);
+    assertThat(sendMoneyResult.numRejectPackets()).isGreaterThanOrEqualTo(1);
+  }
+
+  /**
+   * Start many payments from a single thread, and let a small pool send all of their packets.
+   */
+  @Test
+  public void sendManyConcurrentPaymentsWithAsyncSender() {
+    final UnsignedLong paymentAmount = UnsignedLong.valueOf(10000);
+    final ExecutorService executorService = Executors.newFixedThreadPool(4);
+    final ScheduledExecutorService timeoutScheduler = Executors.newSingleThreadScheduledExecutor();
+    try {
+      final AsyncStreamSender sender = new AsyncStreamSender(
+          new JavaxStreamEncryptionService(), leftStreamNode.link(), executorService, timeoutScheduler,
+          new StreamConnectionManager()
+      );
+
+      final List<CompletableFuture<SendMoneyResult>> results = IntStream.range(0, 500)
+          .mapToObj(i -> sendMoneyAsync(sender, leftStreamNode, rightStreamNode, paymentAmount))
+          .collect(Collectors.toList());
+
+      awaitResults(results).forEach(result -> {
+        assertThat(result.successfulPayment()).isTrue();
+        assertThat(result.amountDelivered()).isEqualTo(paymentAmount);
+        assertThat(result.numFulfilledPackets()).isGreaterThan(1);
+        assertThat(result.numRejectPackets()).isEqualTo(0);
+      });
+    } finally {
+      executorService.shutdownNow();
+      timeoutScheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * Send many payments to the same receiver at once, so that their streams share the packets of one connection.
+   */
+  @Test
+  public void sendManyConcurrentPaymentsToOneReceiverWithMultiplexedSender() {
+    final UnsignedLong paymentAmount = UnsignedLong.valueOf(10000);
+    final SimpleStreamSender sender = SimpleStreamSender.builder()
+        .link(leftStreamNode.link())
+        .multiplexStreams(true)
+        .build();
+    final StreamConnectionDetails connectionDetails = rightStreamNode.getNewStreamConnectionDetails();
+
+    final List<CompletableFuture<SendMoneyResult>> results = IntStream.range(0, 100)
+        .mapToObj(i -> sendMoneyAsync(sender, leftStreamNode, connectionDetails, paymentAmount))
+        .collect(Collectors.toList());
+
+    awaitResults(results).forEach(result -> {
+      assertThat(result.successfulPayment()).isTrue();
+      assertThat(result.amountDelivered()).isEqualTo(paymentAmount);
+      assertThat(result.amountSent()).isEqualTo(paymentAmount);
+      assertThat(result.numRejectPackets()).isEqualTo(0);
+    });
+  }
+
+  /**
+   * The second payment to a receiver skips the preflight packet, and learns the denomination of the receiver from the
+   * cache that the first payment filled.
+   */
+  @Test
+  public void sendPaymentsToOneReceiverWithReceiverDenominationCache() {
+    final UnsignedLong paymentAmount = UnsignedLong.valueOf(10000);
+    final ReceiverDenominationCache cache = new ReceiverDenominationCache();
+    final SimpleStreamSender sender = SimpleStreamSender.builder()
+        .link(leftStreamNode.link())
+        .receiverDenominationCache(cache)
+        .build();
+
+    for (int i = 0; i < 2; i++) {
+      final SendMoneyResult result = sendMoney(sender, leftStreamNode, rightStreamNode, paymentAmount);
+      assertThat(result.successfulPayment()).isTrue();
+      assertThat(result.amountDelivered()).isEqualTo(paymentAmount);
+      assertThat(cache.get(rightStreamNode.getNewStreamConnectionDetails().destinationAddress()))
+          .hasValue(rightStreamNode.denomination());
+    }
+  }
+
+  /**
+   * A stateful receiver accounts for a payment of exactly the amount that the connection was set up for.
+   */
+  @Test
+  public void sendFromLeftToRightToStatefulReceiverWithReceiveMax() {
+    final UnsignedLong paymentAmount = UnsignedLong.valueOf(10000);
+    final StatefulStreamReceiver statefulReceiver = new StatefulStreamReceiver(
+        rightStreamNode::serverSecret, new SpspStreamConnectionGenerator(), new JavaxStreamEncryptionService(),
+        StreamCodecContextFactory.oer()
+    );
+    simulatedIlpNetwork.getLeftToRightLink().unregisterLinkHandler();
+    simulatedIlpNetwork.getLeftToRightLink().registerLinkHandler(incomingPreparePacket ->
+        statefulReceiver.receiveMoney(incomingPreparePacket, RIGHT_RECEIVER_ADDRESS, rightStreamNode.denomination())
+    );
+    final StreamConnectionDetails connectionDetails =
+        statefulReceiver.setupStream(RIGHT_RECEIVER_ADDRESS, paymentAmount);
+
+    final SendMoneyResult result = sendMoneyAsync(
+        new SimpleStreamSender(leftStreamNode.link()), leftStreamNode, connectionDetails, paymentAmount
+    ).join();
+
+    assertThat(result.successfulPayment()).isTrue();
+    assertThat(result.amountDelivered()).isEqualTo(paymentAmount);
+    assertThat(statefulReceiver.getTotalReceived(connectionDetails.sharedSecret())).hasValue(paymentAmount);
+  }
+
+  /**
+   * Sends more data than the window of the receiver, which only flows while payments are sent.
+   */
+  @Test
+  public void sendDataFromLeftToRightWithPayments() throws IOException {
+    final StatefulStreamReceiver statefulReceiver = new StatefulStreamReceiver(
+        rightStreamNode::serverSecret, new SpspStreamConnectionGenerator(), new JavaxStreamEncryptionService(),
+        StreamCodecContextFactory.oer()
+    );
+    simulatedIlpNetwork.getLeftToRightLink().unregisterLinkHandler();
+    simulatedIlpNetwork.getLeftToRightLink().registerLinkHandler(incomingPreparePacket ->
+        statefulReceiver.receiveMoney(incomingPreparePacket, RIGHT_RECEIVER_ADDRESS, rightStreamNode.denomination())
+    );
+    final StreamConnectionDetails connectionDetails = statefulReceiver.setupStream(RIGHT_RECEIVER_ADDRESS);
+    final SimpleStreamSender streamSender = new SimpleStreamSender(leftStreamNode.link());
+
+    final byte[] data = new byte[20_000];
+    new Random(1).nextBytes(data);
+    final StreamDataOutputChannel dataOutput = streamSender
+        .openDataOutputChannel(connectionDetails.destinationAddress(), connectionDetails.sharedSecret());
+    assertThat(dataOutput.write(ByteBuffer.wrap(data))).isEqualTo(data.length);
+
+    // The first payment fills the window, the second learns that reading opened it, and the third sends the rest.
+    final ByteBuffer received = ByteBuffer.allocate(data.length);
+    for (int i = 0; i < 3; i++) {
+      assertThat(sendMoneyAsync(streamSender, leftStreamNode, connectionDetails, UnsignedLong.valueOf(1000)).join()
+          .successfulPayment()).isTrue();
+      statefulReceiver.getDataInputChannel(connectionDetails.sharedSecret(), StreamConnection.DATA_STREAM_ID).get()
+          .read(received);
+    }
+
+    assertThat(received.array()).isEqualTo(data);
+    assertThat(dataOutput.bufferedBytes()).isEqualTo(0);
+    assertThat(dataOutput.hasPendingData()).isFalse();
+  }
+
   /////////////////
   // Helper Methods
   /////////////////
@@ -419,7 +613,18 @@ public class SenderReceiverTest {
   private SendMoneyResult sendMoney(
       StreamSender sender, StreamNode fromNode, StreamNode toNode, UnsignedLong paymentAmount
   ) {
-    final StreamConnectionDetails connectionDetails = toNode.getNewStreamConnectionDetails();
+    return sendMoneyAsync(sender, fromNode, toNode, paymentAmount).join();
+  }
+
+  private CompletableFuture<SendMoneyResult> sendMoneyAsync(
+      StreamSender sender, StreamNode fromNode, StreamNode toNode, UnsignedLong paymentAmount
+  ) {
+    return sendMoneyAsync(sender, fromNode, toNode.getNewStreamConnectionDetails(), paymentAmount);
+  }
+
+  private CompletableFuture<SendMoneyResult> sendMoneyAsync(
+      StreamSender sender, StreamNode fromNode, StreamConnectionDetails connectionDetails, UnsignedLong paymentAmount
+  ) {
     return sender.sendMoney(
         SendMoneyRequest.builder()
             .sourceAddress(fromNode.senderAddress())
@@ -430,8 +635,7 @@ public class SenderReceiverTest {
             .sharedSecret(connectionDetails.sharedSecret())
             .paymentTracker(new FixedSenderAmountPaymentTracker(paymentAmount, new NoOpExchangeRateCalculator()))
             .timeout(Duration.ofMillis(10000))
-            .build())
-        .join();
+            .build());
   }
 
   /**
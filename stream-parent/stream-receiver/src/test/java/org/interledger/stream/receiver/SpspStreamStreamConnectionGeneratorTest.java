@@ -1,6 +1,7 @@
 package org.interledger.stream.receiver;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import org.interledger.core.InterledgerAddress;
 import org.interledger.spsp.StreamConnectionDetails;
@@ -69,4 +70,27 @@ public class SpspStreamStreamConnectionGeneratorTest {
       throw e;
     }
   }
+
+  @Test
+  public void deriveSecretAfterServerSecretChanges() {
+    final byte[] serverSecretBytes = new byte[32];
+    final ServerSecretSupplier rotatingServerSecret = serverSecretBytes::clone;
+    InterledgerAddress receiverAddress = InterledgerAddress.of("example.receiver");
+    StreamConnectionDetails connectionDetails = connectionGenerator
+        .generateConnectionDetails(rotatingServerSecret, receiverAddress);
+    assertThat(
+        connectionGenerator.deriveSecretFromAddress(rotatingServerSecret, connectionDetails.destinationAddress())
+    ).isEqualTo(connectionDetails.sharedSecret());
+
+    serverSecretBytes[0] = 1;
+
+    assertThatThrownBy(
+        () -> connectionGenerator.deriveSecretFromAddress(rotatingServerSecret, connectionDetails.destinationAddress())
+    ).isInstanceOf(StreamException.class).hasMessage("Invalid Receiver Address (derived AuthTag failure)!");
+    StreamConnectionDetails newConnectionDetails = connectionGenerator
+        .generateConnectionDetails(rotatingServerSecret, receiverAddress);
+    assertThat(
+        connectionGenerator.deriveSecretFromAddress(rotatingServerSecret, newConnectionDetails.destinationAddress())
+    ).isEqualTo(newConnectionDetails.sharedSecret());
+  }
 }
@@ -0,0 +1,416 @@
+package org.interledger.stream.receiver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerCondition;
+import org.interledger.core.InterledgerErrorCode;
+import org.interledger.core.InterledgerFulfillPacket;
+import org.interledger.core.InterledgerPacketType;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.core.InterledgerResponsePacket;
+import org.interledger.core.SharedSecret;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.spsp.StreamConnectionDetails;
+import org.interledger.stream.Denomination;
+import org.interledger.stream.StreamConnection;
+import org.interledger.stream.StreamDataInputChannel;
+import org.interledger.stream.StreamPacket;
+import org.interledger.stream.StreamUtils;
+import org.interledger.stream.crypto.FulfillmentGenerator;
+import org.interledger.stream.crypto.JavaxStreamEncryptionService;
+import org.interledger.stream.crypto.StreamEncryptionService;
+import org.interledger.stream.frames.ConnectionCloseFrame;
+import org.interledger.stream.frames.ErrorCode;
+import org.interledger.stream.frames.ErrorCodes;
+import org.interledger.stream.frames.StreamDataFrame;
+import org.interledger.stream.frames.StreamDataMaxFrame;
+import org.interledger.stream.frames.StreamFrame;
+import org.interledger.stream.frames.StreamFrameType;
+import org.interledger.stream.frames.StreamMoneyFrame;
+import org.interledger.stream.frames.StreamMoneyMaxFrame;
+
+import com.google.common.base.Ticker;
+import com.google.common.primitives.UnsignedLong;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for {@link StatefulStreamReceiver}.
+ */
+public class StatefulStreamReceiverTest {
+
+  private static final InterledgerAddress RECEIVER_ADDRESS = InterledgerAddress.of("example.receiver");
+
+  private static final Denomination DENOMINATION = Denomination.builder()
+      .assetCode("USD")
+      .assetScale((short) 2)
+      .build();
+
+  private ServerSecretSupplier serverSecretSupplier;
+  private CodecContext streamCodecContext;
+  private StreamConnectionGenerator streamConnectionGenerator;
+  private StreamEncryptionService streamEncryptionService;
+  private AtomicLong nanos;
+  private StatefulStreamReceiver streamReceiver;
+
+  @Before
+  public void setUp() {
+    this.serverSecretSupplier = () -> new byte[32];
+    this.streamConnectionGenerator = new SpspStreamConnectionGenerator();
+    this.streamEncryptionService = new JavaxStreamEncryptionService();
+    this.streamCodecContext = StreamCodecContextFactory.oer();
+    this.nanos = new AtomicLong();
+
+    final Ticker ticker = new Ticker() {
+      @Override
+      public long read() {
+        return nanos.get();
+      }
+    };
+    this.streamReceiver = new StatefulStreamReceiver(
+        serverSecretSupplier, streamConnectionGenerator, streamEncryptionService, streamCodecContext,
+        new FulfillmentGenerator(), 10, Duration.ofMinutes(1), ticker
+    );
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void constructWithNullServerSecret() {
+    try {
+      new StatefulStreamReceiver(null, streamConnectionGenerator, streamEncryptionService, streamCodecContext);
+    } catch (NullPointerException e) {
+      assertThat(e.getMessage()).isEqualTo("serverSecretSupplier must not be null");
+      throw e;
+    }
+  }
+
+  @Test
+  public void reportsTotalReceived() throws IOException {
+    final StreamConnectionDetails connectionDetails = streamReceiver.setupStream(RECEIVER_ADDRESS);
+
+    final InterledgerResponsePacket first = receive(connectionDetails, 1, 100, moneyFrame(1, 1));
+    assertThat(first).isInstanceOf(InterledgerFulfillPacket.class);
+    assertThat(readResponse(connectionDetails, first).frames()).containsExactly(
+        moneyMaxFrame(1, 100, UnsignedLong.MAX_VALUE.longValue())
+    );
+
+    final InterledgerResponsePacket second = receive(connectionDetails, 2, 50, moneyFrame(1, 1));
+    assertThat(second).isInstanceOf(InterledgerFulfillPacket.class);
+    assertThat(readResponse(connectionDetails, second).frames()).containsExactly(
+        moneyMaxFrame(1, 150, UnsignedLong.MAX_VALUE.longValue())
+    );
+
+    assertThat(streamReceiver.getTotalReceived(connectionDetails.sharedSecret())).hasValue(UnsignedLong.valueOf(150));
+  }
+
+  @Test
+  public void opensConnectionThatWasNotSetUp() throws IOException {
+    final StreamConnectionDetails connectionDetails =
+        streamConnectionGenerator.generateConnectionDetails(serverSecretSupplier, RECEIVER_ADDRESS);
+
+    assertThat(receive(connectionDetails, 1, 100, moneyFrame(1, 1))).isInstanceOf(InterledgerFulfillPacket.class);
+    assertThat(streamReceiver.getTotalReceived(connectionDetails.sharedSecret())).hasValue(UnsignedLong.valueOf(100));
+    assertThat(streamReceiver.liveConnectionCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void splitsAmountBetweenStreamsByShares() throws IOException {
+    final StreamConnectionDetails connectionDetails = streamReceiver.setupStream(RECEIVER_ADDRESS);
+
+    final InterledgerResponsePacket response = receive(
+        connectionDetails, 1, 100, moneyFrame(3, 2), moneyFrame(1, 1)
+    );
+
+    // 100 * 1/3 rounds down to 33, and the remainder of 1 goes to the lowest-numbered stream.
+    assertThat(readResponse(connectionDetails, response).frames()).containsExactly(
+        moneyMaxFrame(3, 66, UnsignedLong.MAX_VALUE.longValue()),
+        moneyMaxFrame(1, 34, UnsignedLong.MAX_VALUE.longValue())
+    );
+  }
+
+  @Test
+  public void rejectsDuplicateSequence() throws IOException {
+    final StreamConnectionDetails connectionDetails = streamReceiver.setupStream(RECEIVER_ADDRESS);
+    receive(connectionDetails, 1, 100, moneyFrame(1, 1));
+
+    final InterledgerResponsePacket duplicate = receive(connectionDetails, 1, 100, moneyFrame(1, 1));
+
+    assertThat(duplicate).isInstanceOf(InterledgerRejectPacket.class);
+    assertThat(((InterledgerRejectPacket) duplicate).getCode()).isEqualTo(InterledgerErrorCode.F99_APPLICATION_ERROR);
+    assertThat(((InterledgerRejectPacket) duplicate).getMessage())
+        .isEqualTo("STREAM packet sequence was already fulfilled");
+    assertThat(readResponse(connectionDetails, duplicate).frames()).containsExactly(
+        moneyMaxFrame(1, 100, UnsignedLong.MAX_VALUE.longValue())
+    );
+    assertThat(streamReceiver.getTotalReceived(connectionDetails.sharedSecret())).hasValue(UnsignedLong.valueOf(100));
+  }
+
+  @Test
+  public void fulfillsSequencesOutOfOrderWithinWindow() throws IOException {
+    final StreamConnectionDetails connectionDetails = streamReceiver.setupStream(RECEIVER_ADDRESS);
+
+    assertThat(receive(connectionDetails, 100, 1, moneyFrame(1, 1))).isInstanceOf(InterledgerFulfillPacket.class);
+    assertThat(receive(connectionDetails, 37, 1, moneyFrame(1, 1))).isInstanceOf(InterledgerFulfillPacket.class);
+    assertThat(receive(connectionDetails, 37, 1, moneyFrame(1, 1))).isInstanceOf(InterledgerRejectPacket.class);
+    // 64 below the highest sequence is outside the window, so it is treated as fulfilled.
+    assertThat(receive(connectionDetails, 36, 1, moneyFrame(1, 1))).isInstanceOf(InterledgerRejectPacket.class);
+    assertThat(receive(connectionDetails, 200, 1, moneyFrame(1, 1))).isInstanceOf(InterledgerFulfillPacket.class);
+    assertThat(receive(connectionDetails, 100, 1, moneyFrame(1, 1))).isInstanceOf(InterledgerRejectPacket.class);
+
+    assertThat(streamReceiver.getTotalReceived(connectionDetails.sharedSecret())).hasValue(UnsignedLong.valueOf(3));
+  }
+
+  @Test
+  public void unfulfillablePacketIsNotCredited() throws IOException {
+    final StreamConnectionDetails connectionDetails = streamReceiver.setupStream(RECEIVER_ADDRESS);
+    final byte[] data = encrypt(connectionDetails, streamPacket(1, 100, moneyFrame(1, 1)));
+
+    final InterledgerResponsePacket response = streamReceiver.receiveMoney(
+        preparePacket(connectionDetails, 100, data, InterledgerCondition.of(new byte[32])),
+        RECEIVER_ADDRESS, DENOMINATION
+    );
+
+    assertThat(response).isInstanceOf(InterledgerRejectPacket.class);
+    assertThat(streamReceiver.getTotalReceived(connectionDetails.sharedSecret())).hasValue(UnsignedLong.ZERO);
+    // The sequence of a rejected packet can be fulfilled later.
+    assertThat(receive(connectionDetails, 1, 100, moneyFrame(1, 1))).isInstanceOf(InterledgerFulfillPacket.class);
+  }
+
+  @Test
+  public void enforcesReceiveMaxAndClosesOnCompletion() throws IOException {
+    final StreamConnectionDetails connectionDetails =
+        streamReceiver.setupStream(RECEIVER_ADDRESS, UnsignedLong.valueOf(150));
+
+    final InterledgerResponsePacket first = receive(connectionDetails, 1, 100, moneyFrame(1, 1));
+    assertThat(first).isInstanceOf(InterledgerFulfillPacket.class);
+    assertThat(readResponse(connectionDetails, first).frames()).containsExactly(moneyMaxFrame(1, 100, 150));
+
+    final InterledgerResponsePacket tooMuch = receive(connectionDetails, 2, 100, moneyFrame(1, 1));
+    assertThat(tooMuch).isInstanceOf(InterledgerRejectPacket.class);
+    assertThat(((InterledgerRejectPacket) tooMuch).getMessage())
+        .isEqualTo("STREAM packet amount exceeds the receive max of the connection");
+    assertThat(readResponse(connectionDetails, tooMuch).frames()).containsExactly(moneyMaxFrame(1, 100, 150));
+
+    final InterledgerResponsePacket last = receive(connectionDetails, 3, 50, moneyFrame(1, 1));
+    assertThat(last).isInstanceOf(InterledgerFulfillPacket.class);
+    final StreamPacket lastResponse = readResponse(connectionDetails, last);
+    assertThat(lastResponse.frames()).hasSize(2);
+    assertThat(lastResponse.frames().get(0)).isEqualTo(moneyMaxFrame(1, 150, 150));
+    assertCloseFrame(lastResponse.frames().get(1), ErrorCodes.NoError, "Connection received its receive max");
+
+    final InterledgerResponsePacket afterClose = receive(connectionDetails, 4, 0, moneyFrame(1, 1));
+    assertThat(afterClose).isInstanceOf(InterledgerRejectPacket.class);
+    assertThat(((InterledgerRejectPacket) afterClose).getMessage()).isEqualTo("STREAM connection is closed");
+    assertThat(readResponse(connectionDetails, afterClose).frames())
+        .extracting(StreamFrame::streamFrameType)
+        .containsExactly(StreamFrameType.ConnectionClose);
+    assertThat(streamReceiver.getTotalReceived(connectionDetails.sharedSecret())).hasValue(UnsignedLong.valueOf(150));
+  }
+
+  @Test
+  public void closesConnectionClosedBySender() throws IOException {
+    final StreamConnectionDetails connectionDetails = streamReceiver.setupStream(RECEIVER_ADDRESS);
+
+    final InterledgerResponsePacket closing = receive(
+        connectionDetails, 1, 100, moneyFrame(1, 1),
+        ConnectionCloseFrame.builder().errorCode(ErrorCodes.NoError).build()
+    );
+    assertThat(closing).isInstanceOf(InterledgerFulfillPacket.class);
+
+    assertThat(receive(connectionDetails, 2, 100, moneyFrame(1, 1))).isInstanceOf(InterledgerRejectPacket.class);
+    assertThat(streamReceiver.getTotalReceived(connectionDetails.sharedSecret())).hasValue(UnsignedLong.valueOf(100));
+  }
+
+  @Test
+  public void closesConnectionWhenSequenceTooHighForSafeEncryption() throws IOException {
+    final StreamConnectionDetails connectionDetails = streamReceiver.setupStream(RECEIVER_ADDRESS);
+
+    final InterledgerResponsePacket response = receive(
+        connectionDetails, StreamConnection.MAX_FRAMES_PER_CONNECTION.longValue(), 100, moneyFrame(1, 1)
+    );
+
+    assertThat(response).isInstanceOf(InterledgerRejectPacket.class);
+    final StreamPacket streamPacket = readResponse(connectionDetails, response);
+    assertThat(streamPacket.frames()).hasSize(1);
+    assertCloseFrame(
+        streamPacket.frames().get(0), ErrorCodes.ProtocolViolation, "Sequence number was too high for safe encryption"
+    );
+    assertThat(receive(connectionDetails, 1, 100, moneyFrame(1, 1))).isInstanceOf(InterledgerRejectPacket.class);
+  }
+
+  @Test
+  public void evictsIdleConnection() throws IOException {
+    final StreamConnectionDetails idleConnection =
+        streamReceiver.setupStream(RECEIVER_ADDRESS, UnsignedLong.valueOf(100));
+    final StreamConnectionDetails busyConnection = streamReceiver.setupStream(RECEIVER_ADDRESS);
+
+    nanos.addAndGet(Duration.ofSeconds(45).toNanos());
+    receive(busyConnection, 1, 100, moneyFrame(1, 1));
+    nanos.addAndGet(Duration.ofSeconds(15).toNanos());
+
+    assertThat(streamReceiver.liveConnectionCount()).isEqualTo(1);
+    assertThat(streamReceiver.stats().evictionCount()).isEqualTo(1);
+    assertThat(streamReceiver.getTotalReceived(idleConnection.sharedSecret())).isEmpty();
+    assertThat(streamReceiver.getTotalReceived(busyConnection.sharedSecret())).hasValue(UnsignedLong.valueOf(100));
+  }
+
+  @Test
+  public void keepsTableBounded() throws IOException {
+    for (int i = 0; i < 100; i++) {
+      receive(streamReceiver.setupStream(RECEIVER_ADDRESS), 1, 1, moneyFrame(1, 1));
+    }
+
+    assertThat(streamReceiver.liveConnectionCount()).isEqualTo(10);
+    assertThat(streamReceiver.stats().evictionCount()).isEqualTo(90);
+  }
+
+  @Test
+  public void receivesDataOfFulfilledPacketsInOrder() throws IOException {
+    final StreamConnectionDetails connectionDetails = streamReceiver.setupStream(RECEIVER_ADDRESS);
+
+    final InterledgerResponsePacket second = receive(connectionDetails, 2, 1, moneyFrame(1, 1), dataFrame(1, 3, "def"));
+    assertThat(second).isInstanceOf(InterledgerFulfillPacket.class);
+    assertThat(readResponse(connectionDetails, second).frames()).containsExactly(
+        moneyMaxFrame(1, 1, UnsignedLong.MAX_VALUE.longValue()),
+        dataMaxFrame(1, StreamDataInputChannel.DEFAULT_WINDOW_SIZE)
+    );
+    // Data of a packet that is not fulfilled is not received.
+    assertThat(receive(connectionDetails, 2, 1, moneyFrame(1, 1), dataFrame(1, 0, "x")))
+        .isInstanceOf(InterledgerRejectPacket.class);
+
+    final StreamDataInputChannel dataInput =
+        streamReceiver.getDataInputChannel(connectionDetails.sharedSecret(), UnsignedLong.ONE).get();
+    assertThat(dataInput.available()).isEqualTo(0);
+
+    receive(connectionDetails, 1, 1, moneyFrame(1, 1), dataFrame(1, 0, "abc"));
+    final ByteBuffer destination = ByteBuffer.allocate(10);
+    assertThat(dataInput.read(destination)).isEqualTo(6);
+    assertThat(new String(destination.array(), 0, 6)).isEqualTo("abcdef");
+
+    final InterledgerResponsePacket third = receive(connectionDetails, 3, 1, moneyFrame(1, 1));
+    // No data, so no window is reported.
+    assertThat(readResponse(connectionDetails, third).frames()).containsExactly(
+        moneyMaxFrame(1, 3, UnsignedLong.MAX_VALUE.longValue())
+    );
+  }
+
+  @Test
+  public void rejectsDataBeyondWindow() throws IOException {
+    final StreamConnectionDetails connectionDetails = streamReceiver.setupStream(RECEIVER_ADDRESS);
+
+    final InterledgerResponsePacket response = receive(
+        connectionDetails, 1, 100, moneyFrame(1, 1), dataFrame(1, StreamDataInputChannel.DEFAULT_WINDOW_SIZE - 1, "ab")
+    );
+
+    assertThat(response).isInstanceOf(InterledgerRejectPacket.class);
+    assertThat(((InterledgerRejectPacket) response).getMessage())
+        .isEqualTo("STREAM packet data exceeds the data max of the stream");
+    assertThat(readResponse(connectionDetails, response).frames()).containsExactly(
+        moneyMaxFrame(1, 0, UnsignedLong.MAX_VALUE.longValue()),
+        dataMaxFrame(1, StreamDataInputChannel.DEFAULT_WINDOW_SIZE)
+    );
+    assertThat(streamReceiver.getTotalReceived(connectionDetails.sharedSecret())).hasValue(UnsignedLong.ZERO);
+    assertThat(streamReceiver.getDataInputChannel(connectionDetails.sharedSecret(), UnsignedLong.ONE).get().available())
+        .isEqualTo(0);
+  }
+
+  private InterledgerResponsePacket receive(
+      final StreamConnectionDetails connectionDetails, final long sequence, final long amount,
+      final StreamFrame... frames
+  ) throws IOException {
+    final byte[] data = encrypt(connectionDetails, streamPacket(sequence, amount, frames));
+    final InterledgerCondition executionCondition = StreamUtils
+        .generatedFulfillableFulfillment(connectionDetails.sharedSecret(), data)
+        .getCondition();
+    return streamReceiver.receiveMoney(
+        preparePacket(connectionDetails, amount, data, executionCondition), RECEIVER_ADDRESS, DENOMINATION
+    );
+  }
+
+  private StreamPacket streamPacket(final long sequence, final long amount, final StreamFrame... frames) {
+    return StreamPacket.builder()
+        .interledgerPacketType(InterledgerPacketType.PREPARE)
+        .prepareAmount(UnsignedLong.valueOf(amount))
+        .sequence(UnsignedLong.valueOf(sequence))
+        .addFrames(frames)
+        .build();
+  }
+
+  private InterledgerPreparePacket preparePacket(
+      final StreamConnectionDetails connectionDetails, final long amount, final byte[] data,
+      final InterledgerCondition executionCondition
+  ) {
+    return InterledgerPreparePacket.builder()
+        .destination(connectionDetails.destinationAddress())
+        .amount(UnsignedLong.valueOf(amount))
+        .expiresAt(Instant.EPOCH)
+        .data(data)
+        .executionCondition(executionCondition)
+        .build();
+  }
+
+  private byte[] encrypt(final StreamConnectionDetails connectionDetails, final StreamPacket streamPacket)
+      throws IOException {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    streamCodecContext.write(streamPacket, baos);
+    return streamEncryptionService.encrypt(connectionDetails.sharedSecret(), baos.toByteArray());
+  }
+
+  private StreamPacket readResponse(
+      final StreamConnectionDetails connectionDetails, final InterledgerResponsePacket responsePacket
+  ) throws IOException {
+    final SharedSecret sharedSecret = connectionDetails.sharedSecret();
+    final byte[] streamPacketBytes = streamEncryptionService.decrypt(sharedSecret, responsePacket.getData());
+    return streamCodecContext.read(StreamPacket.class, new ByteArrayInputStream(streamPacketBytes));
+  }
+
+  /**
+   * A decoded {@link ConnectionCloseFrame} holds its own {@link ErrorCode}, which is not equal to {@link ErrorCodes}.
+   */
+  private void assertCloseFrame(final StreamFrame streamFrame, final ErrorCode errorCode, final String errorMessage) {
+    assertThat(streamFrame).isInstanceOf(ConnectionCloseFrame.class);
+    final ConnectionCloseFrame closeFrame = (ConnectionCloseFrame) streamFrame;
+    assertThat(closeFrame.errorCode().code()).isEqualTo(errorCode.code());
+    assertThat(closeFrame.errorMessage()).hasValue(errorMessage);
+  }
+
+  private StreamMoneyFrame moneyFrame(final long streamId, final long shares) {
+    return StreamMoneyFrame.builder()
+        .streamId(UnsignedLong.valueOf(streamId))
+        .shares(UnsignedLong.valueOf(shares))
+        .build();
+  }
+
+  private StreamDataFrame dataFrame(final long streamId, final long offset, final String data) {
+    return StreamDataFrame.builder()
+        .streamId(UnsignedLong.valueOf(streamId))
+        .offset(UnsignedLong.valueOf(offset))
+        .data(data.getBytes())
+        .build();
+  }
+
+  private StreamDataMaxFrame dataMaxFrame(final long streamId, final long maxOffset) {
+    return StreamDataMaxFrame.builder()
+        .streamId(UnsignedLong.valueOf(streamId))
+        .maxOffset(UnsignedLong.valueOf(maxOffset))
+        .build();
+  }
+
+  private StreamMoneyMaxFrame moneyMaxFrame(final long streamId, final long totalReceived, final long receiveMax) {
+    return StreamMoneyMaxFrame.builder()
+        .streamId(UnsignedLong.valueOf(streamId))
+        .totalReceived(UnsignedLong.fromLongBits(totalReceived))
+        .receiveMax(UnsignedLong.fromLongBits(receiveMax))
+        .build();
+  }
+}
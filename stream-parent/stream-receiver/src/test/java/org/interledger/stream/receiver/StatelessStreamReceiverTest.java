@@ -5,15 +5,18 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.interledger.codecs.stream.StreamCodecContextFactory;
 import org.interledger.core.InterledgerAddress;
 import org.interledger.core.InterledgerCondition;
 import org.interledger.core.InterledgerErrorCode;
+import org.interledger.core.InterledgerFulfillPacket;
 import org.interledger.core.InterledgerPacketType;
 import org.interledger.core.InterledgerPreparePacket;
 import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.core.InterledgerResponsePacket;
 import org.interledger.core.SharedSecret;
 import org.interledger.encoding.asn.framework.CodecContext;
 import org.interledger.spsp.StreamConnectionDetails;
@@ -22,6 +25,7 @@ import org.interledger.stream.StreamConnection;
 import org.interledger.stream.StreamException;
 import org.interledger.stream.StreamPacket;
 import org.interledger.stream.StreamUtils;
+import org.interledger.stream.crypto.FulfillmentGenerator;
 import org.interledger.stream.crypto.JavaxStreamEncryptionService;
 import org.interledger.stream.crypto.StreamEncryptionService;
 import org.interledger.stream.frames.ConnectionAssetDetailsFrame;
@@ -42,8 +46,14 @@ import org.mockito.stubbing.Answer;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Unit tests for {@link StatelessStreamReceiver}.
@@ -258,7 +268,7 @@ public class StatelessStreamReceiverTest {
         serverSecretSupplier, streamConnectionGenerator, streamEncryptionService, mockCodecContext
     );
 
-    when(mockCodecContext.read(any(), any())).thenThrow(new IOException());
+    when(mockCodecContext.read(any(), any(InputStream.class))).thenThrow(new IOException());
 
     InterledgerRejectPacket expected = InterledgerRejectPacket.builder()
         .code(InterledgerErrorCode.F06_UNEXPECTED_PAYMENT)
@@ -282,10 +292,10 @@ public class StatelessStreamReceiverTest {
         serverSecretSupplier, streamConnectionGenerator, streamEncryptionService, mockCodecContext
     );
 
-    when(mockCodecContext.read(any(), any())).thenAnswer((Answer<StreamPacket>) invocation ->
-        streamCodecContext.read(invocation.getArgument(0), invocation.getArgument(1)));
+    when(mockCodecContext.read(any(), any(InputStream.class))).thenAnswer((Answer<Object>) invocation ->
+        streamCodecContext.read(invocation.getArgument(0), invocation.<InputStream>getArgument(1)));
 
-    doThrow(new IOException()).when(mockCodecContext).write(any(), any());
+    doThrow(new IOException()).when(mockCodecContext).write(any(), any(OutputStream.class));
 
     expectedException.expect(StreamException.class);
     final InterledgerPreparePacket preparePacket = createPreparePacket(InterledgerCondition.of(new byte[32]));
@@ -301,10 +311,10 @@ public class StatelessStreamReceiverTest {
         serverSecretSupplier, streamConnectionGenerator, streamEncryptionService, mockCodecContext
     );
 
-    when(mockCodecContext.read(any(), any())).thenAnswer((Answer<StreamPacket>) invocation ->
-        streamCodecContext.read(invocation.getArgument(0), invocation.getArgument(1)));
+    when(mockCodecContext.read(any(), any(InputStream.class))).thenAnswer((Answer<Object>) invocation ->
+        streamCodecContext.read(invocation.getArgument(0), invocation.<InputStream>getArgument(1)));
 
-    doThrow(new IOException()).when(mockCodecContext).write(any(), any());
+    doThrow(new IOException()).when(mockCodecContext).write(any(), any(OutputStream.class));
     expectedException.expect(StreamException.class);
 
     StreamPacket unfulfillableStreamPacket = createStreamPacket(UnsignedLong.ONE);
@@ -403,6 +413,203 @@ public class StatelessStreamReceiverTest {
     );
   }
 
+  @Test
+  public void prebuiltResponsesMatchCodecResponses() throws IOException {
+    this.connectionDetails = streamConnectionGenerator.generateConnectionDetails(serverSecretSupplier, CLIENT_ADDRESS);
+    final SharedSecret sharedSecret = SharedSecret.of(connectionDetails.sharedSecret().key());
+
+    final StreamReceiver codecStreamReceiver = new StatelessStreamReceiver(
+        serverSecretSupplier, streamConnectionGenerator, streamEncryptionService, streamCodecContext
+    );
+    final StreamReceiver prebuiltStreamReceiver = new StatelessStreamReceiver(
+        serverSecretSupplier, streamConnectionGenerator, streamEncryptionService, streamCodecContext,
+        new FulfillmentGenerator(), true
+    );
+
+    final StreamPacket newAddressStreamPacket = StreamPacket.builder()
+        .from(createStreamPacket(UnsignedLong.ZERO))
+        .addFrames(ConnectionNewAddressFrame.builder().sourceAddress(CLIENT_ADDRESS).build())
+        .build();
+    final StreamPacket unsafeSequenceStreamPacket = StreamPacket.builder()
+        .from(createStreamPacket(UnsignedLong.ZERO))
+        .sequence(StreamConnection.MAX_FRAMES_PER_CONNECTION)
+        .build();
+
+    for (StreamPacket streamPacket : new StreamPacket[] {newAddressStreamPacket, unsafeSequenceStreamPacket}) {
+      final byte[] encryptedStreamPacketBytes = createEncryptedStreamPacketBytes(streamPacket);
+      final InterledgerCondition fulfillableCondition = StreamUtils
+          .generatedFulfillableFulfillment(sharedSecret, encryptedStreamPacketBytes)
+          .getCondition();
+
+      // One Prepare that is fulfilled, and one that is rejected because its condition does not match.
+      for (InterledgerCondition executionCondition : new InterledgerCondition[] {
+          fulfillableCondition, InterledgerCondition.of(new byte[32])
+      }) {
+        final InterledgerPreparePacket preparePacket = InterledgerPreparePacket.builder()
+            .destination(connectionDetails.destinationAddress())
+            .amount(UnsignedLong.valueOf(100L))
+            .expiresAt(Instant.EPOCH)
+            .data(encryptedStreamPacketBytes)
+            .executionCondition(executionCondition)
+            .build();
+
+        final InterledgerResponsePacket codecResponse =
+            codecStreamReceiver.receiveMoney(preparePacket, CLIENT_ADDRESS, DENOMINATION);
+        final InterledgerResponsePacket prebuiltResponse =
+            prebuiltStreamReceiver.receiveMoney(preparePacket, CLIENT_ADDRESS, DENOMINATION);
+
+        assertThat(prebuiltResponse.getClass()).isEqualTo(codecResponse.getClass());
+        assertThat(streamEncryptionService.decrypt(sharedSecret, prebuiltResponse.getData()))
+            .isEqualTo(streamEncryptionService.decrypt(sharedSecret, codecResponse.getData()));
+      }
+    }
+  }
+
+  @Test
+  public void receiveMoneyBatchReturnsResponsesInOrder() throws IOException {
+    assertReceiveMoneyBatchReturnsResponsesInOrder(10);
+  }
+
+  @Test
+  public void receiveMoneyBatchReturnsResponsesInOrderInParallel() throws IOException {
+    assertReceiveMoneyBatchReturnsResponsesInOrder(StatelessStreamReceiver.PARALLEL_BATCH_THRESHOLD);
+  }
+
+  private void assertReceiveMoneyBatchReturnsResponsesInOrder(final int packetsPerConnection) throws IOException {
+    streamReceiver = new StatelessStreamReceiver(
+        serverSecretSupplier, streamConnectionGenerator, streamEncryptionService, streamCodecContext
+    );
+
+    final List<InterledgerPreparePacket> preparePackets = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      final StreamConnectionDetails details =
+          streamConnectionGenerator.generateConnectionDetails(serverSecretSupplier, CLIENT_ADDRESS);
+      for (int j = 0; j < packetsPerConnection; j++) {
+        // Every third packet is rejected.
+        preparePackets.add(createPreparePacket(details, (i + j) % 3 != 0));
+      }
+    }
+
+    final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+    try {
+      final List<InterledgerResponsePacket> responses =
+          streamReceiver.receiveMoneyBatch(preparePackets, CLIENT_ADDRESS, DENOMINATION, forkJoinPool);
+
+      assertThat(responses).hasSize(preparePackets.size());
+      for (int i = 0; i < preparePackets.size(); i++) {
+        final InterledgerResponsePacket expected =
+            streamReceiver.receiveMoney(preparePackets.get(i), CLIENT_ADDRESS, DENOMINATION);
+        assertThat(responses.get(i)).as("response " + i).isInstanceOf(expected.getClass());
+        if (expected instanceof InterledgerFulfillPacket) {
+          assertThat(((InterledgerFulfillPacket) responses.get(i)).getFulfillment())
+              .isEqualTo(((InterledgerFulfillPacket) expected).getFulfillment());
+        }
+      }
+    } finally {
+      forkJoinPool.shutdown();
+    }
+  }
+
+  @Test
+  public void receiveMoneyBatchDerivesEachSharedSecretOnce() throws IOException {
+    assertReceiveMoneyBatchDerivesEachSharedSecretOnce(8);
+  }
+
+  @Test
+  public void receiveMoneyBatchDerivesEachSharedSecretOnceInParallel() throws IOException {
+    assertReceiveMoneyBatchDerivesEachSharedSecretOnce(StatelessStreamReceiver.PARALLEL_BATCH_THRESHOLD);
+  }
+
+  private void assertReceiveMoneyBatchDerivesEachSharedSecretOnce(final int batchSize) throws IOException {
+    final StreamConnectionGenerator spyConnectionGenerator = Mockito.spy(streamConnectionGenerator);
+    streamReceiver = new StatelessStreamReceiver(
+        serverSecretSupplier, spyConnectionGenerator, streamEncryptionService, streamCodecContext
+    );
+
+    final StreamConnectionDetails firstDetails =
+        streamConnectionGenerator.generateConnectionDetails(serverSecretSupplier, CLIENT_ADDRESS);
+    final StreamConnectionDetails secondDetails =
+        streamConnectionGenerator.generateConnectionDetails(serverSecretSupplier, CLIENT_ADDRESS);
+    final List<InterledgerPreparePacket> preparePackets = new ArrayList<>();
+    for (int i = 0; i < batchSize; i++) {
+      preparePackets.add(createPreparePacket(i % 2 == 0 ? firstDetails : secondDetails, true));
+    }
+
+    final List<InterledgerResponsePacket> responses =
+        streamReceiver.receiveMoneyBatch(preparePackets, CLIENT_ADDRESS, DENOMINATION);
+
+    assertThat(responses).hasSize(batchSize).allMatch(response -> response instanceof InterledgerFulfillPacket);
+    verify(spyConnectionGenerator)
+        .deriveSecretFromAddress(serverSecretSupplier, firstDetails.destinationAddress());
+    verify(spyConnectionGenerator)
+        .deriveSecretFromAddress(serverSecretSupplier, secondDetails.destinationAddress());
+  }
+
+  @Test
+  public void receiveMoneyBatchRejectsPacketsThatCannotBeReceived() throws IOException {
+    assertReceiveMoneyBatchRejectsPacketsThatCannotBeReceived(9);
+  }
+
+  @Test
+  public void receiveMoneyBatchRejectsPacketsThatCannotBeReceivedInParallel() throws IOException {
+    assertReceiveMoneyBatchRejectsPacketsThatCannotBeReceived(StatelessStreamReceiver.PARALLEL_BATCH_THRESHOLD);
+  }
+
+  private void assertReceiveMoneyBatchRejectsPacketsThatCannotBeReceived(final int batchSize) throws IOException {
+    streamReceiver = new StatelessStreamReceiver(
+        serverSecretSupplier, streamConnectionGenerator, streamEncryptionService, streamCodecContext
+    );
+
+    final InterledgerPreparePacket preparePacket = createPreparePacket(connectionDetails, true);
+    // A destination address that another receiver generated, so deriving its shared secret throws.
+    final ServerSecretSupplier otherServerSecretSupplier = () -> new byte[] {
+        1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30,
+        31, 32
+    };
+    final InterledgerPreparePacket unknownDestinationPacket = InterledgerPreparePacket.builder().from(preparePacket)
+        .destination(streamConnectionGenerator
+            .generateConnectionDetails(otherServerSecretSupplier, CLIENT_ADDRESS)
+            .destinationAddress())
+        .build();
+    // Data that was not encrypted with the shared secret of the destination, so decrypting it throws.
+    final InterledgerPreparePacket undecryptablePacket = InterledgerPreparePacket.builder().from(preparePacket)
+        .data(new byte[32])
+        .build();
+    final List<InterledgerPreparePacket> preparePackets = new ArrayList<>();
+    for (int i = 0; i < batchSize; i++) {
+      preparePackets.add(i % 3 == 0 ? preparePacket : i % 3 == 1 ? unknownDestinationPacket : undecryptablePacket);
+    }
+
+    final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+    try {
+      final List<InterledgerResponsePacket> responses =
+          streamReceiver.receiveMoneyBatch(preparePackets, CLIENT_ADDRESS, DENOMINATION, forkJoinPool);
+
+      assertThat(responses).hasSize(batchSize);
+      for (int i = 0; i < batchSize; i++) {
+        if (i % 3 == 0) {
+          assertThat(responses.get(i)).as("response " + i).isInstanceOf(InterledgerFulfillPacket.class);
+        } else {
+          assertThat(responses.get(i)).as("response " + i).isInstanceOf(InterledgerRejectPacket.class);
+          assertThat(((InterledgerRejectPacket) responses.get(i)).getCode())
+              .isEqualTo(InterledgerErrorCode.F06_UNEXPECTED_PAYMENT);
+          assertThat(((InterledgerRejectPacket) responses.get(i)).getTriggeredBy()).hasValue(CLIENT_ADDRESS);
+        }
+      }
+    } finally {
+      forkJoinPool.shutdown();
+    }
+  }
+
+  @Test
+  public void receiveMoneyBatchOfNoPackets() {
+    streamReceiver = new StatelessStreamReceiver(
+        serverSecretSupplier, streamConnectionGenerator, streamEncryptionService, streamCodecContext
+    );
+
+    assertThat(streamReceiver.receiveMoneyBatch(Collections.emptyList(), CLIENT_ADDRESS, DENOMINATION)).isEmpty();
+  }
+
   private StreamPacket createStreamPacket(UnsignedLong prepareAmount) {
     return StreamPacket.builder()
         .interledgerPacketType(InterledgerPacketType.PREPARE)
@@ -428,6 +635,25 @@ public class StatelessStreamReceiverTest {
         .build();
   }
 
+  private InterledgerPreparePacket createPreparePacket(
+      final StreamConnectionDetails details, final boolean fulfillable
+  ) throws IOException {
+    final SharedSecret sharedSecret = SharedSecret.of(details.sharedSecret().key());
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    streamCodecContext.write(createStreamPacket(UnsignedLong.ZERO), baos);
+    final byte[] encryptedStreamPacketBytes = streamEncryptionService.encrypt(sharedSecret, baos.toByteArray());
+
+    return InterledgerPreparePacket.builder()
+        .destination(details.destinationAddress())
+        .amount(UnsignedLong.valueOf(100L))
+        .expiresAt(Instant.EPOCH)
+        .data(encryptedStreamPacketBytes)
+        .executionCondition(fulfillable
+            ? StreamUtils.generatedFulfillableFulfillment(sharedSecret, encryptedStreamPacketBytes).getCondition()
+            : InterledgerCondition.of(new byte[32]))
+        .build();
+  }
+
   private byte[] createEncryptedStreamPacketBytes(StreamPacket testStreamPacket) throws IOException {
     final ByteArrayOutputStream baos = new ByteArrayOutputStream();
     streamCodecContext.write(testStreamPacket, baos);
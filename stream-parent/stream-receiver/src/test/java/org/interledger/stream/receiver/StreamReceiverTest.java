@@ -0,0 +1,91 @@
+package org.interledger.stream.receiver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.interledger.core.InterledgerAddress;
+import org.interledger.core.InterledgerCondition;
+import org.interledger.core.InterledgerErrorCode;
+import org.interledger.core.InterledgerFulfillPacket;
+import org.interledger.core.InterledgerFulfillment;
+import org.interledger.core.InterledgerPreparePacket;
+import org.interledger.core.InterledgerRejectPacket;
+import org.interledger.core.InterledgerResponsePacket;
+import org.interledger.spsp.StreamConnectionDetails;
+import org.interledger.stream.Denomination;
+import org.interledger.stream.StreamException;
+
+import com.google.common.primitives.UnsignedLong;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unit tests for the default methods of {@link StreamReceiver}.
+ */
+public class StreamReceiverTest {
+
+  private static final InterledgerAddress CLIENT_ADDRESS = InterledgerAddress.of("example.destination");
+
+  private static final Denomination DENOMINATION = Denomination.builder()
+      .assetCode("USD")
+      .assetScale((short) 2)
+      .build();
+
+  /**
+   * A {@link StreamReceiver} that fulfills every packet, except that it throws for a packet of no amount.
+   */
+  private final StreamReceiver streamReceiver = new StreamReceiver() {
+    @Override
+    public StreamConnectionDetails setupStream(final InterledgerAddress receiverAddress) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public InterledgerResponsePacket receiveMoney(
+        final InterledgerPreparePacket preparePacket, final InterledgerAddress clientAddress,
+        final Denomination denomination
+    ) {
+      if (preparePacket.getAmount().equals(UnsignedLong.ZERO)) {
+        throw new StreamException("Invalid Receiver Address (derived AuthTag failure)!");
+      }
+      return InterledgerFulfillPacket.builder()
+          .fulfillment(InterledgerFulfillment.of(new byte[32]))
+          .build();
+    }
+  };
+
+  @Test
+  public void receiveMoneyBatchRejectsPacketsThatCannotBeReceived() {
+    final List<InterledgerPreparePacket> preparePackets = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      preparePackets.add(InterledgerPreparePacket.builder()
+          .destination(CLIENT_ADDRESS)
+          .amount(UnsignedLong.valueOf(i % 2))
+          .expiresAt(Instant.EPOCH)
+          .executionCondition(InterledgerCondition.of(new byte[32]))
+          .build());
+    }
+
+    final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+    try {
+      final List<InterledgerResponsePacket> responses =
+          streamReceiver.receiveMoneyBatch(preparePackets, CLIENT_ADDRESS, DENOMINATION, forkJoinPool);
+
+      assertThat(responses).hasSize(preparePackets.size());
+      for (int i = 0; i < preparePackets.size(); i++) {
+        if (i % 2 == 1) {
+          assertThat(responses.get(i)).as("response " + i).isInstanceOf(InterledgerFulfillPacket.class);
+        } else {
+          assertThat(responses.get(i)).as("response " + i).isInstanceOf(InterledgerRejectPacket.class);
+          assertThat(((InterledgerRejectPacket) responses.get(i)).getCode())
+              .isEqualTo(InterledgerErrorCode.F06_UNEXPECTED_PAYMENT);
+        }
+      }
+    } finally {
+      forkJoinPool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,177 @@
+package org.interledger.stream.receiver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.interledger.codecs.stream.StreamCodecContextFactory;
+import org.interledger.core.InterledgerPacketType;
+import org.interledger.core.SharedSecret;
+import org.interledger.encoding.asn.framework.CodecContext;
+import org.interledger.stream.Denomination;
+import org.interledger.stream.StreamPacket;
+import org.interledger.stream.StreamPacketBuilder;
+import org.interledger.stream.crypto.CachingStreamEncryptionService;
+import org.interledger.stream.crypto.JavaxStreamEncryptionService;
+import org.interledger.stream.crypto.StreamEncryptionService;
+import org.interledger.stream.frames.ConnectionAssetDetailsFrame;
+import org.interledger.stream.frames.ConnectionCloseFrame;
+import org.interledger.stream.frames.ErrorCodes;
+import org.interledger.stream.frames.StreamMoneyMaxFrame;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.UnsignedLong;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Unit tests for {@link StreamResponseEncoder}.
+ */
+public class StreamResponseEncoderTest {
+
+  private static final SharedSecret SHARED_SECRET = SharedSecret.of(new byte[32]);
+
+  private static final Denomination DENOMINATION = Denomination.builder()
+      .assetCode("XRP")
+      .assetScale((short) 9)
+      .build();
+
+  private CodecContext streamCodecContext;
+  private StreamEncryptionService streamEncryptionService;
+  private StreamResponseEncoder streamResponseEncoder;
+
+  @Before
+  public void setUp() {
+    this.streamCodecContext = StreamCodecContextFactory.oer();
+    this.streamEncryptionService = new CachingStreamEncryptionService();
+    this.streamResponseEncoder = new StreamResponseEncoder(streamEncryptionService);
+  }
+
+  @Test
+  public void encodesMoneyMaxAndAssetDetailsFrames() throws IOException {
+    final List<UnsignedLong> streamIds = ImmutableList.of(UnsignedLong.ONE, UnsignedLong.valueOf(300));
+
+    final byte[] response = streamResponseEncoder.encode(
+        SHARED_SECRET, InterledgerPacketType.FULFILL, UnsignedLong.valueOf(7), UnsignedLong.valueOf(1000),
+        streamIds, Optional.of(DENOMINATION)
+    );
+
+    assertThat(streamEncryptionService.decrypt(SHARED_SECRET, response)).isEqualTo(write(StreamPacket.builder()
+        .interledgerPacketType(InterledgerPacketType.FULFILL)
+        .sequence(UnsignedLong.valueOf(7))
+        .prepareAmount(UnsignedLong.valueOf(1000))
+        .addFrames(moneyMaxFrame(UnsignedLong.ONE), moneyMaxFrame(UnsignedLong.valueOf(300)))
+        .addFrames(ConnectionAssetDetailsFrame.builder().sourceDenomination(DENOMINATION).build())
+        .build()));
+  }
+
+  @Test
+  public void encodesResponseWithoutFrames() throws IOException {
+    final byte[] response = streamResponseEncoder.encode(
+        SHARED_SECRET, InterledgerPacketType.REJECT, UnsignedLong.MAX_VALUE, UnsignedLong.ZERO,
+        Collections.emptyList(), Optional.empty()
+    );
+
+    assertThat(streamEncryptionService.decrypt(SHARED_SECRET, response)).isEqualTo(write(StreamPacket.builder()
+        .interledgerPacketType(InterledgerPacketType.REJECT)
+        .sequence(UnsignedLong.MAX_VALUE)
+        .prepareAmount(UnsignedLong.ZERO)
+        .build()));
+  }
+
+  @Test
+  public void encodesAssetDetailsOfEachDenomination() throws IOException {
+    final Denomination otherDenomination = Denomination.builder()
+        .assetCode("USD")
+        .assetScale((short) 2)
+        .build();
+
+    for (Denomination denomination : ImmutableList.of(DENOMINATION, otherDenomination, DENOMINATION)) {
+      final byte[] response = streamResponseEncoder.encode(
+          SHARED_SECRET, InterledgerPacketType.FULFILL, UnsignedLong.ONE, UnsignedLong.ONE,
+          Collections.emptyList(), Optional.of(denomination)
+      );
+
+      assertThat(streamEncryptionService.decrypt(SHARED_SECRET, response)).isEqualTo(write(StreamPacket.builder()
+          .interledgerPacketType(InterledgerPacketType.FULFILL)
+          .sequence(UnsignedLong.ONE)
+          .prepareAmount(UnsignedLong.ONE)
+          .addFrames(ConnectionAssetDetailsFrame.builder().sourceDenomination(denomination).build())
+          .build()));
+    }
+  }
+
+  @Test
+  public void growsBufferForManyFrames() throws IOException {
+    final List<UnsignedLong> streamIds = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      streamIds.add(UnsignedLong.valueOf(i * 1_000_000L));
+    }
+
+    final byte[] response = streamResponseEncoder.encode(
+        SHARED_SECRET, InterledgerPacketType.FULFILL, UnsignedLong.ONE, UnsignedLong.ONE, streamIds, Optional.empty()
+    );
+
+    final StreamPacketBuilder expected = StreamPacket.builder()
+        .interledgerPacketType(InterledgerPacketType.FULFILL)
+        .sequence(UnsignedLong.ONE)
+        .prepareAmount(UnsignedLong.ONE);
+    streamIds.forEach(streamId -> expected.addFrames(moneyMaxFrame(streamId)));
+    assertThat(streamEncryptionService.decrypt(SHARED_SECRET, response)).isEqualTo(write(expected.build()));
+  }
+
+  @Test
+  public void encodesConnectionClose() throws IOException {
+    final ConnectionCloseFrame connectionCloseFrame = ConnectionCloseFrame.builder()
+        .errorCode(ErrorCodes.ProtocolViolation)
+        .errorMessage("Sequence number was to too high for safe encryption")
+        .build();
+
+    final byte[] response = streamResponseEncoder.encodeConnectionClose(
+        SHARED_SECRET, InterledgerPacketType.REJECT, UnsignedLong.valueOf(1L << 31), UnsignedLong.valueOf(10),
+        connectionCloseFrame
+    );
+
+    assertThat(streamEncryptionService.decrypt(SHARED_SECRET, response)).isEqualTo(write(StreamPacket.builder()
+        .interledgerPacketType(InterledgerPacketType.REJECT)
+        .sequence(UnsignedLong.valueOf(1L << 31))
+        .prepareAmount(UnsignedLong.valueOf(10))
+        .addFrames(connectionCloseFrame)
+        .build()));
+  }
+
+  @Test
+  public void encryptsWithAnyEncryptionService() throws IOException {
+    final StreamEncryptionService javaxStreamEncryptionService = new JavaxStreamEncryptionService();
+    final byte[] response = new StreamResponseEncoder(javaxStreamEncryptionService).encode(
+        SHARED_SECRET, InterledgerPacketType.FULFILL, UnsignedLong.ONE, UnsignedLong.ONE,
+        ImmutableList.of(UnsignedLong.ONE), Optional.empty()
+    );
+
+    assertThat(javaxStreamEncryptionService.decrypt(SHARED_SECRET, response)).isEqualTo(write(StreamPacket.builder()
+        .interledgerPacketType(InterledgerPacketType.FULFILL)
+        .sequence(UnsignedLong.ONE)
+        .prepareAmount(UnsignedLong.ONE)
+        .addFrames(moneyMaxFrame(UnsignedLong.ONE))
+        .build()));
+  }
+
+  private byte[] write(final StreamPacket streamPacket) throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    streamCodecContext.write(streamPacket, outputStream);
+    return outputStream.toByteArray();
+  }
+
+  private static StreamMoneyMaxFrame moneyMaxFrame(final UnsignedLong streamId) {
+    return StreamMoneyMaxFrame.builder()
+        .streamId(streamId)
+        .totalReceived(UnsignedLong.ZERO)
+        .receiveMax(UnsignedLong.MAX_VALUE)
+        .build();
+  }
+}